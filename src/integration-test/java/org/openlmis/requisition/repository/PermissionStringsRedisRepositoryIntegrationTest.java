@@ -0,0 +1,78 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.UUID;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.requisition.repository.custom.PermissionStringsRedisRepository;
+import org.openlmis.requisition.repository.custom.SharedPermissionStrings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class PermissionStringsRedisRepositoryIntegrationTest {
+
+  private static final String ETAG = "W/\"1\"";
+
+  private UUID userId = UUID.randomUUID();
+
+  private String permissionString1 = "REQUISITION_VIEW|" + UUID.randomUUID()
+      + "|" + UUID.randomUUID();
+  private String permissionString2 = "REQUISITION_TEMPLATES_MANAGE";
+
+  @Autowired
+  private PermissionStringsRedisRepository redisRepository;
+
+  @Test
+  public void shouldSaveAndFindPermissionStrings() {
+    redisRepository.save(userId, new SharedPermissionStrings(
+        asList(permissionString1, permissionString2), ETAG, 100L));
+
+    SharedPermissionStrings found = redisRepository.findByUserId(userId);
+
+    assertEquals(asList(permissionString1, permissionString2), found.getPermissionStrings());
+    assertEquals(ETAG, found.getEtag());
+    assertEquals(100L, found.getValidatedAt());
+  }
+
+  @Test
+  public void shouldReturnNullIfPermissionStringsWereNotSaved() {
+    assertNull(redisRepository.findByUserId(UUID.randomUUID()));
+  }
+
+  @Test
+  public void shouldOverridePermissionStrings() {
+    redisRepository.save(userId, new SharedPermissionStrings(
+        asList(permissionString1, permissionString2), ETAG, 100L));
+    redisRepository.save(userId, new SharedPermissionStrings(
+        asList(permissionString2), null, 200L));
+
+    SharedPermissionStrings found = redisRepository.findByUserId(userId);
+
+    assertEquals(asList(permissionString2), found.getPermissionStrings());
+    assertNull(found.getEtag());
+    assertEquals(200L, found.getValidatedAt());
+  }
+}
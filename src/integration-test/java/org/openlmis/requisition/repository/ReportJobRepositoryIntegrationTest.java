@@ -0,0 +1,148 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.openlmis.requisition.repository.custom.ReportJobRepository;
+import org.openlmis.requisition.service.ReportJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ReportJobRepositoryIntegrationTest {
+
+  private static final ZonedDateTime NOW = ZonedDateTime.now(ZoneOffset.UTC);
+  private static final byte[] REPORT = {1, 2, 3};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Autowired
+  private ReportJobRepository reportJobRepository;
+
+  private UUID userId = UUID.randomUUID();
+
+  @Test
+  public void shouldFindJobOnlyForUsersWhoRequestedIt() {
+    UUID otherUserId = UUID.randomUUID();
+    ReportJob job = newJob(ReportJob.Status.QUEUED, NOW, null);
+
+    reportJobRepository.insert(job, userId);
+    assertNull(reportJobRepository.find(job.getId(), otherUserId));
+
+    reportJobRepository.addRequester(job.getId(), otherUserId);
+    ReportJob found = reportJobRepository.find(job.getId(), otherUserId);
+
+    assertNotNull(found);
+    assertEquals(job.getTemplateName(), found.getTemplateName());
+    assertEquals(ReportJob.Status.QUEUED, found.getStatus());
+  }
+
+  @Test
+  public void shouldStoreAndWriteResult() throws IOException {
+    ReportJob job = newJob(ReportJob.Status.QUEUED, NOW, null);
+    reportJobRepository.insert(job, userId);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    assertFalse(reportJobRepository.writeResult(job.getId(), outputStream));
+
+    Path resultFile = folder.newFile().toPath();
+    Files.write(resultFile, REPORT);
+    reportJobRepository.saveResult(job.getId(), resultFile);
+
+    assertTrue(reportJobRepository.writeResult(job.getId(), outputStream));
+    assertArrayEquals(REPORT, outputStream.toByteArray());
+  }
+
+  @Test
+  public void shouldCountUnfinishedJobsRequestedByUser() {
+    save(newJob(ReportJob.Status.RUNNING, NOW, null));
+    save(newJob(ReportJob.Status.COMPLETED, NOW, NOW));
+    reportJobRepository.insert(newJob(ReportJob.Status.QUEUED, NOW, null), UUID.randomUUID());
+
+    assertEquals(1, reportJobRepository.countUnfinished(userId));
+  }
+
+  @Test
+  public void shouldUpdateJob() {
+    ReportJob job = newJob(ReportJob.Status.QUEUED, NOW, null);
+    reportJobRepository.insert(job, userId);
+
+    reportJobRepository.update(newJob(job.getId(), ReportJob.Status.FAILED, NOW, NOW));
+    ReportJob found = reportJobRepository.find(job.getId(), userId);
+
+    assertEquals(ReportJob.Status.FAILED, found.getStatus());
+    assertNotNull(found.getFinishedDate());
+    assertEquals(0, reportJobRepository.countUnfinished(userId));
+  }
+
+  @Test
+  public void shouldDeleteExpiredJobs() {
+    ReportJob finished = newJob(ReportJob.Status.COMPLETED, NOW.minusHours(3), NOW.minusHours(2));
+    save(finished);
+    ReportJob abandoned = newJob(ReportJob.Status.RUNNING, NOW.minusHours(2), null);
+    save(abandoned);
+    ReportJob recent = newJob(ReportJob.Status.COMPLETED, NOW.minusHours(2), NOW);
+    save(recent);
+    ReportJob running = newJob(ReportJob.Status.RUNNING, NOW, null);
+    save(running);
+
+    assertEquals(2, reportJobRepository.deleteExpired(NOW.minusHours(1)));
+    assertNull(reportJobRepository.find(finished.getId(), userId));
+    assertNull(reportJobRepository.find(abandoned.getId(), userId));
+    assertNotNull(reportJobRepository.find(recent.getId(), userId));
+    assertNotNull(reportJobRepository.find(running.getId(), userId));
+  }
+
+  private void save(ReportJob job) {
+    reportJobRepository.insert(job, userId);
+    reportJobRepository.update(job);
+  }
+
+  private ReportJob newJob(ReportJob.Status status, ZonedDateTime createdDate,
+      ZonedDateTime finishedDate) {
+    return newJob(UUID.randomUUID(), status, createdDate, finishedDate);
+  }
+
+  private ReportJob newJob(UUID id, ReportJob.Status status, ZonedDateTime createdDate,
+      ZonedDateTime finishedDate) {
+    return new ReportJob(id, UUID.randomUUID(), "Reporting Rate", "pdf", status, createdDate,
+        finishedDate, null);
+  }
+}
@@ -61,12 +61,14 @@ import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.RequisitionTemplateColumn;
 import org.openlmis.requisition.domain.RequisitionTemplateColumnDataBuilder;
 import org.openlmis.requisition.domain.RequisitionTemplateDataBuilder;
+import org.openlmis.requisition.domain.requisition.LineItemAdjustedConsumption;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItemDataBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.domain.requisition.StatusChange;
 import org.openlmis.requisition.domain.requisition.StockAdjustment;
 import org.openlmis.requisition.domain.requisition.StockAdjustmentDataBuilder;
@@ -363,6 +365,75 @@ public class RequisitionRepositoryIntegrationTest
     });
   }
 
+  @Test
+  public void shouldSearchAdjustedConsumptionsOfNonSkippedLineItems() {
+    UUID facilityId = UUID.randomUUID();
+    UUID programId = UUID.randomUUID();
+    UUID periodId = UUID.randomUUID();
+    final UUID otherPeriodId = UUID.randomUUID();
+
+    Requisition requisition = generateInstance(facilityId, programId, periodId);
+    requisition.setEmergency(false);
+    RequisitionLineItem item = new RequisitionLineItemDataBuilder()
+        .withRequisition(requisition)
+        .withAdjustedConsumption(10)
+        .withSkippedFlag(false)
+        .buildAsNew();
+    RequisitionLineItem skippedItem = new RequisitionLineItemDataBuilder()
+        .withRequisition(requisition)
+        .withAdjustedConsumption(20)
+        .withSkippedFlag(true)
+        .buildAsNew();
+    requisition.setRequisitionLineItems(asList(item, skippedItem));
+    requisition = repository.save(requisition);
+
+    Requisition withoutLineItems = generateInstance(facilityId, programId, otherPeriodId);
+    withoutLineItems.setEmergency(false);
+    withoutLineItems = repository.save(withoutLineItems);
+
+    Requisition emergency = generateInstance(facilityId, programId, periodId);
+    emergency.setEmergency(true);
+    repository.save(emergency);
+
+    List<LineItemAdjustedConsumption> found = repository
+        .searchAdjustedConsumptions(facilityId, programId, asList(periodId, otherPeriodId));
+
+    assertThat(found, hasSize(2));
+    assertThat(found, hasItem(new LineItemAdjustedConsumption(
+        requisition.getId(), periodId, item.getOrderable(), 10)));
+    assertThat(found, hasItem(new LineItemAdjustedConsumption(
+        withoutLineItems.getId(), otherPeriodId, null, null)));
+  }
+
+  @Test
+  public void shouldFindVersionById() {
+    Requisition requisition = requisitions.get(0);
+    requisition.setOriginalRequisitionId(UUID.randomUUID());
+    requisition = repository.saveAndFlush(requisition);
+
+    RequisitionVersion found = repository.findVersionById(requisition.getId()).orElse(null);
+
+    assertNotNull(found);
+    assertEquals(requisition.getVersion(), found.getVersion());
+    assertEquals(requisition.getFacilityId(), found.getFacilityId());
+    assertEquals(requisition.getProgramId(), found.getProgramId());
+    assertEquals(requisition.getSupervisoryNodeId(), found.getSupervisoryNodeId());
+    assertTrue(found.hasOriginalRequisitionId());
+  }
+
+  @Test
+  public void shouldNotFindVersionOfNonExistentRequisition() {
+    assertFalse(repository.findVersionById(UUID.randomUUID()).isPresent());
+  }
+
+  @Test
+  public void shouldNotSearchAdjustedConsumptionsWithoutPeriods() {
+    List<LineItemAdjustedConsumption> found = repository.searchAdjustedConsumptions(
+        requisitions.get(0).getFacilityId(), requisitions.get(0).getProgramId(), emptyList());
+
+    assertThat(found, hasSize(0));
+  }
+
   @Test
   public void searchShouldExcludeRequisitionsWithNoMatchingPermissionStrings() {
     // given
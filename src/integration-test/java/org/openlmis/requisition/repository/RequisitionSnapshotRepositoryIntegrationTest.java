@@ -0,0 +1,141 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.domain.RequisitionTemplate;
+import org.openlmis.requisition.domain.RequisitionTemplateDataBuilder;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionSnapshot;
+import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+public class RequisitionSnapshotRepositoryIntegrationTest
+    extends BaseCrudRepositoryIntegrationTest<RequisitionSnapshot> {
+
+  private static final EnumSet<RequisitionStatus> APPROVED_STATUSES = EnumSet.of(
+      RequisitionStatus.APPROVED, RequisitionStatus.RELEASED,
+      RequisitionStatus.RELEASED_WITHOUT_ORDER);
+
+  @Autowired
+  private RequisitionSnapshotRepository repository;
+
+  @Autowired
+  private RequisitionRepository requisitionRepository;
+
+  @Autowired
+  private RequisitionTemplateRepository requisitionTemplateRepository;
+
+  private RequisitionTemplate requisitionTemplate;
+
+  RequisitionSnapshotRepository getRepository() {
+    return this.repository;
+  }
+
+  RequisitionSnapshot generateInstance() {
+    return newSnapshot(saveRequisition(RequisitionStatus.APPROVED), 0);
+  }
+
+  @Before
+  public void setUp() {
+    requisitionTemplate = requisitionTemplateRepository
+        .save(new RequisitionTemplateDataBuilder().build());
+  }
+
+  @Test
+  public void shouldFindSnapshotOfGivenVersion() {
+    Requisition requisition = saveRequisition(RequisitionStatus.RELEASED);
+    RequisitionSnapshot snapshot = repository.save(newSnapshot(requisition, 0));
+
+    Optional<RequisitionSnapshot> found = repository.findByRequisitionIdAndRequisitionVersion(
+        requisition.getId(), requisition.getVersion());
+    Optional<RequisitionSnapshot> old = repository.findByRequisitionIdAndRequisitionVersion(
+        requisition.getId(), requisition.getVersion() - 1);
+
+    assertThat(found, is(Optional.of(snapshot)));
+    assertThat(old.isPresent(), is(false));
+  }
+
+  @Test
+  public void shouldFindIdsOfApprovedRequisitionsWithoutCurrentSnapshot() {
+    Requisition withoutSnapshot = saveRequisition(RequisitionStatus.APPROVED);
+    Requisition withOldSnapshot = saveRequisition(RequisitionStatus.RELEASED);
+    repository.save(newSnapshot(withOldSnapshot, -1));
+    Requisition withCurrentSnapshot = saveRequisition(RequisitionStatus.RELEASED);
+    repository.save(newSnapshot(withCurrentSnapshot, 0));
+    Requisition notApproved = saveRequisition(RequisitionStatus.IN_APPROVAL);
+
+    List<UUID> found = repository
+        .findIdsWithoutCurrentSnapshot(APPROVED_STATUSES, new UUID(0, 0),
+            PageRequest.of(0, Integer.MAX_VALUE))
+        .stream()
+        .filter(id -> id.equals(withoutSnapshot.getId()) || id.equals(withOldSnapshot.getId())
+            || id.equals(withCurrentSnapshot.getId()) || id.equals(notApproved.getId()))
+        .collect(Collectors.toList());
+
+    List<UUID> expected = Stream
+        .of(withoutSnapshot.getId(), withOldSnapshot.getId())
+        .sorted(Comparator.comparing(UUID::toString))
+        .collect(Collectors.toList());
+
+    assertThat(found, contains(expected.toArray()));
+  }
+
+  @Test
+  public void shouldFindOnlyIdsAfterGivenOne() {
+    Requisition first = saveRequisition(RequisitionStatus.APPROVED);
+    Requisition second = saveRequisition(RequisitionStatus.APPROVED);
+    UUID lower = first.getId().toString().compareTo(second.getId().toString()) < 0
+        ? first.getId()
+        : second.getId();
+    UUID higher = lower.equals(first.getId()) ? second.getId() : first.getId();
+
+    List<UUID> found = repository.findIdsWithoutCurrentSnapshot(APPROVED_STATUSES, lower,
+        PageRequest.of(0, Integer.MAX_VALUE));
+
+    assertThat(found.contains(lower), is(false));
+    assertThat(found.contains(higher), is(true));
+  }
+
+  private Requisition saveRequisition(RequisitionStatus status) {
+    return requisitionRepository.saveAndFlush(new RequisitionDataBuilder()
+        .withTemplate(requisitionTemplate)
+        .withStatus(status)
+        .buildAsNew());
+  }
+
+  private RequisitionSnapshot newSnapshot(Requisition requisition, long versionOffset) {
+    RequisitionSnapshot snapshot = new RequisitionSnapshot();
+    snapshot.setRequisitionId(requisition.getId());
+    snapshot.setRequisitionVersion(requisition.getVersion() + versionOffset);
+    snapshot.setBody("{\"id\": \"" + requisition.getId() + "\"}");
+    return snapshot;
+  }
+}
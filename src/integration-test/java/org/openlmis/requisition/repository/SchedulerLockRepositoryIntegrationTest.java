@@ -0,0 +1,65 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.requisition.repository.custom.SchedulerLockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class SchedulerLockRepositoryIntegrationTest {
+
+  private static final String LOCK = "test";
+  private static final String INSTANCE = "instance";
+  private static final String OTHER_INSTANCE = "otherInstance";
+
+  @Autowired
+  private SchedulerLockRepository schedulerLockRepository;
+
+  @Test
+  public void shouldNotLockIfLockedByOtherInstance() {
+    assertTrue(schedulerLockRepository.lock(LOCK, INSTANCE, 60000));
+    assertFalse(schedulerLockRepository.lock(LOCK, OTHER_INSTANCE, 60000));
+  }
+
+  @Test
+  public void shouldLockAfterUnlock() {
+    assertTrue(schedulerLockRepository.lock(LOCK, INSTANCE, 60000));
+
+    schedulerLockRepository.unlock(LOCK, OTHER_INSTANCE);
+    assertFalse(schedulerLockRepository.lock(LOCK, OTHER_INSTANCE, 60000));
+
+    schedulerLockRepository.unlock(LOCK, INSTANCE);
+    assertTrue(schedulerLockRepository.lock(LOCK, OTHER_INSTANCE, 60000));
+  }
+
+  @Test
+  public void shouldLockIfLockHasExpired() {
+    assertTrue(schedulerLockRepository.lock(LOCK, INSTANCE, 0));
+    assertTrue(schedulerLockRepository.lock(LOCK, OTHER_INSTANCE, 0));
+  }
+}
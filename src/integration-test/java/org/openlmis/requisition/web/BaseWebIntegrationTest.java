@@ -47,6 +47,7 @@ import java.util.Optional;
 import java.util.UUID;
 import javax.annotation.PostConstruct;
 import org.assertj.core.util.Lists;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.runner.RunWith;
 import org.mockito.invocation.InvocationOnMock;
@@ -86,6 +87,7 @@ import org.openlmis.requisition.service.referencedata.OrderableReferenceDataServ
 import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
 import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
 import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
+import org.openlmis.requisition.service.referencedata.SupervisoryNodeTopology;
 import org.openlmis.requisition.service.referencedata.SupplyLineReferenceDataService;
 import org.openlmis.requisition.service.referencedata.TogglzReferenceDataService;
 import org.openlmis.requisition.service.referencedata.UserFulfillmentFacilitiesReferenceDataService;
@@ -117,6 +119,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 @RunWith(SpringRunner.class)
@@ -262,6 +265,9 @@ public abstract class BaseWebIntegrationTest {
   @MockBean
   protected RejectionReasonCategoryRepository rejectionReasonCategoryRepository;
 
+  @Autowired
+  private SupervisoryNodeTopology supervisoryNodeTopology;
+
   /**
    * Method called to initialize basic resources after the object is created.
    */
@@ -281,6 +287,15 @@ public abstract class BaseWebIntegrationTest {
     restAssured = ramlDefinition.createRestAssured();
   }
 
+  /**
+   * Removes supervisory nodes cached during previous tests, so mocks of the current test are used.
+   */
+  @Before
+  public void evictSupervisoryNodeTopology() {
+    ReflectionTestUtils.setField(supervisoryNodeTopology, "snapshot", null);
+    supervisoryNodeTopology.init();
+  }
+
   protected UserDto mockUserAuthenticated() {
     UserDto user = new UserDtoDataBuilder().buildAsDto();
 
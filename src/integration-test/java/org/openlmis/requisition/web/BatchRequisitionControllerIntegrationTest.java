@@ -33,6 +33,7 @@ import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -56,6 +57,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -65,6 +67,7 @@ import org.mockito.ArgumentCaptor;
 import org.openlmis.requisition.domain.BaseEntity;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.ApproveRequisitionDto;
 import org.openlmis.requisition.dto.ApprovedProductDto;
@@ -80,6 +83,9 @@ import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.i18n.MessageKeys;
 import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.referencedata.PermissionStringDto;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
+import org.openlmis.requisition.service.referencedata.PermissionStrings;
 import org.openlmis.requisition.testutils.ApprovedProductDtoDataBuilder;
 import org.openlmis.requisition.testutils.DtoGenerator;
 import org.openlmis.requisition.testutils.FacilityDtoDataBuilder;
@@ -165,8 +171,7 @@ public class BatchRequisitionControllerIntegrationTest extends BaseRequisitionWe
             req.getFacilityId(), req.getProgramId()))
         .collect(Collectors.toList());
 
-    doReturn(permissionStrings)
-        .when(userReferenceDataService).getPermissionStrings(user.getId());
+    mockPermissionStrings();
 
     requisitionIds = requisitions
         .stream()
@@ -222,6 +227,21 @@ public class BatchRequisitionControllerIntegrationTest extends BaseRequisitionWe
         .when(periodReferenceDataService)
         .search(anySetOf(UUID.class));
 
+    List<ProgramDto> programs = requisitions
+        .stream()
+        .map(r -> {
+          ProgramDto programDto = DtoGenerator.of(ProgramDto.class);
+          programDto.setId(r.getProgramId());
+          programDto.setEnableDatePhysicalStockCountCompleted(false);
+
+          return programDto;
+        })
+        .collect(Collectors.toList());
+
+    doReturn(programs)
+        .when(programReferenceDataService)
+        .search(anySetOf(UUID.class));
+
     mockSearchSupervisoryNodeByProgramAndFacility();
   }
 
@@ -264,6 +284,55 @@ public class BatchRequisitionControllerIntegrationTest extends BaseRequisitionWe
     checkPermissionErrorResponseBody(response, 400);
   }
 
+  @Test
+  public void shouldStreamAllAsNewlineDelimitedJson() throws IOException {
+    requisitions.forEach(requisition -> {
+      given(requisitionRepository.findVersionById(requisition.getId()))
+          .willReturn(Optional.of(new RequisitionVersion(requisition.getId(), 1L,
+              requisition.getFacilityId(), requisition.getProgramId(), null, null)));
+      given(requisitionRepository.findById(requisition.getId()))
+          .willReturn(Optional.of(requisition));
+      given(periodReferenceDataService.findOne(requisition.getProcessingPeriodId()))
+          .willReturn(new ProcessingPeriodDtoDataBuilder()
+              .withId(requisition.getProcessingPeriodId())
+              .buildAsDto());
+    });
+    doReturn(ValidationResult.success())
+        .when(permissionService).canViewRequisition(any(RequisitionVersion.class));
+
+    RequestSpecification specification = startRequest(RETRIEVE_ALL)
+        .accept(BatchRequisitionStreamer.NDJSON_VALUE);
+
+    for (UUID id : requisitionIds) {
+      specification = specification.queryParam(ID, id);
+    }
+
+    String[] lines = specification
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .contentType(BatchRequisitionStreamer.NDJSON_VALUE)
+        .extract()
+        .asString()
+        .split("\n");
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+    assertEquals(requisitions.size() + 1, lines.length);
+
+    List<UUID> retrieved = new ArrayList<>();
+    for (int i = 0; i < requisitions.size(); ++i) {
+      JsonNode requisition = objectMapper.readTree(lines[i])
+          .get(BatchRequisitionStreamer.REQUISITION);
+      retrieved.add(UUID.fromString(requisition.get(ID).asText()));
+    }
+
+    assertEquals(requisitionIds, retrieved);
+    assertEquals(0, objectMapper.readTree(lines[requisitions.size()])
+        .get(BatchRequisitionStreamer.REQUISITION_ERRORS)
+        .size());
+    verify(requisitionRepository, never()).readDistinctByIdIn(anySetOf(UUID.class));
+  }
+
   @Test
   public void shouldApproveAll() throws IOException {
     mockRequisitionValidatonsAndStubRepository();
@@ -275,9 +344,7 @@ public class BatchRequisitionControllerIntegrationTest extends BaseRequisitionWe
   @Test
   public void shouldHaveErrorIfUserHasNoRightToApprove() throws IOException {
     permissionStrings = permissionStrings.stream().skip(1).collect(Collectors.toList());
-    doReturn(permissionStrings)
-        .when(userReferenceDataService)
-        .getPermissionStrings(user.getId());
+    mockPermissionStrings();
 
     mockRequisitionValidatonsAndStubRepository();
 
@@ -307,27 +374,35 @@ public class BatchRequisitionControllerIntegrationTest extends BaseRequisitionWe
 
   @Test
   public void shouldSaveAll() throws IOException {
-    requisitions.forEach(requisition ->
-        doReturn(ValidationResult.success())
-            .when(requisitionService)
-            .validateCanSaveRequisition(requisition.getId())
-    );
+    mockCanSaveRequisitions();
 
     Response response = put(SAVE_ALL, approveRequisitions);
     checkResponseBody(response);
   }
 
+  @Test
+  public void shouldSaveAllWithoutLookingUpEachRequisitionSeparately() throws IOException {
+    mockCanSaveRequisitions();
+
+    Response response = put(SAVE_ALL, approveRequisitions);
+    checkResponseBody(response);
+
+    verify(permissionService).getPermissionStrings(user.getId());
+    verify(requisitionService, never()).validateCanSaveRequisition(any(Requisition.class));
+    verify(requisitionRepository, never()).findById(any(UUID.class));
+    verify(facilityReferenceDataService, never()).findOne(any(UUID.class));
+    verify(programReferenceDataService, never()).findOne(any(UUID.class));
+    verify(programReferenceDataService).search(anySetOf(UUID.class));
+  }
+
   @Test
   public void shouldHaveErrorIfUserHasNoRightToUpdate() throws IOException {
-    requisitions.forEach(requisition ->
-        doReturn(ValidationResult.success())
-            .when(requisitionService)
-            .validateCanSaveRequisition(requisition.getId())
-    );
+    mockCanSaveRequisitions();
 
     doReturn(ValidationResult.noPermission(ERROR_NO_FOLLOWING_PERMISSION,
         PermissionService.REQUISITION_APPROVE))
-        .when(requisitionService).validateCanSaveRequisition(requisitions.get(0).getId());
+        .when(requisitionService)
+        .validateCanSaveRequisition(eq(requisitions.get(0)), any(PermissionStringIndex.class));
 
     Response response = put(SAVE_ALL, approveRequisitions);
     checkPermissionErrorResponseBody(response, 400);
@@ -556,4 +631,19 @@ public class BatchRequisitionControllerIntegrationTest extends BaseRequisitionWe
     return requisitionSpies;
   }
 
+  private void mockCanSaveRequisitions() {
+    requisitions.forEach(requisition ->
+        doReturn(ValidationResult.success())
+            .when(requisitionService)
+            .validateCanSaveRequisition(eq(requisition), any(PermissionStringIndex.class))
+    );
+  }
+
+  private void mockPermissionStrings() {
+    PermissionStrings.Handler handler = mock(PermissionStrings.Handler.class);
+    doReturn(PermissionStringIndex.of(PermissionStringDto.from(permissionStrings)))
+        .when(handler).getIndex();
+    doReturn(handler)
+        .when(permissionService).getPermissionStrings(user.getId());
+  }
 }
@@ -24,6 +24,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 import guru.nidi.ramltester.junit.RamlMatchers;
@@ -35,8 +36,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.requisition.domain.JasperTemplate;
 import org.openlmis.requisition.dto.JasperTemplateDto;
+import org.openlmis.requisition.dto.ReportJobDto;
 import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.openlmis.requisition.exception.JasperReportViewException;
+import org.openlmis.requisition.service.JasperExporter;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -48,6 +51,7 @@ public class JasperTemplateControllerIntegrationTest extends BaseWebIntegrationT
   private static final String ID_URL = RESOURCE_URL + "/{id}";
   private static final String FORMAT_PARAM = "format";
   private static final String REPORT_URL = ID_URL + "/{" + FORMAT_PARAM + "}";
+  private static final String JOBS_URL = REPORT_URL + "/jobs";
 
   @Before
   public void setUp() {
@@ -230,6 +234,52 @@ public class JasperTemplateControllerIntegrationTest extends BaseWebIntegrationT
     testGenerateReportInGivenFormat("text/html", "html");
   }
 
+  // POST /api/reports/templates/requisitions/{id}/{format}/jobs
+
+  @Test
+  public void shouldSubmitReportJob() throws JasperReportViewException {
+    // given
+    JasperTemplate template = generateTemplate();
+    given(jasperReportsViewService
+        .fillReport(any(JasperTemplate.class), anyMap()))
+        .willReturn(mock(JasperExporter.class));
+
+    // when
+    ReportJobDto result = restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", template.getId())
+        .pathParam(FORMAT_PARAM, "pdf")
+        .when()
+        .post(JOBS_URL)
+        .then()
+        .statusCode(202)
+        .extract().as(ReportJobDto.class);
+
+    // then
+    assertEquals(template.getId(), result.getTemplateId());
+    assertEquals("pdf", result.getFormat());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void submitReportJobShouldReturnNotFoundWhenReportTemplateDoesNotExist() {
+    // given
+    given(jasperTemplateRepository.findById(any(UUID.class))).willReturn(Optional.empty());
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", UUID.randomUUID())
+        .pathParam(FORMAT_PARAM, "pdf")
+        .when()
+        .post(JOBS_URL)
+        .then()
+        .statusCode(404);
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   // Helper methods
 
   private void testGenerateReportInGivenFormat(String contentType, String formatParam)
@@ -239,8 +289,8 @@ public class JasperTemplateControllerIntegrationTest extends BaseWebIntegrationT
 
     given(jasperTemplateRepository.findById(template.getId())).willReturn(Optional.of(template));
     given(jasperReportsViewService
-        .generateReport(any(JasperTemplate.class), anyMap()))
-        .willReturn(new byte[1]);
+        .fillReport(any(JasperTemplate.class), anyMap()))
+        .willReturn(mock(JasperExporter.class));
 
     // when
     restAssured.given()
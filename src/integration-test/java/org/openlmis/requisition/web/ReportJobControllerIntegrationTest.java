@@ -0,0 +1,177 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.dto.ReportJobDto;
+import org.openlmis.requisition.dto.UserDto;
+import org.openlmis.requisition.errorhandling.ValidationResult;
+import org.openlmis.requisition.service.ReportJob;
+import org.openlmis.requisition.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+
+public class ReportJobControllerIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String JOB_URL = "/api/reports/jobs/{id}";
+  private static final String RESULT_URL = JOB_URL + "/result";
+  private static final String REPORTS_VIEW_RIGHT = "REPORTS_VIEW";
+  private static final byte[] REPORT = {1, 2, 3};
+
+  @Autowired
+  private ReportJobService reportJobService;
+
+  private UserDto user;
+  private JasperTemplate template = new JasperTemplate();
+
+  @Before
+  public void setUp() {
+    user = mockUserAuthenticated();
+    doReturn(ValidationResult.success()).when(permissionService).canViewReports();
+
+    template.setId(UUID.randomUUID());
+    template.setName("Reporting Rate");
+  }
+
+  // GET /api/reports/jobs/{id}
+
+  @Test
+  public void shouldGetReportJob() throws InterruptedException {
+    // given
+    ReportJob job = submitJob();
+
+    // when
+    ReportJobDto result = restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(JOB_URL)
+        .then()
+        .statusCode(200)
+        .extract().as(ReportJobDto.class);
+
+    // then
+    assertEquals(job.getId(), result.getId());
+    assertEquals(ReportJob.Status.COMPLETED.name(), result.getStatus());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotGetNonExistentReportJob() {
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", UUID.randomUUID())
+        .when()
+        .get(JOB_URL)
+        .then()
+        .statusCode(404);
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotGetReportJobWhenUserHasNoRightToViewReports() {
+    // given
+    doReturn(ValidationResult.noPermission(PERMISSION_ERROR_MESSAGE, REPORTS_VIEW_RIGHT))
+        .when(permissionService).canViewReports();
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", UUID.randomUUID())
+        .when()
+        .get(JOB_URL)
+        .then()
+        .statusCode(403);
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  // GET /api/reports/jobs/{id}/result
+
+  @Test
+  public void shouldGetReportJobResult() throws InterruptedException {
+    // given
+    ReportJob job = submitJob();
+
+    // when
+    byte[] result = restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(RESULT_URL)
+        .then()
+        .statusCode(200)
+        .extract().asByteArray();
+
+    // then
+    assertArrayEquals(REPORT, result);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotGetResultOfFailedReportJob() throws InterruptedException {
+    // given
+    ReportJob job = reportJobService.submit(user.getId(), template, "pdf",
+        Collections.singletonMap("id", UUID.randomUUID()), outputStream -> {
+          throw new IllegalStateException("report failed");
+        });
+    awaitFinished(job);
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(RESULT_URL)
+        .then()
+        .statusCode(400);
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  private ReportJob submitJob() throws InterruptedException {
+    ReportJob job = reportJobService.submit(user.getId(), template, "pdf",
+        Collections.singletonMap("id", UUID.randomUUID()),
+        outputStream -> outputStream.write(REPORT));
+    awaitFinished(job);
+
+    return job;
+  }
+
+  private void awaitFinished(ReportJob job) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+
+    while (!reportJobService.getJob(job.getId(), user.getId()).isFinished()
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+}
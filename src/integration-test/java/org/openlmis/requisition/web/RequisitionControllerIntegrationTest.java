@@ -80,6 +80,7 @@ import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
 import org.openlmis.requisition.domain.requisition.RequisitionValidationService;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.domain.requisition.StockAdjustmentReason;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.BasicRequisitionDto;
@@ -194,7 +195,8 @@ public class RequisitionControllerIntegrationTest extends BaseRequisitionWebInte
 
     when(processedRequestsRedisRepository.exists(any())).thenReturn(false);
 
-    when(approvedProductReferenceDataService.getApprovedProducts(anyUuid(), anyUuid()))
+    when(approvedProductReferenceDataService
+        .getApprovedProducts(any(FacilityDto.class), anyUuid()))
         .thenReturn(new ApproveProductsAggregator(emptyList(), UUID.randomUUID()));
 
     ReflectionTestUtils.setField(requisitionController, BaseRequisitionController.class,
@@ -225,6 +227,91 @@ public class RequisitionControllerIntegrationTest extends BaseRequisitionWebInte
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldReturnNotModifiedIfRequisitionVersionMatches() {
+    // given
+    UUID requisitionId = UUID.randomUUID();
+    given(requisitionRepository.findVersionById(requisitionId)).willReturn(Optional.of(
+        new RequisitionVersion(requisitionId, 3L, UUID.randomUUID(), UUID.randomUUID(),
+            null, null)));
+    doReturn(ValidationResult.success())
+        .when(permissionService)
+        .canViewRequisition(any(RequisitionVersion.class));
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "W/3")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisitionId)
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(304)
+        .header(HttpHeaders.ETAG, "W/3");
+
+    // then
+    verify(requisitionRepository, never()).findById(requisitionId);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldGetChosenRequisitionIfRequisitionVersionDoesNotMatch() {
+    // given
+    mockFacility();
+    Requisition requisition = generateRequisition(RequisitionStatus.INITIATED);
+    given(requisitionRepository.findVersionById(requisition.getId())).willReturn(Optional.of(
+        new RequisitionVersion(requisition.getId(), requisition.getVersion(),
+            requisition.getFacilityId(), requisition.getProgramId(), null, null)));
+    doReturn(ValidationResult.success())
+        .when(permissionService).canViewRequisition(requisition);
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "W/0")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(200)
+        .header(HttpHeaders.ETAG, "W/1")
+        .body("id", is(requisition.getId().toString()));
+
+    // then
+    verify(permissionService, never()).canViewRequisition(any(RequisitionVersion.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotReturnNotModifiedWhenUserHasNoRightForView() {
+    // given
+    UUID requisitionId = UUID.randomUUID();
+    String missingPermission = REQUISITION_AUTHORIZE;
+    given(requisitionRepository.findVersionById(requisitionId)).willReturn(Optional.of(
+        new RequisitionVersion(requisitionId, 3L, UUID.randomUUID(), UUID.randomUUID(),
+            null, null)));
+    doReturn(ValidationResult.noPermission(PERMISSION_ERROR_MESSAGE, missingPermission))
+        .when(permissionService)
+        .canViewRequisition(any(RequisitionVersion.class));
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "W/3")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisitionId)
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(403)
+        .body(MESSAGE, equalTo(getMessage(PERMISSION_ERROR_MESSAGE, missingPermission)));
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldNotGetChosenRequisitionWhenUserHasNoRightForView() {
     // given
@@ -15,7 +15,10 @@
 
 package org.openlmis.requisition.web;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
@@ -26,24 +29,31 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.openlmis.requisition.domain.requisition.Requisition.REQUISITION_LINE_ITEMS;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_DATE_MODIFIED_MISMATCH;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_FACILITY_DOES_NOT_SUPPORT_PROGRAM;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_INCORRECT_VALUE;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_LINE_ITEM_DUPLICATED;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_LINE_ITEM_NOT_FOUND;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REQUISITION_NOT_FOUND;
 import static org.openlmis.requisition.i18n.MessageKeys.IDEMPOTENCY_KEY_ALREADY_USED;
+import static org.openlmis.requisition.i18n.MessageKeys.VERSION_MISMATCH;
 import static org.openlmis.requisition.service.PermissionService.REQUISITION_AUTHORIZE;
 import static org.openlmis.requisition.service.PermissionService.REQUISITION_CREATE;
 import static org.openlmis.requisition.web.BaseRequisitionController.IDEMPOTENCY_KEY_HEADER;
+import static org.openlmis.requisition.web.ColumnarJsonHttpMessageConverter.COLUMNAR_JSON_VALUE;
 import static org.openlmis.requisition.web.ResourceNames.FACILITIES;
 import static org.openlmis.requisition.web.ResourceNames.PROCESSING_PERIODS;
 import static org.openlmis.requisition.web.ResourceNames.PROGRAMS;
 
 import guru.nidi.ramltester.junit.RamlMatchers;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -57,6 +67,7 @@ import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
 import org.openlmis.requisition.domain.requisition.RequisitionValidationService;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.domain.requisition.StockAdjustmentReason;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.ApprovedProductDto;
@@ -66,6 +77,7 @@ import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
 import org.openlmis.requisition.dto.ProgramDto;
 import org.openlmis.requisition.dto.RequisitionLineItemV2Dto;
+import org.openlmis.requisition.dto.RequisitionPatchDto;
 import org.openlmis.requisition.dto.RequisitionV2Dto;
 import org.openlmis.requisition.dto.VersionIdentityDto;
 import org.openlmis.requisition.errorhandling.ValidationResult;
@@ -305,6 +317,133 @@ public class RequisitionV2ControllerIntegrationTest extends BaseRequisitionWebIn
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldGetRequisitionWithColumnarLineItems() {
+    // given
+    mockFacility();
+    Requisition requisition = generateRequisition(RequisitionStatus.INITIATED);
+    doReturn(ValidationResult.success())
+        .when(permissionService)
+        .canViewRequisition(requisition);
+
+    generateApprovedProducts(requisition);
+
+    // when
+    String response = restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.ACCEPT, COLUMNAR_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .contentType(startsWith(COLUMNAR_JSON_VALUE))
+        .extract()
+        .asString();
+
+    // then
+    assertThat(response, containsString("\"requisitionLineItems\":{\"count\":"
+        + requisition.getRequisitionLineItems().size() + ",\"columns\":{"));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotModifiedIfRequisitionVersionMatches() {
+    // given
+    UUID requisitionId = UUID.randomUUID();
+    given(requisitionRepository.findVersionById(requisitionId)).willReturn(Optional.of(
+        new RequisitionVersion(requisitionId, 3L, UUID.randomUUID(), UUID.randomUUID(),
+            null, null)));
+    doReturn(ValidationResult.success())
+        .when(permissionService)
+        .canViewRequisition(any(RequisitionVersion.class));
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "W/3")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisitionId)
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(HttpStatus.NOT_MODIFIED.value())
+        .header(HttpHeaders.ETAG, "W/3");
+
+    // then
+    verify(requisitionRepository, never()).findById(requisitionId);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldGetRequisitionIfRequisitionVersionDoesNotMatch() {
+    // given
+    mockFacility();
+    Requisition requisition = generateRequisition(RequisitionStatus.INITIATED);
+    given(requisitionRepository.findVersionById(requisition.getId())).willReturn(Optional.of(
+        new RequisitionVersion(requisition.getId(), requisition.getVersion(),
+            requisition.getFacilityId(), requisition.getProgramId(), null, null)));
+    doReturn(ValidationResult.success())
+        .when(permissionService)
+        .canViewRequisition(requisition);
+
+    generateApprovedProducts(requisition);
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "W/0")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .header(HttpHeaders.ETAG, "W/1")
+        .body("id", is(requisition.getId().toString()));
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldGetReleasedRequisitionFromCache() {
+    // given
+    mockFacility();
+    Requisition requisition = generateRequisition(RequisitionStatus.RELEASED);
+    given(requisitionRepository.findVersionById(requisition.getId())).willReturn(Optional.of(
+        new RequisitionVersion(requisition.getId(), requisition.getVersion(),
+            requisition.getFacilityId(), requisition.getProgramId(), null, null)));
+    doReturn(ValidationResult.success())
+        .when(permissionService)
+        .canViewRequisition(requisition);
+    doReturn(ValidationResult.success())
+        .when(permissionService)
+        .canViewRequisition(any(RequisitionVersion.class));
+
+    generateApprovedProducts(requisition);
+
+    // when
+    for (int i = 0; i < 2; ++i) {
+      restAssured.given()
+          .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+          .contentType(MediaType.APPLICATION_JSON_VALUE)
+          .pathParam("id", requisition.getId())
+          .when()
+          .get(ID_URL)
+          .then()
+          .statusCode(HttpStatus.OK.value())
+          .header(HttpHeaders.ETAG, "W/1")
+          .body("id", is(requisition.getId().toString()));
+
+      assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(),
+          RamlMatchers.hasNoViolations());
+    }
+
+    // then
+    verify(requisitionRepository, times(1)).findById(requisition.getId());
+  }
+
   @Test
   public void shouldNotGetRequisitionForUnauthorizedRequest() {
     restAssured.given()
@@ -572,6 +711,244 @@ public class RequisitionV2ControllerIntegrationTest extends BaseRequisitionWebIn
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  // PATCH /api/v2/requisitions/{id}
+
+  @Test
+  public void shouldPatchRequisition() {
+    // given
+    Requisition requisition = generatePatchedRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+    RequisitionLineItemV2Dto line = patch.getRequisitionLineItems().get(0);
+
+    when(requisitionService
+        .validateCanSaveRequisition(requisition))
+        .thenReturn(ValidationResult.success());
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_MATCH, "W/" + requisition.getVersion())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .header(HttpHeaders.ETAG, "W/" + requisition.getVersion())
+        .body("id", is(requisition.getId().toString()))
+        .body("version", is(requisition.getVersion().intValue()))
+        .body(REQUISITION_LINE_ITEMS, hasSize(1))
+        .body(REQUISITION_LINE_ITEMS + "[0].id", is(line.getId().toString()));
+
+    // then
+    verify(requisitionRepository).saveAndFlush(requisition);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotPatchRequisitionForUnauthorizedRequest() {
+    // given
+    Requisition requisition = generateRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+
+    // expect
+    restAssured.given()
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.UNAUTHORIZED.value());
+  }
+
+  @Test
+  public void shouldNotPatchRequisitionWhenUserHasNoRight() {
+    // given
+    Requisition requisition = generatePatchedRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+
+    when(requisitionService
+        .validateCanSaveRequisition(any(Requisition.class)))
+        .thenReturn(ValidationResult.noPermission(PERMISSION_ERROR_MESSAGE, REQUISITION_CREATE));
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.FORBIDDEN.value())
+        .body(MESSAGE_KEY, is(PERMISSION_ERROR_MESSAGE));
+
+    // then
+    verify(requisitionRepository, never()).saveAndFlush(any(Requisition.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotPatchRequisitionIfVersionDoesNotMatch() {
+    // given
+    Requisition requisition = generatePatchedRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+    patch.setVersion(requisition.getVersion() - 1);
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.CONFLICT.value())
+        .body(MESSAGE_KEY, is(VERSION_MISMATCH));
+
+    // then
+    verify(requisitionRepository, never()).saveAndFlush(any(Requisition.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotPatchRequisitionIfEtagDoesNotMatch() {
+    // given
+    Requisition requisition = generatePatchedRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_MATCH, "W/" + (requisition.getVersion() - 1))
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.CONFLICT.value())
+        .body(MESSAGE_KEY, is(VERSION_MISMATCH));
+
+    // then
+    verify(requisitionRepository, never()).saveAndFlush(any(Requisition.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotPatchRequisitionIfLineItemDoesNotExist() {
+    // given
+    Requisition requisition = generatePatchedRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+    patch.getRequisitionLineItems().get(0).setId(UUID.randomUUID());
+
+    when(requisitionService
+        .validateCanSaveRequisition(requisition))
+        .thenReturn(ValidationResult.success());
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.NOT_FOUND.value())
+        .body(MESSAGE_KEY, is(ERROR_LINE_ITEM_NOT_FOUND));
+
+    // then
+    verify(requisitionRepository, never()).saveAndFlush(any(Requisition.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotPatchRequisitionIfLineItemIsDuplicated() {
+    // given
+    Requisition requisition = generatePatchedRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+    RequisitionLineItemV2Dto line = patch.getRequisitionLineItems().get(0);
+    patch.setRequisitionLineItems(Arrays.asList(line, line));
+
+    when(requisitionService
+        .validateCanSaveRequisition(requisition))
+        .thenReturn(ValidationResult.success());
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .body(MESSAGE_KEY, is(ERROR_LINE_ITEM_DUPLICATED));
+
+    // then
+    verify(requisitionRepository, never()).saveAndFlush(any(Requisition.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotPatchRequisitionIfItDoesNotExist() {
+    // given
+    Requisition requisition = generateRequisition();
+    RequisitionPatchDto patch = generatePatchDto(requisition);
+
+    given(requisitionRepository.findById(requisition.getId())).willReturn(Optional.empty());
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .body(patch)
+        .patch(ID_URL)
+        .then()
+        .statusCode(HttpStatus.NOT_FOUND.value())
+        .body(MESSAGE_KEY, is(ERROR_REQUISITION_NOT_FOUND));
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  private Requisition generatePatchedRequisition() {
+    ProcessingPeriodDto period = mockPeriod();
+    Requisition requisition = generateRequisition();
+    requisition.setProcessingPeriodId(period.getId());
+    requisition.setNumberOfMonthsInPeriod(period.getDurationInMonths());
+
+    mockValidationSuccess();
+
+    when(requisitionVersionValidator
+        .validateVersion(any(), any(Requisition.class)))
+        .thenCallRealMethod();
+    when(requisitionVersionValidator
+        .validateEtagVersionIfPresent(any(HttpServletRequest.class), any(Requisition.class)))
+        .thenCallRealMethod();
+    when(requisitionVersionValidator
+        .validateRequisitionTimestamps(any(), any(Requisition.class)))
+        .thenCallRealMethod();
+
+    return requisition;
+  }
+
+  private RequisitionPatchDto generatePatchDto(Requisition requisition) {
+    RequisitionLineItemV2Dto line = (RequisitionLineItemV2Dto) generateRequisitionDto(requisition)
+        .getRequisitionLineItems()
+        .get(0);
+
+    return new RequisitionPatchDto(requisition.getId(), requisition.getVersion(),
+        requisition.getModifiedDate(), Collections.singletonList(line));
+  }
+
   private RequisitionV2Dto generateRequisitionDto(Requisition requisition) {
     RequisitionV2Dto requisitionDto = new RequisitionV2Dto();
     requisition.export(requisitionDto);
@@ -645,7 +1022,8 @@ public class RequisitionV2ControllerIntegrationTest extends BaseRequisitionWebIn
         .findByIdentities(anySetOf(VersionEntityReference.class)))
         .willReturn(approvedProducts);
 
-    when(approvedProductReferenceDataService.getApprovedProducts(anyUuid(), anyUuid()))
+    when(approvedProductReferenceDataService
+        .getApprovedProducts(any(FacilityDto.class), anyUuid()))
         .thenAnswer(invocation -> new ApproveProductsAggregator(
             approvedProducts, invocation.getArgument(1, UUID.class)));
 
@@ -0,0 +1,75 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.errorhandling.ValidationResult;
+import org.springframework.http.HttpHeaders;
+
+public class ValidReasonControllerIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String CACHE_URL = "/api/validReasons/cache";
+  private static final String MANAGE_TEMPLATES_RIGHT = "REQUISITION_TEMPLATES_MANAGE";
+
+  @Before
+  public void setUp() {
+    mockUserAuthenticated();
+  }
+
+  @Test
+  public void shouldEvictValidReasonsCache() {
+    // given
+    doReturn(ValidationResult.success()).when(permissionService).canManageRequisitionTemplate();
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .delete(CACHE_URL)
+        .then()
+        .statusCode(204);
+
+    // then
+    verify(validReasonStockmanagementService).evictCache();
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotEvictValidReasonsCacheWhenUserHasNoRightToManageTemplates() {
+    // given
+    doReturn(ValidationResult.noPermission(PERMISSION_ERROR_MESSAGE, MANAGE_TEMPLATES_RIGHT))
+        .when(permissionService).canManageRequisitionTemplate();
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .delete(CACHE_URL)
+        .then()
+        .statusCode(403);
+
+    // then
+    verify(validReasonStockmanagementService, never()).evictCache();
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+}
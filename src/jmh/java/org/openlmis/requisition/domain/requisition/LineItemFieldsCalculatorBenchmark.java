@@ -0,0 +1,147 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openlmis.requisition.CurrencyConfig;
+
+/**
+ * Compares the calculation of adjusted consumption, average consumption and total cost of all
+ * line items of a large requisition with the previous implementations based on {@link BigDecimal},
+ * copied lists and {@link Money#plus(Money)}. The allocation rate is reported by the gc profiler.
+ *
+ * <p>Run with: gradle jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LineItemFieldsCalculatorBenchmark {
+
+  private static final int MONTHS_IN_THE_PERIOD = 3;
+
+  @Param({"1000", "10000"})
+  private int lineItems;
+
+  private Requisition requisition;
+  private List<RequisitionLineItem> lines;
+
+  /**
+   * Prepares a requisition with the given number of line items and random values.
+   */
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    CurrencyUnit currency = CurrencyUnit.of(CurrencyConfig.currencyCode);
+    lines = new ArrayList<>();
+
+    for (int i = 0; i < lineItems; ++i) {
+      RequisitionLineItem line = new RequisitionLineItem();
+      line.setTotalConsumedQuantity(random.nextInt(1000));
+      line.setTotalStockoutDays(random.nextInt(30 * MONTHS_IN_THE_PERIOD));
+      line.setAdjustedConsumption(random.nextInt(1000));
+      line.setPreviousAdjustedConsumptions(Arrays.asList(random.nextInt(1000),
+          random.nextInt(1000)));
+      line.setTotalCost(Money.ofMinor(currency, random.nextInt(1_000_000)));
+
+      lines.add(line);
+    }
+
+    requisition = new Requisition();
+    requisition.setRequisitionLineItems(lines);
+  }
+
+  @Benchmark
+  public void adjustedConsumption(Blackhole blackhole) {
+    for (RequisitionLineItem line : lines) {
+      blackhole.consume(LineItemFieldsCalculator
+          .calculateAdjustedConsumption(line, MONTHS_IN_THE_PERIOD, false));
+    }
+  }
+
+  @Benchmark
+  public void adjustedConsumptionWithBigDecimal(Blackhole blackhole) {
+    int totalDays = 30 * MONTHS_IN_THE_PERIOD;
+
+    for (RequisitionLineItem line : lines) {
+      BigDecimal ratio = new BigDecimal(totalDays)
+          .divide(new BigDecimal(totalDays - line.getTotalStockoutDays()), 1000,
+              RoundingMode.HALF_UP);
+
+      blackhole.consume(new BigDecimal(line.getTotalConsumedQuantity())
+          .multiply(ratio)
+          .setScale(0, RoundingMode.CEILING)
+          .intValue());
+    }
+  }
+
+  @Benchmark
+  public void averageConsumption(Blackhole blackhole) {
+    for (RequisitionLineItem line : lines) {
+      blackhole.consume(LineItemFieldsCalculator.calculateAverageConsumption(
+          line.getPreviousAdjustedConsumptions(), line.getAdjustedConsumption()));
+    }
+  }
+
+  @Benchmark
+  public void averageConsumptionWithCopiedList(Blackhole blackhole) {
+    for (RequisitionLineItem line : lines) {
+      List<Integer> adjustedConsumptions = new ArrayList<>(line.getPreviousAdjustedConsumptions());
+      adjustedConsumptions.add(line.getAdjustedConsumption());
+
+      blackhole.consume(LineItemFieldsCalculator.calculateAverageConsumption(
+          adjustedConsumptions));
+    }
+  }
+
+  @Benchmark
+  public Money totalCost() {
+    return requisition.getTotalCost();
+  }
+
+  @Benchmark
+  public Money totalCostWithMoneyPlus() {
+    return lines
+        .stream()
+        .map(RequisitionLineItem::getTotalCost)
+        .filter(Objects::nonNull)
+        .reduce(Money::plus)
+        .orElseGet(() -> Money.of(CurrencyUnit.of(CurrencyConfig.currencyCode), 0));
+  }
+}
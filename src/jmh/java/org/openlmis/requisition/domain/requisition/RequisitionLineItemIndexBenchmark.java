@@ -0,0 +1,128 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.openlmis.requisition.dto.RequisitionLineItemDto;
+
+/**
+ * Compares lookups of every line item of a requisition, by id and by orderable, through the line
+ * item index with linear scans of the line items. The index benchmarks that replace the list of
+ * line items include the cost of building the index again.
+ *
+ * <p>Run with: gradle jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RequisitionLineItemIndexBenchmark {
+
+  @Param({"100", "1000"})
+  private int lineItems;
+
+  private Requisition requisition;
+  private List<RequisitionLineItem> lines;
+
+  /**
+   * Prepares a requisition with the given number of line items.
+   */
+  @Setup
+  public void setUp() {
+    lines = new ArrayList<>();
+
+    for (int i = 0; i < lineItems; ++i) {
+      OrderableDto orderable = new OrderableDto();
+      orderable.setId(UUID.randomUUID());
+      orderable.getMeta().setVersionNumber(1L);
+
+      RequisitionLineItemDto line = new RequisitionLineItemDto();
+      line.setId(UUID.randomUUID());
+      line.setOrderable(orderable);
+
+      lines.add(RequisitionLineItem.newRequisitionLineItem(line));
+    }
+
+    requisition = new Requisition();
+    requisition.setRequisitionLineItems(lines);
+  }
+
+  @Benchmark
+  public void findByIdWithIndex(Blackhole blackhole) {
+    for (RequisitionLineItem line : lines) {
+      blackhole.consume(requisition.findLineById(line.getId()));
+    }
+  }
+
+  @Benchmark
+  public void findByIdWithNewIndex(Blackhole blackhole) {
+    requisition.setRequisitionLineItems(new ArrayList<>(lines));
+
+    for (RequisitionLineItem line : lines) {
+      blackhole.consume(requisition.findLineById(line.getId()));
+    }
+  }
+
+  @Benchmark
+  public void findByIdWithScan(Blackhole blackhole) {
+    for (RequisitionLineItem line : lines) {
+      blackhole.consume(lines
+          .stream()
+          .filter(item -> Objects.equals(item.getId(), line.getId()))
+          .findFirst()
+          .orElse(null));
+    }
+  }
+
+  @Benchmark
+  public void findByProductWithIndex(Blackhole blackhole) {
+    for (RequisitionLineItem line : lines) {
+      VersionEntityReference orderable = line.getOrderable();
+      blackhole.consume(requisition
+          .findLineByProduct(orderable.getId(), orderable.getVersionNumber()));
+    }
+  }
+
+  @Benchmark
+  public void findByProductWithScan(Blackhole blackhole) {
+    for (RequisitionLineItem line : lines) {
+      blackhole.consume(lines
+          .stream()
+          .filter(item -> Objects.equals(item.getOrderable(), line.getOrderable()))
+          .findFirst()
+          .orElse(null));
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.openlmis.requisition.web.ColumnarJsonHttpMessageConverter.COLUMNAR_JSON;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.dto.RequisitionLineItemDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Compares the default (indented) JSON representation of a requisition with the columnar one.
+ * Payload sizes of both representations are printed during the setup of each trial.
+ *
+ * <p>Run with: gradle jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ColumnarJsonBenchmark {
+
+  @Param({"10", "100", "500"})
+  private int lineItems;
+
+  private ObjectMapper objectMapper;
+  private ColumnarJsonHttpMessageConverter converter;
+  private RequisitionDto requisition;
+  private byte[] json;
+  private byte[] columnar;
+
+  /**
+   * Prepares a requisition with the given number of line items in both representations.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    // same settings as the service, see application.properties
+    objectMapper = Jackson2ObjectMapperBuilder
+        .json()
+        .featuresToEnable(SerializationFeature.INDENT_OUTPUT)
+        .build();
+    converter = new ColumnarJsonHttpMessageConverter(objectMapper);
+    requisition = prepareRequisition(lineItems);
+
+    json = writeJson();
+    columnar = writeColumnar();
+
+    System.out.printf("%n%d line items: JSON %d bytes, columnar JSON %d bytes (%.0f%%)%n",
+        lineItems, json.length, columnar.length, 100.0 * columnar.length / json.length);
+  }
+
+  @Benchmark
+  public byte[] writeJson() throws IOException {
+    return objectMapper.writeValueAsBytes(requisition);
+  }
+
+  @Benchmark
+  public byte[] writeColumnar() throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    converter.write(requisition, COLUMNAR_JSON, new OutputMessage(body));
+    return body.toByteArray();
+  }
+
+  @Benchmark
+  public Object readJson() throws IOException {
+    return objectMapper.readValue(json, RequisitionDto.class);
+  }
+
+  @Benchmark
+  public Object readColumnar() throws IOException {
+    return converter.read(RequisitionDto.class, new InputMessage(columnar));
+  }
+
+  private static RequisitionDto prepareRequisition(int size) {
+    List<RequisitionLineItemDto> lines = new ArrayList<>();
+
+    for (int i = 0; i < size; ++i) {
+      OrderableDto orderable = new OrderableDto();
+      orderable.setId(UUID.randomUUID());
+
+      RequisitionLineItemDto line = new RequisitionLineItemDto();
+      line.setId(UUID.randomUUID());
+      line.setOrderable(orderable);
+      line.setBeginningBalance(100);
+      line.setTotalReceivedQuantity(50);
+      line.setTotalLossesAndAdjustments(0);
+      line.setStockOnHand(i);
+      line.setRequestedQuantity(100);
+      line.setTotalConsumedQuantity(100);
+      line.setRequestedQuantityExplanation("we need more");
+      line.setTotalStockoutDays(0);
+      line.setTotal(150);
+      line.setPacksToShip(5L);
+      line.setNumberOfNewPatientsAdded(0);
+      line.setTotalCost(Money.of(CurrencyUnit.USD, 60));
+      line.setPricePerPack(Money.of(CurrencyUnit.USD, 12));
+      line.setSkipped(false);
+      line.setAdjustedConsumption(100);
+      line.setAverageConsumption(100);
+      line.setMaximumStockQuantity(300);
+      line.setCalculatedOrderQuantity(250);
+      line.setIdealStockAmount(100);
+      line.setCalculatedOrderQuantityIsa(50);
+      line.setAdditionalQuantityRequired(0);
+      lines.add(line);
+    }
+
+    RequisitionDto requisition = new RequisitionDto();
+    requisition.setId(UUID.randomUUID());
+    requisition.setRequisitionLineItems(lines);
+
+    return requisition;
+  }
+
+  private static final class InputMessage implements HttpInputMessage {
+    private final byte[] body;
+    private final HttpHeaders headers = new HttpHeaders();
+
+    InputMessage(byte[] body) {
+      this.body = body;
+      this.headers.setContentType(COLUMNAR_JSON);
+    }
+
+    @Override
+    public InputStream getBody() {
+      return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+
+  private static final class OutputMessage implements HttpOutputMessage {
+    private final OutputStream body;
+    private final HttpHeaders headers = new HttpHeaders();
+
+    OutputMessage(OutputStream body) {
+      this.body = body;
+    }
+
+    @Override
+    public OutputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+}
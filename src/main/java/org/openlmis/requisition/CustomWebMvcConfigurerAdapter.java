@@ -15,15 +15,18 @@
 
 package org.openlmis.requisition;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import org.openlmis.requisition.interceptor.MvcInterceptor;
 import org.openlmis.requisition.utils.Pagination;
+import org.openlmis.requisition.web.ColumnarJsonHttpMessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
@@ -40,6 +43,9 @@ public class CustomWebMvcConfigurerAdapter implements WebMvcConfigurer {
   @Autowired
   private MvcInterceptor mvcInterceptor;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
   @Override
   public void addViewControllers(ViewControllerRegistry registry) {
     registry.addViewController("/requisition/docs")
@@ -64,6 +70,12 @@ public class CustomWebMvcConfigurerAdapter implements WebMvcConfigurer {
     argumentResolvers.add(resolver);
   }
 
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    // has to be checked before the default JSON converter which supports application/*+json
+    converters.add(0, new ColumnarJsonHttpMessageConverter(objectMapper));
+  }
+
   @Override
   public void addInterceptors(InterceptorRegistry registry) {
     registry.addInterceptor(mvcInterceptor);
@@ -0,0 +1,107 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the default data source with one that routes read-only transactions to a read
+ * replica. Only active when {@code datasource.replica.enabled} is set to true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+  @Value("${datasource.replica.url}")
+  private String replicaUrl;
+
+  @Value("${datasource.replica.username}")
+  private String replicaUsername;
+
+  @Value("${datasource.replica.password}")
+  private String replicaPassword;
+
+  @Value("${datasource.replica.maxLagSeconds}")
+  private long maxLagSeconds;
+
+  @Value("${datasource.replica.lagCheckIntervalMillis}")
+  private long lagCheckIntervalMillis;
+
+  /**
+   * Connection pool for the primary database, configured with the standard
+   * {@code spring.datasource} properties.
+   */
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties
+        .initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+  }
+
+  /**
+   * Connection pool for the read replica.
+   */
+  @Bean
+  @ConfigurationProperties("datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+    return properties
+        .initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .url(replicaUrl)
+        .username(replicaUsername)
+        .password(replicaPassword)
+        .build();
+  }
+
+  @Bean
+  public ReplicationLagMonitor replicationLagMonitor(
+      @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+    return new ReplicationLagMonitor(replicaDataSource, maxLagSeconds, lagCheckIntervalMillis);
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource routingDataSource(
+      @Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Qualifier("replicaDataSource") DataSource replicaDataSource,
+      ReplicationLagMonitor replicationLagMonitor) {
+    return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+        replicationLagMonitor);
+  }
+
+  /**
+   * The data source used by JPA and JDBC access. The physical connection is only fetched when
+   * the first statement is executed, so the routing decision can see whether the current
+   * transaction is read-only.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("routingDataSource") DataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Periodically checks how far the read replica is behind the primary database. The replica is
+ * reported as unavailable when the lag exceeds the threshold or when it can't be queried, so
+ * read-only transactions fall back to the primary until it catches up. The check shares the
+ * scheduler thread with other jobs, so the replica is also reported as unavailable when the last
+ * successful check is older than a few check intervals.
+ */
+public class ReplicationLagMonitor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationLagMonitor.class);
+
+  static final int MAX_MISSED_CHECKS = 3;
+
+  static final String LAG_QUERY = "SELECT CASE"
+      + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+      + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)"
+      + " END";
+
+  private final DataSource replica;
+  private final long maxLagSeconds;
+  private final long maxCheckAgeMillis;
+
+  private volatile boolean replicaAvailable;
+  private volatile long checkedAt;
+
+  /**
+   * Creates a monitor of the given replica.
+   *
+   * @param replica the read replica
+   * @param maxLagSeconds the lag above which the replica is unavailable
+   * @param checkIntervalMillis the interval between lag checks
+   */
+  public ReplicationLagMonitor(DataSource replica, long maxLagSeconds, long checkIntervalMillis) {
+    this.replica = replica;
+    this.maxLagSeconds = maxLagSeconds;
+    this.maxCheckAgeMillis = MAX_MISSED_CHECKS * checkIntervalMillis;
+  }
+
+  /**
+   * Returns true if the last check found the replica in sync and it is recent enough.
+   */
+  public boolean isReplicaAvailable() {
+    return replicaAvailable && System.currentTimeMillis() - checkedAt <= maxCheckAgeMillis;
+  }
+
+  /**
+   * Measures the current replication lag and updates the replica availability.
+   */
+  @Scheduled(fixedDelayString = "${datasource.replica.lagCheckIntervalMillis}")
+  public void checkLag() {
+    boolean available;
+
+    try {
+      double lag = getLagSeconds();
+      available = lag <= maxLagSeconds;
+
+      if (!available && replicaAvailable) {
+        LOGGER.warn("Read replica is {} seconds behind the primary, routing reads to primary",
+            lag);
+      }
+    } catch (SQLException exp) {
+      available = false;
+
+      if (replicaAvailable) {
+        LOGGER.warn("Unable to check read replica lag, routing reads to primary", exp);
+      }
+    }
+
+    if (available && !replicaAvailable) {
+      LOGGER.info("Read replica is in sync, routing read-only transactions to replica");
+    }
+
+    checkedAt = System.currentTimeMillis();
+    replicaAvailable = available;
+  }
+
+  private double getLagSeconds() throws SQLException {
+    try (Connection connection = replica.getConnection();
+         Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+      return resultSet.next() ? resultSet.getDouble(1) : 0;
+    }
+  }
+}
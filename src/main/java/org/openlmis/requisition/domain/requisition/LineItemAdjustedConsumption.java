@@ -0,0 +1,54 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Adjusted consumption of a single non-skipped line item of a requisition. Requisitions without
+ * non-skipped line items are represented by a single row without orderable.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+public final class LineItemAdjustedConsumption {
+
+  private UUID requisitionId;
+  private UUID periodId;
+  private VersionEntityReference orderable;
+  private Integer adjustedConsumption;
+
+  /**
+   * Creates a new instance of adjusted consumption. Used by the criteria query, which can't
+   * construct the embedded orderable reference on its own.
+   */
+  public LineItemAdjustedConsumption(UUID requisitionId, UUID periodId, UUID orderableId,
+      Long orderableVersionNumber, Integer adjustedConsumption) {
+    this(requisitionId, periodId,
+        null == orderableId ? null : new VersionEntityReference(orderableId,
+            orderableVersionNumber),
+        adjustedConsumption);
+  }
+}
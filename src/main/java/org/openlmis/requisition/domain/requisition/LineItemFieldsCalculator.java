@@ -43,6 +43,8 @@ import org.openlmis.requisition.utils.Message;
 @SuppressWarnings("PMD.TooManyMethods")
 public final class LineItemFieldsCalculator {
 
+  private static final int RATIO_SCALE = 1000;
+
   private LineItemFieldsCalculator() {
   }
 
@@ -209,13 +211,35 @@ public final class LineItemFieldsCalculator {
       return adjustedConsumptions.get(0);
     }
 
-    if (numberOfPeriods == 2) {
-      return (int) Math.ceil((adjustedConsumptions.get(0) + adjustedConsumptions.get(1)) / 2.0);
+    int sum = 0;
+    for (int i = 0; i < numberOfPeriods; ++i) {
+      sum += adjustedConsumptions.get(i);
+    }
+
+    return calculateAverage(sum, numberOfPeriods);
+  }
+
+  /**
+   * Calculates Average Consumption (P) value in the same way as
+   * {@link #calculateAverageConsumption(List)} but it does not require a single list with adjusted
+   * consumptions from all periods.
+   *
+   * @param previousAdjustedConsumptions adjusted consumptions from previous periods.
+   * @param adjustedConsumption adjusted consumption from the current period.
+   */
+  public static int calculateAverageConsumption(List<Integer> previousAdjustedConsumptions,
+      int adjustedConsumption) {
+    int numberOfPeriods = previousAdjustedConsumptions.size() + 1;
+    if (numberOfPeriods == 1) {
+      return adjustedConsumption;
     }
 
-    int sum = adjustedConsumptions.stream().reduce(0, Integer::sum);
+    int sum = adjustedConsumption;
+    for (int i = 0; i < numberOfPeriods - 1; ++i) {
+      sum += previousAdjustedConsumptions.get(i);
+    }
 
-    return (int) Math.ceil((double)sum / numberOfPeriods);
+    return calculateAverage(sum, numberOfPeriods);
   }
 
   /**
@@ -420,17 +444,82 @@ public final class LineItemFieldsCalculator {
       return consumedQuantity;
     }
 
+    int adjustedConsumption = calculateAdjustedConsumptionValue(consumedQuantity, totalDays,
+        nonStockoutDays);
+
+    if (null != additionalQuantityRequired && additionalQuantityRequired > 0) {
+      return adjustedConsumption + additionalQuantityRequired;
+    }
+    return adjustedConsumption;
+  }
+
+  /**
+   * Calculates RoundUp(C * (T / D)) where the ratio is rounded half up to 1000 decimal places
+   * first, so the result is exactly the same as with {@link BigDecimal}, but no objects are
+   * created. The ratio has to be rounded only when C * T / D is an integer, because the rounding
+   * error is too small to move any other value across an integer.
+   */
+  private static int calculateAdjustedConsumptionValue(int consumedQuantity, int totalDays,
+      int nonStockoutDays) {
+    long dividend;
+
+    try {
+      dividend = Math.multiplyExact((long) consumedQuantity, (long) totalDays);
+    } catch (ArithmeticException exp) {
+      return calculateAdjustedConsumptionValueWithBigDecimal(consumedQuantity, totalDays,
+          nonStockoutDays);
+    }
+
+    long adjustedConsumption = -Math.floorDiv(-dividend, nonStockoutDays);
+
+    if (dividend % nonStockoutDays == 0
+        && Integer.signum(consumedQuantity) * getRatioRoundingSign(totalDays, nonStockoutDays)
+        > 0) {
+      ++adjustedConsumption;
+    }
+
+    return (int) adjustedConsumption;
+  }
+
+  /**
+   * Returns the sign of the difference between T / D rounded half up to 1000 decimal places and
+   * its exact value.
+   */
+  private static int getRatioRoundingSign(int totalDays, int nonStockoutDays) {
+    long divisor = Math.abs((long) nonStockoutDays);
+    long remainder = Math.abs((long) totalDays) % divisor;
+
+    // remainder of T * 10^1000 divided by D, the part discarded by the rounding
+    long power = 10 % divisor;
+    for (int exponent = RATIO_SCALE; exponent > 0; exponent >>= 1) {
+      if ((exponent & 1) == 1) {
+        remainder = remainder * power % divisor;
+      }
+      power = power * power % divisor;
+    }
+
+    if (remainder == 0) {
+      return 0;
+    }
+
+    // half up rounds away from zero when the discarded part is at least a half
+    int awayFromZero = 2 * remainder >= divisor ? 1 : -1;
+    return awayFromZero * Integer.signum(totalDays) * Integer.signum(nonStockoutDays);
+  }
+
+  private static int calculateAdjustedConsumptionValueWithBigDecimal(int consumedQuantity,
+      int totalDays, int nonStockoutDays) {
     BigDecimal divide = new BigDecimal(totalDays)
-        .divide(new BigDecimal(nonStockoutDays), 1000, BigDecimal.ROUND_HALF_UP);
+        .divide(new BigDecimal(nonStockoutDays), RATIO_SCALE, BigDecimal.ROUND_HALF_UP);
 
-    BigDecimal adjustedConsumption = new BigDecimal(consumedQuantity)
+    return new BigDecimal(consumedQuantity)
         .multiply(divide)
-        .setScale(0, RoundingMode.CEILING);
+        .setScale(0, RoundingMode.CEILING)
+        .intValue();
+  }
 
-    if (null != additionalQuantityRequired && additionalQuantityRequired > 0) {
-      return adjustedConsumption.intValue() + additionalQuantityRequired;
-    }
-    return adjustedConsumption.intValue();
+  private static int calculateAverage(int sum, int numberOfPeriods) {
+    return (int) Math.ceil((double) sum / numberOfPeriods);
   }
 
   private static boolean hasNonZeroStockValue(RequisitionLineItem currentLineItem) {
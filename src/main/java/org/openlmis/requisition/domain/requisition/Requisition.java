@@ -52,6 +52,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.persistence.AttributeOverride;
@@ -71,6 +72,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.PrePersist;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -81,6 +83,7 @@ import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Type;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.joda.money.CurrencyMismatchException;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.openlmis.requisition.domain.BaseTimestampedEntity;
@@ -264,6 +267,10 @@ public class Requisition extends BaseTimestampedEntity {
   @Embedded
   private ExtraDataEntity extraData = new ExtraDataEntity();
 
+  @Transient
+  @DiffIgnore
+  private RequisitionLineItemIndex lineItemIndex;
+
   /**
    * Constructor.
    *
@@ -296,7 +303,7 @@ public class Requisition extends BaseTimestampedEntity {
         original.reportOnly, original.numberOfMonthsInPeriod, original.supervisoryNodeId,
         original.previousRequisitions, original.availableProducts,
         original.datePhysicalStockCountCompleted, null,
-        null, new ExtraDataEntity());
+        null, new ExtraDataEntity(), null);
 
     setId(original.getId());
 
@@ -372,6 +379,50 @@ public class Requisition extends BaseTimestampedEntity {
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Copies values of the given line items into the line items of this requisition with the same
+   * ids and recalculates only those line items. Other line items are left untouched.
+   *
+   * @param lineItems        line items with new values.
+   * @param products         orderables of the line items.
+   * @param approvedProducts approved products of the line items.
+   * @return the updated line items of this requisition.
+   */
+  public List<RequisitionLineItem> patchLineItems(Collection<RequisitionLineItem> lineItems,
+      Map<VersionIdentityDto, OrderableDto> products,
+      Map<VersionIdentityDto, ApprovedProductDto> approvedProducts) {
+    List<RequisitionLineItem> updated = new ArrayList<>();
+
+    for (RequisitionLineItem item : lineItems) {
+      RequisitionLineItem existing = findLineById(item.getId());
+      existing.updateFrom(item);
+      updated.add(existing);
+    }
+
+    for (RequisitionLineItem line : updated) {
+      if (line.isLineSkipped()) {
+        continue;
+      }
+
+      OrderableDto product = products.get(new VersionIdentityDto(line.getOrderable()));
+      ProgramOrderableDto programOrderable = product.getProgramOrderable(programId);
+
+      if (!emergency && isTrue(programOrderable.getFullSupply())) {
+        line.calculateAndSetFields(template, stockAdjustmentReasons,
+            numberOfMonthsInPeriod, approvedProducts);
+      }
+
+      line.updatePacksToShip(product);
+      line.setTotalCost(LineItemFieldsCalculator
+          .calculateTotalCost(line, programOrderable, CurrencyUnit.of(currencyCode)));
+    }
+
+    // do this manually here, since JPA won't catch updates to collections (line items)
+    setModifiedDate(ZonedDateTime.now());
+
+    return updated;
+  }
+
   /**
    * Copy values of attributes into new or updated Requisition.
    *
@@ -418,19 +469,22 @@ public class Requisition extends BaseTimestampedEntity {
   /**
    * Initiates the state of a requisition by creating line items based on products.
    *
-   * @param template             the requisition template for this requisition to use (based on
-   *                             program)
-   * @param fullSupplyProducts   the full supply products for this requisitions facility to build
-   *                             requisition lines for
-   * @param previousRequisitions the previous requisitions for this program/facility. Used for field
-   *                             calculations and set previous adjusted consumptions. Pass empty
-   *                             list if there are no previous requisitions.
+   * @param template                    the requisition template for this requisition to use
+   *                                    (based on program)
+   * @param fullSupplyProducts          the full supply products for this requisitions facility
+   *                                    to build requisition lines for
+   * @param previousRequisitions        the previous requisitions for this program/facility. Used
+   *                                    for field calculations. Pass empty list if there are no
+   *                                    previous requisitions.
+   * @param previousAdjustedConsumptions adjusted consumptions of the previous requisitions that
+   *                                    should be averaged. Used to set previous adjusted
+   *                                    consumptions of line items.
    */
   public void initiate(
       RequisitionTemplate template,
       Collection<ApprovedProductDto> fullSupplyProducts,
       List<Requisition> previousRequisitions,
-      int numberOfPreviousPeriodsToAverage,
+      List<LineItemAdjustedConsumption> previousAdjustedConsumptions,
       ProofOfDeliveryDto proofOfDelivery,
       Map<UUID, Integer> idealStockAmounts,
       UUID initiator,
@@ -452,7 +506,7 @@ public class Requisition extends BaseTimestampedEntity {
       initiateLineItems(fullSupplyProducts, idealStockAmounts, proofOfDelivery, profiler);
 
       profiler.start("SET_PREV_ADJ_CONSUMPTION");
-      setPreviousAdjustedConsumptions(numberOfPreviousPeriodsToAverage);
+      setPreviousAdjustedConsumptions(previousAdjustedConsumptions);
     }
 
     profiler.start("SET_SKIPPED_FROM_PREV_REQUISITION");
@@ -784,17 +838,18 @@ public class Requisition extends BaseTimestampedEntity {
    *         argument; otherwise null;
    */
   public RequisitionLineItem findLineByProduct(UUID productId, Long productVersionId) {
-    if (null == requisitionLineItems) {
-      return null;
-    }
-
-    VersionEntityReference arg = new VersionEntityReference(productId, productVersionId);
+    VersionEntityReference orderable = new VersionEntityReference(productId, productVersionId);
+    return findLine(index -> index.findByOrderable(orderable));
+  }
 
-    return requisitionLineItems
-        .stream()
-        .filter(e -> Objects.equals(arg, e.getOrderable()))
-        .findFirst()
-        .orElse(null);
+  /**
+   * Finds RequisitionLineItem with the given id.
+   *
+   * @param lineItemId line item id
+   * @return RequisitionLineItem with the given id; otherwise null
+   */
+  public RequisitionLineItem findLineById(UUID lineItemId) {
+    return null == lineItemId ? null : findLine(index -> index.findById(lineItemId));
   }
 
   public void setDraftStatusMessage(String draftStatusMessage) {
@@ -968,22 +1023,21 @@ public class Requisition extends BaseTimestampedEntity {
    * Sets appropriate value for Previous Adjusted Consumptions field in
    * each {@link RequisitionLineItem}.
    */
-  void setPreviousAdjustedConsumptions(int numberOfPreviousPeriodsToAverage) {
-    Map<VersionEntityReference, List<RequisitionLineItem>> orderables = previousRequisitions
-        .subList(0, numberOfPreviousPeriodsToAverage)
-        .stream()
-        .map(Requisition::getNonSkippedRequisitionLineItems)
-        .flatMap(Collection::stream)
-        .collect(Collectors.groupingBy(RequisitionLineItem::getOrderable));
+  void setPreviousAdjustedConsumptions(
+      List<LineItemAdjustedConsumption> previousAdjustedConsumptions) {
+    Map<VersionEntityReference, List<Integer>> orderables = new HashMap<>();
+
+    for (LineItemAdjustedConsumption consumption : previousAdjustedConsumptions) {
+      if (null != consumption.getOrderable() && null != consumption.getAdjustedConsumption()) {
+        orderables
+            .computeIfAbsent(consumption.getOrderable(), key -> new ArrayList<>())
+            .add(consumption.getAdjustedConsumption());
+      }
+    }
 
     requisitionLineItems
-        .forEach(line -> line.setPreviousAdjustedConsumptions(Optional
-              .ofNullable(orderables.get(line.getOrderable()))
-              .orElse(Collections.emptyList())
-              .stream()
-              .map(RequisitionLineItem::getAdjustedConsumption)
-              .filter(Objects::nonNull)
-              .collect(toList())));
+        .forEach(line -> line.setPreviousAdjustedConsumptions(new ArrayList<>(orderables
+            .getOrDefault(line.getOrderable(), Collections.emptyList()))));
   }
 
   Map<VersionEntityReference, Object> getAllColumnsValuesByColumnName(String columnName) {
@@ -1011,14 +1065,33 @@ public class Requisition extends BaseTimestampedEntity {
   }
 
   private Money calculateTotalCostForLines(List<RequisitionLineItem> requisitionLineItems) {
-    return Optional
-        .ofNullable(requisitionLineItems)
-        .orElse(Collections.emptyList())
-        .stream()
-        .map(RequisitionLineItem::getTotalCost)
-        .filter(Objects::nonNull)
-        .reduce(Money::plus)
-        .orElseGet(() -> Money.of(CurrencyUnit.of(currencyCode), 0));
+    if (null == requisitionLineItems) {
+      return Money.of(CurrencyUnit.of(currencyCode), 0);
+    }
+
+    // costs are summed up in minor units of the currency, only the result is created as Money
+    CurrencyUnit currency = null;
+    long totalCost = 0;
+
+    for (RequisitionLineItem line : requisitionLineItems) {
+      Money cost = line.getTotalCost();
+
+      if (null == cost) {
+        continue;
+      }
+
+      if (null == currency) {
+        currency = cost.getCurrencyUnit();
+      } else if (!currency.equals(cost.getCurrencyUnit())) {
+        throw new CurrencyMismatchException(currency, cost.getCurrencyUnit());
+      }
+
+      totalCost = Math.addExact(totalCost, cost.getAmountMinorLong());
+    }
+
+    return null == currency
+        ? Money.of(CurrencyUnit.of(currencyCode), 0)
+        : Money.ofMinor(currency, totalCost);
   }
 
   private void calculateAndValidateTemplateFields(RequisitionTemplate template,
@@ -1086,11 +1159,7 @@ public class Requisition extends BaseTimestampedEntity {
     List<RequisitionLineItem> updatedList = new ArrayList<>();
 
     for (RequisitionLineItem item : newLineItems) {
-      RequisitionLineItem existing = requisitionLineItems
-          .stream()
-          .filter(l -> l.getId().equals(item.getId()))
-          .findFirst()
-          .orElse(null);
+      RequisitionLineItem existing = findLineById(item.getId());
 
       if (null == existing) {
         item.setRequisition(this);
@@ -1104,6 +1173,29 @@ public class Requisition extends BaseTimestampedEntity {
 
     requisitionLineItems.clear();
     requisitionLineItems.addAll(updatedList);
+    lineItemIndex = null;
+  }
+
+  private RequisitionLineItem findLine(
+      Function<RequisitionLineItemIndex, RequisitionLineItem> finder) {
+    if (null == requisitionLineItems) {
+      return null;
+    }
+
+    RequisitionLineItem lineItem = finder.apply(getLineItemIndex());
+
+    // a missing line item is looked up once again if the index turned out to be outdated
+    return null == lineItem && !lineItemIndex.isValidFor(requisitionLineItems)
+        ? finder.apply(getLineItemIndex())
+        : lineItem;
+  }
+
+  private RequisitionLineItemIndex getLineItemIndex() {
+    if (null == lineItemIndex || !lineItemIndex.isValidFor(requisitionLineItems)) {
+      lineItemIndex = RequisitionLineItemIndex.of(requisitionLineItems);
+    }
+
+    return lineItemIndex;
   }
 
   private StockCardRangeSummaryDto findStockCardRangeSummary(
@@ -15,18 +15,26 @@
 
 package org.openlmis.requisition.domain.requisition;
 
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_LINE_ITEM_DUPLICATED;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_LINE_ITEM_NOT_FOUND;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_NULL_ID;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_ORDERABLE_NOT_IN_AVAILABLE_LIST;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_PROGRAM_NOT_FOUND;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
 import org.openlmis.requisition.dto.VersionIdentityDto;
+import org.openlmis.requisition.exception.ContentNotFoundMessageException;
 import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.utils.Message;
 
@@ -71,30 +79,9 @@ public final class RequisitionBuilder {
     requisition.setRequisitionLineItems(new ArrayList<>());
 
     if (importer.getRequisitionLineItems() != null) {
-      for (RequisitionLineItem.Importer requisitionLineItem : importer.getRequisitionLineItems()) {
-        RequisitionLineItem item = RequisitionLineItem.newRequisitionLineItem(requisitionLineItem);
-        OrderableDto orderable = orderables.get(new VersionIdentityDto(item.getOrderable()));
-
-        if (null == orderable) {
-          throw new ValidationMessageException(
-              new Message(ERROR_ORDERABLE_NOT_IN_AVAILABLE_LIST, item.getOrderable().getId()));
-        }
-
-        orderable
-            .findProgramOrderable(programId)
-            .orElseThrow(() -> new ValidationMessageException(ERROR_PROGRAM_NOT_FOUND, programId));
-
-        if (isSkipped(requisitionLineItem) && requisitionStatus.isPreAuthorize()) {
-          item.skipLineItem(template);
-        }
-
-        Optional
-            .ofNullable(productReferences.get(item.getOrderable()))
-            .map(ApprovedProductReference::getFacilityTypeApprovedProduct)
-            .ifPresent(item::setFacilityTypeApprovedProduct);
-
-        requisition.getRequisitionLineItems().add(item);
-      }
+      requisition.getRequisitionLineItems().addAll(newRequisitionLineItems(
+          importer.getRequisitionLineItems(), template, programId, requisitionStatus,
+          orderables, productReferences));
     }
     requisition.setNumberOfMonthsInPeriod(processingPeriodDto.getDurationInMonths());
     requisition.setDraftStatusMessage(importer.getDraftStatusMessage());
@@ -112,6 +99,97 @@ public final class RequisitionBuilder {
     return requisition;
   }
 
+  /**
+   * Creates new requisition object for a partial update. Line items from the partial update
+   * replace the line items with the same ids, and everything else, including the remaining line
+   * items, is taken from the updated requisition. This way a partial update can be validated
+   * the same way as an update of the whole requisition.
+   *
+   * @param requisitionToUpdate the updated requisition.
+   * @param lineItems line items with new values.
+   * @param modifiedDate modified date sent with the partial update.
+   * @return new instance of requisition.
+   * @throws ContentNotFoundMessageException if a line item does not exist in the updated
+   *     requisition.
+   * @throws ValidationMessageException if a line item is sent more than once.
+   */
+  public static Requisition newPartialRequisition(Requisition requisitionToUpdate,
+      Collection<RequisitionLineItem> lineItems, ZonedDateTime modifiedDate) {
+    Map<UUID, RequisitionLineItem> changed = new HashMap<>();
+
+    for (RequisitionLineItem item : lineItems) {
+      if (null == requisitionToUpdate.findLineById(item.getId())) {
+        throw new ContentNotFoundMessageException(ERROR_LINE_ITEM_NOT_FOUND, item.getId());
+      }
+
+      if (null != changed.put(item.getId(), item)) {
+        throw new ValidationMessageException(ERROR_LINE_ITEM_DUPLICATED, item.getId());
+      }
+    }
+
+    Requisition requisition = new Requisition();
+    requisition.setId(requisitionToUpdate.getId());
+    requisition.setProgramId(requisitionToUpdate.getProgramId());
+    requisition.setRequisitionLineItems(requisitionToUpdate
+        .getRequisitionLineItems()
+        .stream()
+        .map(line -> changed.getOrDefault(line.getId(), line))
+        .collect(Collectors.toList()));
+    requisition.setNumberOfMonthsInPeriod(requisitionToUpdate.getNumberOfMonthsInPeriod());
+    requisition.setDraftStatusMessage(requisitionToUpdate.getDraftStatusMessage());
+    requisition.setModifiedDate(modifiedDate);
+    requisition.setDatePhysicalStockCountCompleted(
+        requisitionToUpdate.getDatePhysicalStockCountCompleted());
+    requisition.setExtraData(requisitionToUpdate.getExtraData());
+
+    return requisition;
+  }
+
+  /**
+   * Creates new line items based on data from {@link RequisitionLineItem.Importer} for update.
+   *
+   * @param importers instances of {@link RequisitionLineItem.Importer}.
+   * @param template the requisition template of updated requisition.
+   * @param programId the program id of updated requisition.
+   * @param requisitionStatus the requisition status of updated requisition.
+   * @param orderables orderables for line items.
+   * @return new line items.
+   */
+  public static List<RequisitionLineItem> newRequisitionLineItems(
+      Collection<? extends RequisitionLineItem.Importer> importers, RequisitionTemplate template,
+      UUID programId, RequisitionStatus requisitionStatus,
+      Map<VersionIdentityDto, OrderableDto> orderables,
+      Map<VersionEntityReference, ApprovedProductReference> productReferences) {
+    List<RequisitionLineItem> lineItems = new ArrayList<>();
+
+    for (RequisitionLineItem.Importer requisitionLineItem : importers) {
+      RequisitionLineItem item = RequisitionLineItem.newRequisitionLineItem(requisitionLineItem);
+      OrderableDto orderable = orderables.get(new VersionIdentityDto(item.getOrderable()));
+
+      if (null == orderable) {
+        throw new ValidationMessageException(
+            new Message(ERROR_ORDERABLE_NOT_IN_AVAILABLE_LIST, item.getOrderable().getId()));
+      }
+
+      orderable
+          .findProgramOrderable(programId)
+          .orElseThrow(() -> new ValidationMessageException(ERROR_PROGRAM_NOT_FOUND, programId));
+
+      if (isSkipped(requisitionLineItem) && requisitionStatus.isPreAuthorize()) {
+        item.skipLineItem(template);
+      }
+
+      Optional
+          .ofNullable(productReferences.get(item.getOrderable()))
+          .map(ApprovedProductReference::getFacilityTypeApprovedProduct)
+          .ifPresent(item::setFacilityTypeApprovedProduct);
+
+      lineItems.add(item);
+    }
+
+    return lineItems;
+  }
+
   private static boolean isSkipped(RequisitionLineItem.Importer requisitionLineItem) {
     return requisitionLineItem.getSkipped() != null && requisitionLineItem.getSkipped();
   }
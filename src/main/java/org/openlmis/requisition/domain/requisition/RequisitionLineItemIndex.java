@@ -0,0 +1,98 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Lookup of requisition line items by id and by orderable identity. The index is bound to the
+ * list it was built from and it is treated as outdated when the list is replaced, its size
+ * changes or a lookup shows that indexed line items were modified.
+ */
+final class RequisitionLineItemIndex {
+
+  private final List<RequisitionLineItem> lineItems;
+  private final int size;
+  private final boolean containsNewLineItems;
+  private final Map<UUID, RequisitionLineItem> byId;
+  private final Map<VersionEntityReference, RequisitionLineItem> byOrderable;
+  private boolean outdated;
+
+  private RequisitionLineItemIndex(List<RequisitionLineItem> lineItems) {
+    this.lineItems = lineItems;
+    this.size = lineItems.size();
+    this.byId = new HashMap<>(size * 4 / 3 + 1);
+    this.byOrderable = new HashMap<>(size * 4 / 3 + 1);
+
+    boolean newLineItems = false;
+
+    for (RequisitionLineItem lineItem : lineItems) {
+      if (null == lineItem.getId()) {
+        newLineItems = true;
+      } else {
+        byId.putIfAbsent(lineItem.getId(), lineItem);
+      }
+
+      if (null != lineItem.getOrderable()) {
+        byOrderable.putIfAbsent(lineItem.getOrderable(), lineItem);
+      }
+    }
+
+    this.containsNewLineItems = newLineItems;
+  }
+
+  static RequisitionLineItemIndex of(List<RequisitionLineItem> lineItems) {
+    return new RequisitionLineItemIndex(lineItems);
+  }
+
+  boolean isValidFor(List<RequisitionLineItem> lineItems) {
+    return !outdated && this.lineItems == lineItems && size == lineItems.size();
+  }
+
+  RequisitionLineItem findById(UUID lineItemId) {
+    RequisitionLineItem lineItem = byId.get(lineItemId);
+
+    if (null == lineItem) {
+      // new line items could get their ids after the index was built
+      outdated = outdated || containsNewLineItems;
+      return null;
+    }
+
+    return verify(lineItem, Objects.equals(lineItemId, lineItem.getId()));
+  }
+
+  RequisitionLineItem findByOrderable(VersionEntityReference orderable) {
+    RequisitionLineItem lineItem = byOrderable.get(orderable);
+
+    return null == lineItem
+        ? null
+        : verify(lineItem, Objects.equals(orderable, lineItem.getOrderable()));
+  }
+
+  private RequisitionLineItem verify(RequisitionLineItem lineItem, boolean matches) {
+    if (matches) {
+      return lineItem;
+    }
+
+    outdated = true;
+    return null;
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Type;
+import org.openlmis.requisition.domain.BaseTimestampedEntity;
+
+/**
+ * Serialized {@link org.openlmis.requisition.dto.RequisitionDto} of an approved requisition,
+ * together with the resolved orderables and approved products, so it can be sent without
+ * building the DTO again. The snapshot is valid only for the given version of the requisition.
+ */
+@Entity
+@Table(name = "requisition_snapshots")
+@NoArgsConstructor
+@Getter
+@Setter
+public class RequisitionSnapshot extends BaseTimestampedEntity {
+
+  @Column(nullable = false, unique = true)
+  @Type(type = UUID_TYPE)
+  private UUID requisitionId;
+
+  @Column(nullable = false)
+  private Long requisitionVersion;
+
+  @Column(columnDefinition = "jsonb", nullable = false)
+  private String body;
+}
@@ -70,4 +70,9 @@ public enum RequisitionStatus {
   public boolean isSkipped() {
     return value == -1;
   }
+
+  @JsonIgnore
+  public boolean isFinal() {
+    return value >= 5 || value == -1;
+  }
 }
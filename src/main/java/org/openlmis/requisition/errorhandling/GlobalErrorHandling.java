@@ -33,6 +33,7 @@ import org.openlmis.requisition.exception.AuthenticationMessageException;
 import org.openlmis.requisition.exception.ExternalApiException;
 import org.openlmis.requisition.exception.IdempotencyKeyException;
 import org.openlmis.requisition.exception.ServerException;
+import org.openlmis.requisition.exception.TooManyRequestsMessageException;
 import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.exception.VersionMismatchException;
 import org.openlmis.requisition.service.DataRetrievalException;
@@ -193,6 +194,14 @@ public class GlobalErrorHandling extends AbstractErrorHandling {
     return getLocalizedMessage(ex);
   }
 
+  @ExceptionHandler(TooManyRequestsMessageException.class)
+  @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+  @ResponseBody
+  public Message.LocalizedMessage handleTooManyRequestsException(
+      TooManyRequestsMessageException ex) {
+    return getLocalizedMessage(ex);
+  }
+
   @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
   @ResponseStatus(HttpStatus.CONFLICT)
   @ResponseBody
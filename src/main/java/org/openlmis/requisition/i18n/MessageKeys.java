@@ -46,6 +46,14 @@ public abstract class MessageKeys {
       + ".reporting.template.exist";
   public static final String ERROR_REPORTING_TEMPLATE_NOT_FOUND = ERROR_PREFIX
       + ".reporting.template.notFound";
+  public static final String ERROR_REPORT_JOB_NOT_FOUND = ERROR_PREFIX
+      + ".reporting.job.notFound";
+  public static final String ERROR_REPORT_JOB_NOT_COMPLETED = ERROR_PREFIX
+      + ".reporting.job.notCompleted";
+  public static final String ERROR_REPORT_JOB_QUEUE_FULL = ERROR_PREFIX
+      + ".reporting.job.queueFull";
+  public static final String ERROR_REPORT_JOB_USER_LIMIT_EXCEEDED = ERROR_PREFIX
+      + ".reporting.job.userLimitExceeded";
   public static final String ERROR_MUST_BE_SUBMITTED_TO_BE_AUTHORIZED = ERROR_PREFIX
       + ".authorize.mustBeSubmittedToBeAuthorize";
   public static final String ERROR_FINISH_PROVIOUS_REQUISITION = ERROR_PREFIX
@@ -149,6 +157,8 @@ public abstract class MessageKeys {
       "requisition.error.validation.dateModifiedMismatch";
   public static final String VERSION_MISMATCH =
       "requisition.error.validation.versionMismatch";
+  public static final String ERROR_VERSION_REQUIRED =
+      ERROR_PREFIX + ".validation.versionRequired";
   public static final String IDEMPOTENCY_KEY_ALREADY_USED =
       "requisition.error.validation.idempotencyKey.alreadyUsed";
   public static final String IDEMPOTENCY_KEY_WRONG_FORMAT =
@@ -258,6 +268,10 @@ public abstract class MessageKeys {
       ERROR_PREFIX + ".lineItem.removed";
   public static final String ERROR_LINE_ITEM_ADDED =
       ERROR_PREFIX + ".lineItem.added";
+  public static final String ERROR_LINE_ITEM_NOT_FOUND =
+      ERROR_PREFIX + ".lineItem.notFound";
+  public static final String ERROR_LINE_ITEM_DUPLICATED =
+      ERROR_PREFIX + ".lineItem.duplicated";
   public static final String ERROR_DUPLICATE_STATUS_CHANGE =
       ERROR_PREFIX + ".validation.duplicateStatusChange";
   public static final String ERROR_INVALID_REQUISITION_STATUS =
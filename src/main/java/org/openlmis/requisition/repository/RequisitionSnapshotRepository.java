@@ -0,0 +1,51 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.openlmis.requisition.domain.requisition.RequisitionSnapshot;
+import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RequisitionSnapshotRepository extends JpaRepository<RequisitionSnapshot, UUID> {
+
+  Optional<RequisitionSnapshot> findByRequisitionId(UUID requisitionId);
+
+  Optional<RequisitionSnapshot> findByRequisitionIdAndRequisitionVersion(UUID requisitionId,
+      Long requisitionVersion);
+
+  /**
+   * Finds ids of requisitions in the given statuses that have no snapshot of their current
+   * version. Ids are sorted, and only ids greater than the given one are returned, so all
+   * requisitions can be checked page by page while snapshots are being created.
+   */
+  @Query("SELECT r.id"
+      + " FROM Requisition AS r"
+      + " LEFT JOIN RequisitionSnapshot AS s ON s.requisitionId = r.id"
+      + " WHERE r.status IN :statuses"
+      + " AND r.id > :after"
+      + " AND (s.id IS NULL OR s.requisitionVersion <> r.version)"
+      + " ORDER BY r.id")
+  List<UUID> findIdsWithoutCurrentSnapshot(
+      @Param("statuses") Collection<RequisitionStatus> statuses, @Param("after") UUID after,
+      Pageable pageable);
+}
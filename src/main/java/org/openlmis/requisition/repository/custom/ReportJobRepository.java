@@ -0,0 +1,42 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository.custom;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.openlmis.requisition.service.ReportJob;
+
+public interface ReportJobRepository {
+
+  void insert(ReportJob job, UUID requesterId);
+
+  void addRequester(UUID jobId, UUID requesterId);
+
+  void update(ReportJob job);
+
+  void saveResult(UUID jobId, Path resultFile) throws IOException;
+
+  ReportJob find(UUID jobId, UUID requesterId);
+
+  long countUnfinished(UUID requesterId);
+
+  boolean writeResult(UUID jobId, OutputStream outputStream) throws IOException;
+
+  int deleteExpired(ZonedDateTime expiryDate);
+}
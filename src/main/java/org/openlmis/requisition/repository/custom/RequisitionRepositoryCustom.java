@@ -15,12 +15,16 @@
 
 package org.openlmis.requisition.repository.custom;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import org.apache.commons.lang3.tuple.Pair;
+import org.openlmis.requisition.domain.requisition.LineItemAdjustedConsumption;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -36,6 +40,13 @@ public interface RequisitionRepositoryCustom {
   List<RequisitionPeriod> searchRequisitionIdAndStatusPairs(UUID facility, UUID program,
       Boolean emergency);
 
+  Optional<RequisitionVersion> findVersionById(UUID requisitionId);
+
+  void detachAll();
+
+  List<LineItemAdjustedConsumption> searchAdjustedConsumptions(UUID facility, UUID program,
+      Collection<UUID> processingPeriods);
+
   Page<Requisition> searchApprovedRequisitions(UUID facilityId,
       Set<Pair<UUID, UUID>> programSupervisoryNodePair, Pageable pageable);
 
@@ -0,0 +1,97 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository.custom.impl;
+
+import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
+import static org.apache.commons.lang3.StringUtils.defaultString;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.split;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.openlmis.requisition.repository.custom.PermissionStringsRedisRepository;
+import org.openlmis.requisition.repository.custom.SharedPermissionStrings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class PermissionStringsRedisRepositoryImpl implements PermissionStringsRedisRepository {
+
+  private static final String KEY_PREFIX = "PERMISSION_STRINGS:";
+  private static final String PERMISSION_STRINGS = "permissionStrings";
+  private static final String ETAG = "etag";
+  private static final String VALIDATED_AT = "validatedAt";
+  private static final String SEPARATOR = ",";
+
+  private RedisTemplate<String, String> redisTemplate;
+  private HashOperations<String, String, String> hashOperations;
+
+  @Value("${permissionStrings.cache.expireAfterAccessMinutes}")
+  private long expireAfterAccessMinutes;
+
+  @Autowired
+  public PermissionStringsRedisRepositoryImpl(RedisTemplate<String, String> redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  @PostConstruct
+  private void init() {
+    hashOperations = redisTemplate.opsForHash();
+  }
+
+  @Override
+  public SharedPermissionStrings findByUserId(UUID userId) {
+    Map<String, String> entries = hashOperations.entries(getKey(userId));
+
+    if (null == entries || isBlank(entries.get(VALIDATED_AT))) {
+      return null;
+    }
+
+    String permissionStrings = entries.get(PERMISSION_STRINGS);
+    List<String> list = isBlank(permissionStrings)
+        ? Collections.emptyList()
+        : Arrays.asList(split(permissionStrings, SEPARATOR));
+
+    return new SharedPermissionStrings(list, defaultIfBlank(entries.get(ETAG), null),
+        Long.parseLong(entries.get(VALIDATED_AT)));
+  }
+
+  @Override
+  public void save(UUID userId, SharedPermissionStrings permissionStrings) {
+    Map<String, String> entries = new HashMap<>();
+    entries.put(PERMISSION_STRINGS,
+        String.join(SEPARATOR, permissionStrings.getPermissionStrings()));
+    entries.put(ETAG, defaultString(permissionStrings.getEtag()));
+    entries.put(VALIDATED_AT, String.valueOf(permissionStrings.getValidatedAt()));
+
+    String key = getKey(userId);
+    hashOperations.putAll(key, entries);
+    redisTemplate.expire(key, expireAfterAccessMinutes, TimeUnit.MINUTES);
+  }
+
+  private String getKey(UUID userId) {
+    return KEY_PREFIX + userId;
+  }
+}
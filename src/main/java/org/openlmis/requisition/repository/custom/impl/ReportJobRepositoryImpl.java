@@ -0,0 +1,175 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository.custom.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.apache.commons.io.IOUtils;
+import org.openlmis.requisition.repository.custom.ReportJobRepository;
+import org.openlmis.requisition.service.ReportJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Stores report jobs, the users who requested them and the generated reports, so that every
+ * instance of the service can return the status and the result of a job.
+ */
+@Repository
+@SuppressWarnings("PMD.TooManyMethods")
+public class ReportJobRepositoryImpl implements ReportJobRepository {
+
+  private static final String INSERT_SQL = "INSERT INTO requisition.report_jobs"
+      + " (id, templateid, templatename, format, status, createddate)"
+      + " VALUES (?, ?, ?, ?, ?, ?)";
+
+  private static final String INSERT_REQUESTER_SQL = "INSERT INTO"
+      + " requisition.report_job_requesters (jobid, userid)"
+      + " VALUES (?, ?)"
+      + " ON CONFLICT DO NOTHING";
+
+  private static final String UPDATE_SQL = "UPDATE requisition.report_jobs"
+      + " SET status = ?, finisheddate = ?, errormessage = ?"
+      + " WHERE id = ?";
+
+  private static final String UPDATE_RESULT_SQL = "UPDATE requisition.report_jobs"
+      + " SET result = ?"
+      + " WHERE id = ?";
+
+  private static final String SELECT_SQL = "SELECT j.id, j.templateid, j.templatename,"
+      + " j.format, j.status, j.createddate, j.finisheddate, j.errormessage"
+      + " FROM requisition.report_jobs AS j"
+      + " INNER JOIN requisition.report_job_requesters AS r ON r.jobid = j.id"
+      + " WHERE j.id = ? AND r.userid = ?";
+
+  private static final String COUNT_UNFINISHED_SQL = "SELECT count(*)"
+      + " FROM requisition.report_jobs AS j"
+      + " INNER JOIN requisition.report_job_requesters AS r ON r.jobid = j.id"
+      + " WHERE r.userid = ? AND j.finisheddate IS NULL";
+
+  private static final String SELECT_RESULT_SQL = "SELECT result"
+      + " FROM requisition.report_jobs"
+      + " WHERE id = ? AND result IS NOT NULL";
+
+  private static final String DELETE_EXPIRED_SQL = "DELETE FROM requisition.report_jobs"
+      + " WHERE finisheddate < ? OR (finisheddate IS NULL AND createddate < ?)";
+
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public ReportJobRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void insert(ReportJob job, UUID requesterId) {
+    jdbcTemplate.update(INSERT_SQL, job.getId(), job.getTemplateId(), job.getTemplateName(),
+        job.getFormat(), job.getStatus().name(), toTimestamp(job.getCreatedDate()));
+    addRequester(job.getId(), requesterId);
+  }
+
+  @Override
+  public void addRequester(UUID jobId, UUID requesterId) {
+    jdbcTemplate.update(INSERT_REQUESTER_SQL, jobId, requesterId);
+  }
+
+  @Override
+  public void update(ReportJob job) {
+    jdbcTemplate.update(UPDATE_SQL, job.getStatus().name(), toTimestamp(job.getFinishedDate()),
+        job.getErrorMessage(), job.getId());
+  }
+
+  @Override
+  public void saveResult(UUID jobId, Path resultFile) throws IOException {
+    long size = Files.size(resultFile);
+
+    try (InputStream inputStream = Files.newInputStream(resultFile)) {
+      jdbcTemplate.update(UPDATE_RESULT_SQL, statement -> {
+        statement.setBinaryStream(1, inputStream, size);
+        statement.setObject(2, jobId);
+      });
+    }
+  }
+
+  @Override
+  public ReportJob find(UUID jobId, UUID requesterId) {
+    List<ReportJob> jobs = jdbcTemplate.query(SELECT_SQL, this::toReportJob, jobId, requesterId);
+    return jobs.isEmpty() ? null : jobs.get(0);
+  }
+
+  @Override
+  public long countUnfinished(UUID requesterId) {
+    return jdbcTemplate.queryForObject(COUNT_UNFINISHED_SQL, Long.class, requesterId);
+  }
+
+  @Override
+  public boolean writeResult(UUID jobId, OutputStream outputStream) throws IOException {
+    try {
+      return jdbcTemplate.query(SELECT_RESULT_SQL, resultSet -> {
+        if (!resultSet.next()) {
+          return false;
+        }
+
+        try (InputStream inputStream = resultSet.getBinaryStream("result")) {
+          IOUtils.copy(inputStream, outputStream);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+
+        return true;
+      }, jobId);
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  @Override
+  public int deleteExpired(ZonedDateTime expiryDate) {
+    Timestamp expiryTimestamp = toTimestamp(expiryDate);
+    return jdbcTemplate.update(DELETE_EXPIRED_SQL, expiryTimestamp, expiryTimestamp);
+  }
+
+  private ReportJob toReportJob(ResultSet resultSet, int rowNum) throws SQLException {
+    return new ReportJob(
+        resultSet.getObject("id", UUID.class),
+        resultSet.getObject("templateid", UUID.class),
+        resultSet.getString("templatename"),
+        resultSet.getString("format"),
+        ReportJob.Status.valueOf(resultSet.getString("status")),
+        toZonedDateTime(resultSet.getTimestamp("createddate")),
+        toZonedDateTime(resultSet.getTimestamp("finisheddate")),
+        resultSet.getString("errormessage"));
+  }
+
+  private static Timestamp toTimestamp(ZonedDateTime date) {
+    return null == date ? null : Timestamp.from(date.toInstant());
+  }
+
+  private static ZonedDateTime toZonedDateTime(Timestamp timestamp) {
+    return null == timestamp ? null : timestamp.toInstant().atZone(ZoneOffset.UTC);
+  }
+}
@@ -21,10 +21,12 @@ import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import com.google.common.base.Joiner;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -49,11 +51,15 @@ import org.hibernate.type.LongType;
 import org.hibernate.type.PostgresUUIDType;
 import org.hibernate.type.ZonedDateTimeType;
 import org.openlmis.requisition.domain.BaseEntity;
+import org.openlmis.requisition.domain.requisition.LineItemAdjustedConsumption;
 import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
 import org.openlmis.requisition.domain.requisition.RequisitionPermissionString;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.domain.requisition.StatusChange;
+import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.repository.StatusChangeRepository;
 import org.openlmis.requisition.repository.custom.RequisitionRepositoryCustom;
 import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
@@ -99,6 +105,12 @@ public class RequisitionRepositoryImpl
   private static final String SUPERVISORY_NODE_ID = "supervisoryNodeId";
   private static final String AUTHORIZED_DATE = "authorizedDate";
   private static final String MODIFIED_DATE = "modifiedDate";
+  private static final String ID = "id";
+  private static final String REQUISITION_LINE_ITEMS = "requisitionLineItems";
+  private static final String SKIPPED = "skipped";
+  private static final String ORDERABLE = "orderable";
+  private static final String VERSION_NUMBER = "versionNumber";
+  private static final String ADJUSTED_CONSUMPTION = "adjustedConsumption";
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -203,6 +215,95 @@ public class RequisitionRepositoryImpl
     return requisitionIdStatusList;
   }
 
+  /**
+   * Method returns the version of the requisition with the given id together with the fields
+   * needed for permission checks, without loading the requisition itself.
+   *
+   * @param requisitionId id of the requisition.
+   * @return the requisition version or empty if the requisition does not exist.
+   */
+  @Override
+  public Optional<RequisitionVersion> findVersionById(UUID requisitionId) {
+    CriteriaBuilder builder = getCriteriaBuilder();
+
+    CriteriaQuery<RequisitionVersion> query = builder.createQuery(RequisitionVersion.class);
+    Root<Requisition> root = query.from(Requisition.class);
+    query.multiselect(root.get(ID), root.get("version"), root.get(FACILITY_ID),
+        root.get(PROGRAM_ID), root.get(SUPERVISORY_NODE_ID),
+        root.get("extraData").get("extraData"));
+    query.where(builder.equal(root.get(ID), requisitionId));
+
+    return entityManager.createQuery(query)
+        .getResultList()
+        .stream()
+        .findFirst();
+  }
+
+  /**
+   * Detaches all requisitions loaded by the current persistence context, so they can be garbage
+   * collected before the context is closed. Changes that were not flushed yet are lost.
+   */
+  @Override
+  public void detachAll() {
+    entityManager.clear();
+  }
+
+  /**
+   * Method returns adjusted consumptions of non-skipped line items of regular requisitions
+   * with matched parameters. Each requisition without non-skipped line items is returned as
+   * a single row without orderable. Rows are sorted by requisition created date so rows of
+   * the same requisition are next to each other.
+   *
+   * @param processingPeriods ProcessingPeriods of searched Requisitions.
+   * @return List of adjusted consumptions with matched parameters.
+   */
+  @Override
+  public List<LineItemAdjustedConsumption> searchAdjustedConsumptions(UUID facility,
+      UUID program, Collection<UUID> processingPeriods) {
+    XLOGGER.entry(facility, program, processingPeriods);
+
+    if (processingPeriods.isEmpty()) {
+      XLOGGER.exit(Collections.emptyList());
+      return Collections.emptyList();
+    }
+
+    CriteriaBuilder builder = getCriteriaBuilder();
+
+    Profiler profiler = new Profiler("SEARCH_ADJUSTED_CONSUMPTIONS");
+    profiler.setLogger(XLOGGER);
+
+    CriteriaQuery<LineItemAdjustedConsumption> query = builder
+        .createQuery(LineItemAdjustedConsumption.class);
+    Root<Requisition> root = query.from(Requisition.class);
+
+    ListJoin<Requisition, RequisitionLineItem> lineItems = root
+        .joinList(REQUISITION_LINE_ITEMS, JoinType.LEFT);
+    lineItems.on(builder.or(
+        builder.isNull(lineItems.get(SKIPPED)),
+        builder.isFalse(lineItems.get(SKIPPED))));
+
+    Path<VersionEntityReference> orderable = lineItems.get(ORDERABLE);
+    query.multiselect(root.get(ID), root.get(PROCESSING_PERIOD_ID),
+        orderable.get(ID), orderable.get(VERSION_NUMBER),
+        lineItems.get(ADJUSTED_CONSUMPTION));
+
+    Predicate predicate = builder.conjunction();
+    predicate = addEqualFilter(predicate, builder, root, EMERGENCY, false);
+    predicate = addEqualFilter(predicate, builder, root, FACILITY_ID, facility);
+    predicate = addEqualFilter(predicate, builder, root, PROGRAM_ID, program);
+    predicate = builder.and(predicate, root.get(PROCESSING_PERIOD_ID).in(processingPeriods));
+    query.where(predicate);
+    query.orderBy(builder.asc(root.get(CREATED_DATE)), builder.asc(root.get(ID)));
+
+    profiler.start("EXECUTE_QUERY_TO_FIND_ADJUSTED_CONSUMPTIONS");
+    List<LineItemAdjustedConsumption> consumptions = entityManager.createQuery(query)
+        .getResultList();
+
+    XLOGGER.exit(consumptions);
+    profiler.stop().log();
+    return consumptions;
+  }
+
   /**
    * Get approved requisitions matching all of provided parameters.
    * Empty list is returned if:
@@ -0,0 +1,51 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository.custom.impl;
+
+import java.util.concurrent.TimeUnit;
+import org.openlmis.requisition.repository.custom.RequisitionResponsesRedisRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class RequisitionResponsesRedisRepositoryImpl
+    implements RequisitionResponsesRedisRepository {
+
+  private static final String KEY_PREFIX = "REQUISITION_RESPONSES:";
+
+  private RedisTemplate<String, String> redisTemplate;
+
+  @Value("${requisitionResponses.cache.expireAfterWriteMinutes}")
+  private long expireAfterWriteMinutes;
+
+  @Autowired
+  public RequisitionResponsesRedisRepositoryImpl(RedisTemplate<String, String> redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  @Override
+  public String findByKey(String key) {
+    return redisTemplate.opsForValue().get(KEY_PREFIX + key);
+  }
+
+  @Override
+  public void save(String key, String body) {
+    redisTemplate.opsForValue()
+        .set(KEY_PREFIX + key, body, expireAfterWriteMinutes, TimeUnit.MINUTES);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository.custom.impl;
+
+import org.openlmis.requisition.repository.custom.SchedulerLockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Locks scheduled jobs that should be executed only by one instance of the service at a time.
+ * A lock is taken if it does not exist or has expired, so a lock of an instance that has stopped
+ * without releasing it is taken again after the given time.
+ */
+@Repository
+public class SchedulerLockRepositoryImpl implements SchedulerLockRepository {
+
+  private static final String LOCK_SQL = "INSERT INTO requisition.scheduler_locks"
+      + " (name, lockeduntil, lockedat, lockedby)"
+      + " VALUES (?, now() + ? * INTERVAL '1 millisecond', now(), ?)"
+      + " ON CONFLICT (name) DO UPDATE"
+      + " SET lockeduntil = EXCLUDED.lockeduntil, lockedat = EXCLUDED.lockedat,"
+      + " lockedby = EXCLUDED.lockedby"
+      + " WHERE scheduler_locks.lockeduntil <= now()";
+
+  private static final String UNLOCK_SQL = "UPDATE requisition.scheduler_locks"
+      + " SET lockeduntil = now()"
+      + " WHERE name = ? AND lockedby = ?";
+
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public SchedulerLockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public boolean lock(String name, String lockedBy, long lockAtMostForMillis) {
+    return jdbcTemplate.update(LOCK_SQL, name, lockAtMostForMillis, lockedBy) > 0;
+  }
+
+  @Override
+  public void unlock(String name, String lockedBy) {
+    jdbcTemplate.update(UNLOCK_SQL, name, lockedBy);
+  }
+}
@@ -23,8 +23,10 @@ import static org.openlmis.requisition.utils.RequestHelper.createUri;
 import java.lang.reflect.Array;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.openlmis.requisition.dto.ResultDto;
@@ -55,9 +57,16 @@ public abstract class BaseCommunicationService<T> {
 
   protected AuthService authService;
 
+  private SplitRequestExecutor splitRequestExecutor;
+
+  private RequestCoalescer requestCoalescer;
+
   @Value("${request.maxUrlLength}")
   private int maxUrlLength;
 
+  @Value("${request.coalescing.enabled}")
+  private boolean coalescingEnabled;
+
   protected abstract String getServiceUrl();
 
   protected abstract String getUrl();
@@ -105,11 +114,12 @@ public abstract class BaseCommunicationService<T> {
         .setAll(parameters);
 
     try {
-      return runWithTokenRetry(() -> restTemplate.exchange(
+      return runCoalesced(HttpMethod.GET, url, params, null, type,
+          () -> runWithTokenRetry(() -> restTemplate.exchange(
               createUri(url, params),
               HttpMethod.GET,
               createEntity(authService.obtainAccessToken()),
-              type)).getBody();
+              type))).getBody();
     } catch (HttpStatusCodeException ex) {
       // rest template will handle 404 as an exception, instead of returning null
       if (HttpStatus.NOT_FOUND == ex.getStatusCode()) {
@@ -161,8 +171,8 @@ public abstract class BaseCommunicationService<T> {
         .setAll(parameters);
 
     try {
-      ResponseEntity<P[]> response = runWithTokenRetry(
-          () -> doListRequest(url, params, payload, method, type)
+      ResponseEntity<P[]> response = runCoalesced(method, url, params, payload, type,
+          () -> runWithTokenRetry(() -> doListRequest(url, params, payload, method, type))
       );
 
       return Stream.of(response.getBody()).collect(Collectors.toList());
@@ -220,8 +230,8 @@ public abstract class BaseCommunicationService<T> {
         .setAll(parameters);
 
     try {
-      ResponseEntity<PageDto<P>> response = runWithTokenRetry(
-          () -> doPageRequest(url, params, payload, method, type)
+      ResponseEntity<PageDto<P>> response = runCoalesced(method, url, params, payload, type,
+          () -> runWithTokenRetry(() -> doPageRequest(url, params, payload, method, type))
       );
       return response.getBody();
     } catch (HttpStatusCodeException ex) {
@@ -236,12 +246,14 @@ public abstract class BaseCommunicationService<T> {
         .init()
         .setAll(parameters);
 
-    ResponseEntity<ResultDto<P>> response = runWithTokenRetry(() -> restTemplate.exchange(
-        createUri(url, params),
-        HttpMethod.GET,
-        createEntity(authService.obtainAccessToken()),
-        new DynamicResultDtoTypeReference<>(type)
-    ));
+    ResponseEntity<ResultDto<P>> response = runCoalesced(HttpMethod.GET, url, params, null,
+        Arrays.asList(ResultDto.class, type),
+        () -> runWithTokenRetry(() -> restTemplate.exchange(
+            createUri(url, params),
+            HttpMethod.GET,
+            createEntity(authService.obtainAccessToken()),
+            new DynamicResultDtoTypeReference<>(type)
+        )));
 
     return response.getBody();
   }
@@ -251,11 +263,8 @@ public abstract class BaseCommunicationService<T> {
                                                 Class<E[]> type) {
     HttpEntity<Object> entity = RequestHelper
         .createEntity(payload, authService.obtainAccessToken());
-    List<E[]> arrays = new ArrayList<>();
-
-    for (URI uri : RequestHelper.splitRequest(url, parameters, maxUrlLength)) {
-      arrays.add(restTemplate.exchange(uri, method, entity, type).getBody());
-    }
+    List<E[]> arrays = exchangeAll(RequestHelper.splitRequest(url, parameters, maxUrlLength),
+        uri -> restTemplate.exchange(uri, method, entity, type).getBody());
 
     E[] body = Merger
         .ofArrays(arrays)
@@ -274,11 +283,8 @@ public abstract class BaseCommunicationService<T> {
         .createEntity(payload, authService.obtainAccessToken());
     ParameterizedTypeReference<PageDto<E>> parameterizedType =
         new DynamicPageTypeReference<>(type);
-    List<PageDto<E>> pages = new ArrayList<>();
-
-    for (URI uri : RequestHelper.splitRequest(url, parameters, maxUrlLength)) {
-      pages.add(restTemplate.exchange(uri, method, entity, parameterizedType).getBody());
-    }
+    List<PageDto<E>> pages = exchangeAll(RequestHelper.splitRequest(url, parameters, maxUrlLength),
+        uri -> restTemplate.exchange(uri, method, entity, parameterizedType).getBody());
 
     PageDto<E> body = Merger
         .ofPages(pages)
@@ -288,6 +294,37 @@ public abstract class BaseCommunicationService<T> {
     return new ResponseEntity<>(body, HttpStatus.OK);
   }
 
+  /**
+   * Runs the given read request unless an identical request (same method, url, parameters,
+   * payload and result type) is already in progress. In that case the result of the request
+   * in progress is returned. Requests are sent with the service token so the result does not
+   * depend on the user. The response and its body are shared by all callers of the request and
+   * must not be modified.
+   */
+  protected <P> ResponseEntity<P> runCoalesced(HttpMethod method, String url,
+      RequestParameters parameters, Object payload, Object type, HttpTask<P> task) {
+    if (!coalescingEnabled || null == requestCoalescer) {
+      return task.run();
+    }
+
+    return requestCoalescer
+        .execute(Arrays.asList(method, url, parameters, payload, type), task::run);
+  }
+
+  private <E> List<E> exchangeAll(URI[] uris, Function<URI, E> exchange) {
+    if (uris.length > 1 && null != splitRequestExecutor) {
+      return splitRequestExecutor.execute(uris, exchange);
+    }
+
+    List<E> responses = new ArrayList<>(uris.length);
+
+    for (URI uri : uris) {
+      responses.add(exchange.apply(uri));
+    }
+
+    return responses;
+  }
+
   protected <P> ResponseEntity<P> runWithTokenRetry(HttpTask<P> task) {
     try {
       return task.run();
@@ -354,6 +391,16 @@ public abstract class BaseCommunicationService<T> {
     this.authService = authService;
   }
 
+  @Autowired
+  public void setSplitRequestExecutor(SplitRequestExecutor splitRequestExecutor) {
+    this.splitRequestExecutor = splitRequestExecutor;
+  }
+
+  @Autowired
+  public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+    this.requestCoalescer = requestCoalescer;
+  }
+
   void setRestTemplate(RestOperations template) {
     this.restTemplate = template;
   }
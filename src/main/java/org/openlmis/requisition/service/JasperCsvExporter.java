@@ -15,12 +15,13 @@
 
 package org.openlmis.requisition.service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.export.JRCsvExporter;
 import net.sf.jasperreports.export.SimpleExporterInput;
 import net.sf.jasperreports.export.SimpleWriterExporterOutput;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 
 public class JasperCsvExporter implements JasperExporter {
 
@@ -31,12 +32,11 @@ public class JasperCsvExporter implements JasperExporter {
   }
 
   @Override
-  public byte[] exportReport() throws JRException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+  public void exportReport(OutputStream outputStream) throws JRException {
     JRCsvExporter exporter = new JRCsvExporter();
     exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-    exporter.setExporterOutput(new SimpleWriterExporterOutput(baos));
+    OutputStream output = new CloseShieldOutputStream(outputStream);
+    exporter.setExporterOutput(new SimpleWriterExporterOutput(output));
     exporter.exportReport();
-    return baos.toByteArray();
   }
 }
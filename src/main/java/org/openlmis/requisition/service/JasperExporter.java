@@ -15,9 +15,23 @@
 
 package org.openlmis.requisition.service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import net.sf.jasperreports.engine.JRException;
 
 public interface JasperExporter {
 
-  byte[] exportReport() throws JRException;
+  /**
+   * Writes the report to the given stream. The stream is not closed.
+   */
+  void exportReport(OutputStream outputStream) throws JRException;
+
+  /**
+   * Writes the report to a new byte array.
+   */
+  default byte[] exportReport() throws JRException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    exportReport(baos);
+    return baos.toByteArray();
+  }
 }
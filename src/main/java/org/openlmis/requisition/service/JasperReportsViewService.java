@@ -25,6 +25,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -43,14 +45,18 @@ import javax.sql.DataSource;
 import net.sf.jasperreports.engine.JRBand;
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperCompileManager;
-import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperFillManager;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
 import net.sf.jasperreports.engine.xml.JRXmlLoader;
+import org.apache.commons.lang3.StringUtils;
 import org.openlmis.requisition.domain.JasperTemplate;
 import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.RequisitionTemplateColumn;
@@ -77,14 +83,23 @@ import org.openlmis.requisition.utils.Pagination;
 import org.openlmis.requisition.utils.ReportUtils;
 import org.openlmis.requisition.web.ReportingRateReportDtoBuilder;
 import org.openlmis.requisition.web.RequisitionReportDtoBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @SuppressWarnings({"PMD.TooManyMethods"})
 public class JasperReportsViewService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(JasperReportsViewService.class);
+
+  static final String VIRTUALIZER_PROPERTY = "org.openlmis.requisition.report.virtualizer";
+  private static final int SWAP_BLOCK_SIZE = 4096;
+  private static final int SWAP_MIN_GROW_COUNT = 256;
+
   private static final String DATASOURCE = "datasource";
   private static final String REQUISITION_REPORT_DIR = "/jasperTemplates/requisition.jrxml";
   private static final String REQUISITION_LINE_REPORT_DIR =
@@ -129,56 +144,44 @@ public class JasperReportsViewService {
   @Value("${currencyLocale}")
   private String currencyLocale;
 
+  @Value("${reports.virtualizer.directory}")
+  private String virtualizerDirectory;
+
+  @Value("${reports.virtualizer.maxPages}")
+  private int virtualizerMaxPages;
+
+  @Value("${reports.virtualizer.rowThreshold}")
+  private int virtualizerRowThreshold;
+
   /**
-   * Generate Jasper Report.
+   * Fill Jasper Report without exporting it, so that it can be written straight to a stream.
    *
    * @param jasperTemplate template that will be used to generate the report
    * @param params report parameters
-   * @return generated report.
-   * @throws JasperReportViewException if there will be any problem with generating the report.
+   * @return exporter that writes the report in the requested format.
+   * @throws JasperReportViewException if there will be any problem with filling the report.
    */
-  public byte[] generateReport(JasperTemplate jasperTemplate, Map<String, Object> params)
+  @Transactional(readOnly = true)
+  public JasperExporter fillReport(JasperTemplate jasperTemplate, Map<String, Object> params)
       throws JasperReportViewException {
-    return fillAndExportReport(getReportFromTemplateData(jasperTemplate), params);
+    return fillCompiledReport(getReportFromTemplateData(jasperTemplate), params);
   }
 
   /**
-   * Generate Jasper Reporting Rate Report.
+   * Fill Jasper Reporting Rate Report without exporting it, so that it can be written straight
+   * to a stream.
    *
    * @param jasperTemplate template that will be used to generate the report
    * @param params report parameters
-   * @return generated report.
-   * @throws JasperReportViewException if there will be any problem with generating the report.
+   * @return exporter that writes the report in the requested format.
+   * @throws JasperReportViewException if there will be any problem with filling the report.
    */
-  public byte[] generateReportingRateReport(JasperTemplate jasperTemplate,
+  @Transactional(readOnly = true)
+  public JasperExporter fillReportingRateReport(JasperTemplate jasperTemplate,
       Map<String, Object> params)
       throws JasperReportViewException {
-
-    UUID programId = (UUID) processParameter(params, "Program", true, UUID.class);
-    ProgramDto program = programReferenceDataService.findOne(programId);
-
-    UUID periodId = (UUID) processParameter(params, "Period", true, UUID.class);
-    ProcessingPeriodDto period = periodReferenceDataService.findOne(periodId);
-
-    UUID zoneId = (UUID) processParameter(params, "GeographicZone", false, UUID.class);
-    GeographicZoneDto zone = null;
-    if (zoneId != null) {
-      zone = geographicZoneReferenceDataService.findOne(zoneId);
-    }
-
-    Integer dueDays = (Integer) processParameter(params, "DueDays", false, Integer.class);
-    if (dueDays != null && dueDays < 0) {
-      throw new ValidationMessageException(
-          new Message(ERROR_REPORTING_TEMPLATE_PARAMETER_INVALID, "DueDays"));
-    }
-
-    ReportingRateReportDto reportDto = reportingRateReportDtoBuilder.build(program, period, zone,
-        dueDays);
-    params.put(DATASOURCE, Collections.singletonList(reportDto));
-    params.put("dateFormat", dateFormat);
-    params.put("decimalFormat", createDecimalFormat());
-
-    return fillAndExportReport(getReportFromTemplateData(jasperTemplate), params);
+    setReportingRateReportParameters(params);
+    return fillCompiledReport(getReportFromTemplateData(jasperTemplate), params);
   }
 
   /**
@@ -207,16 +210,49 @@ public class JasperReportsViewService {
   }
 
   /**
-   * Generate Jasper Reporting Rate Report.
+   * Fill Jasper Timeliness Report without exporting it, so that it can be written straight to
+   * a stream.
    *
    * @param jasperTemplate template that will be used to generate the report
    * @param parameters report parameters
-   * @return generated report.
-   * @throws JasperReportViewException if there will be any problem with generating the report.
+   * @return exporter that writes the report in the requested format.
+   * @throws JasperReportViewException if there will be any problem with filling the report.
    */
-  public byte[] generateTimelinessReport(JasperTemplate jasperTemplate,
+  @Transactional(readOnly = true)
+  public JasperExporter fillTimelinessReport(JasperTemplate jasperTemplate,
       Map<String, Object> parameters)
       throws JasperReportViewException {
+    setTimelinessReportParameters(parameters);
+    return fillCompiledReport(getReportFromTemplateData(jasperTemplate), parameters);
+  }
+
+  private void setReportingRateReportParameters(Map<String, Object> params) {
+    UUID programId = (UUID) processParameter(params, "Program", true, UUID.class);
+    ProgramDto program = programReferenceDataService.findOne(programId);
+
+    UUID periodId = (UUID) processParameter(params, "Period", true, UUID.class);
+    ProcessingPeriodDto period = periodReferenceDataService.findOne(periodId);
+
+    UUID zoneId = (UUID) processParameter(params, "GeographicZone", false, UUID.class);
+    GeographicZoneDto zone = null;
+    if (zoneId != null) {
+      zone = geographicZoneReferenceDataService.findOne(zoneId);
+    }
+
+    Integer dueDays = (Integer) processParameter(params, "DueDays", false, Integer.class);
+    if (dueDays != null && dueDays < 0) {
+      throw new ValidationMessageException(
+          new Message(ERROR_REPORTING_TEMPLATE_PARAMETER_INVALID, "DueDays"));
+    }
+
+    ReportingRateReportDto reportDto = reportingRateReportDtoBuilder.build(program, period, zone,
+        dueDays);
+    params.put(DATASOURCE, Collections.singletonList(reportDto));
+    params.put("dateFormat", dateFormat);
+    params.put("decimalFormat", createDecimalFormat());
+  }
+
+  private void setTimelinessReportParameters(Map<String, Object> parameters) {
     ProgramDto program = programReferenceDataService.findOne(
         UUID.fromString(parameters.get("program").toString())
     );
@@ -235,8 +271,6 @@ public class JasperReportsViewService {
     parameters.put("program", program);
     parameters.put("period", period);
     parameters.put("district", district);
-
-    return fillAndExportReport(getReportFromTemplateData(jasperTemplate), parameters);
   }
 
   private JasperDesign createCustomizedRequisitionLineSubreport(RequisitionTemplate template,
@@ -266,34 +300,68 @@ public class JasperReportsViewService {
    */
   byte[] fillAndExportReport(JasperReport compiledReport, Map<String, Object> params)
       throws JasperReportViewException {
+    JasperExporter exporter = fillCompiledReport(compiledReport, params);
 
-    byte[] bytes;
+    try {
+      return exporter.exportReport();
+    } catch (JRException e) {
+      throw new JasperReportViewException(e, ERROR_JASPER_FILE_FORMAT, e.getMessage());
+    }
+  }
+
+  /**
+   * Fill in a compiled report and return an exporter for the format given in the parameters.
+   * The report is filled with a virtualizer, that keeps only some pages in memory, if the
+   * template declares it or the number of rows exceeds the configured threshold.
+   */
+  private JasperExporter fillCompiledReport(JasperReport compiledReport,
+      Map<String, Object> params) throws JasperReportViewException {
+    List<?> rows = (List<?>) params.get(DATASOURCE);
+    JRAbstractLRUVirtualizer virtualizer = null;
+
+    if (isVirtualizerRequired(compiledReport, rows)) {
+      virtualizer = createVirtualizer();
+      params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+    }
+
+    long start = System.currentTimeMillis();
+    JasperPrint jasperPrint;
 
     try {
-      JasperPrint jasperPrint;
-      if (params.containsKey(DATASOURCE)) {
-        jasperPrint = fillJasperReport(compiledReport, params,
-            new JRBeanCollectionDataSource((List) params.get(DATASOURCE)));
-      } else {
+      if (null != rows) {
         jasperPrint = fillJasperReport(compiledReport, params,
-            replicationDataSource.getConnection());
-      }
-
-      String format = (String) params.get("format");
-      if ("csv".equals(format)) {
-        bytes = exportJasperReportToCsv(jasperPrint);
-      } else if ("xls".equals(format)) {
-        bytes = exportJasperReportToXls(jasperPrint);
-      } else if ("html".equals(format)) {
-        bytes = exportJasperReportToHtml(jasperPrint);
+            new JRBeanCollectionDataSource(rows));
       } else {
-        bytes = exportJasperReportToPdf(jasperPrint);
+        try (Connection connection = replicationDataSource.getConnection()) {
+          jasperPrint = fillJasperReport(compiledReport, params, connection);
+        }
       }
     } catch (Exception e) {
+      if (null != virtualizer) {
+        virtualizer.cleanup();
+      }
+
       throw new JasperReportViewException(e, ERROR_JASPER_FILE_FORMAT, e.getMessage());
     }
 
-    return bytes;
+    LOGGER.info("Filled report {} in {} ms: pages={}, rows={}, virtualized={}",
+        compiledReport.getName(), System.currentTimeMillis() - start,
+        jasperPrint.getPages().size(), null == rows ? "unknown" : rows.size(),
+        null != virtualizer);
+
+    JasperExporter exporter = createExporter(jasperPrint, (String) params.get("format"));
+
+    if (null == virtualizer) {
+      return exporter;
+    }
+
+    virtualizer.setReadOnly(true);
+    return new VirtualizedJasperExporter(exporter, virtualizer);
+  }
+
+  private boolean isVirtualizerRequired(JasperReport compiledReport, List<?> rows) {
+    return Boolean.parseBoolean(compiledReport.getProperty(VIRTUALIZER_PROPERTY))
+        || virtualizerRowThreshold > 0 && null != rows && rows.size() > virtualizerRowThreshold;
   }
 
   /**
@@ -427,20 +495,31 @@ public class JasperReportsViewService {
     return JasperFillManager.fillReport(jasperReport, parameters, connection);
   }
 
-  byte[] exportJasperReportToCsv(JasperPrint jasperPrint) throws JRException {
-    return new JasperCsvExporter(jasperPrint).exportReport();
-  }
+  JRAbstractLRUVirtualizer createVirtualizer() throws JasperReportViewException {
+    String directory = StringUtils.isBlank(virtualizerDirectory)
+        ? System.getProperty("java.io.tmpdir")
+        : virtualizerDirectory;
 
-  byte[] exportJasperReportToXls(JasperPrint jasperPrint) throws JRException {
-    return new JasperXlsExporter(jasperPrint).exportReport();
-  }
+    try {
+      Files.createDirectories(Paths.get(directory));
+    } catch (IOException ex) {
+      throw new JasperReportViewException(ex, ERROR_IO, ex.getMessage());
+    }
 
-  byte[] exportJasperReportToHtml(JasperPrint jasperPrint) throws JRException {
-    return new JasperHtmlExporter(jasperPrint).exportReport();
+    JRSwapFile swapFile = new JRSwapFile(directory, SWAP_BLOCK_SIZE, SWAP_MIN_GROW_COUNT);
+    return new JRSwapFileVirtualizer(virtualizerMaxPages, swapFile, true);
   }
 
-  byte[] exportJasperReportToPdf(JasperPrint jasperPrint) throws JRException {
-    return JasperExportManager.exportReportToPdf(jasperPrint);
+  JasperExporter createExporter(JasperPrint jasperPrint, String format) {
+    if ("csv".equals(format)) {
+      return new JasperCsvExporter(jasperPrint);
+    } else if ("xls".equals(format)) {
+      return new JasperXlsExporter(jasperPrint);
+    } else if ("html".equals(format)) {
+      return new JasperHtmlExporter(jasperPrint);
+    } else {
+      return new JasperPdfExporter(jasperPrint);
+    }
   }
 
   protected Locale getLocaleFromService() {
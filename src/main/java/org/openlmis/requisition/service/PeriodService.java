@@ -24,10 +24,12 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
-import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
@@ -145,28 +147,27 @@ public class PeriodService {
       requisitionPeriods.addAll(periodDtos);
 
       profiler.start("GET_POSTAUTHORIZE_PERIODS_FOR_REGULAR_REQUISITIONS");
-      List<RequisitionPeriod> postAuthorizeRequisitionsPeriods = requisitionIdStatusList.stream()
-          .filter(requisitionPeriod ->  !requisitionPeriod.getRequisitionStatus().isPreAuthorize())
-          .collect(Collectors.toList());
+      Set<UUID> postAuthorizePeriodIds = requisitionIdStatusList.stream()
+          .filter(requisitionPeriod -> !requisitionPeriod.getRequisitionStatus().isPreAuthorize())
+          .map(RequisitionPeriod::getPeriodId)
+          .collect(Collectors.toSet());
 
       profiler.start("REMOVE_POSTAUTHORIZE_PERIODS_FROM_REQUISITION_PERIODS");
-      postAuthorizeRequisitionsPeriods.forEach(postAuthorizeRequisitionPeriod -> requisitionPeriods
-            .stream()
-            .filter(period -> period.getId().equals(postAuthorizeRequisitionPeriod.getPeriodId()))
-            .findFirst()
-            .ifPresent(requisitionPeriods::remove)
-      );
+      requisitionPeriods.removeIf(period -> postAuthorizePeriodIds.contains(period.getId()));
+
+      profiler.start("GROUP_REQUISITION_PERIODS_BY_PERIOD_ID");
+      Map<UUID, RequisitionPeriod> requisitionPeriodsByPeriodId =
+          groupByPeriodId(requisitionIdStatusList);
 
       profiler.start("SET_REQUISITION_ID_AND_STATUS_FOR_REQUISITION_PERIODS");
-      requisitionPeriods.forEach(requisitionPeriodDto -> requisitionIdStatusList
-          .stream()
-          .filter(requisitionPeriod ->
-              requisitionPeriod.getPeriodId().equals(requisitionPeriodDto.getId()))
-          .findFirst()
-          .ifPresent(requisitionPeriod -> setRequisitionPeriodStatusAndId(
-              requisitionPeriodDto, requisitionPeriod)
-          )
-      );
+      requisitionPeriods.forEach(requisitionPeriodDto -> {
+        RequisitionPeriod requisitionPeriod = requisitionPeriodsByPeriodId
+            .get(requisitionPeriodDto.getId());
+
+        if (null != requisitionPeriod) {
+          setRequisitionPeriodStatusAndId(requisitionPeriodDto, requisitionPeriod);
+        }
+      });
     }
 
     profiler.stop().log();
@@ -264,15 +265,16 @@ public class PeriodService {
     Collection<ProcessingPeriodDto> periods = searchByProgramAndFacility(programId, facilityId);
 
     if (periods != null) {
+      // There is always maximum one regular requisition for given period, facility and program
+      Map<UUID, RequisitionPeriod> requisitionPeriodsByPeriodId = groupByPeriodId(
+          requisitionRepository.searchRequisitionIdAndStatusPairs(facilityId, programId, false));
       RequisitionStatus previousStatus = null;
 
       for (ProcessingPeriodDto dto : periods) {
-        // There is always maximum one regular requisition for given period, facility and program
-        List<Requisition> requisitions = requisitionRepository.searchRequisitions(
-            dto.getId(), facilityId, programId, false);
+        RequisitionPeriod requisitionPeriod = requisitionPeriodsByPeriodId.get(dto.getId());
 
-        if (!requisitions.isEmpty()) {
-          previousStatus = requisitions.get(0).getStatus();
+        if (null != requisitionPeriod) {
+          previousStatus = requisitionPeriod.getRequisitionStatus();
         } else {
           if (null != previousStatus && previousStatus.isPreAuthorize()) {
             throw new ValidationMessageException(new Message(ERROR_FINISH_PROVIOUS_REQUISITION));
@@ -287,6 +289,15 @@ public class PeriodService {
     return result;
   }
 
+  private Map<UUID, RequisitionPeriod> groupByPeriodId(
+      List<RequisitionPeriod> requisitionPeriods) {
+    Map<UUID, RequisitionPeriod> requisitionPeriodsByPeriodId = new HashMap<>();
+    requisitionPeriods.forEach(requisitionPeriod -> requisitionPeriodsByPeriodId
+        .putIfAbsent(requisitionPeriod.getPeriodId(), requisitionPeriod));
+
+    return requisitionPeriodsByPeriodId;
+  }
+
   private void setRequisitionPeriodStatusAndId(RequisitionPeriodDto requisitionPeriodDto,
       RequisitionPeriod requisitionPeriod) {
     requisitionPeriodDto.setRequisitionId(requisitionPeriod.getRequisitionId());
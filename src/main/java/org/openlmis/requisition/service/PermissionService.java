@@ -20,6 +20,7 @@ import static org.openlmis.requisition.i18n.MessageKeys.ERROR_NO_FOLLOWING_PERMI
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_NO_FOLLOWING_PERMISSION_FOR_REQUISITION_UPDATE;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REQUISITION_NOT_FOUND;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,9 +30,11 @@ import java.util.stream.Collectors;
 import org.openlmis.requisition.domain.BaseEntity;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.dto.ReleasableRequisitionDto;
 import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
 import org.openlmis.requisition.service.referencedata.PermissionStrings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -106,18 +109,41 @@ public class PermissionService {
    */
   public ValidationResult canUpdateRequisition(Requisition requisition) {
     if (requisition != null) {
-      switch (requisition.getStatus()) {
-        case INITIATED:
-        case REJECTED:
-          return checkPermissionOnUpdate(REQUISITION_CREATE, requisition);
-        case SUBMITTED:
-          return checkPermissionOnUpdate(REQUISITION_AUTHORIZE, requisition);
-        case AUTHORIZED:
-        case IN_APPROVAL:
-          return checkPermissionOnUpdate(REQUISITION_APPROVE, requisition);
-        default:
-          return ValidationResult.failedValidation(ERROR_CANNOT_UPDATE_REQUISITION);
+      String rightName = getUpdateRightName(requisition.getStatus());
+
+      return null == rightName
+          ? ValidationResult.failedValidation(ERROR_CANNOT_UPDATE_REQUISITION)
+          : checkPermissionOnUpdate(rightName, requisition);
+    }
+
+    return ValidationResult.success();
+  }
+
+  /**
+   * Checks if current user has permission to update a requisition. The given permission strings
+   * of the current user are checked first so a batch of requisitions can be verified without
+   * calling other services for each of them. If the index does not contain a correct right, the
+   * result is confirmed in the same way as in {@link #canUpdateRequisition(Requisition)}.
+   *
+   * @param requisition       the requisition.
+   * @param permissionStrings permission strings of the current user.
+   * @return ValidationResult containing info about the result of this check
+   */
+  public ValidationResult canUpdateRequisition(Requisition requisition,
+      PermissionStringIndex permissionStrings) {
+    if (requisition != null) {
+      String rightName = getUpdateRightName(requisition.getStatus());
+
+      if (null == rightName) {
+        return ValidationResult.failedValidation(ERROR_CANNOT_UPDATE_REQUISITION);
       }
+
+      if (permissionStrings.hasPermission(rightName,
+          requisition.getFacilityId(), requisition.getProgramId())) {
+        return ValidationResult.success();
+      }
+
+      return checkPermissionOnUpdate(rightName, requisition);
     }
 
     return ValidationResult.success();
@@ -201,6 +227,17 @@ public class PermissionService {
     return checkRightOrRole(REQUISITION_VIEW, requisition);
   }
 
+  /**
+   * Checks if current user has permission to view a requisition, based on its version and the
+   * fields needed for the check, without loading the requisition.
+   *
+   * @return ValidationResult containing info about the result of this check
+   */
+  public ValidationResult canViewRequisition(RequisitionVersion requisition) {
+    return checkRightOrRole(
+        new RoleAssignmentPermissionValidationDetails(REQUISITION_VIEW, requisition));
+  }
+
   /**
    * Checks if current user has permission to convert requisition to order.
    *
@@ -218,6 +255,8 @@ public class PermissionService {
         .stream()
         .collect(Collectors.toMap(BaseEntity::getId, Function.identity()));
 
+    Set<UUID> checkedSupplyingDepotIds = new HashSet<>();
+
     for (ReleasableRequisitionDto convertToOrder : list) {
       Requisition requisition = requisitions.get(convertToOrder.getRequisitionId());
 
@@ -226,6 +265,11 @@ public class PermissionService {
             .notFound(ERROR_REQUISITION_NOT_FOUND, convertToOrder.getRequisitionId());
       }
 
+      // many requisitions are usually released from the same supplying depot
+      if (!checkedSupplyingDepotIds.add(convertToOrder.getSupplyingDepotId())) {
+        continue;
+      }
+
       ValidationResult validation = checkRight(ORDERS_EDIT, convertToOrder.getSupplyingDepotId());
 
       if (validation.hasErrors()) {
@@ -263,6 +307,21 @@ public class PermissionService {
     return checkRight(REPORTS_VIEW);
   }
 
+  private String getUpdateRightName(RequisitionStatus status) {
+    switch (status) {
+      case INITIATED:
+      case REJECTED:
+        return REQUISITION_CREATE;
+      case SUBMITTED:
+        return REQUISITION_AUTHORIZE;
+      case AUTHORIZED:
+      case IN_APPROVAL:
+        return REQUISITION_APPROVE;
+      default:
+        return null;
+    }
+  }
+
   private ValidationResult checkPermissionOnUpdate(String rightName, Requisition requisition) {
     ValidationResult result = checkRightOrRole(rightName, requisition);
 
@@ -298,17 +357,20 @@ public class PermissionService {
   }
 
   private ValidationResult checkRightOrRole(String rightName, Requisition requisition) {
+    return checkRightOrRole(new RoleAssignmentPermissionValidationDetails(rightName, requisition));
+  }
+
+  private ValidationResult checkRightOrRole(RoleAssignmentPermissionValidationDetails details) {
     // we first check if a user has permission by right assignments because
     // checking if the user has a correct role assignment is slower
-    ValidationResult rightCheck = checkRight(rightName,
-        requisition.getFacilityId(), requisition.getProgramId());
+    ValidationResult rightCheck = checkRight(details.getRightName(),
+        details.getFacilityId(), details.getProgramId());
 
     if (rightCheck.isSuccess()) {
       return rightCheck;
     }
 
-    return roleAssignmentPermissionValidator
-        .hasPermission(new RoleAssignmentPermissionValidationDetails(rightName, requisition));
+    return roleAssignmentPermissionValidator.hasPermission(details);
   }
 
   /**
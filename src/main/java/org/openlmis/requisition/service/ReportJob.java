@@ -0,0 +1,94 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Report generated in the background. The job is shared by all users who requested the same
+ * report while it was being generated. Jobs are stored in the database, so that the status and
+ * the result of a job can be read from any instance of the service.
+ */
+@Getter
+public final class ReportJob {
+
+  public enum Status {
+    QUEUED, RUNNING, COMPLETED, FAILED
+  }
+
+  private final UUID id;
+  private final UUID templateId;
+  private final String templateName;
+  private final String format;
+  private final ZonedDateTime createdDate;
+
+  @Getter(AccessLevel.PACKAGE)
+  private final String key;
+
+  private volatile Status status;
+  private volatile ZonedDateTime finishedDate;
+  private volatile String errorMessage;
+
+  ReportJob(String key, UUID templateId, String templateName, String format,
+      ZonedDateTime createdDate) {
+    this.id = UUID.randomUUID();
+    this.key = key;
+    this.templateId = templateId;
+    this.templateName = templateName;
+    this.format = format;
+    this.createdDate = createdDate;
+    this.status = Status.QUEUED;
+  }
+
+  /**
+   * Creates a job that has been read from the database.
+   */
+  public ReportJob(UUID id, UUID templateId, String templateName, String format, Status status,
+      ZonedDateTime createdDate, ZonedDateTime finishedDate, String errorMessage) {
+    this.id = id;
+    this.key = null;
+    this.templateId = templateId;
+    this.templateName = templateName;
+    this.format = format;
+    this.status = status;
+    this.createdDate = createdDate;
+    this.finishedDate = finishedDate;
+    this.errorMessage = errorMessage;
+  }
+
+  public boolean isFinished() {
+    return status == Status.COMPLETED || status == Status.FAILED;
+  }
+
+  void start() {
+    status = Status.RUNNING;
+  }
+
+  void complete(ZonedDateTime finishedDate) {
+    this.finishedDate = finishedDate;
+    this.status = Status.COMPLETED;
+  }
+
+  void fail(String errorMessage, ZonedDateTime finishedDate) {
+    this.errorMessage = errorMessage;
+    this.finishedDate = finishedDate;
+    this.status = Status.FAILED;
+  }
+
+}
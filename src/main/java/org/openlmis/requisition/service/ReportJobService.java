@@ -0,0 +1,264 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REPORT_JOB_NOT_FOUND;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REPORT_JOB_QUEUE_FULL;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REPORT_JOB_USER_LIMIT_EXCEEDED;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.exception.ContentNotFoundMessageException;
+import org.openlmis.requisition.exception.JasperReportViewException;
+import org.openlmis.requisition.exception.TooManyRequestsMessageException;
+import org.openlmis.requisition.repository.custom.ReportJobRepository;
+import org.openlmis.requisition.utils.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates reports in the background so that long running reports do not hold HTTP threads.
+ * Jobs are executed by a bounded thread pool and each user can have only a limited number of
+ * jobs waiting or running at the same time. Identical requests (the same template, format and
+ * parameters) submitted to the same instance while a job is still waiting or running share that
+ * job. Reports are written to files on the local disk while they are generated and then stored
+ * with the jobs in the database, so that every instance can return them. Jobs are removed after
+ * the configured time.
+ */
+@Service
+public class ReportJobService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReportJobService.class);
+
+  @Autowired
+  private Clock clock;
+
+  @Autowired
+  private ReportJobRepository reportJobRepository;
+
+  @Value("${reportJobs.threads}")
+  private int threads;
+
+  @Value("${reportJobs.queueCapacity}")
+  private int queueCapacity;
+
+  @Value("${reportJobs.maxActivePerUser}")
+  private int maxActivePerUser;
+
+  @Value("${reportJobs.resultTtlMinutes}")
+  private long resultTtlMinutes;
+
+  @Value("${reportJobs.directory}")
+  private String directory;
+
+  // guarded by this
+  private final Map<String, ReportJob> activeJobs = new HashMap<>();
+
+  private ThreadPoolExecutor executor;
+  private Path resultDirectory;
+
+  /**
+   * Creates the thread pool and the directory for reports that are being generated.
+   */
+  @PostConstruct
+  public void init() throws IOException {
+    resultDirectory = StringUtils.isBlank(directory)
+        ? Files.createTempDirectory("report-jobs")
+        : Files.createDirectories(Paths.get(directory));
+
+    AtomicInteger counter = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "report-job-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Submits a job that generates a report. If the same report is already waiting or being
+   * generated, the existing job is returned instead of starting a new one.
+   *
+   * @param userId     the user that requests the report
+   * @param template   the report template
+   * @param format     the report format
+   * @param parameters the report parameters
+   * @param generator  generates the report content
+   * @return the job that generates the report
+   * @throws TooManyRequestsMessageException if the user has too many jobs waiting or running,
+   *                                         or there is no room for the job in the queue
+   */
+  public synchronized ReportJob submit(UUID userId, JasperTemplate template, String format,
+      Map<String, Object> parameters, ReportGenerator generator) {
+    String key = template.getId() + "/" + format + "/" + new TreeMap<>(parameters);
+    ReportJob existing = activeJobs.get(key);
+
+    if (null != existing) {
+      LOGGER.debug("Report job {} is already generating the same report", existing.getId());
+      reportJobRepository.addRequester(existing.getId(), userId);
+      return existing;
+    }
+
+    if (reportJobRepository.countUnfinished(userId) >= maxActivePerUser) {
+      throw new TooManyRequestsMessageException(
+          new Message(ERROR_REPORT_JOB_USER_LIMIT_EXCEEDED, maxActivePerUser));
+    }
+
+    ReportJob job = new ReportJob(key, template.getId(), template.getName(), format,
+        ZonedDateTime.now(clock));
+    reportJobRepository.insert(job, userId);
+
+    try {
+      executor.execute(() -> run(job, generator));
+    } catch (RejectedExecutionException ex) {
+      job.fail(ex.getMessage(), ZonedDateTime.now(clock));
+      reportJobRepository.update(job);
+      throw new TooManyRequestsMessageException(new Message(ERROR_REPORT_JOB_QUEUE_FULL), ex);
+    }
+
+    activeJobs.put(key, job);
+
+    return job;
+  }
+
+  /**
+   * Finds a job requested by the given user.
+   *
+   * @param jobId  the job ID
+   * @param userId the user that requested the job
+   * @return the job
+   * @throws ContentNotFoundMessageException if the job does not exist, has expired or was not
+   *                                         requested by the given user
+   */
+  public ReportJob getJob(UUID jobId, UUID userId) {
+    ReportJob job = reportJobRepository.find(jobId, userId);
+
+    if (null == job) {
+      throw new ContentNotFoundMessageException(new Message(ERROR_REPORT_JOB_NOT_FOUND, jobId));
+    }
+
+    return job;
+  }
+
+  /**
+   * Writes the report generated by a completed job to the given stream.
+   *
+   * @param job          the completed job
+   * @param outputStream the stream to which the report is written
+   * @throws ContentNotFoundMessageException if the report has already been removed
+   */
+  public void writeResult(ReportJob job, OutputStream outputStream) throws IOException {
+    if (!reportJobRepository.writeResult(job.getId(), outputStream)) {
+      throw new ContentNotFoundMessageException(
+          new Message(ERROR_REPORT_JOB_NOT_FOUND, job.getId()));
+    }
+  }
+
+  /**
+   * Removes jobs, and their results, that have finished before the configured time. Jobs that
+   * have not finished in that time are removed as well, as the instance that was generating them
+   * has most likely been stopped.
+   */
+  @Scheduled(fixedDelayString = "${reportJobs.cleanupIntervalMillis}")
+  public void removeExpiredJobs() {
+    ZonedDateTime expiryDate = ZonedDateTime.now(clock).minusMinutes(resultTtlMinutes);
+    int removed = reportJobRepository.deleteExpired(expiryDate);
+
+    LOGGER.debug("Removed {} expired report jobs", removed);
+  }
+
+  private void run(ReportJob job, ReportGenerator generator) {
+    job.start();
+    reportJobRepository.update(job);
+
+    Path resultFile = resultDirectory.resolve(job.getId() + "." + job.getFormat());
+
+    try {
+      try (OutputStream outputStream = new BufferedOutputStream(
+          Files.newOutputStream(resultFile))) {
+        generator.generate(outputStream);
+      }
+
+      reportJobRepository.saveResult(job.getId(), resultFile);
+      job.complete(ZonedDateTime.now(clock));
+    } catch (JasperReportViewException | IOException | RuntimeException ex) {
+      LOGGER.error("Report job {} has failed", job.getId(), ex);
+      job.fail(ex.getMessage(), ZonedDateTime.now(clock));
+    } finally {
+      deleteFile(job, resultFile);
+    }
+
+    try {
+      reportJobRepository.update(job);
+    } finally {
+      finish(job);
+    }
+  }
+
+  private synchronized void finish(ReportJob job) {
+    activeJobs.remove(job.getKey(), job);
+  }
+
+  private void deleteFile(ReportJob job, Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ex) {
+      LOGGER.warn("Could not delete result of the report job {}", job.getId(), ex);
+    }
+  }
+
+  /**
+   * Generates a report and writes it to the given stream.
+   */
+  @FunctionalInterface
+  public interface ReportGenerator {
+
+    void generate(OutputStream outputStream) throws JasperReportViewException, IOException;
+
+  }
+
+}
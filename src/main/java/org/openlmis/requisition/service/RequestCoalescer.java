@@ -0,0 +1,110 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes sure that only one of identical calls is executed at a time. Callers that ask for
+ * a result of a call that is already in progress wait for it and get the same result (or
+ * exception) instead of executing the call again. Nothing is cached after the call completes.
+ *
+ * <p>All callers of a coalesced call get the same result instance, so results must be treated
+ * as read-only.
+ */
+@Component
+public class RequestCoalescer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequestCoalescer.class);
+
+  private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight =
+      new ConcurrentHashMap<>();
+  private final AtomicLong executedCalls = new AtomicLong();
+  private final AtomicLong coalescedCalls = new AtomicLong();
+
+  /**
+   * Executes the given call or waits for an identical call that is in progress.
+   *
+   * @param key  identifies the call, must implement equals and hashCode
+   * @param call the call to execute
+   * @return the result of the call
+   */
+  @SuppressWarnings("unchecked")
+  public <R> R execute(Object key, Supplier<R> call) {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+    if (null != existing) {
+      long saved = coalescedCalls.incrementAndGet();
+      LOGGER.debug("Joined in-flight call {}; {} of {} calls saved",
+          key, saved, saved + executedCalls.get());
+
+      return (R) join(existing);
+    }
+
+    executedCalls.incrementAndGet();
+
+    try {
+      R result = call.get();
+      future.complete(result);
+      return result;
+    } catch (RuntimeException | Error ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  /**
+   * Returns the number of calls that have been executed.
+   */
+  public long getExecutedCalls() {
+    return executedCalls.get();
+  }
+
+  /**
+   * Returns the number of calls that have not been executed because they joined an identical
+   * call in progress.
+   */
+  public long getCoalescedCalls() {
+    return coalescedCalls.get();
+  }
+
+  private Object join(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+
+      throw ex;
+    }
+  }
+
+}
@@ -16,7 +16,6 @@
 package org.openlmis.requisition.service;
 
 import static java.util.Collections.emptyList;
-import static java.util.Objects.isNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
@@ -41,6 +40,7 @@ import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +54,7 @@ import org.openlmis.requisition.domain.Rejection;
 import org.openlmis.requisition.domain.RejectionReason;
 import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.requisition.ApprovedProductReference;
+import org.openlmis.requisition.domain.requisition.LineItemAdjustedConsumption;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
@@ -89,6 +90,7 @@ import org.openlmis.requisition.service.fulfillment.OrderFulfillmentService;
 import org.openlmis.requisition.service.referencedata.ApproveProductsAggregator;
 import org.openlmis.requisition.service.referencedata.IdealStockAmountReferenceDataService;
 import org.openlmis.requisition.service.referencedata.PermissionStringDto;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
 import org.openlmis.requisition.service.referencedata.PermissionStrings;
 import org.openlmis.requisition.service.referencedata.RightReferenceDataService;
 import org.openlmis.requisition.service.referencedata.SupplyLineReferenceDataService;
@@ -150,6 +152,9 @@ public class RequisitionService {
   @Autowired
   private RequisitionStatusProcessor requisitionStatusProcessor;
 
+  @Autowired
+  private RequisitionSnapshotService requisitionSnapshotService;
+
   @Autowired
   private ProofOfDeliveryService proofOfDeliveryService;
 
@@ -238,9 +243,18 @@ public class RequisitionService {
             .collect(toMap(isa -> isa.getCommodityType().getId(), IdealStockAmountDto::getAmount));
 
     profiler.start("GET_PREV_REQUISITIONS_FOR_AVERAGING");
-    List<Requisition> previousRequisitions =
-            getRecentRegularRequisitions(requisition,
+    List<LineItemAdjustedConsumption> recentAdjustedConsumptions =
+            getRecentRegularAdjustedConsumptions(requisition,
                     Math.max(numberOfPreviousPeriodsToAverage, 1));
+    List<UUID> previousRequisitionIds = recentAdjustedConsumptions
+            .stream()
+            .map(LineItemAdjustedConsumption::getRequisitionId)
+            .distinct()
+            .collect(toList());
+    List<Requisition> previousRequisitions = previousRequisitionIds
+            .stream()
+            .map(requisitionRepository::getOne)
+            .collect(toList());
 
     List<StockCardRangeSummaryDto> stockCardRangeSummaryDtos = null;
     List<StockCardRangeSummaryDto> stockCardRangeSummariesToAverage = null;
@@ -280,9 +294,16 @@ public class RequisitionService {
       pod = proofOfDeliveryService.get(previousRequisitions.get(0));
     }
 
+    Set<UUID> averagedRequisitionIds = new HashSet<>(previousRequisitionIds.subList(0,
+            Math.min(numberOfPreviousPeriodsToAverage, previousRequisitionIds.size())));
+    List<LineItemAdjustedConsumption> previousAdjustedConsumptions = recentAdjustedConsumptions
+            .stream()
+            .filter(item -> averagedRequisitionIds.contains(item.getRequisitionId()))
+            .collect(toList());
+
     profiler.start("INITIATE");
     requisition.initiate(requisitionTemplate, approvedProducts.getFullSupplyProducts(),
-            previousRequisitions, numberOfPreviousPeriodsToAverage, pod, idealStockAmounts,
+            previousRequisitions, previousAdjustedConsumptions, pod, idealStockAmounts,
             authenticationHelper.getCurrentUser().getId(), stockData, stockCardRangeSummaryDtos,
             stockCardRangeSummariesToAverage, previousPeriods);
 
@@ -291,7 +312,8 @@ public class RequisitionService {
             ? approvedProducts.getApprovedProductReferences()
             : approvedProducts.getNonFullSupplyApprovedProductReferences();
 
-    requisition.setAvailableProducts(availableProductIdentities);
+    // approved products are shared between requests, so the requisition gets its own copy
+    requisition.setAvailableProducts(new HashSet<>(availableProductIdentities));
 
     profiler.start("SET_STOCK_ADJ_REASONS");
     requisition.setStockAdjustmentReasons(stockAdjustmentReasons);
@@ -475,29 +497,31 @@ public class RequisitionService {
    * It makes sure that the user has got rights to save the requisition, that the requisition
    * exists and that it has got correct status to be eligible for saving.
    *
-   * @param requisitionId the UUID for which the request was made
+   * @param requisition the requisition for which the request was made
    * @return ValidationResult instance containing the outcome of this validation
    */
-  public ValidationResult validateCanSaveRequisition(UUID requisitionId) {
-    Requisition requisition = requisitionRepository.findById(requisitionId).orElse(null);
-
-    if (isNull(requisition)) {
-      return ValidationResult.notFound(ERROR_REQUISITION_NOT_FOUND, requisitionId);
-    }
-
-    return validateCanSaveRequisition(requisition);
+  public ValidationResult validateCanSaveRequisition(Requisition requisition) {
+    return validateCanSaveRequisition(requisition,
+        permissionService.canUpdateRequisition(requisition));
   }
 
   /**
-   * Performs several validation checks to ensure that the given requisition can be saved.
-   * It makes sure that the user has got rights to save the requisition, that the requisition
-   * exists and that it has got correct status to be eligible for saving.
+   * Performs the same checks as {@link #validateCanSaveRequisition(Requisition)} but the user
+   * rights are verified against the given permission strings first. It should be used when
+   * several requisitions are saved at once.
    *
-   * @param requisition the requisition for which the request was made
+   * @param requisition       the requisition for which the request was made
+   * @param permissionStrings permission strings of the current user
    * @return ValidationResult instance containing the outcome of this validation
    */
-  public ValidationResult validateCanSaveRequisition(Requisition requisition) {
-    ValidationResult permissionCheck = permissionService.canUpdateRequisition(requisition);
+  public ValidationResult validateCanSaveRequisition(Requisition requisition,
+      PermissionStringIndex permissionStrings) {
+    return validateCanSaveRequisition(requisition,
+        permissionService.canUpdateRequisition(requisition, permissionStrings));
+  }
+
+  private ValidationResult validateCanSaveRequisition(Requisition requisition,
+      ValidationResult permissionCheck) {
     if (permissionCheck.hasErrors()) {
       return permissionCheck;
     }
@@ -525,7 +549,6 @@ public class RequisitionService {
 
     profiler.start("GET_ORDERS_EDIT_RIGHT_DTO");
     RightDto right = authenticationHelper.getRight(ORDERS_EDIT);
-    List<Requisition> releasedRequisitions = new ArrayList<>();
 
     profiler.start("GET_USER_FULFILLMENT_FACILITIES");
     Set<UUID> userFacilities = isLocallyFulfilled
@@ -533,18 +556,27 @@ public class RequisitionService {
             .getFulfillmentFacilities(user.getId(), right.getId()).stream().map(FacilityDto::getId)
             .collect(toSet());
 
+    profiler.start("GET_CURRENT_USER");
+    UUID releaserId = authenticationHelper.getCurrentUser().getId();
+
+    profiler.start("FIND_REQUISITIONS");
+    Map<UUID, Requisition> requisitions = findRequisitionsToRelease(convertToOrderDtos);
+
+    profiler.start("GET_AVAILABLE_SUPPLYING_DEPOTS");
+    Map<UUID, List<FacilityDto>> availableSupplyingDepots = requisitionForConvertBuilder
+            .getAvailableSupplyingDepots(requisitions.values());
+
     profiler.start("RELEASE");
+    List<Requisition> releasedRequisitions = new ArrayList<>();
     for (ReleasableRequisitionDto convertToOrderDto : convertToOrderDtos) {
       UUID requisitionId = convertToOrderDto.getRequisitionId();
-      Requisition loadedRequisition = requisitionRepository.findById(requisitionId)
-              .orElseThrow(() -> new ContentNotFoundMessageException(ERROR_REQUISITION_NOT_FOUND,
-                      requisitionId));
+      Requisition loadedRequisition = requisitions.get(requisitionId);
       isEligibleForConvertToOrder(loadedRequisition).throwExceptionIfHasErrors();
-      loadedRequisition.release(authenticationHelper.getCurrentUser().getId());
+      loadedRequisition.release(releaserId);
 
       UUID facilityId = convertToOrderDto.getSupplyingDepotId();
-      Set<UUID> validFacilities = requisitionForConvertBuilder
-              .getAvailableSupplyingDepots(requisitionId).stream()
+      Set<UUID> validFacilities = availableSupplyingDepots
+              .getOrDefault(requisitionId, emptyList()).stream()
               .filter(f -> isLocallyFulfilled
                       || userFacilities.contains(f.getId())).map(FacilityDto::getId)
               .collect(toSet());
@@ -575,16 +607,18 @@ public class RequisitionService {
     Profiler profiler = new Profiler("RELEASE_REQUISITIONS_WITHOUT_ORDER");
     profiler.setLogger(LOGGER);
 
-    List<Requisition> releasedRequisitions = new ArrayList<>();
+    profiler.start("GET_CURRENT_USER");
+    UUID releaserId = authenticationHelper.getCurrentUser().getId();
+
+    profiler.start("FIND_REQUISITIONS");
+    Map<UUID, Requisition> requisitions = findRequisitionsToRelease(releaseWithoutOrderDtos);
 
     profiler.start("RELEASE_WITHOUT_ORDER");
+    List<Requisition> releasedRequisitions = new ArrayList<>();
     for (ReleasableRequisitionDto convertToOrderDto : releaseWithoutOrderDtos) {
-      UUID requisitionId = convertToOrderDto.getRequisitionId();
-      Requisition loadedRequisition = requisitionRepository.findById(requisitionId)
-              .orElseThrow(() -> new ContentNotFoundMessageException(ERROR_REQUISITION_NOT_FOUND,
-                      requisitionId));
+      Requisition loadedRequisition = requisitions.get(convertToOrderDto.getRequisitionId());
       validateIfEligibleForReleasingWithoutOrder(loadedRequisition).throwExceptionIfHasErrors();
-      loadedRequisition.releaseWithoutOrder(authenticationHelper.getCurrentUser().getId());
+      loadedRequisition.releaseWithoutOrder(releaserId);
       releasedRequisitions.add(loadedRequisition);
     }
 
@@ -592,6 +626,27 @@ public class RequisitionService {
     return releasedRequisitions;
   }
 
+  private Map<UUID, Requisition> findRequisitionsToRelease(
+          List<ReleasableRequisitionDto> releasableRequisitionDtos) {
+    Set<UUID> requisitionIds = releasableRequisitionDtos
+            .stream()
+            .map(ReleasableRequisitionDto::getRequisitionId)
+            .collect(toSet());
+
+    Map<UUID, Requisition> requisitions = requisitionRepository
+            .readDistinctByIdIn(requisitionIds)
+            .stream()
+            .collect(toMap(Requisition::getId, requisition -> requisition));
+
+    for (UUID requisitionId : requisitionIds) {
+      if (!requisitions.containsKey(requisitionId)) {
+        throw new ContentNotFoundMessageException(ERROR_REQUISITION_NOT_FOUND, requisitionId);
+      }
+    }
+
+    return requisitions;
+  }
+
   /**
    * Get approved requisitions matching all of provided parameters.
    *
@@ -618,13 +673,7 @@ public class RequisitionService {
     if (null != user) {
       profiler.start("GET_PERMISSION_STRINGS");
       PermissionStrings.Handler handler = permissionService.getPermissionStrings(user.getId());
-      Set<PermissionStringDto> permissionStrings = handler.get();
-
-      profiler.start("FILTER_PERMISSION_STRINGS");
-      fulfillmentFacilitiesIds = permissionStrings.stream()
-              .filter(permission -> ORDERS_EDIT.equals(permission.getRightName()))
-              .map(PermissionStringDto::getFacilityId)
-              .collect(toSet());
+      fulfillmentFacilitiesIds = handler.getIndex().getFacilityIds(ORDERS_EDIT);
 
       if (isEmpty(fulfillmentFacilitiesIds)) {
         return Pagination.getPage(emptyList(), pageable, 0);
@@ -700,10 +749,9 @@ public class RequisitionService {
     List<OrderDto> orders = new ArrayList<>();
     for (Requisition requisition : releasedRequisitions) {
       orders.add(orderDtoBuilder.build(requisition, user));
-
-      requisitionRepository.save(requisition);
-      requisitionStatusProcessor.statusChange(requisition, LocaleContextHolder.getLocale());
     }
+
+    saveReleasedRequisitions(releasedRequisitions);
     return orders;
   }
 
@@ -717,12 +765,21 @@ public class RequisitionService {
     profiler.start("RELEASE_REQUISITIONS_WITHOUT_ORDER");
     List<Requisition> releasedRequisitions = releaseRequisitionsWithoutOrder(list);
 
+    profiler.start("SAVE_REQUISITIONS");
+    saveReleasedRequisitions(releasedRequisitions);
+
+    profiler.stop().log();
+    return releasedRequisitions;
+  }
+
+  private void saveReleasedRequisitions(List<Requisition> releasedRequisitions) {
+    requisitionRepository.saveAll(releasedRequisitions);
+
     for (Requisition requisition : releasedRequisitions) {
-      requisitionRepository.save(requisition);
       requisitionStatusProcessor.statusChange(requisition, LocaleContextHolder.getLocale());
     }
-    profiler.stop().log();
-    return releasedRequisitions;
+
+    requisitionSnapshotService.createAfterStatusChange(releasedRequisitions);
   }
 
   /**
@@ -825,25 +882,44 @@ public class RequisitionService {
     return requisition.getTemplate().isColumnInTemplateAndDisplayed(APPROVED_QUANTITY);
   }
 
-  private List<Requisition> getRecentRegularRequisitions(Requisition requisition, int amount) {
+  private List<LineItemAdjustedConsumption> getRecentRegularAdjustedConsumptions(
+          Requisition requisition, int amount) {
     List<ProcessingPeriodDto> previousPeriods =
             periodService.findPreviousPeriods(requisition.getProcessingPeriodId(), amount);
 
-    List<Requisition> recentRequisitions = new ArrayList<>();
-    for (ProcessingPeriodDto period : previousPeriods) {
-      List<Requisition> requisitionsByPeriod = getRegularRequisitionsByPeriod(requisition, period);
-      if (!requisitionsByPeriod.isEmpty()) {
-        Requisition requisitionByPeriod = requisitionsByPeriod.get(0);
-        recentRequisitions.add(requisitionByPeriod);
+    if (previousPeriods.isEmpty()) {
+      return emptyList();
+    }
+
+    List<UUID> previousPeriodIds = previousPeriods
+            .stream()
+            .map(ProcessingPeriodDto::getId)
+            .collect(toList());
+
+    Map<UUID, List<LineItemAdjustedConsumption>> adjustedConsumptionsByPeriod = new HashMap<>();
+    requisitionRepository
+            .searchAdjustedConsumptions(requisition.getFacilityId(), requisition.getProgramId(),
+                    previousPeriodIds)
+            .forEach(item -> adjustedConsumptionsByPeriod
+                    .computeIfAbsent(item.getPeriodId(), key -> new ArrayList<>())
+                    .add(item));
+
+    // only the first regular requisition of each period is taken into account
+    List<LineItemAdjustedConsumption> recentAdjustedConsumptions = new ArrayList<>();
+    for (UUID periodId : previousPeriodIds) {
+      List<LineItemAdjustedConsumption> adjustedConsumptionsByRequisition =
+              adjustedConsumptionsByPeriod.getOrDefault(periodId, emptyList());
+
+      if (!adjustedConsumptionsByRequisition.isEmpty()) {
+        UUID requisitionId = adjustedConsumptionsByRequisition.get(0).getRequisitionId();
+        adjustedConsumptionsByRequisition
+                .stream()
+                .filter(item -> Objects.equals(requisitionId, item.getRequisitionId()))
+                .forEach(recentAdjustedConsumptions::add);
       }
     }
-    return recentRequisitions;
-  }
 
-  private List<Requisition> getRegularRequisitionsByPeriod(Requisition requisition,
-                                                           ProcessingPeriodDto period) {
-    return requisitionRepository.searchRequisitions(
-            period.getId(), requisition.getFacilityId(), requisition.getProgramId(), false);
+    return recentAdjustedConsumptions;
   }
 
   private void saveRejectionReason(Requisition requisition, List<RejectionDto> rejections) {
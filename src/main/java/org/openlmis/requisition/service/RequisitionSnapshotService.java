@@ -0,0 +1,348 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionSnapshot;
+import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.exception.EncodingException;
+import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.repository.RequisitionSnapshotRepository;
+import org.openlmis.requisition.repository.custom.SchedulerLockRepository;
+import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
+import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
+import org.openlmis.requisition.web.RequisitionDtoBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps snapshots of approved requisitions: their {@link RequisitionDto}s serialized together
+ * with the resolved orderables and approved products. Approved requisitions are not changed
+ * much, so the snapshot of the current version can be sent instead of building the DTO.
+ *
+ * <p>Snapshots are created when requisitions are approved or released. They are written by a
+ * single background thread, after the transaction that changed the requisition is committed,
+ * so they never hold a second database connection of a request. A scheduled job creates
+ * snapshots of requisitions that were approved before snapshots were enabled, or whose snapshot
+ * could not be written. It handles one batch of requisitions per run and only one instance of
+ * the service runs it at a time.
+ */
+@Service
+@SuppressWarnings("PMD.TooManyMethods")
+public class RequisitionSnapshotService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequisitionSnapshotService.class);
+
+  static final String BACKFILL_LOCK = "requisitionSnapshots.backfill";
+  static final UUID FIRST_ID = new UUID(0, 0);
+
+  static final Set<RequisitionStatus> SNAPSHOT_STATUSES = Arrays
+      .stream(RequisitionStatus.values())
+      .filter(RequisitionStatus::isApproved)
+      .collect(Collectors.toSet());
+
+  @Autowired
+  private RequisitionSnapshotRepository requisitionSnapshotRepository;
+
+  @Autowired
+  private RequisitionRepository requisitionRepository;
+
+  @Autowired
+  private SchedulerLockRepository schedulerLockRepository;
+
+  @Autowired
+  private RequisitionDtoBuilder requisitionDtoBuilder;
+
+  @Autowired
+  private FacilityReferenceDataService facilityReferenceDataService;
+
+  @Autowired
+  private ProgramReferenceDataService programReferenceDataService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${requisitionSnapshots.enabled}")
+  private boolean enabled;
+
+  @Value("${requisitionSnapshots.batchSize}")
+  private int batchSize;
+
+  @Value("${requisitionSnapshots.queueCapacity}")
+  private int queueCapacity;
+
+  @Value("${requisitionSnapshots.backfillLockMillis}")
+  private long backfillLockMillis;
+
+  private final String instanceId = UUID.randomUUID().toString();
+  private final AtomicBoolean backfillPending = new AtomicBoolean();
+
+  // accessed only by the snapshot thread
+  private UUID backfillCursor = FIRST_ID;
+
+  private TransactionTemplate transaction;
+  private ExecutorService executor;
+
+  /**
+   * Creates the thread that writes snapshots and the template of its transactions.
+   */
+  @PostConstruct
+  public void init() {
+    transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "requisition-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Finds the snapshot of the given version of a requisition.
+   *
+   * @param requisitionId id of the requisition.
+   * @param version       current version of the requisition.
+   * @return the serialized requisition or null if there is no snapshot of the given version or
+   *         snapshots are disabled.
+   */
+  public String findBody(UUID requisitionId, Long version) {
+    if (!enabled) {
+      return null;
+    }
+
+    return requisitionSnapshotRepository
+        .findByRequisitionIdAndRequisitionVersion(requisitionId, version)
+        .map(RequisitionSnapshot::getBody)
+        .orElse(null);
+  }
+
+  /**
+   * Saves the snapshot of the given requisition, if it is approved, after the current transaction
+   * is committed. Errors are only logged, because the snapshot can be created again later.
+   *
+   * @param requisition requisition whose snapshot should be saved.
+   * @param body        serialized {@link RequisitionDto} of the requisition.
+   */
+  public void save(Requisition requisition, String body) {
+    if (!enabled || !requisition.getStatus().isApproved()) {
+      return;
+    }
+
+    UUID requisitionId = requisition.getId();
+    Long version = requisition.getVersion();
+
+    submitAfterCommit(() -> {
+      try {
+        transaction.executeWithoutResult(status -> write(requisitionId, version, body));
+      } catch (RuntimeException exp) {
+        LOGGER.warn("Unable to save snapshot of requisition {}", requisitionId, exp);
+      }
+    });
+  }
+
+  /**
+   * Creates snapshots of the given requisitions after the current transaction is committed.
+   * Requisitions that are not approved are skipped. It should be called whenever the status of
+   * requisitions is changed.
+   *
+   * @param requisitions requisitions whose status has been changed.
+   */
+  public void createAfterStatusChange(Collection<Requisition> requisitions) {
+    if (!enabled) {
+      return;
+    }
+
+    List<UUID> requisitionIds = requisitions
+        .stream()
+        .filter(requisition -> requisition.getStatus().isApproved())
+        .map(Requisition::getId)
+        .collect(Collectors.toList());
+
+    if (!requisitionIds.isEmpty()) {
+      submitAfterCommit(() -> requisitionIds.forEach(this::createSnapshot));
+    }
+  }
+
+  /**
+   * Creates snapshots of approved requisitions that have no snapshot of their current version,
+   * for example requisitions approved before snapshots were enabled. Each run only submits one
+   * batch of requisitions to the snapshot thread, which continues from the last requisition
+   * of the previous batch.
+   */
+  @Scheduled(fixedDelayString = "${requisitionSnapshots.refreshIntervalMillis}")
+  public void createMissingSnapshots() {
+    if (enabled && backfillPending.compareAndSet(false, true)
+        && !submit(this::createNextBatch)) {
+      backfillPending.set(false);
+    }
+  }
+
+  private void createNextBatch() {
+    try {
+      if (schedulerLockRepository.lock(BACKFILL_LOCK, instanceId, backfillLockMillis)) {
+        try {
+          createBatch();
+        } finally {
+          schedulerLockRepository.unlock(BACKFILL_LOCK, instanceId);
+        }
+      }
+    } catch (RuntimeException exp) {
+      LOGGER.warn("Unable to create missing snapshots of requisitions", exp);
+    } finally {
+      backfillPending.set(false);
+    }
+  }
+
+  private void createBatch() {
+    List<UUID> requisitionIds = requisitionSnapshotRepository.findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, backfillCursor, PageRequest.of(0, batchSize));
+
+    long created = requisitionIds
+        .stream()
+        .filter(this::createSnapshot)
+        .count();
+
+    // start from the beginning when the last batch is reached
+    backfillCursor = requisitionIds.size() < batchSize
+        ? FIRST_ID
+        : requisitionIds.get(requisitionIds.size() - 1);
+
+    if (created > 0) {
+      LOGGER.info("Created snapshots of {} requisitions", created);
+    }
+  }
+
+  private boolean createSnapshot(UUID requisitionId) {
+    try {
+      return Boolean.TRUE.equals(transaction.execute(status -> requisitionRepository
+          .findById(requisitionId)
+          .filter(requisition -> requisition.getStatus().isApproved())
+          .filter(requisition -> !requisitionSnapshotRepository
+              .findByRequisitionIdAndRequisitionVersion(requisitionId, requisition.getVersion())
+              .isPresent())
+          .map(requisition -> {
+            write(requisition.getId(), requisition.getVersion(), serialize(buildDto(requisition)));
+            return true;
+          })
+          .orElse(false)));
+    } catch (RuntimeException exp) {
+      // the requisition is checked again by the scheduled job
+      LOGGER.warn("Unable to create snapshot of requisition {}", requisitionId, exp);
+      return false;
+    }
+  }
+
+  private void submitAfterCommit(Runnable task) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              submit(task);
+            }
+          });
+    } else {
+      submit(task);
+    }
+  }
+
+  private boolean submit(Runnable task) {
+    try {
+      executor.execute(task);
+      return true;
+    } catch (RejectedExecutionException exp) {
+      // the snapshot is created later by the scheduled job
+      LOGGER.debug("The queue of requisition snapshots is full", exp);
+      return false;
+    }
+  }
+
+  private RequisitionDto buildDto(Requisition requisition) {
+    return requisitionDtoBuilder.build(requisition,
+        facilityReferenceDataService.findOne(requisition.getFacilityId()),
+        programReferenceDataService.findOne(requisition.getProgramId()));
+  }
+
+  private String serialize(RequisitionDto requisition) {
+    try {
+      return objectMapper.writeValueAsString(requisition);
+    } catch (JsonProcessingException exp) {
+      throw new EncodingException(exp);
+    }
+  }
+
+  private void write(UUID requisitionId, Long version, String body) {
+    RequisitionSnapshot snapshot = requisitionSnapshotRepository
+        .findByRequisitionId(requisitionId)
+        .orElseGet(RequisitionSnapshot::new);
+
+    if (null != snapshot.getRequisitionVersion() && snapshot.getRequisitionVersion() > version) {
+      // a snapshot of a newer version has already been written
+      return;
+    }
+
+    snapshot.setRequisitionId(requisitionId);
+    snapshot.setRequisitionVersion(version);
+    snapshot.setBody(body);
+    snapshot.setModifiedDate(ZonedDateTime.now());
+
+    requisitionSnapshotRepository.save(snapshot);
+  }
+}
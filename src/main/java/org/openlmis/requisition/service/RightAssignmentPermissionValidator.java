@@ -18,6 +18,8 @@ package org.openlmis.requisition.service;
 import org.openlmis.requisition.dto.ResultDto;
 import org.openlmis.requisition.dto.RightDto;
 import org.openlmis.requisition.dto.UserDto;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
+import org.openlmis.requisition.service.referencedata.PermissionStrings;
 import org.openlmis.requisition.service.referencedata.UserReferenceDataService;
 import org.openlmis.requisition.utils.AuthenticationHelper;
 import org.slf4j.profiler.Profiler;
@@ -33,11 +35,23 @@ class RightAssignmentPermissionValidator extends BasePermissionValidator {
   @Autowired
   private UserReferenceDataService userReferenceDataService;
 
+  @Autowired
+  private PermissionStrings permissionStrings;
+
   @Override
   boolean checkUserToken(PermissionValidationDetails details, Profiler profiler) {
     profiler.start("GET_CURRENT_USER");
     UserDto user = authenticationHelper.getCurrentUser();
 
+    profiler.start("CHECK_PERMISSION_STRINGS");
+    PermissionStringIndex index = permissionStrings.forUser(user.getId()).getIndex();
+
+    // permission strings can be a few seconds old so the missing permission string is
+    // confirmed by the referencedata service
+    if (hasPermissionString(index, details)) {
+      return true;
+    }
+
     profiler.start("GET_RIGHT");
     RightDto right = authenticationHelper.getRight(details.getRightName());
 
@@ -49,4 +63,12 @@ class RightAssignmentPermissionValidator extends BasePermissionValidator {
     return null != result && result.getResult();
   }
 
+  private boolean hasPermissionString(PermissionStringIndex index,
+      PermissionValidationDetails details) {
+    return null == details.getWarehouseId()
+        ? index.hasPermission(details.getRightName(), details.getFacilityId(),
+            details.getProgramId())
+        : index.hasPermission(details.getRightName(), details.getWarehouseId(), null);
+  }
+
 }
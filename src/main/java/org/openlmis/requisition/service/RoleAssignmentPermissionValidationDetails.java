@@ -20,6 +20,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 
 @ToString
 @EqualsAndHashCode
@@ -28,21 +29,34 @@ final class RoleAssignmentPermissionValidationDetails implements PermissionValid
   @Getter
   private String rightName;
 
-  private Requisition requisition;
+  @Getter
+  private UUID facilityId;
+
+  @Getter
+  private UUID programId;
+
+  @Getter
+  private UUID supervisoryNodeId;
+
+  private boolean partnerRequisition;
 
   RoleAssignmentPermissionValidationDetails(String rightName, Requisition requisition) {
-    this.rightName = rightName;
-    this.requisition = requisition;
+    this(rightName, requisition.getFacilityId(), requisition.getProgramId(),
+        requisition.getSupervisoryNodeId(), requisition.hasOriginalRequisitionId());
   }
 
-  @Override
-  public UUID getFacilityId() {
-    return requisition.getFacilityId();
+  RoleAssignmentPermissionValidationDetails(String rightName, RequisitionVersion requisition) {
+    this(rightName, requisition.getFacilityId(), requisition.getProgramId(),
+        requisition.getSupervisoryNodeId(), requisition.hasOriginalRequisitionId());
   }
 
-  @Override
-  public UUID getProgramId() {
-    return requisition.getProgramId();
+  private RoleAssignmentPermissionValidationDetails(String rightName, UUID facilityId,
+      UUID programId, UUID supervisoryNodeId, boolean partnerRequisition) {
+    this.rightName = rightName;
+    this.facilityId = facilityId;
+    this.programId = programId;
+    this.supervisoryNodeId = supervisoryNodeId;
+    this.partnerRequisition = partnerRequisition;
   }
 
   @Override
@@ -50,14 +64,9 @@ final class RoleAssignmentPermissionValidationDetails implements PermissionValid
     return null;
   }
 
-  @Override
-  public UUID getSupervisoryNodeId() {
-    return requisition.getSupervisoryNodeId();
-  }
-
   @Override
   public boolean containsPartnerRequisition() {
-    return requisition.hasOriginalRequisitionId();
+    return partnerRequisition;
   }
 
 }
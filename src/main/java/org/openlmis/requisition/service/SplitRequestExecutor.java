@@ -0,0 +1,107 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends parts of a request that has been split because of the URL length limit concurrently.
+ * The number of parts sent at the same time by all services is bounded by the size of the
+ * thread pool. The first part is always sent by the calling thread.
+ */
+@Component
+public class SplitRequestExecutor {
+
+  @Value("${request.split.threads}")
+  private int threads;
+
+  private ExecutorService executor;
+
+  /**
+   * Creates the thread pool.
+   */
+  @PostConstruct
+  public void init() {
+    AtomicInteger counter = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "split-request-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    executor = Executors.newFixedThreadPool(threads, threadFactory);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    executor.shutdown();
+  }
+
+  /**
+   * Sends a request for each of the given URIs and returns responses in the order of the URIs.
+   * If any of the requests fails, the exception is rethrown.
+   *
+   * @param uris    the URIs to send requests to
+   * @param request sends a request to the given URI and returns the response body
+   * @return response bodies in the same order as the URIs
+   */
+  public <E> List<E> execute(URI[] uris, Function<URI, E> request) {
+    List<CompletableFuture<E>> futures = new ArrayList<>(uris.length);
+
+    for (int i = 1; i < uris.length; ++i) {
+      URI uri = uris[i];
+      futures.add(CompletableFuture.supplyAsync(() -> request.apply(uri), executor));
+    }
+
+    List<E> responses = new ArrayList<>(uris.length);
+
+    if (uris.length > 0) {
+      responses.add(request.apply(uris[0]));
+    }
+
+    for (CompletableFuture<E> future : futures) {
+      responses.add(join(future));
+    }
+
+    return responses;
+  }
+
+  private <E> E join(CompletableFuture<E> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+
+      throw ex;
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import java.io.OutputStream;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRVirtualizer;
+
+/**
+ * Exports a report filled with a virtualizer. Pages of the report are read back from the swap
+ * file during the export, so the virtualizer is cleaned up only after the report is exported.
+ */
+class VirtualizedJasperExporter implements JasperExporter {
+
+  private JasperExporter exporter;
+  private JRVirtualizer virtualizer;
+
+  VirtualizedJasperExporter(JasperExporter exporter, JRVirtualizer virtualizer) {
+    this.exporter = exporter;
+    this.virtualizer = virtualizer;
+  }
+
+  @Override
+  public void exportReport(OutputStream outputStream) throws JRException {
+    try {
+      exporter.exportReport(outputStream);
+    } finally {
+      virtualizer.cleanup();
+    }
+  }
+}
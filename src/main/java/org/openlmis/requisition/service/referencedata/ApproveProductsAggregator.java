@@ -15,6 +15,10 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -40,7 +44,8 @@ public final class ApproveProductsAggregator {
   private Set<ApprovedProductReference> nonFullSupplyProductReferences;
 
   /**
-   * Create a new instance of the {@link ApproveProductsAggregator}.
+   * Create a new instance of the {@link ApproveProductsAggregator}. The instance is immutable,
+   * so it can be shared between requests.
    */
   public ApproveProductsAggregator(List<ApprovedProductDto> products, UUID programId) {
     allProducts = Maps.newHashMap();
@@ -53,6 +58,13 @@ public final class ApproveProductsAggregator {
     nonFullSupplyProductReferences = Sets.newHashSet();
 
     groupByOrderableId(products, programId);
+
+    allProducts = unmodifiableMap(allProducts);
+    allProductReferences = unmodifiableSet(allProductReferences);
+    allOrderableIdentities = unmodifiableSet(allOrderableIdentities);
+    fullSupplyProducts = unmodifiableList(fullSupplyProducts);
+    fullSupplyOrderableIds = unmodifiableSet(fullSupplyOrderableIds);
+    nonFullSupplyProductReferences = unmodifiableSet(nonFullSupplyProductReferences);
   }
 
   private void groupByOrderableId(List<ApprovedProductDto> products, UUID programId) {
@@ -15,16 +15,44 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.requisition.dto.ApprovedProductDto;
+import org.openlmis.requisition.dto.FacilityDto;
 import org.openlmis.requisition.service.RequestParameters;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ApprovedProductReferenceDataService extends
     BaseReferenceDataService<ApprovedProductDto> {
+  private Cache<Pair<UUID, UUID>, ApproveProductsAggregator> aggregators;
+
+  @Value("${approvedProducts.cache.maxSize}")
+  private long maxSize;
+
+  @Value("${approvedProducts.cache.expireAfterWriteSeconds}")
+  private long expireAfterWriteSeconds;
+
+  /**
+   * Creates the cache of approved products. Entries are evicted shortly after they have been
+   * created to make sure that changes in the approved products are eventually visible.
+   */
+  @PostConstruct
+  public void init() {
+    aggregators = CacheBuilder
+        .newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .build();
+  }
 
   @Override
   protected String getUrl() {
@@ -41,6 +69,25 @@ public class ApprovedProductReferenceDataService extends
     return ApprovedProductDto[].class;
   }
 
+  /**
+   * Retrieves all approved products of the given facility and program. Approved products are
+   * defined for a facility type, so the result is cached and shared between all facilities of
+   * the same type. Callers must not modify the returned instance.
+   *
+   * @param facility  the facility
+   * @param programId id of the program
+   * @return approved products of the facility type and program
+   */
+  public ApproveProductsAggregator getApprovedProducts(FacilityDto facility, UUID programId) {
+    if (null == facility.getType() || null == facility.getType().getId()) {
+      return getApprovedProducts(facility.getId(), programId);
+    }
+
+    return aggregators.asMap().computeIfAbsent(
+        new ImmutablePair<>(facility.getType().getId(), programId),
+        key -> getApprovedProducts(facility.getId(), programId));
+  }
+
   /**
    * Retrieves all facility approved products from the reference data service, based on the
    * provided facility and full supply flag.
@@ -0,0 +1,112 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openlmis.requisition.dto.TogglzFeatureDto;
+import org.openlmis.requisition.service.ServiceResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a snapshot of feature toggles defined in the reference data service. The snapshot is
+ * retrieved when the service starts and refreshed in the background, so checking a feature does
+ * not send any request. Features are retrieved again only if their ETag has changed.
+ */
+@Component
+public class FeatureToggles {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FeatureToggles.class);
+
+  private volatile Snapshot snapshot;
+
+  @Autowired
+  private TogglzReferenceDataService togglzReferenceDataService;
+
+  /**
+   * Checks if the feature with the given name is enabled. Unknown features are disabled.
+   *
+   * @param name name of the feature
+   * @return true if the feature is enabled; otherwise false
+   */
+  public boolean isActive(String name) {
+    return getSnapshot().features.getOrDefault(name, false);
+  }
+
+  /**
+   * Retrieves feature toggles again if they have changed. If they can't be retrieved, the
+   * previous snapshot is used until the next refresh.
+   */
+  @Scheduled(fixedDelayString = "${featureToggles.refreshIntervalMillis}")
+  public void refresh() {
+    try {
+      snapshot = load(snapshot);
+    } catch (RuntimeException exp) {
+      LOGGER.warn("Unable to refresh feature toggles", exp);
+    }
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+
+    if (null == current) {
+      // only requests sent before the first refresh has finished wait for feature toggles
+      synchronized (this) {
+        current = snapshot;
+
+        if (null == current) {
+          current = load(null);
+          snapshot = current;
+        }
+      }
+    }
+
+    return current;
+  }
+
+  private Snapshot load(Snapshot previous) {
+    ServiceResponse<List<TogglzFeatureDto>> response = togglzReferenceDataService
+        .getFeatures(null == previous ? null : previous.etag);
+
+    if (null != previous && !response.isModified()) {
+      return previous;
+    }
+
+    Map<String, Boolean> features = new HashMap<>();
+    response
+        .getBody()
+        .forEach(feature -> features.putIfAbsent(feature.getName(), feature.isEnabled()));
+
+    return new Snapshot(unmodifiableMap(features), response.getETag());
+  }
+
+  private static final class Snapshot {
+    private final Map<String, Boolean> features;
+    private final String etag;
+
+    Snapshot(Map<String, Boolean> features, String etag) {
+      this.features = features;
+      this.etag = etag;
+    }
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable index of user's permission strings. Checking if the user has a right for the given
+ * facility and program is a single hash lookup and the facilities for which the user has
+ * the given right are computed once, when the index is created.
+ */
+public final class PermissionStringIndex {
+  private static final PermissionStringIndex EMPTY = new PermissionStringIndex(emptySet());
+
+  private final Set<PermissionStringDto> permissionStrings;
+  private final Map<String, Set<UUID>> facilityIdsByRight;
+
+  private PermissionStringIndex(Collection<PermissionStringDto> permissionStrings) {
+    Set<PermissionStringDto> set = new HashSet<>(permissionStrings);
+    Map<String, Set<UUID>> facilities = new HashMap<>();
+
+    for (PermissionStringDto permissionString : set) {
+      if (null != permissionString.getFacilityId()) {
+        facilities
+            .computeIfAbsent(permissionString.getRightName(), key -> new HashSet<>())
+            .add(permissionString.getFacilityId());
+      }
+    }
+
+    facilities.replaceAll((rightName, facilityIds) -> unmodifiableSet(facilityIds));
+
+    this.permissionStrings = unmodifiableSet(set);
+    this.facilityIdsByRight = unmodifiableMap(facilities);
+  }
+
+  /**
+   * Creates a new index for the given permission strings.
+   *
+   * @param permissionStrings a collection of object representation of permission strings
+   * @return a new instance of {@link PermissionStringIndex}
+   */
+  public static PermissionStringIndex of(Collection<PermissionStringDto> permissionStrings) {
+    return null == permissionStrings || permissionStrings.isEmpty()
+        ? EMPTY
+        : new PermissionStringIndex(permissionStrings);
+  }
+
+  public static PermissionStringIndex empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Checks if there is a permission string for the given right, facility and program.
+   * For fulfillment rights the facility is the warehouse and the program is {@code null}. For
+   * general rights both facility and program are {@code null}.
+   *
+   * @param rightName  right name
+   * @param facilityId facility id
+   * @param programId  program id
+   * @return true if the permission string exists; otherwise false.
+   */
+  public boolean hasPermission(String rightName, UUID facilityId, UUID programId) {
+    return permissionStrings
+        .contains(PermissionStringDto.create(rightName, facilityId, programId));
+  }
+
+  /**
+   * Returns ids of facilities for which there is at least one permission string with the given
+   * right.
+   *
+   * @param rightName right name
+   * @return an unmodifiable set of facility ids
+   */
+  public Set<UUID> getFacilityIds(String rightName) {
+    return facilityIdsByRight.getOrDefault(rightName, emptySet());
+  }
+
+  public Set<PermissionStringDto> getPermissionStrings() {
+    return permissionStrings;
+  }
+
+}
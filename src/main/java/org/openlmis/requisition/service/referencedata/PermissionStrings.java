@@ -15,25 +15,64 @@
 
 package org.openlmis.requisition.service.referencedata;
 
-import com.google.common.collect.Maps;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import org.openlmis.requisition.repository.custom.PermissionStringsRedisRepository;
+import org.openlmis.requisition.repository.custom.SharedPermissionStrings;
 import org.openlmis.requisition.service.ServiceResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Component;
 
 @Component
 public class PermissionStrings {
-  private final Map<UUID, Handler> handlers = Maps.newConcurrentMap();
+  private static final Logger LOGGER = LoggerFactory.getLogger(PermissionStrings.class);
+
+  private Cache<UUID, Handler> handlers;
 
   @Autowired
   private UserReferenceDataService userReferenceDataService;
 
+  @Autowired
+  private PermissionStringsRedisRepository permissionStringsRedisRepository;
+
+  @Value("${permissionStrings.cache.maxSize}")
+  private long maxSize;
+
+  @Value("${permissionStrings.cache.expireAfterAccessMinutes}")
+  private long expireAfterAccessMinutes;
+
+  @Value("${permissionStrings.cache.freshnessMillis}")
+  private long freshnessMillis;
+
+  @Value("${permissionStrings.cache.redis.enabled}")
+  private boolean redisEnabled;
+
+  /**
+   * Creates the handler cache. Handlers of users that have not asked for their permission strings
+   * for a while or that exceed the maximum size are evicted.
+   */
+  @PostConstruct
+  public void init() {
+    handlers = CacheBuilder
+        .newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+        .build();
+  }
+
   public Handler forUser(UUID user) {
-    return handlers.computeIfAbsent(user, Handler::new);
+    return handlers.asMap().computeIfAbsent(user, Handler::new);
   }
 
   public class Handler implements Supplier<Set<PermissionStringDto>> {
@@ -41,8 +80,9 @@ public class PermissionStrings {
 
     private UUID userId;
 
-    private Set<PermissionStringDto> permissionStrings;
-    private String etag;
+    private volatile PermissionStringIndex index;
+    private volatile String etag;
+    private volatile long validatedAt;
 
     Handler(UUID userId) {
       this.userId = userId;
@@ -50,19 +90,85 @@ public class PermissionStrings {
 
     @Override
     public Set<PermissionStringDto> get() {
-      updatePermissionStrings();
-      return permissionStrings;
+      return getIndex().getPermissionStrings();
+    }
+
+    /**
+     * Returns the index of user's permission strings. The index is rebuilt only if permission
+     * strings have been changed.
+     *
+     * @return an instance of {@link PermissionStringIndex}
+     */
+    public PermissionStringIndex getIndex() {
+      if (!isFresh()) {
+        updatePermissionStrings();
+      }
+
+      return index;
+    }
+
+    private boolean isFresh() {
+      return null != index
+          && System.currentTimeMillis() - validatedAt < freshnessMillis;
     }
 
     private void updatePermissionStrings() {
       synchronized (lock) {
+        // another thread could update permission strings while this one was waiting for the lock
+        if (isFresh()) {
+          return;
+        }
+
+        if (redisEnabled) {
+          loadSharedPermissionStrings();
+
+          if (isFresh()) {
+            return;
+          }
+        }
+
         ServiceResponse<List<String>> response = userReferenceDataService
             .getPermissionStrings(userId, etag);
 
         if (response.isModified()) {
-          permissionStrings = PermissionStringDto.from(response.getBody());
+          index = PermissionStringIndex.of(PermissionStringDto.from(response.getBody()));
           etag = response.getETag();
         }
+
+        validatedAt = System.currentTimeMillis();
+
+        if (redisEnabled) {
+          saveSharedPermissionStrings();
+        }
+      }
+    }
+
+    private void loadSharedPermissionStrings() {
+      try {
+        SharedPermissionStrings shared = permissionStringsRedisRepository.findByUserId(userId);
+
+        if (null != shared && shared.getValidatedAt() > validatedAt) {
+          index = PermissionStringIndex.of(PermissionStringDto.from(shared.getPermissionStrings()));
+          etag = shared.getEtag();
+          validatedAt = shared.getValidatedAt();
+        }
+      } catch (DataAccessException exp) {
+        LOGGER.warn("Unable to read permission strings of user {} from Redis", userId, exp);
+      }
+    }
+
+    private void saveSharedPermissionStrings() {
+      try {
+        List<String> list = index
+            .getPermissionStrings()
+            .stream()
+            .map(PermissionStringDto::toString)
+            .collect(Collectors.toList());
+
+        permissionStringsRedisRepository
+            .save(userId, new SharedPermissionStrings(list, etag, validatedAt));
+      } catch (DataAccessException exp) {
+        LOGGER.warn("Unable to save permission strings of user {} in Redis", userId, exp);
       }
     }
   }
@@ -0,0 +1,134 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+
+import com.google.common.base.Suppliers;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.openlmis.requisition.dto.RoleAssignmentDto;
+import org.openlmis.requisition.dto.UserDto;
+
+/**
+ * Immutable index of user's supervision role assignments. Checking if the user has a role for
+ * the given program and supervisory node (or home facility) is a single hash lookup. Supervisory
+ * nodes that supervise a facility are resolved once, when they are needed for the first time.
+ */
+public final class RoleAssignmentIndex {
+  private final UUID homeFacilityId;
+  private final Set<RoleAssignmentDto> roleAssignments;
+  private final Set<Triple<UUID, UUID, UUID>> supervisionRoles;
+  private final Set<Pair<UUID, UUID>> homeFacilityRoles;
+  private final Set<UUID> supervisoryNodeIds;
+  private final Supplier<Map<UUID, Set<UUID>>> supervisoryNodeIdsByFacility;
+
+  private RoleAssignmentIndex(UserDto user,
+      Function<Set<UUID>, Map<UUID, Set<UUID>>> supervisoryNodeIdsByFacilityLoader) {
+    Set<RoleAssignmentDto> assignments = null == user.getRoleAssignments()
+        ? emptySet()
+        : new HashSet<>(user.getRoleAssignments());
+    Set<Triple<UUID, UUID, UUID>> supervision = new HashSet<>();
+    Set<Pair<UUID, UUID>> homeFacility = new HashSet<>();
+    Set<UUID> nodes = new HashSet<>();
+
+    for (RoleAssignmentDto assignment : assignments) {
+      if (null == assignment.getProgramId()) {
+        continue;
+      }
+
+      if (null == assignment.getSupervisoryNodeId()) {
+        homeFacility.add(Pair.of(assignment.getRoleId(), assignment.getProgramId()));
+      } else {
+        supervision.add(Triple.of(assignment.getRoleId(), assignment.getProgramId(),
+            assignment.getSupervisoryNodeId()));
+        nodes.add(assignment.getSupervisoryNodeId());
+      }
+    }
+
+    this.homeFacilityId = user.getHomeFacilityId();
+    this.roleAssignments = unmodifiableSet(assignments);
+    this.supervisionRoles = unmodifiableSet(supervision);
+    this.homeFacilityRoles = unmodifiableSet(homeFacility);
+    this.supervisoryNodeIds = unmodifiableSet(nodes);
+    this.supervisoryNodeIdsByFacility = Suppliers.memoize(() -> supervisoryNodeIds.isEmpty()
+        ? emptyMap()
+        : supervisoryNodeIdsByFacilityLoader.apply(supervisoryNodeIds));
+  }
+
+  /**
+   * Creates a new index for role assignments of the given user.
+   *
+   * @param user   the user whose role assignments should be indexed
+   * @param loader returns ids of supervisory nodes grouped by facilities they supervise for
+   *               the given supervisory node ids; it is called at most once
+   * @return a new instance of {@link RoleAssignmentIndex}
+   */
+  public static RoleAssignmentIndex of(UserDto user,
+      Function<Set<UUID>, Map<UUID, Set<UUID>>> loader) {
+    return new RoleAssignmentIndex(user, loader);
+  }
+
+  /**
+   * Checks if the index has been created for the same role assignments and home facility as
+   * the given user has got.
+   */
+  public boolean isBuiltFrom(UserDto user) {
+    Set<RoleAssignmentDto> assignments = null == user.getRoleAssignments()
+        ? emptySet()
+        : user.getRoleAssignments();
+
+    return Objects.equals(homeFacilityId, user.getHomeFacilityId())
+        && roleAssignments.equals(assignments);
+  }
+
+  /**
+   * Checks if user has the given role for the given program at the given supervisory node.
+   */
+  public boolean hasSupervisionRole(UUID roleId, UUID programId, UUID supervisoryNodeId) {
+    return supervisionRoles.contains(Triple.of(roleId, programId, supervisoryNodeId));
+  }
+
+  /**
+   * Checks if user has the given role for the given program at the home facility and that the
+   * home facility is the given facility.
+   */
+  public boolean hasHomeFacilityRole(UUID roleId, UUID programId, UUID facilityId) {
+    return null != homeFacilityId
+        && homeFacilityId.equals(facilityId)
+        && homeFacilityRoles.contains(Pair.of(roleId, programId));
+  }
+
+  /**
+   * Returns ids of user's supervisory nodes which requisition groups contain the given facility.
+   *
+   * @param facilityId facility id
+   * @return an unmodifiable set of supervisory node ids
+   */
+  public Set<UUID> getSupervisoryNodeIds(UUID facilityId) {
+    return supervisoryNodeIdsByFacility.get().getOrDefault(facilityId, emptySet());
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import org.openlmis.requisition.dto.FacilityDto;
+import org.openlmis.requisition.dto.RequisitionGroupDto;
+import org.openlmis.requisition.dto.RoleDto;
+import org.openlmis.requisition.dto.SupervisoryNodeDto;
+import org.openlmis.requisition.dto.UserDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches data needed to verify if a user has got a role that contains the given right: indexed
+ * role assignments of users and ids of roles that contain the given right.
+ */
+@Component
+public class RoleAssignments {
+  private Cache<UUID, Loaded<RoleAssignmentIndex>> indexes;
+  private Cache<UUID, Loaded<Set<UUID>>> roleIdsByRight;
+
+  @Autowired
+  private RoleReferenceDataService roleReferenceDataService;
+
+  @Autowired
+  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+
+  @Autowired
+  private RequisitionGroupReferenceDataService requisitionGroupReferenceDataService;
+
+  @Value("${roleAssignments.cache.maxSize}")
+  private long maxSize;
+
+  @Value("${roleAssignments.cache.expireAfterWriteMinutes}")
+  private long expireAfterWriteMinutes;
+
+  @Value("${roleAssignments.cache.freshnessMillis}")
+  private long freshnessMillis;
+
+  /**
+   * Creates caches. Entries are evicted after the given time since they have been created to
+   * make sure that changes in roles and requisition groups are eventually visible.
+   */
+  @PostConstruct
+  public void init() {
+    indexes = CacheBuilder
+        .newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+        .build();
+    roleIdsByRight = CacheBuilder
+        .newBuilder()
+        .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+        .build();
+  }
+
+  /**
+   * Returns the role assignment index of the given user. The cached index is reused as long as
+   * the user's role assignments and home facility have not changed.
+   *
+   * @param user the user whose role assignments should be returned
+   * @return an instance of {@link RoleAssignmentIndex}
+   */
+  public RoleAssignmentIndex forUser(UserDto user) {
+    return indexes.asMap().compute(user.getId(), (id, loaded) ->
+        null != loaded && loaded.value.isBuiltFrom(user)
+            ? loaded
+            : new Loaded<>(RoleAssignmentIndex.of(user, this::getSupervisoryNodeIdsByFacility)))
+        .value;
+  }
+
+  /**
+   * Returns ids of roles that contain the given right.
+   *
+   * @param rightId right id
+   * @return an unmodifiable set of role ids
+   */
+  public Set<UUID> getRoleIds(UUID rightId) {
+    return roleIdsByRight.asMap().computeIfAbsent(rightId, id -> new Loaded<>(unmodifiableSet(
+        roleReferenceDataService
+            .search(id)
+            .stream()
+            .map(RoleDto::getId)
+            .collect(Collectors.toSet()))))
+        .value;
+  }
+
+  /**
+   * Removes cached data of the given user and right that is older than the freshness period, so
+   * it will be retrieved again on the next request. Data retrieved within the freshness period
+   * is kept.
+   *
+   * @param userId user id
+   * @param rightId right id
+   * @return true if any data has been removed
+   */
+  public boolean evictIfStale(UUID userId, UUID rightId) {
+    boolean indexEvicted = evictIfStale(indexes, userId);
+    boolean roleIdsEvicted = evictIfStale(roleIdsByRight, rightId);
+
+    return indexEvicted || roleIdsEvicted;
+  }
+
+  private <V> boolean evictIfStale(Cache<UUID, Loaded<V>> cache, UUID key) {
+    Loaded<V> loaded = cache.getIfPresent(key);
+
+    return null != loaded
+        && System.currentTimeMillis() - loaded.loadedAt >= freshnessMillis
+        && cache.asMap().remove(key, loaded);
+  }
+
+  private Map<UUID, Set<UUID>> getSupervisoryNodeIdsByFacility(Set<UUID> supervisoryNodeIds) {
+    List<SupervisoryNodeDto> supervisoryNodes = supervisoryNodeReferenceDataService
+        .findByIds(supervisoryNodeIds)
+        .stream()
+        .filter(item -> Objects.nonNull(item.getRequisitionGroupId()))
+        .collect(Collectors.toList());
+
+    Map<UUID, RequisitionGroupDto> requisitionGroups = requisitionGroupReferenceDataService
+        .findAll()
+        .stream()
+        .collect(Collectors.toMap(RequisitionGroupDto::getId, Function.identity()));
+
+    Map<UUID, Set<UUID>> supervisoryNodeIdsByFacility = new HashMap<>();
+
+    for (SupervisoryNodeDto supervisoryNode : supervisoryNodes) {
+      RequisitionGroupDto requisitionGroup = requisitionGroups
+          .get(supervisoryNode.getRequisitionGroupId());
+
+      if (null == requisitionGroup || null == requisitionGroup.getMemberFacilities()) {
+        continue;
+      }
+
+      for (FacilityDto facility : requisitionGroup.getMemberFacilities()) {
+        supervisoryNodeIdsByFacility
+            .computeIfAbsent(facility.getId(), key -> new HashSet<>())
+            .add(supervisoryNode.getId());
+      }
+    }
+
+    supervisoryNodeIdsByFacility.replaceAll((facilityId, ids) -> unmodifiableSet(ids));
+
+    return unmodifiableMap(supervisoryNodeIdsByFacility);
+  }
+
+  private static final class Loaded<V> {
+    private final V value;
+    private final long loadedAt = System.currentTimeMillis();
+
+    Loaded(V value) {
+      this.value = value;
+    }
+  }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openlmis.requisition.dto.SupervisoryNodeDto;
+import org.openlmis.requisition.dto.SupplyLineDto;
+import org.openlmis.requisition.service.RequestParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps supervisory nodes and supply lines needed to route requisitions through the approval
+ * hierarchy in memory. All supervisory nodes and supply lines are retrieved at once when the
+ * topology is used for the first time and they are refreshed periodically afterwards. Nodes
+ * created after the last refresh are retrieved from the reference data service. Supply lines are
+ * retrieved from the reference data service whenever the topology has none for a program and
+ * node, because a supply line created after the last refresh changes how requisitions are routed.
+ * Callers must not modify the returned objects.
+ */
+@Component
+public class SupervisoryNodeTopology {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SupervisoryNodeTopology.class);
+
+  private volatile Snapshot snapshot;
+  private Cache<Pair<UUID, UUID>, Optional<SupervisoryNodeDto>> initialNodes;
+
+  @Autowired
+  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+
+  @Autowired
+  private SupplyLineReferenceDataService supplyLineReferenceDataService;
+
+  @Value("${supervisoryNodeTopology.cache.maxSize}")
+  private long maxSize;
+
+  @Value("${supervisoryNodeTopology.refreshIntervalMillis}")
+  private long refreshIntervalMillis;
+
+  /**
+   * Creates the cache of supervisory nodes assigned to facilities and programs. Entries live as
+   * long as the topology snapshot, so they are not older than the refresh interval.
+   */
+  @PostConstruct
+  public void init() {
+    initialNodes = CacheBuilder
+        .newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(refreshIntervalMillis, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Returns the supervisory node with the given id.
+   *
+   * @param id id of the supervisory node
+   * @return the supervisory node or null if it does not exist
+   */
+  public SupervisoryNodeDto getSupervisoryNode(UUID id) {
+    SupervisoryNodeDto supervisoryNode = getSnapshot().nodes.get(id);
+
+    return null == supervisoryNode
+        ? supervisoryNodeReferenceDataService.findOne(id)
+        : supervisoryNode;
+  }
+
+  /**
+   * Returns supervisory nodes with the given ids.
+   *
+   * @param ids ids of supervisory nodes
+   * @return a map of supervisory nodes by their ids
+   */
+  public Map<UUID, SupervisoryNodeDto> getSupervisoryNodes(Collection<UUID> ids) {
+    Snapshot current = getSnapshot();
+    Map<UUID, SupervisoryNodeDto> supervisoryNodes = new HashMap<>();
+    Set<UUID> missingIds = new HashSet<>();
+
+    for (UUID id : ids) {
+      SupervisoryNodeDto supervisoryNode = current.nodes.get(id);
+
+      if (null == supervisoryNode) {
+        missingIds.add(id);
+      } else {
+        supervisoryNodes.put(id, supervisoryNode);
+      }
+    }
+
+    supervisoryNodeReferenceDataService
+        .findByIds(missingIds)
+        .forEach(supervisoryNode -> supervisoryNodes.put(supervisoryNode.getId(), supervisoryNode));
+
+    return supervisoryNodes;
+  }
+
+  /**
+   * Returns the supervisory node that supervises the given facility in the given program.
+   *
+   * @param programId  id of the program
+   * @param facilityId id of the facility
+   * @return the supervisory node or null if the facility is not supervised in the program
+   */
+  public SupervisoryNodeDto findSupervisoryNode(UUID programId, UUID facilityId) {
+    return initialNodes
+        .asMap()
+        .computeIfAbsent(new ImmutablePair<>(programId, facilityId), key -> Optional.ofNullable(
+            supervisoryNodeReferenceDataService.findSupervisoryNode(programId, facilityId)))
+        .orElse(null);
+  }
+
+  /**
+   * Returns supply lines of the given program and supervisory node.
+   *
+   * @param programId         id of the program
+   * @param supervisoryNodeId id of the supervisory node
+   * @return an unmodifiable list of supply lines
+   */
+  public List<SupplyLineDto> getSupplyLines(UUID programId, UUID supervisoryNodeId) {
+    Snapshot current = getSnapshot();
+
+    List<SupplyLineDto> supplyLines = current.nodes.containsKey(supervisoryNodeId)
+        ? current.supplyLines.get(new ImmutablePair<>(programId, supervisoryNodeId))
+        : null;
+
+    // without supply lines a requisition is sent to the parent node, so the missing supply lines
+    // are confirmed in case they have been created after the last refresh
+    return null == supplyLines
+        ? supplyLineReferenceDataService.search(programId, supervisoryNodeId)
+        : supplyLines;
+  }
+
+  /**
+   * Retrieves supervisory nodes and supply lines again. The topology is refreshed only if it has
+   * been used since the service started.
+   */
+  @Scheduled(fixedDelayString = "${supervisoryNodeTopology.refreshIntervalMillis}",
+      initialDelayString = "${supervisoryNodeTopology.refreshIntervalMillis}")
+  public void refresh() {
+    if (null != snapshot) {
+      snapshot = load();
+    }
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+
+    if (null == current) {
+      synchronized (this) {
+        current = snapshot;
+
+        if (null == current) {
+          current = load();
+          snapshot = current;
+        }
+      }
+    }
+
+    return current;
+  }
+
+  private Snapshot load() {
+    try {
+      List<SupervisoryNodeDto> supervisoryNodes = supervisoryNodeReferenceDataService
+          .getPage(RequestParameters.init().set("size", Integer.MAX_VALUE))
+          .getContent();
+      List<SupplyLineDto> supplyLines = supplyLineReferenceDataService
+          .getPage(RequestParameters.init().set("size", Integer.MAX_VALUE))
+          .getContent();
+
+      return new Snapshot(supervisoryNodes, supplyLines);
+    } catch (RuntimeException exp) {
+      // the topology is optional, so until the next refresh all lookups go to referencedata
+      LOGGER.warn("Unable to retrieve supervisory nodes and supply lines", exp);
+      return new Snapshot(emptyList(), emptyList());
+    }
+  }
+
+  private static final class Snapshot {
+    private final Map<UUID, SupervisoryNodeDto> nodes;
+    private final Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLines;
+
+    Snapshot(List<SupervisoryNodeDto> supervisoryNodes, List<SupplyLineDto> supplyLines) {
+      this.nodes = supervisoryNodes.isEmpty()
+          ? emptyMap()
+          : unmodifiableMap(supervisoryNodes
+              .stream()
+              .collect(Collectors.toMap(SupervisoryNodeDto::getId, Function.identity(),
+                  (first, second) -> first)));
+
+      Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLinesByProgramAndNode = supplyLines
+          .stream()
+          .filter(line -> Objects.nonNull(line.getProgram())
+              && Objects.nonNull(line.getSupervisoryNode()))
+          .collect(Collectors.groupingBy(line -> new ImmutablePair<>(
+              line.getProgram().getId(), line.getSupervisoryNode().getId())));
+
+      supplyLinesByProgramAndNode.replaceAll((key, lines) -> unmodifiableList(lines));
+
+      this.supplyLines = unmodifiableMap(supplyLinesByProgramAndNode);
+    }
+  }
+
+}
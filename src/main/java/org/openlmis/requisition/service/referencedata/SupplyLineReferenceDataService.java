@@ -40,6 +40,20 @@ public class SupplyLineReferenceDataService extends BaseReferenceDataService<Sup
     return SupplyLineDto[].class;
   }
 
+  /**
+   * Retrieves supply lines from reference data service by supervisory nodes.
+   *
+   * @param supervisoryNodeIds UUIDs of the supervisory nodes
+   * @return A list of supply lines matching search criteria
+   */
+  public List<SupplyLineDto> searchBySupervisoryNodes(Set<UUID> supervisoryNodeIds) {
+    RequestParameters parameters = RequestParameters
+        .init()
+        .set("supervisoryNodeId", supervisoryNodeIds);
+
+    return search(parameters);
+  }
+
   /**
    * Retrieves supply lines from reference data service by supplying facility ids and program id.
    *
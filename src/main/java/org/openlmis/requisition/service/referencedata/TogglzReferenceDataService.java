@@ -15,7 +15,9 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import java.util.List;
 import org.openlmis.requisition.dto.TogglzFeatureDto;
+import org.openlmis.requisition.service.ServiceResponse;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -36,4 +38,14 @@ public class TogglzReferenceDataService extends BaseReferenceDataService<TogglzF
     return TogglzFeatureDto[].class;
   }
 
+  /**
+   * Retrieves all features if they have changed since the given ETag was returned.
+   *
+   * @param etag ETag of previously retrieved features or null
+   * @return features and their ETag; the body is null if features have not been modified
+   */
+  public ServiceResponse<List<TogglzFeatureDto>> getFeatures(String etag) {
+    return tryFindAll("", TogglzFeatureDto[].class, etag);
+  }
+
 }
@@ -15,16 +15,46 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import static java.util.Collections.unmodifiableSet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.tuple.Triple;
 import org.openlmis.requisition.dto.DetailedRoleAssignmentDto;
 import org.openlmis.requisition.dto.RightDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UserRoleAssignmentsReferenceDataService extends
     BaseReferenceDataService<DetailedRoleAssignmentDto> {
 
+  private Cache<UUID, Set<Triple<UUID, UUID, UUID>>> supervisionRights;
+
+  @Value("${roleAssignments.cache.maxSize}")
+  private long maxSize;
+
+  @Value("${roleAssignments.cache.expireAfterWriteMinutes}")
+  private long expireAfterWriteMinutes;
+
+  /**
+   * Creates the cache of indexed supervision rights of users.
+   */
+  @PostConstruct
+  public void init() {
+    supervisionRights = CacheBuilder
+        .newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+        .build();
+  }
+
   @Override
   protected String getUrl() {
     return "/api/users/";
@@ -45,7 +75,9 @@ public class UserRoleAssignmentsReferenceDataService extends
   }
 
   /**
-   * Checks if given user has supervision right with given parameters.
+   * Checks if given user has supervision right with given parameters. User's role assignments
+   * are indexed by right, program and supervisory node and the index is cached. If the right
+   * is not in the cached index, it is verified again with current role assignments.
    *
    * @param right             right to be checked
    * @param userId            UUID of user that roles will be verified
@@ -58,17 +90,40 @@ public class UserRoleAssignmentsReferenceDataService extends
       return false;
     }
 
-    return getRoleAssignments(userId).stream()
-        .filter(r -> r.getRole().getRights().contains(right))
-        .anyMatch(r -> hasAnySupervisionRoleWithGivenParameters(r, programId, supervisoryNodeId));
+    Triple<UUID, UUID, UUID> key = Triple.of(right.getId(), programId, supervisoryNodeId);
+    Set<Triple<UUID, UUID, UUID>> cached = supervisionRights.getIfPresent(userId);
+
+    if (null != cached && cached.contains(key)) {
+      return true;
+    }
+
+    Set<Triple<UUID, UUID, UUID>> current = indexSupervisionRights(userId);
+    supervisionRights.put(userId, current);
+
+    return current.contains(key);
   }
 
-  private boolean hasAnySupervisionRoleWithGivenParameters(DetailedRoleAssignmentDto role,
-                                                       UUID programId,
-                                                       UUID supervisoryNodeId) {
-    return role.getSupervisoryNodeId() != null
-        && role.getProgramId() != null
-        && (supervisoryNodeId == null || supervisoryNodeId.equals(role.getSupervisoryNodeId()))
-        && (programId == null || programId.equals(role.getProgramId()));
+  private Set<Triple<UUID, UUID, UUID>> indexSupervisionRights(UUID userId) {
+    Set<Triple<UUID, UUID, UUID>> index = new HashSet<>();
+
+    for (DetailedRoleAssignmentDto assignment : getRoleAssignments(userId)) {
+      UUID programId = assignment.getProgramId();
+      UUID supervisoryNodeId = assignment.getSupervisoryNodeId();
+
+      if (null == programId || null == supervisoryNodeId
+          || null == assignment.getRole().getRights()) {
+        continue;
+      }
+
+      // null program or supervisory node in the check means any program or supervisory node
+      for (RightDto right : assignment.getRole().getRights()) {
+        index.add(Triple.of(right.getId(), programId, supervisoryNodeId));
+        index.add(Triple.of(right.getId(), programId, null));
+        index.add(Triple.of(right.getId(), null, supervisoryNodeId));
+        index.add(Triple.of(right.getId(), null, null));
+      }
+    }
+
+    return unmodifiableSet(index);
   }
 }
@@ -15,19 +15,63 @@
 
 package org.openlmis.requisition.service.stockmanagement;
 
+import static java.util.Collections.unmodifiableList;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.requisition.dto.ValidReasonDto;
 import org.openlmis.requisition.service.RequestParameters;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ValidReasonStockmanagementService extends BaseStockManagementService<ValidReasonDto> {
+  private Cache<Pair<UUID, UUID>, List<ValidReasonDto>> validReasons;
+
+  @Value("${validReasons.cache.maxSize}")
+  private long maxSize;
+
+  @Value("${validReasons.cache.expireAfterWriteMinutes}")
+  private long expireAfterWriteMinutes;
+
+  /**
+   * Creates the cache of valid reasons. Entries are evicted after the given time since they have
+   * been created to make sure that changes in valid reasons are eventually visible.
+   */
+  @PostConstruct
+  public void init() {
+    validReasons = CacheBuilder
+        .newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+        .build();
+  }
 
   /**
-   * Gets valid reasons that matched the provided parameters.
+   * Gets valid reasons that matched the provided parameters. The result is cached per program
+   * and facility type.
+   *
+   * @return an unmodifiable list of valid reasons
    */
   public List<ValidReasonDto> search(UUID program, UUID facilityType) {
+    return validReasons.asMap().computeIfAbsent(new ImmutablePair<>(program, facilityType),
+        key -> unmodifiableList(findAll(key.getLeft(), key.getRight())));
+  }
+
+  /**
+   * Removes all cached valid reasons so they will be retrieved again on the next request.
+   */
+  public void evictCache() {
+    validReasons.invalidateAll();
+  }
+
+  private List<ValidReasonDto> findAll(UUID program, UUID facilityType) {
     RequestParameters parameters = RequestParameters
         .init()
         .set("program", program)
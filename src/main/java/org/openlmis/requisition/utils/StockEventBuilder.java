@@ -21,9 +21,9 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.BooleanUtils;
 import org.openlmis.requisition.domain.RequisitionTemplate;
@@ -85,9 +85,11 @@ public class StockEventBuilder {
     LOGGER.debug("Building stock events for requisition: {}", requisition.getId());
 
     profiler.start("GET_STOCK_CARDS");
-    List<StockCardDto> stockCards = stockCardService.getStockCards(requisition.getFacilityId(),
-        requisition.getProgramId()).stream().filter(stockCard -> stockCard.getLot() == null)
-        .collect(Collectors.toList());
+    Map<UUID, StockCardDto> stockCards = stockCardService.getStockCards(
+        requisition.getFacilityId(), requisition.getProgramId()).stream()
+        .filter(stockCard -> stockCard.getLot() == null)
+        .collect(Collectors.toMap(stockCard -> stockCard.getOrderable().getId(),
+            Function.identity(), (first, second) -> first));
 
     profiler.start("BUILD_STOCK_EVENT");
     StockEventDto stockEventDto = StockEventDto
@@ -112,7 +114,7 @@ public class StockEventBuilder {
 
   private List<StockEventLineItemDto> fromLineItems(List<RequisitionLineItem> lineItems,
       List<StockAdjustmentReason> reasons, RequisitionTemplate template, LocalDate occurredDate,
-      List<StockCardDto> stockCards, Map<VersionIdentityDto, OrderableDto> orderables) {
+      Map<UUID, StockCardDto> stockCards, Map<VersionIdentityDto, OrderableDto> orderables) {
 
     List<StockEventLineItemDto> list = new ArrayList<>();
 
@@ -133,7 +135,7 @@ public class StockEventBuilder {
                                              List<StockAdjustmentReason> reasons,
                                              RequisitionTemplate template,
                                              LocalDate occurredDate,
-                                             List<StockCardDto> stockCards) {
+                                             Map<UUID, StockCardDto> stockCards) {
     return StockEventLineItemDto.builder()
         .orderableId(lineItem.getOrderable().getId())
         .quantity(lineItem.getStockOnHand() != null ? lineItem.getStockOnHand() : 0)
@@ -144,7 +146,7 @@ public class StockEventBuilder {
 
   private List<StockEventAdjustmentDto> getStockAdjustments(RequisitionLineItem lineItem,
       List<StockAdjustmentReason> reasons, RequisitionTemplate template,
-      List<StockCardDto> stockCards) {
+      Map<UUID, StockCardDto> stockCards) {
 
     XLOGGER.entry(lineItem, reasons, template, stockCards);
 
@@ -179,12 +181,7 @@ public class StockEventBuilder {
     }
 
     profiler.start("GET_STOCK_CARD_FROM_LINE_ITEM");
-    StockCardDto stockCard = stockCards
-        .stream()
-        .filter(card -> Objects.equals(
-            card.getOrderable().getId(), lineItem.getOrderable().getId()))
-        .findFirst()
-        .orElse(null);
+    StockCardDto stockCard = stockCards.get(lineItem.getOrderable().getId());
 
     if (stockCard == null) {
       LOGGER.warn("No stock card found for Orderable: {}", lineItem.getOrderable().getId());
@@ -21,7 +21,9 @@ import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.TO
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_SPECIAL_REASON_NOT_VALID;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.requisition.StockAdjustmentReason;
 import org.openlmis.requisition.exception.ValidationMessageException;
@@ -40,20 +42,24 @@ public class ReasonsValidator {
    * Validate special reasons are in reason list when showed in template.
    */
   public void validate(List<StockAdjustmentReason> reasons, RequisitionTemplate template) {
-    checkReason(reasons, template, TOTAL_CONSUMED_QUANTITY,
+    Set<UUID> reasonIds = reasons
+        .stream()
+        .map(StockAdjustmentReason::getReasonId)
+        .collect(Collectors.toSet());
+
+    checkReason(reasonIds, template, TOTAL_CONSUMED_QUANTITY,
         configurationSettingService.getReasonIdForConsumed());
-    checkReason(reasons, template, TOTAL_RECEIVED_QUANTITY,
+    checkReason(reasonIds, template, TOTAL_RECEIVED_QUANTITY,
         configurationSettingService.getReasonIdForReceipts());
-    checkReason(reasons, template, BEGINNING_BALANCE,
+    checkReason(reasonIds, template, BEGINNING_BALANCE,
         configurationSettingService.getReasonIdForBeginningBalanceExcess());
-    checkReason(reasons, template, BEGINNING_BALANCE,
+    checkReason(reasonIds, template, BEGINNING_BALANCE,
         configurationSettingService.getReasonIdForBeginningBalanceInsufficiency());
   }
 
-  private void checkReason(List<StockAdjustmentReason> reasons, RequisitionTemplate template,
+  private void checkReason(Set<UUID> reasonIds, RequisitionTemplate template,
                            String column, UUID reasonId) {
-    if (template.isColumnInTemplateAndDisplayed(column)
-        && reasons.parallelStream().noneMatch(r -> r.getReasonId().equals(reasonId))) {
+    if (template.isColumnInTemplateAndDisplayed(column) && !reasonIds.contains(reasonId)) {
       throw new ValidationMessageException(
           new Message(ERROR_SPECIAL_REASON_NOT_VALID, reasonId));
     }
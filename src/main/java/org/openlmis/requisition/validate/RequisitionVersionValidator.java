@@ -16,6 +16,7 @@
 package org.openlmis.requisition.validate;
 
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_DATE_MODIFIED_MISMATCH;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_VERSION_REQUIRED;
 import static org.openlmis.requisition.i18n.MessageKeys.VERSION_MISMATCH;
 
 import java.time.ZonedDateTime;
@@ -76,4 +77,26 @@ public class RequisitionVersionValidator {
     }
     return ValidationResult.success();
   }
+
+  /**
+   * Validates whether a partial update of the requisition is based on the version that is
+   * currently stored in the database. Unlike the If-Match header, the version is required,
+   * because changes to only some of the line items must never be applied on top of changes
+   * the client has not seen.
+   *
+   * @param version the version of the requisition the partial update is based on
+   * @param requisition the existing version of the requisition
+   * @return ValidationResult that contains outcome of this validation
+   */
+  public ValidationResult validateVersion(Long version, Requisition requisition) {
+    if (null == version) {
+      return ValidationResult.failedValidation(ERROR_VERSION_REQUIRED);
+    }
+
+    if (!version.equals(requisition.getVersion())) {
+      return ValidationResult.conflict(VERSION_MISMATCH);
+    }
+
+    return ValidationResult.success();
+  }
 }
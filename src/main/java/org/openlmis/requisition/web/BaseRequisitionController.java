@@ -17,6 +17,7 @@ package org.openlmis.requisition.web;
 
 import static org.apache.commons.lang3.BooleanUtils.isNotTrue;
 import static org.apache.commons.lang3.BooleanUtils.isTrue;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_FACILITY_NOT_FOUND;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_ID_MISMATCH;
@@ -28,6 +29,7 @@ import static org.openlmis.requisition.i18n.MessageKeys.IDEMPOTENCY_KEY_WRONG_FO
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
@@ -51,10 +53,10 @@ import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionValidationService;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.domain.requisition.StockAdjustmentReason;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.ApprovedProductDto;
-import org.openlmis.requisition.dto.BaseDto;
 import org.openlmis.requisition.dto.BasicRequisitionDto;
 import org.openlmis.requisition.dto.FacilityDto;
 import org.openlmis.requisition.dto.ObjectReferenceDto;
@@ -81,6 +83,7 @@ import org.openlmis.requisition.repository.custom.ProcessedRequestsRedisReposito
 import org.openlmis.requisition.service.PeriodService;
 import org.openlmis.requisition.service.PermissionService;
 import org.openlmis.requisition.service.RequisitionService;
+import org.openlmis.requisition.service.RequisitionSnapshotService;
 import org.openlmis.requisition.service.RequisitionStatusProcessor;
 import org.openlmis.requisition.service.RequisitionTemplateService;
 import org.openlmis.requisition.service.referencedata.ApproveProductsAggregator;
@@ -89,8 +92,7 @@ import org.openlmis.requisition.service.referencedata.FacilityReferenceDataServi
 import org.openlmis.requisition.service.referencedata.FacilityTypeApprovedProductReferenceDataService;
 import org.openlmis.requisition.service.referencedata.OrderableReferenceDataService;
 import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
-import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
-import org.openlmis.requisition.service.referencedata.SupplyLineReferenceDataService;
+import org.openlmis.requisition.service.referencedata.SupervisoryNodeTopology;
 import org.openlmis.requisition.service.stockmanagement.StockEventStockManagementService;
 import org.openlmis.requisition.service.stockmanagement.ValidReasonStockmanagementService;
 import org.openlmis.requisition.utils.AuthenticationHelper;
@@ -109,6 +111,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
 @SuppressWarnings("PMD.TooManyMethods")
 public abstract class BaseRequisitionController extends BaseController {
@@ -147,11 +151,14 @@ public abstract class BaseRequisitionController extends BaseController {
   RequisitionVersionValidator requisitionVersionValidator;
 
   @Autowired
-  SupplyLineReferenceDataService supplyLineReferenceDataService;
+  SupervisoryNodeTopology supervisoryNodeTopology;
 
   @Autowired
   private RequisitionStatusProcessor requisitionStatusProcessor;
 
+  @Autowired
+  private RequisitionSnapshotService requisitionSnapshotService;
+
   @Autowired
   private StockEventStockManagementService stockEventStockManagementService;
 
@@ -176,9 +183,6 @@ public abstract class BaseRequisitionController extends BaseController {
   @Autowired
   FacilitySupportsProgramHelper facilitySupportsProgramHelper;
 
-  @Autowired
-  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
-
   @Autowired
   private ProcessedRequestsRedisRepository processedRequestsRedisRepository;
 
@@ -201,6 +205,9 @@ public abstract class BaseRequisitionController extends BaseController {
   @Autowired
   private ReasonsValidator reasonsValidator;
 
+  @Autowired
+  RequisitionResponseCache requisitionResponseCache;
+
   InitiateResult doInitiate(UUID programId, UUID facilityId, UUID suggestedPeriod,
       boolean emergency, HttpServletRequest request, Profiler profiler) {
     if (null == facilityId || null == programId) {
@@ -236,7 +243,7 @@ public abstract class BaseRequisitionController extends BaseController {
 
     profiler.start("FIND_APPROVED_PRODUCTS");
     ApproveProductsAggregator approvedProducts = approvedProductReferenceDataService
-        .getApprovedProducts(facility.getId(), program.getId());
+        .getApprovedProducts(facility, program.getId());
 
     profiler.start("INITIATE_REQUISITION");
     Requisition newRequisition = requisitionService.initiate(
@@ -281,14 +288,10 @@ public abstract class BaseRequisitionController extends BaseController {
         .getPeriod(requisitionToUpdate.getProcessingPeriodId());
 
     profiler.start("BUILD_REQUISITION_UPDATER");
-    Map<VersionEntityReference, ApprovedProductReference> productReferences = requisitionToUpdate
-        .getAvailableProducts()
-        .stream()
-        .collect(Collectors.toMap(ApprovedProductReference::getOrderable, Function.identity()));
-
     Requisition requisition = RequisitionBuilder.newRequisition(requisitionImporter,
         requisitionToUpdate.getTemplate(), requisitionToUpdate.getProgramId(),
-        period, requisitionToUpdate.getStatus(), orderables, productReferences);
+        period, requisitionToUpdate.getStatus(), orderables,
+        getProductReferences(requisitionToUpdate));
     requisition.setId(requisitionId);
 
     ProgramDto program = findProgram(requisitionToUpdate.getProgramId(), profiler);
@@ -370,10 +373,8 @@ public abstract class BaseRequisitionController extends BaseController {
         .map(Requisition::getSupervisoryNodeId)
         .collect(Collectors.toSet());
 
-    Map<UUID, SupervisoryNodeDto> partnerSupervisoryNodes = supervisoryNodeReferenceDataService
-        .findByIds(partnerSupervisoryNodeIds)
-        .stream()
-        .collect(Collectors.toMap(BaseDto::getId, Function.identity()));
+    Map<UUID, SupervisoryNodeDto> partnerSupervisoryNodes = supervisoryNodeTopology
+        .getSupervisoryNodes(partnerSupervisoryNodeIds);
 
     profiler.start("APPROVE_REQUISITIONS");
     for (Requisition partnerRequisition : partnerRequisitions) {
@@ -384,8 +385,8 @@ public abstract class BaseRequisitionController extends BaseController {
       profiler.start("RETRIEVE_SUPPLY_LINES");
       List<SupplyLineDto> supplyLines = approveParams.period.isReportOnly()
           ? Collections.emptyList()
-          : supplyLineReferenceDataService
-              .search(partnerRequisition.getProgramId(),
+          : supervisoryNodeTopology
+              .getSupplyLines(partnerRequisition.getProgramId(),
                   partnerRequisition.getSupervisoryNodeId());
 
       ApproveParams partnerApproveParams = new ApproveParams(
@@ -483,6 +484,14 @@ public abstract class BaseRequisitionController extends BaseController {
     }
   }
 
+  Map<VersionEntityReference, ApprovedProductReference> getProductReferences(
+      Requisition requisition) {
+    return requisition
+        .getAvailableProducts()
+        .stream()
+        .collect(Collectors.toMap(ApprovedProductReference::getOrderable, Function.identity()));
+  }
+
   ValidationResult validateRequisitionCanBeUpdated(Requisition requisitionToUpdate,
       Requisition requisition, Map<VersionIdentityDto, OrderableDto> orderables) {
     return requisitionToUpdate.validateCanBeUpdated(new RequisitionValidationService(
@@ -537,6 +546,64 @@ public abstract class BaseRequisitionController extends BaseController {
     return requisition;
   }
 
+  /**
+   * Answers the request without loading the requisition, if possible. Only the version and the
+   * fields needed for the permission check are read. If the version matches the If-None-Match
+   * header, the response is marked as not modified. Otherwise the cached body of a requisition
+   * in a final status is written, if there is one for the current version.
+   *
+   * @param representation class of the DTO that would be returned for the requisition
+   * @return true if the response has been written and nothing else should be returned
+   */
+  boolean writeCachedResponse(UUID requisitionId, Class<?> representation,
+      HttpServletRequest request, HttpServletResponse response, Profiler profiler)
+      throws IOException {
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    boolean cacheApplicable = requisitionResponseCache.isApplicable(request);
+
+    if (isBlank(ifNoneMatch) && !cacheApplicable) {
+      return false;
+    }
+
+    profiler.start("GET_REQUISITION_VERSION_BY_ID");
+    RequisitionVersion requisition = requisitionRepository
+        .findVersionById(requisitionId)
+        .orElse(null);
+
+    if (null == requisition) {
+      return false;
+    }
+
+    boolean notModified = !isBlank(ifNoneMatch)
+        && ETagResource.matchesVersion(ifNoneMatch, requisition.getVersion());
+    byte[] body = null;
+
+    if (!notModified && cacheApplicable) {
+      profiler.start("GET_CACHED_RESPONSE");
+      body = requisitionResponseCache
+          .find(requisitionId, requisition.getVersion(), representation);
+    }
+
+    if (!notModified && null == body) {
+      return false;
+    }
+
+    checkPermission(profiler, () -> permissionService.canViewRequisition(requisition));
+
+    response.setHeader(HttpHeaders.ETAG, ETagResource.buildWeakETag(requisition.getVersion()));
+
+    if (notModified) {
+      response.setStatus(HttpStatus.NOT_MODIFIED.value());
+    } else {
+      profiler.start("WRITE_CACHED_RESPONSE");
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.setContentLength(body.length);
+      response.getOutputStream().write(body);
+    }
+
+    return true;
+  }
+
   FacilityDto findFacility(UUID facilityId, Profiler profiler) {
     profiler.start("GET_FACILITY");
     return findResource(
@@ -603,12 +670,13 @@ public abstract class BaseRequisitionController extends BaseController {
     profiler.start("CALL_STATUS_CHANGE_PROCESSOR");
     assignInitialSupervisoryNode(requisition);
     requisitionStatusProcessor.statusChange(requisition, LocaleContextHolder.getLocale());
+    requisitionSnapshotService.createAfterStatusChange(Collections.singletonList(requisition));
   }
 
   private void assignInitialSupervisoryNode(Requisition requisition) {
     if (requisition.isApprovable()
         && requisition.getSupervisoryNodeId() == null) {
-      UUID supervisoryNode = supervisoryNodeReferenceDataService.findSupervisoryNode(
+      UUID supervisoryNode = supervisoryNodeTopology.findSupervisoryNode(
           requisition.getProgramId(), requisition.getFacilityId()).getId();
       requisition.setSupervisoryNodeId(supervisoryNode);
     }
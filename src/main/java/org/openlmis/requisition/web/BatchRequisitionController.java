@@ -23,12 +23,13 @@ import static org.openlmis.requisition.i18n.MessageKeys.ERROR_NO_FOLLOWING_PERMI
 
 import com.google.common.collect.Lists;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -54,6 +55,7 @@ import org.openlmis.requisition.dto.BasicOrderableDto;
 import org.openlmis.requisition.dto.FacilityDto;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
+import org.openlmis.requisition.dto.ProgramDto;
 import org.openlmis.requisition.dto.ReleasableRequisitionBatchDto;
 import org.openlmis.requisition.dto.RequisitionDto;
 import org.openlmis.requisition.dto.RequisitionErrorMessage;
@@ -68,8 +70,8 @@ import org.openlmis.requisition.i18n.MessageKeys;
 import org.openlmis.requisition.i18n.MessageService;
 import org.openlmis.requisition.service.PermissionService;
 import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
-import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
-import org.openlmis.requisition.service.referencedata.UserReferenceDataService;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
+import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
 import org.openlmis.requisition.utils.Message;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -85,6 +87,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @Controller
@@ -99,13 +102,13 @@ public class BatchRequisitionController extends BaseRequisitionController {
   private MessageService messageService;
 
   @Autowired
-  private SupervisoryNodeReferenceDataService supervisoryNodeService;
+  private PeriodReferenceDataService periodReferenceDataService;
 
   @Autowired
-  private UserReferenceDataService userReferenceDataService;
+  private ProgramReferenceDataService programReferenceDataService;
 
   @Autowired
-  private PeriodReferenceDataService periodReferenceDataService;
+  private BatchRequisitionStreamer batchRequisitionStreamer;
 
   /**
    * Attempts to retrieve requisitions with the provided UUIDs.
@@ -161,6 +164,49 @@ public class BatchRequisitionController extends BaseRequisitionController {
     return response;
   }
 
+  /**
+   * Retrieves requisitions with the provided UUIDs as newline delimited JSON. Each requisition is
+   * written as soon as it is built, and errors are written in the last record, so the memory used
+   * does not grow with the number of requisitions.
+   */
+  @RequestMapping(value = RESOURCE_URL, params = "retrieveAll", method = RequestMethod.GET,
+      produces = BatchRequisitionStreamer.NDJSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<StreamingResponseBody> streamAll(
+      @RequestParam(value = "id") List<UUID> uuids) {
+
+    XLOGGER.entry(uuids);
+    Profiler profiler = new Profiler("BATCH_STREAM_ALL_REQUISITIONS");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("CHECK_PERMISSIONS");
+    List<UUID> requisitionIds = new ArrayList<>();
+    List<RequisitionErrorMessage> errors = new ArrayList<>();
+
+    for (UUID uuid : new LinkedHashSet<>(uuids)) {
+      requisitionRepository.findVersionById(uuid).ifPresent(version -> {
+        ValidationResult accessCheck = permissionService.canViewRequisition(version);
+
+        if (accessCheck.hasErrors()) {
+          errors.add(new RequisitionErrorMessage(uuid,
+              localizeMessage(accessCheck.getError().getMessage())));
+        } else {
+          requisitionIds.add(uuid);
+        }
+      });
+    }
+
+    profiler.start("BUILD_RESPONSE");
+    ResponseEntity<StreamingResponseBody> response = ResponseEntity
+        .status(errors.isEmpty() ? HttpStatus.OK : HttpStatus.BAD_REQUEST)
+        .contentType(BatchRequisitionStreamer.NDJSON)
+        .body(batchRequisitionStreamer.stream(requisitionIds, errors));
+
+    profiler.stop().log();
+    XLOGGER.exit(requisitionIds);
+    return response;
+  }
+
   /**
    * Attempts to approve requisitions with the provided UUIDs.
    */
@@ -181,7 +227,9 @@ public class BatchRequisitionController extends BaseRequisitionController {
     List<Requisition> requisitions = requisitionRepository.readDistinctByIdIn(uuids);
 
     profiler.start("GET_USER_PERMISSION_STRINGS");
-    List<String> permissionStrings = userReferenceDataService.getPermissionStrings(user.getId());
+    PermissionStringIndex permissionStrings = permissionService
+        .getPermissionStrings(user.getId())
+        .getIndex();
 
     Map<UUID, SupervisoryNodeDto> supervisoryNodeMap = findSupervisoryNodes(requisitions, profiler);
     Map<VersionIdentityDto, OrderableDto> orderables = findOrderables(
@@ -232,6 +280,9 @@ public class BatchRequisitionController extends BaseRequisitionController {
     Profiler profiler = new Profiler("BATCH_SAVE_ALL_REQUISITIONS");
     profiler.setLogger(XLOGGER);
 
+    profiler.start("GET_USER");
+    UserDto user = authenticationHelper.getCurrentUser();
+
     profiler.start("FIND_REQUISITIONS");
     Set<UUID> uuids = dtos
         .stream()
@@ -243,46 +294,52 @@ public class BatchRequisitionController extends BaseRequisitionController {
         .stream()
         .collect(Collectors.toMap(BaseEntity::getId, Function.identity()));
 
-    Map<UUID, ProcessingPeriodDto> periods = findPeriods(requisitions.values(), profiler);
-
-    profiler.start("RETRIEVE_ORDERABLES");
-    Set<VersionEntityReference> orderableIdentities = requisitions
-        .values()
-        .stream()
-        .map(Requisition::getRequisitionLineItems)
-        .flatMap(Collection::stream)
-        .map(RequisitionLineItem::getOrderable)
-        .collect(Collectors.toSet());
-
-    Map<VersionIdentityDto, OrderableDto> orderables = orderableReferenceDataService
-        .findByIdentities(orderableIdentities)
-        .stream()
-        .collect(Collectors.toMap(OrderableDto::getIdentity, Function.identity()));
+    profiler.start("GET_USER_PERMISSION_STRINGS");
+    PermissionStringIndex permissionStrings = permissionService
+        .getPermissionStrings(user.getId())
+        .getIndex();
+
+    List<Requisition> requisitionList = Lists.newArrayList(requisitions.values());
+    Map<UUID, FacilityDto> facilities = findFacilities(requisitionList, profiler);
+    Map<UUID, ProgramDto> programs = findPrograms(requisitionList, profiler);
+    Map<UUID, ProcessingPeriodDto> periods = findPeriods(requisitionList, profiler);
+    Map<VersionIdentityDto, OrderableDto> orderables = findOrderables(
+        profiler, () -> getAllOrderableIdentities(requisitionList));
+    Map<VersionIdentityDto, ApprovedProductDto> approvedProducts = findApprovedProducts(
+        () -> getAllApprovedProductIdentities(requisitionList), profiler);
 
     RequisitionsProcessingStatusDto processingStatus = new RequisitionsProcessingStatusDto();
 
     profiler.start("FIND_VALIDATE_AND_SAVE_REQUISITIONS");
     for (ApproveRequisitionDto dto : dtos) {
       profiler.start("VALIDATE_AND_CHECK_SAVE_REQUISITION");
-      ValidationResult result = requisitionService.validateCanSaveRequisition(dto.getId());
-      if (!addValidationErrors(processingStatus, result, dto.getId())) {
-        Requisition requisitionToUpdate = requisitions.get(dto.getId());
+      Requisition requisitionToUpdate = requisitions.get(dto.getId());
+      ValidationResult result = null == requisitionToUpdate
+          ? ValidationResult.notFound(MessageKeys.ERROR_REQUISITION_NOT_FOUND, dto.getId())
+          : requisitionService.validateCanSaveRequisition(requisitionToUpdate, permissionStrings);
 
+      if (!addValidationErrors(processingStatus, result, dto.getId())) {
+        FacilityDto facility = facilities.get(requisitionToUpdate.getFacilityId());
+        ProgramDto program = programs.get(requisitionToUpdate.getProgramId());
         ProcessingPeriodDto period = periods.get(requisitionToUpdate.getProcessingPeriodId());
 
         profiler.start("BUILD_REQUISITION");
-        Requisition requisition = buildRequisition(dto, requisitionToUpdate, period, orderables);
+        Requisition requisition = buildRequisition(dto, requisitionToUpdate,
+            requisitionDtoBuilder.build(requisitionToUpdate, orderables, approvedProducts,
+                facility, program, period),
+            period, orderables);
 
         profiler.start("VALIDATE_REQUISITION_TIMESTAMPS");
         result = requisitionVersionValidator
             .validateRequisitionTimestamps(requisition.getModifiedDate(), requisitionToUpdate);
         result
             .addValidationResult(validateRequisitionCanBeUpdated(requisitionToUpdate, requisition,
-                orderables));
+                program, orderables));
 
         if (!addValidationErrors(processingStatus, result, dto.getId())) {
-          profiler.start("DO_UPDATE");
-          RequisitionDto requisitionDto = doUpdate(requisitionToUpdate, requisition).getResource();
+          RequisitionDto requisitionDto = doUpdate(new UpdateParams(requisitionToUpdate,
+              requisition, orderables, facility, program, period, approvedProducts), profiler)
+              .getResource();
 
           profiler.start("ADD_PROCESSED_REQUISITION");
           processingStatus.addProcessedRequisition(
@@ -356,10 +413,7 @@ public class BatchRequisitionController extends BaseRequisitionController {
         .map(Requisition::getSupervisoryNodeId)
         .collect(toList());
 
-    return supervisoryNodeService
-        .findByIds(supervisoryNodeIds)
-        .stream()
-        .collect(toMap(SupervisoryNodeDto::getId, supervisoryNode -> supervisoryNode));
+    return supervisoryNodeTopology.getSupervisoryNodes(supervisoryNodeIds);
   }
 
   private Map<Pair<UUID, UUID>, List<SupplyLineDto>> findSupplyLines(
@@ -372,13 +426,13 @@ public class BatchRequisitionController extends BaseRequisitionController {
     Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLinesMap = new HashMap<>();
     for (Pair<UUID, UUID> pair : programsFacilities) {
       supplyLinesMap.put(pair,
-          supplyLineReferenceDataService.search(pair.getLeft(), pair.getRight()));
+          supervisoryNodeTopology.getSupplyLines(pair.getLeft(), pair.getRight()));
     }
     return supplyLinesMap;
   }
 
   private void validateAndApprove(Requisition requisition,
-      RequisitionsProcessingStatusDto processingStatus, List<String> permissionStrings,
+      RequisitionsProcessingStatusDto processingStatus, PermissionStringIndex permissionStrings,
       Map<UUID, FacilityDto> facilities, Map<UUID, ProcessingPeriodDto> periods,
       ApproveParams approveParams, Map<VersionIdentityDto, ApprovedProductDto> approvedProducts) {
     Profiler profiler = getProfiler("VALIDATE_AND_APPROVE_REQUISITION");
@@ -406,11 +460,9 @@ public class BatchRequisitionController extends BaseRequisitionController {
   }
 
   private ValidationResult validateCanApproveRequisition(Requisition requisition,
-      List<String> permissionStrings) {
-    String permission = String.format("%s|%s|%s", PermissionService.REQUISITION_APPROVE,
-        requisition.getFacilityId(), requisition.getProgramId());
-
-    if (!permissionStrings.contains(permission)) {
+      PermissionStringIndex permissionStrings) {
+    if (!permissionStrings.hasPermission(PermissionService.REQUISITION_APPROVE,
+        requisition.getFacilityId(), requisition.getProgramId())) {
       return ValidationResult
           .noPermission(ERROR_NO_FOLLOWING_PERMISSION, PermissionService.REQUISITION_APPROVE);
     }
@@ -441,14 +493,14 @@ public class BatchRequisitionController extends BaseRequisitionController {
   }
 
   private Requisition buildRequisition(ApproveRequisitionDto dto, Requisition requisitionToUpdate,
-      ProcessingPeriodDto processingPeriodDto, Map<VersionIdentityDto, OrderableDto> orderables) {
+      RequisitionDto requisitionToUpdateDto, ProcessingPeriodDto processingPeriodDto,
+      Map<VersionIdentityDto, OrderableDto> orderables) {
     Map<VersionEntityReference, ApprovedProductReference> productReferences = requisitionToUpdate
         .getAvailableProducts()
         .stream()
         .collect(Collectors.toMap(ApprovedProductReference::getOrderable, Function.identity()));
 
-    Requisition requisition = RequisitionBuilder.newRequisition(
-        requisitionDtoBuilder.build(requisitionToUpdate),
+    Requisition requisition = RequisitionBuilder.newRequisition(requisitionToUpdateDto,
         requisitionToUpdate.getTemplate(), requisitionToUpdate.getProgramId(),
         processingPeriodDto, requisitionToUpdate.getStatus(), orderables, productReferences);
     requisition.setTemplate(requisitionToUpdate.getTemplate());
@@ -458,12 +510,11 @@ public class BatchRequisitionController extends BaseRequisitionController {
 
   private Requisition updateOne(ApproveRequisitionDto dto, Requisition requisition) {
     for (ApproveRequisitionLineItemDto line : dto.getRequisitionLineItems()) {
-      requisition
-          .getRequisitionLineItems()
-          .stream()
-          .filter(original -> Objects.equals(original.getId(), line.getId()))
-          .findFirst()
-          .ifPresent(original -> original.setApprovedQuantity(line.getApprovedQuantity()));
+      RequisitionLineItem original = requisition.findLineById(line.getId());
+
+      if (null != original) {
+        original.setApprovedQuantity(line.getApprovedQuantity());
+      }
     }
     requisition.setModifiedDate(dto.getModifiedDate());
     setNullForCalculatedFields(requisition);
@@ -562,6 +613,36 @@ public class BatchRequisitionController extends BaseRequisitionController {
         .collect(Collectors.toMap(BaseDto::getId, Function.identity()));
   }
 
+  private Map<UUID, ProgramDto> findPrograms(List<Requisition> requisitions, Profiler profiler) {
+    profiler.start("FIND_ALL_PROGRAMS_FOR_REQUISITIONS");
+    Set<UUID> programIds = requisitions
+        .stream()
+        .map(Requisition::getProgramId)
+        .collect(Collectors.toSet());
+
+    return programReferenceDataService
+        .search(programIds)
+        .stream()
+        .collect(Collectors.toMap(BaseDto::getId, Function.identity()));
+  }
+
+  private Set<VersionEntityReference> getAllOrderableIdentities(List<Requisition> requisitions) {
+    return requisitions
+        .stream()
+        .map(Requisition::getAllOrderables)
+        .flatMap(Collection::stream)
+        .collect(Collectors.toSet());
+  }
+
+  private Set<VersionEntityReference> getAllApprovedProductIdentities(
+      List<Requisition> requisitions) {
+    return requisitions
+        .stream()
+        .map(Requisition::getAllApprovedProductIdentities)
+        .flatMap(Collection::stream)
+        .collect(Collectors.toSet());
+  }
+
   private Map<VersionIdentityDto, OrderableDto> getOrderables(List<Requisition> requisitions) {
     Set<VersionEntityReference> orderableIds = requisitions
         .stream()
@@ -0,0 +1,231 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.apache.commons.lang3.BooleanUtils.isFalse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
+import org.openlmis.requisition.domain.requisition.VersionEntityReference;
+import org.openlmis.requisition.dto.ApproveRequisitionDto;
+import org.openlmis.requisition.dto.ApproveRequisitionLineItemDto;
+import org.openlmis.requisition.dto.ApprovedProductDto;
+import org.openlmis.requisition.dto.FacilityDto;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.openlmis.requisition.dto.ProcessingPeriodDto;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.dto.RequisitionErrorMessage;
+import org.openlmis.requisition.dto.VersionIdentityDto;
+import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
+import org.openlmis.requisition.service.referencedata.FacilityTypeApprovedProductReferenceDataService;
+import org.openlmis.requisition.service.referencedata.OrderableReferenceDataService;
+import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Writes requisitions retrieved in a batch as newline delimited JSON. Each requisition is loaded,
+ * converted and written on its own and is detached right after that, so only one requisition is
+ * kept in memory at a time. Reference data is cached for the whole batch because it is shared
+ * between requisitions.
+ */
+@Service
+class BatchRequisitionStreamer {
+  static final String NDJSON_VALUE = "application/x-ndjson";
+  static final MediaType NDJSON = MediaType.valueOf(NDJSON_VALUE);
+
+  static final String REQUISITION = "requisition";
+  static final String REQUISITION_ERRORS = "requisitionErrors";
+  static final String SKIPPED_PRODUCTS = "skippedProducts";
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(
+      BatchRequisitionStreamer.class);
+
+  @Autowired
+  private RequisitionRepository requisitionRepository;
+
+  @Autowired
+  private RequisitionDtoBuilder requisitionDtoBuilder;
+
+  @Autowired
+  private FacilityReferenceDataService facilityReferenceDataService;
+
+  @Autowired
+  private PeriodReferenceDataService periodReferenceDataService;
+
+  @Autowired
+  private OrderableReferenceDataService orderableReferenceDataService;
+
+  @Autowired
+  private FacilityTypeApprovedProductReferenceDataService
+      facilityTypeApprovedProductReferenceDataService;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * Creates a response body that writes a {@value #REQUISITION} record for each of the given
+   * requisitions, in the given order. The last record contains the given errors and ids of
+   * products that were skipped in all written requisitions; clients that want the same result as
+   * the non-streaming retrieval should remove those products from the requisitions.
+   *
+   * @param requisitionIds ids of requisitions that the user is allowed to view.
+   * @param errors         errors to write in the last record.
+   * @return response body that writes the records.
+   */
+  StreamingResponseBody stream(Collection<UUID> requisitionIds,
+      Collection<RequisitionErrorMessage> errors) {
+    return outputStream -> new Batch().write(requisitionIds, errors, outputStream);
+  }
+
+  private final class Batch {
+    private final ObjectWriter writer = objectMapper
+        .writer()
+        .without(SerializationFeature.INDENT_OUTPUT);
+    private final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+    private final Map<UUID, FacilityDto> facilities = new HashMap<>();
+    private final Map<UUID, ProcessingPeriodDto> periods = new HashMap<>();
+    private final Map<VersionIdentityDto, OrderableDto> orderables = new HashMap<>();
+    private final Map<VersionIdentityDto, ApprovedProductDto> approvedProducts = new HashMap<>();
+
+    private final Set<UUID> products = new HashSet<>();
+    private final Set<UUID> notSkippedProducts = new HashSet<>();
+
+    Batch() {
+      transaction.setReadOnly(true);
+    }
+
+    void write(Collection<UUID> requisitionIds, Collection<RequisitionErrorMessage> errors,
+        OutputStream outputStream) throws IOException {
+      Profiler profiler = new Profiler("BATCH_STREAM_REQUISITIONS");
+      profiler.setLogger(XLOGGER);
+
+      for (UUID requisitionId : requisitionIds) {
+        profiler.start("BUILD_DTO");
+        ApproveRequisitionDto requisition = transaction.execute(status -> build(requisitionId));
+
+        if (null != requisition) {
+          profiler.start("WRITE_RECORD");
+          trackSkippedProducts(requisition);
+          writeRecord(Collections.singletonMap(REQUISITION, requisition), outputStream);
+        }
+      }
+
+      profiler.start("WRITE_LAST_RECORD");
+      products.removeAll(notSkippedProducts);
+
+      Map<String, Object> last = new LinkedHashMap<>();
+      last.put(REQUISITION_ERRORS, errors);
+      last.put(SKIPPED_PRODUCTS, products);
+      writeRecord(last, outputStream);
+
+      profiler.stop().log();
+    }
+
+    private ApproveRequisitionDto build(UUID requisitionId) {
+      Requisition requisition = requisitionRepository.findById(requisitionId).orElse(null);
+
+      if (null == requisition) {
+        // removed after the permission check
+        return null;
+      }
+
+      FacilityDto facility = facilities.computeIfAbsent(requisition.getFacilityId(),
+          facilityReferenceDataService::findOne);
+      ProcessingPeriodDto period = periods.computeIfAbsent(
+          requisition.getProcessingPeriodId(), periodReferenceDataService::findOne);
+
+      fetchMissing(orderables, requisition, RequisitionLineItem::getOrderable,
+          orderableReferenceDataService::findByIdentities, OrderableDto::getIdentity);
+      fetchMissing(approvedProducts, requisition,
+          RequisitionLineItem::getFacilityTypeApprovedProduct,
+          facilityTypeApprovedProductReferenceDataService::findByIdentities,
+          ApprovedProductDto::getIdentity);
+
+      RequisitionDto requisitionDto = requisitionDtoBuilder
+          .buildBatch(requisition, facility, orderables, approvedProducts, period);
+      ApproveRequisitionDto result = new ApproveRequisitionDto(requisitionDto,
+          requisition.getProgramId(), orderables);
+
+      requisitionRepository.detachAll();
+
+      return result;
+    }
+
+    private <T> void fetchMissing(Map<VersionIdentityDto, T> cache, Requisition requisition,
+        Function<RequisitionLineItem, VersionEntityReference> reference,
+        Function<Set<VersionEntityReference>, List<T>> finder,
+        Function<T, VersionIdentityDto> identity) {
+      Set<VersionEntityReference> missing = requisition
+          .getRequisitionLineItems()
+          .stream()
+          .map(reference)
+          .filter(item -> !cache.containsKey(new VersionIdentityDto(item)))
+          .collect(Collectors.toSet());
+
+      if (!missing.isEmpty()) {
+        finder
+            .apply(missing)
+            .forEach(item -> cache.put(identity.apply(item), item));
+      }
+    }
+
+    private void trackSkippedProducts(ApproveRequisitionDto requisition) {
+      for (ApproveRequisitionLineItemDto line : requisition.getRequisitionLineItems()) {
+        UUID productId = line.getOrderable().getId();
+        products.add(productId);
+
+        if (isFalse(line.getSkipped())) {
+          notSkippedProducts.add(productId);
+        }
+      }
+    }
+
+    private void writeRecord(Object record, OutputStream outputStream) throws IOException {
+      outputStream.write(writer.writeValueAsBytes(record));
+      outputStream.write('\n');
+      outputStream.flush();
+    }
+  }
+}
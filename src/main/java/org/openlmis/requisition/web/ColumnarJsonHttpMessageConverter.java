@@ -0,0 +1,258 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeCreator;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Reads and writes JSON documents in which requisition line items are sent column by column.
+ * Each line item field name is written once, followed by the array of its values, instead of
+ * being repeated for every line item. The rest of the document is plain, not indented JSON.
+ *
+ * <p>The converter is only used when a client explicitly asks for the
+ * {@link #COLUMNAR_JSON_VALUE} media type, so the default JSON representation stays unchanged.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public class ColumnarJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  public static final String COLUMNAR_JSON_VALUE = "application/vnd.openlmis.columnar+json";
+  public static final MediaType COLUMNAR_JSON = MediaType.valueOf(COLUMNAR_JSON_VALUE);
+
+  static final String LINE_ITEMS = "requisitionLineItems";
+  static final String COUNT = "count";
+  static final String COLUMNS = "columns";
+
+  /**
+   * Creates new converter based on a copy of the given object mapper with indentation disabled.
+   */
+  public ColumnarJsonHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT));
+    setSupportedMediaTypes(Collections.singletonList(COLUMNAR_JSON));
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return isColumnar(mediaType) && super.canRead(type, contextClass, mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return isColumnar(mediaType) && super.canWrite(clazz, mediaType);
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+      throws IOException {
+    return readColumnar(getJavaType(type, contextClass), inputMessage);
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+      throws IOException {
+    return readColumnar(getJavaType(clazz, null), inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+      throws IOException {
+    JsonNode document;
+
+    try {
+      document = getObjectMapper().valueToTree(object);
+    } catch (IllegalArgumentException ex) {
+      throw new HttpMessageNotWritableException("Could not write JSON: " + ex.getMessage(), ex);
+    }
+
+    super.writeInternal(toColumns(document), null, outputMessage);
+  }
+
+  /**
+   * Replaces every array of requisition line items in the given document with the columnar
+   * representation of those line items.
+   */
+  static JsonNode toColumns(JsonNode document) {
+    if (document.isArray()) {
+      document.forEach(ColumnarJsonHttpMessageConverter::toColumns);
+    } else if (document.isObject()) {
+      ObjectNode object = (ObjectNode) document;
+      Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+
+        if (LINE_ITEMS.equals(field.getKey()) && field.getValue().isArray()) {
+          field.setValue(toColumnarLineItems((ArrayNode) field.getValue(), object));
+        } else {
+          toColumns(field.getValue());
+        }
+      }
+    }
+
+    return document;
+  }
+
+  /**
+   * Replaces every columnar representation of requisition line items in the given document with
+   * the array of line items.
+   */
+  static JsonNode fromColumns(JsonNode document) {
+    if (document.isArray()) {
+      document.forEach(ColumnarJsonHttpMessageConverter::fromColumns);
+    } else if (document.isObject()) {
+      ObjectNode object = (ObjectNode) document;
+      Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+
+        if (LINE_ITEMS.equals(field.getKey()) && field.getValue().isObject()) {
+          field.setValue(fromColumnarLineItems((ObjectNode) field.getValue(), object));
+        } else {
+          fromColumns(field.getValue());
+        }
+      }
+    }
+
+    return document;
+  }
+
+  private static ObjectNode toColumnarLineItems(ArrayNode lineItems,
+      JsonNodeCreator factory) {
+    Map<String, ArrayNode> columns = new LinkedHashMap<>();
+    int count = 0;
+
+    for (JsonNode lineItem : lineItems) {
+      Iterator<Map.Entry<String, JsonNode>> fields = lineItem.fields();
+
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        ArrayNode column = columns.get(field.getKey());
+
+        if (null == column) {
+          // a field that was not present in earlier line items
+          column = fill(factory.arrayNode(), count);
+          columns.put(field.getKey(), column);
+        }
+
+        column.add(field.getValue());
+      }
+
+      ++count;
+      for (ArrayNode column : columns.values()) {
+        fill(column, count);
+      }
+    }
+
+    ObjectNode result = factory.objectNode();
+    result.put(COUNT, count);
+    result.putObject(COLUMNS).setAll(columns);
+
+    return result;
+  }
+
+  private static ArrayNode fromColumnarLineItems(ObjectNode lineItems,
+      JsonNodeCreator factory) {
+    JsonNode count = lineItems.path(COUNT);
+    JsonNode columns = lineItems.path(COLUMNS);
+
+    if (!count.canConvertToInt() || count.intValue() < 0 || !columns.isObject()) {
+      throw new IllegalArgumentException(
+          "Columnar line items require a non-negative count and an object of columns");
+    }
+
+    ArrayNode result = factory.arrayNode();
+    for (int i = 0; i < count.intValue(); ++i) {
+      result.addObject();
+    }
+
+    Iterator<Map.Entry<String, JsonNode>> fields = columns.fields();
+
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> column = fields.next();
+
+      if (!column.getValue().isArray() || column.getValue().size() != count.intValue()) {
+        throw new IllegalArgumentException(
+            "Column " + column.getKey() + " must be an array with " + count + " values");
+      }
+
+      for (int i = 0; i < count.intValue(); ++i) {
+        JsonNode value = column.getValue().get(i);
+
+        // null marks a field that is missing in the given line item
+        if (!value.isNull()) {
+          ((ObjectNode) result.get(i)).set(column.getKey(), value);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private static ArrayNode fill(ArrayNode column, int size) {
+    while (column.size() < size) {
+      column.addNull();
+    }
+
+    return column;
+  }
+
+  private static boolean isColumnar(MediaType mediaType) {
+    // a missing or wildcard media type is resolved to plain JSON by the default converter
+    return null != mediaType && COLUMNAR_JSON.equalsTypeAndSubtype(mediaType);
+  }
+
+  private Object readColumnar(JavaType javaType, HttpInputMessage inputMessage)
+      throws IOException {
+    try {
+      JsonNode document = getObjectMapper().readTree(inputMessage.getBody());
+
+      if (null == document) {
+        throw new HttpMessageNotReadableException("No content to read", inputMessage);
+      }
+
+      return getObjectMapper().readerFor(javaType).readValue(fromColumns(document));
+    } catch (InvalidDefinitionException ex) {
+      throw new HttpMessageConversionException("Type definition error: " + ex.getType(), ex);
+    } catch (JsonProcessingException ex) {
+      throw new HttpMessageNotReadableException(
+          "JSON parse error: " + ex.getOriginalMessage(), ex, inputMessage);
+    } catch (IllegalArgumentException ex) {
+      throw new HttpMessageNotReadableException(
+          "Columnar JSON error: " + ex.getMessage(), ex, inputMessage);
+    }
+  }
+}
@@ -17,12 +17,14 @@ package org.openlmis.requisition.web;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
 
 @Getter
 @Setter
 public class ETagResource<T> {
 
   private static final String WEAK_E_TAG_PREFIX = "W/";
+  private static final String ANY_E_TAG = "*";
 
   private T resource;
   private String etag;
@@ -61,4 +63,34 @@ public class ETagResource<T> {
       return Long.valueOf(etag);
     }
   }
+
+  /**
+   * Checks if the value of the If-None-Match header contains an eTag of the passed version.
+   * Supports both weak and strong eTags, with or without quotes, and the wildcard.
+   *
+   * @param ifNoneMatch value of the If-None-Match header, may be null
+   * @param version version of the resource
+   * @return true if the client already has the passed version of the resource
+   */
+  public static boolean matchesVersion(String ifNoneMatch, Long version) {
+    if (StringUtils.isBlank(ifNoneMatch) || null == version) {
+      return false;
+    }
+
+    for (String etag : StringUtils.split(ifNoneMatch, ',')) {
+      String value = etag.trim();
+
+      if (ANY_E_TAG.equals(value)) {
+        return true;
+      }
+
+      value = StringUtils.strip(StringUtils.removeStart(value, WEAK_E_TAG_PREFIX), "\"");
+
+      if (version.toString().equals(value)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
 }
@@ -15,25 +15,34 @@
 
 package org.openlmis.requisition.web;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.UUID;
 import javax.servlet.http.HttpServletRequest;
+import net.sf.jasperreports.engine.JRException;
 import org.openlmis.requisition.domain.JasperTemplate;
 import org.openlmis.requisition.dto.JasperTemplateDto;
+import org.openlmis.requisition.dto.ReportJobDto;
 import org.openlmis.requisition.exception.ContentNotFoundMessageException;
 import org.openlmis.requisition.exception.JasperReportViewException;
 import org.openlmis.requisition.exception.ReportingException;
 import org.openlmis.requisition.i18n.MessageKeys;
 import org.openlmis.requisition.repository.JasperTemplateRepository;
+import org.openlmis.requisition.service.JasperExporter;
 import org.openlmis.requisition.service.JasperReportsViewService;
 import org.openlmis.requisition.service.JasperTemplateService;
 import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.ReportJob;
+import org.openlmis.requisition.service.ReportJobService;
+import org.openlmis.requisition.utils.AuthenticationHelper;
 import org.openlmis.requisition.utils.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -46,6 +55,7 @@ import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Controller
 @Transactional
@@ -71,6 +81,12 @@ public class JasperTemplateController extends BaseController {
   @Autowired
   private PermissionService permissionService;
 
+  @Autowired
+  private ReportJobService reportJobService;
+
+  @Autowired
+  private AuthenticationHelper authenticationHelper;
+
   @Value("${dateTimeFormat}")
   private String dateTimeFormat;
 
@@ -164,8 +180,9 @@ public class JasperTemplateController extends BaseController {
    * @return the generated report
    */
   @RequestMapping(value = "/{id}/{format}", method = RequestMethod.GET)
+  @Transactional(readOnly = true)
   @ResponseBody
-  public ResponseEntity<byte[]> generateReport(HttpServletRequest request,
+  public ResponseEntity<StreamingResponseBody> generateReport(HttpServletRequest request,
       @PathVariable("id") UUID templateId,
       @PathVariable("format") String format) throws JasperReportViewException {
     permissionService.canViewReports().throwExceptionIfHasErrors();
@@ -174,39 +191,96 @@ public class JasperTemplateController extends BaseController {
         .orElseThrow(() -> new ContentNotFoundMessageException(new Message(
             MessageKeys.ERROR_JASPER_TEMPLATE_NOT_FOUND, templateId)));
 
+    Map<String, Object> map = getReportParameters(request, template, format);
+    JasperExporter exporter = fillReport(template, map);
+
+    return ResponseEntity
+        .ok()
+        .contentType(getMediaType(format))
+        .header(HttpHeaders.CONTENT_DISPOSITION, getContentDisposition(template.getName(), format))
+        .body(outputStream -> export(exporter, outputStream));
+  }
+
+  /**
+   * Submits a job that generates a report based on the template, the format and the request
+   * parameters in the background. The job status can be checked and the generated report can be
+   * downloaded with the /api/reports/jobs endpoints.
+   *
+   * @param request    request (to get the request parameters)
+   * @param templateId report template ID
+   * @param format     report format to generate, default is PDF
+   * @return the submitted job
+   */
+  @RequestMapping(value = "/{id}/{format}/jobs", method = RequestMethod.POST)
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  @ResponseBody
+  public ReportJobDto submitReportJob(HttpServletRequest request,
+      @PathVariable("id") UUID templateId,
+      @PathVariable("format") String format) {
+    permissionService.canViewReports().throwExceptionIfHasErrors();
+
+    JasperTemplate template = jasperTemplateRepository.findById(templateId)
+        .orElseThrow(() -> new ContentNotFoundMessageException(new Message(
+            MessageKeys.ERROR_JASPER_TEMPLATE_NOT_FOUND, templateId)));
+
+    Map<String, Object> map = getReportParameters(request, template, format);
+    UUID userId = authenticationHelper.getCurrentUser().getId();
+
+    ReportJob job = reportJobService.submit(userId, template, format, map,
+        outputStream -> export(fillReport(template, map), outputStream));
+
+    return ReportJobDto.newInstance(job);
+  }
+
+  static MediaType getMediaType(String format) {
+    if ("csv".equals(format)) {
+      return new MediaType("text", "csv", StandardCharsets.UTF_8);
+    } else if ("xls".equals(format)) {
+      return new MediaType("application", "vnd.ms-excel", StandardCharsets.UTF_8);
+    } else if ("html".equals(format)) {
+      return new MediaType("text", "html", StandardCharsets.UTF_8);
+    } else {
+      return new MediaType("application", "pdf", StandardCharsets.UTF_8);
+    }
+  }
+
+  static String getContentDisposition(String templateName, String format) {
+    String fileName = templateName.replaceAll("\\s+", "_");
+    return "inline; filename=" + fileName + "." + format;
+  }
+
+  private Map<String, Object> getReportParameters(HttpServletRequest request,
+      JasperTemplate template, String format) {
     Map<String, Object> map = jasperTemplateService
         .mapRequestParametersToTemplate(request, template);
     map.put("format", format);
     map.put("dateTimeFormat", dateTimeFormat);
     map.put("timeZoneId", timeZoneId);
 
-    byte[] reportData;
-    
-    if (TIMELINESS_REPORT.equals(template.getType())) {
-      reportData = jasperReportsViewService.generateTimelinessReport(template, map);
-    } else if (REPORTING_RATE_REPORT.equals(template.getType())) {
+    if (REPORTING_RATE_REPORT.equals(template.getType())) {
       map.putIfAbsent("DueDays", String.valueOf(DUE_DAYS));
-      reportData = jasperReportsViewService.generateReportingRateReport(template, map);
-    } else {
-      reportData = jasperReportsViewService.generateReport(template, map);
     }
 
-    MediaType mediaType;
-    if ("csv".equals(format)) {
-      mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
-    } else if ("xls".equals(format)) {
-      mediaType = new MediaType("application", "vnd.ms-excel", StandardCharsets.UTF_8);
-    } else if ("html".equals(format)) {
-      mediaType = new MediaType("text", "html", StandardCharsets.UTF_8);
+    return map;
+  }
+
+  private JasperExporter fillReport(JasperTemplate template, Map<String, Object> map)
+      throws JasperReportViewException {
+    if (TIMELINESS_REPORT.equals(template.getType())) {
+      return jasperReportsViewService.fillTimelinessReport(template, map);
+    } else if (REPORTING_RATE_REPORT.equals(template.getType())) {
+      return jasperReportsViewService.fillReportingRateReport(template, map);
     } else {
-      mediaType = new MediaType("application", "pdf", StandardCharsets.UTF_8);
+      return jasperReportsViewService.fillReport(template, map);
     }
-    String fileName = template.getName().replaceAll("\\s+", "_");
+  }
 
-    return ResponseEntity
-        .ok()
-        .contentType(mediaType)
-        .header("Content-Disposition", "inline; filename=" + fileName + "." + format)
-        .body(reportData);
+  private static void export(JasperExporter exporter, OutputStream outputStream)
+      throws IOException {
+    try {
+      exporter.exportReport(outputStream);
+    } catch (JRException ex) {
+      throw new IOException(ex.getMessage(), ex);
+    }
   }
 }
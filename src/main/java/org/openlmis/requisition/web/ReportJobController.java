@@ -0,0 +1,95 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import java.util.UUID;
+import org.openlmis.requisition.dto.ReportJobDto;
+import org.openlmis.requisition.exception.ValidationMessageException;
+import org.openlmis.requisition.i18n.MessageKeys;
+import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.ReportJob;
+import org.openlmis.requisition.service.ReportJobService;
+import org.openlmis.requisition.utils.AuthenticationHelper;
+import org.openlmis.requisition.utils.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Controller
+public class ReportJobController extends BaseController {
+
+  @Autowired
+  private ReportJobService reportJobService;
+
+  @Autowired
+  private PermissionService permissionService;
+
+  @Autowired
+  private AuthenticationHelper authenticationHelper;
+
+  /**
+   * Get status of the report job.
+   *
+   * @param jobId UUID of the report job
+   * @return the report job
+   */
+  @RequestMapping(value = "/reports/jobs/{id}", method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public ReportJobDto getReportJob(@PathVariable("id") UUID jobId) {
+    return ReportJobDto.newInstance(findJob(jobId));
+  }
+
+  /**
+   * Download the report generated by the report job. The report is streamed from the database.
+   *
+   * @param jobId UUID of the report job
+   * @return the generated report
+   */
+  @RequestMapping(value = "/reports/jobs/{id}/result", method = RequestMethod.GET)
+  @ResponseBody
+  public ResponseEntity<StreamingResponseBody> getReportJobResult(@PathVariable("id") UUID jobId) {
+    ReportJob job = findJob(jobId);
+
+    if (job.getStatus() != ReportJob.Status.COMPLETED) {
+      throw new ValidationMessageException(new Message(
+          MessageKeys.ERROR_REPORT_JOB_NOT_COMPLETED, jobId, job.getStatus()));
+    }
+
+    return ResponseEntity
+        .ok()
+        .contentType(JasperTemplateController.getMediaType(job.getFormat()))
+        .header(HttpHeaders.CONTENT_DISPOSITION, JasperTemplateController
+            .getContentDisposition(job.getTemplateName(), job.getFormat()))
+        .body(outputStream -> reportJobService.writeResult(job, outputStream));
+  }
+
+  private ReportJob findJob(UUID jobId) {
+    permissionService.canViewReports().throwExceptionIfHasErrors();
+    UUID userId = authenticationHelper.getCurrentUser().getId();
+
+    return reportJobService.getJob(jobId, userId);
+  }
+
+}
@@ -15,6 +15,7 @@
 
 package org.openlmis.requisition.web;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -45,7 +46,6 @@ import org.openlmis.requisition.i18n.MessageKeys;
 import org.openlmis.requisition.repository.custom.DefaultRequisitionSearchParams;
 import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
 import org.openlmis.requisition.service.RequisitionStatusNotifier;
-import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
 import org.openlmis.requisition.utils.Message;
 import org.openlmis.requisition.utils.Pagination;
 import org.slf4j.profiler.Profiler;
@@ -80,9 +80,6 @@ public class RequisitionController extends BaseRequisitionController {
   @Autowired
   private RequisitionStatusNotifier requisitionStatusNotifier;
 
-  @Autowired
-  private SupervisoryNodeReferenceDataService supervisoryNodeService;
-
   /**
    * Allows creating new requisitions.
    *
@@ -279,11 +276,16 @@ public class RequisitionController extends BaseRequisitionController {
    * @return Requisition.
    */
   @GetMapping(RESOURCE_URL + "/{id}")
-  @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public RequisitionDto getRequisition(@PathVariable("id") UUID requisitionId,
-      HttpServletResponse response) {
+      HttpServletRequest request, HttpServletResponse response) throws IOException {
     Profiler profiler = getProfiler("GET_REQUISITION", requisitionId);
+
+    if (writeCachedResponse(requisitionId, RequisitionDto.class, request, response, profiler)) {
+      stopProfiler(profiler);
+      return null;
+    }
+
     Requisition requisition = findRequisition(requisitionId, profiler);
     checkPermission(profiler, () -> permissionService.canViewRequisition(requisition));
     RequisitionDto requisitionDto = buildDto(
@@ -295,6 +297,9 @@ public class RequisitionController extends BaseRequisitionController {
         null
     );
 
+    profiler.start("CACHE_RESPONSE");
+    requisitionResponseCache.save(requisition, RequisitionDto.class, requisitionDto);
+
     stopProfiler(profiler, requisitionDto);
 
     response.setHeader(HttpHeaders.ETAG, ETagResource.buildWeakETag(requisition.getVersion()));
@@ -305,6 +310,7 @@ public class RequisitionController extends BaseRequisitionController {
    * Finds requisitions matching all of the provided parameters.
    */
   @GetMapping(RESOURCE_URL + "/search")
+  @Transactional(readOnly = true)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<BasicRequisitionDto> searchRequisitions(
@@ -461,6 +467,7 @@ public class RequisitionController extends BaseRequisitionController {
    * @return Approved requisitions.
    */
   @GetMapping(RESOURCE_URL + "/requisitionsForApproval")
+  @Transactional(readOnly = true)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<BasicRequisitionDto> requisitionsForApproval(
@@ -489,6 +496,7 @@ public class RequisitionController extends BaseRequisitionController {
    * @return Submitted requisitions.
    */
   @GetMapping(RESOURCE_URL + "/submitted")
+  @Transactional(readOnly = true)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<RequisitionDto> getSubmittedRequisitions(Pageable pageable) {
@@ -575,6 +583,7 @@ public class RequisitionController extends BaseRequisitionController {
    * @return Page of approved requisitions.
    */
   @GetMapping(RESOURCE_URL + "/requisitionsForConvert")
+  @Transactional(readOnly = true)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<RequisitionWithSupplyingDepotsDto> listForConvertToOrder(
@@ -616,8 +625,8 @@ public class RequisitionController extends BaseRequisitionController {
 
   private SupervisoryNodeDto getSupervisoryNodeDto(Profiler profiler, Requisition requisition) {
     profiler.start("GET_SUPERVISORY_NODE");
-    return supervisoryNodeService
-        .findOne(requisition.getSupervisoryNodeId());
+    return supervisoryNodeTopology
+        .getSupervisoryNode(requisition.getSupervisoryNodeId());
   }
 
   private Map<VersionIdentityDto, OrderableDto> findOrderables(Profiler profiler,
@@ -627,7 +636,7 @@ public class RequisitionController extends BaseRequisitionController {
 
   private List<SupplyLineDto> getSupplyLineDtos(Profiler profiler, Requisition requisition) {
     profiler.start("GET_SUPPLY_LINE");
-    return supplyLineReferenceDataService.search(
+    return supervisoryNodeTopology.getSupplyLines(
         requisition.getProgramId(), requisition.getSupervisoryNodeId());
   }
 
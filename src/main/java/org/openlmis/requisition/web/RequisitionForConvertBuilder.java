@@ -22,6 +22,8 @@ import static java.util.stream.Collectors.toSet;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -131,6 +133,56 @@ public class RequisitionForConvertBuilder {
         Objects.requireNonNull(requisitionRepository.findById(requisitionId).orElse(null)));
   }
 
+  /**
+   * Retrieves available supplying depots for given requisitions. Supply lines of all requisitions
+   * are retrieved with a single search.
+   *
+   * @param requisitions requisitions to find facilities for
+   * @return map of requisition ids and lists of facilities
+   */
+  public Map<UUID, List<FacilityDto>> getAvailableSupplyingDepots(
+      Collection<Requisition> requisitions) {
+    Set<UUID> supervisoryNodeIds = requisitions
+        .stream()
+        .map(Requisition::getSupervisoryNodeId)
+        .filter(Objects::nonNull)
+        .collect(toSet());
+
+    Table<UUID, UUID, List<FacilityDto>> programSupervisoryNodeFacilities =
+        HashBasedTable.create();
+
+    if (!supervisoryNodeIds.isEmpty()) {
+      supplyLineReferenceDataService
+          .searchBySupervisoryNodes(supervisoryNodeIds)
+          .forEach(supplyLine -> {
+            UUID programId = supplyLine.getProgram().getId();
+            UUID supervisoryNodeId = supplyLine.getSupervisoryNode().getId();
+
+            if (!programSupervisoryNodeFacilities.contains(programId, supervisoryNodeId)) {
+              programSupervisoryNodeFacilities.put(programId, supervisoryNodeId,
+                  new ArrayList<>());
+            }
+
+            programSupervisoryNodeFacilities
+                .get(programId, supervisoryNodeId)
+                .add(supplyLine.getSupplyingFacility());
+          });
+    }
+
+    Map<UUID, List<FacilityDto>> supplyingDepots = new HashMap<>();
+    for (Requisition requisition : requisitions) {
+      List<FacilityDto> facilities = null == requisition.getSupervisoryNodeId()
+          ? getAvailableSupplyingDepotsForRequisition(requisition)
+          : programSupervisoryNodeFacilities.get(
+              requisition.getProgramId(), requisition.getSupervisoryNodeId());
+
+      supplyingDepots.put(requisition.getId(),
+          null == facilities ? new ArrayList<>() : facilities);
+    }
+
+    return supplyingDepots;
+  }
+
   private List<FacilityDto> getAvailableSupplyingDepotsForRequisition(Requisition requisition) {
     List<SupplyLineDto> supplyLines = supplyLineReferenceDataService
             .search(requisition.getProgramId(), requisition.getSupervisoryNodeId());
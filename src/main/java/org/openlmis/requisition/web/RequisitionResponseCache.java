@@ -0,0 +1,217 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.repository.custom.RequisitionResponsesRedisRepository;
+import org.openlmis.requisition.service.RequisitionSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps serialized response bodies of requisitions that can no longer change, so they can be
+ * sent again without loading the requisition and its reference data. Entries are kept in memory,
+ * bounded by their total size, and can be shared between service instances through Redis. Bodies
+ * of approved requisitions can also be read from their persisted snapshots.
+ */
+@Component
+class RequisitionResponseCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequisitionResponseCache.class);
+
+  private Cache<String, byte[]> bodies;
+
+  @Autowired
+  private RequisitionResponsesRedisRepository requisitionResponsesRedisRepository;
+
+  @Autowired
+  private RequisitionSnapshotService requisitionSnapshotService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Value("${requisitionResponses.cache.maxSizeMegabytes}")
+  private long maxSizeMegabytes;
+
+  @Value("${requisitionResponses.cache.expireAfterWriteMinutes}")
+  private long expireAfterWriteMinutes;
+
+  @Value("${requisitionResponses.cache.redis.enabled}")
+  private boolean redisEnabled;
+
+  /**
+   * Creates the in-memory cache. Entries are evicted when the total size of cached bodies exceeds
+   * the maximum size, and some time after they have been created to make sure that changes in
+   * the reference data included in responses are eventually visible.
+   */
+  @PostConstruct
+  public void init() {
+    bodies = CacheBuilder
+        .newBuilder()
+        .maximumWeight(maxSizeMegabytes * 1024 * 1024)
+        .weigher((String key, byte[] body) -> body.length)
+        .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+        .build();
+  }
+
+  /**
+   * Checks if a cached body could be sent for the given request. Cached bodies are plain JSON,
+   * so they are not used if the client prefers a different representation.
+   */
+  boolean isApplicable(HttpServletRequest request) {
+    if (!isCacheEnabled() && !requisitionSnapshotService.isEnabled()) {
+      return false;
+    }
+
+    String accept = request.getHeader(HttpHeaders.ACCEPT);
+
+    if (isBlank(accept)) {
+      return true;
+    }
+
+    try {
+      List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+      MediaType.sortBySpecificityAndQuality(mediaTypes);
+
+      return !mediaTypes.isEmpty() && mediaTypes.get(0).includes(MediaType.APPLICATION_JSON);
+    } catch (InvalidMediaTypeException exp) {
+      return false;
+    }
+  }
+
+  /**
+   * Finds the cached body of the given version of a requisition.
+   *
+   * @param requisitionId  id of the requisition.
+   * @param version        current version of the requisition.
+   * @param representation class of the DTO that was serialized.
+   * @return the serialized body or null if it is not cached.
+   */
+  byte[] find(UUID requisitionId, Long version, Class<?> representation) {
+    String key = getKey(requisitionId, version, representation);
+    byte[] body = bodies.getIfPresent(key);
+
+    if (null == body && redisEnabled) {
+      body = findSharedBody(key);
+
+      if (null != body) {
+        bodies.put(key, body);
+      }
+    }
+
+    if (null == body && RequisitionDto.class.equals(representation)) {
+      body = findSnapshotBody(requisitionId, version);
+
+      if (null != body) {
+        bodies.put(key, body);
+      }
+    }
+
+    return body;
+  }
+
+  /**
+   * Caches the given body if the requisition is in one of the final statuses: RELEASED,
+   * RELEASED_WITHOUT_ORDER or SKIPPED. A {@link RequisitionDto} of an approved requisition is
+   * also saved as its snapshot. Bodies of other requisitions are ignored.
+   *
+   * @param requisition    requisition whose body should be cached.
+   * @param representation class of the DTO, used to find the body later.
+   * @param body           DTO that is sent for the requisition.
+   */
+  void save(Requisition requisition, Class<?> representation, Object body) {
+    boolean cached = isCacheEnabled() && requisition.getStatus().isFinal();
+    boolean snapshot = requisitionSnapshotService.isEnabled()
+        && RequisitionDto.class.equals(representation)
+        && requisition.getStatus().isApproved();
+
+    if (!cached && !snapshot) {
+      return;
+    }
+
+    byte[] serialized;
+
+    try {
+      serialized = objectMapper.writeValueAsBytes(body);
+    } catch (JsonProcessingException exp) {
+      LOGGER.warn("Unable to serialize requisition {}", requisition.getId(), exp);
+      return;
+    }
+
+    if (cached) {
+      String key = getKey(requisition.getId(), requisition.getVersion(), representation);
+      bodies.put(key, serialized);
+
+      if (redisEnabled) {
+        saveSharedBody(key, serialized);
+      }
+    }
+
+    if (snapshot) {
+      requisitionSnapshotService.save(requisition, new String(serialized, StandardCharsets.UTF_8));
+    }
+  }
+
+  private boolean isCacheEnabled() {
+    return maxSizeMegabytes > 0 || redisEnabled;
+  }
+
+  private byte[] findSnapshotBody(UUID requisitionId, Long version) {
+    String body = requisitionSnapshotService.findBody(requisitionId, version);
+    return null == body ? null : body.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private byte[] findSharedBody(String key) {
+    try {
+      String body = requisitionResponsesRedisRepository.findByKey(key);
+      return null == body ? null : body.getBytes(StandardCharsets.UTF_8);
+    } catch (DataAccessException exp) {
+      LOGGER.warn("Unable to read requisition response {} from Redis", key, exp);
+      return null;
+    }
+  }
+
+  private void saveSharedBody(String key, byte[] body) {
+    try {
+      requisitionResponsesRedisRepository.save(key, new String(body, StandardCharsets.UTF_8));
+    } catch (DataAccessException exp) {
+      LOGGER.warn("Unable to save requisition response {} in Redis", key, exp);
+    }
+  }
+
+  private String getKey(UUID requisitionId, Long version, Class<?> representation) {
+    return requisitionId + ":" + version + ":" + representation.getSimpleName();
+  }
+}
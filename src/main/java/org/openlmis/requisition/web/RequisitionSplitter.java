@@ -33,12 +33,11 @@ import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.SupplyPartnerAssociationDto;
 import org.openlmis.requisition.dto.SupplyPartnerDto;
-import org.openlmis.requisition.dto.TogglzFeatureDto;
 import org.openlmis.requisition.i18n.MessageService;
 import org.openlmis.requisition.repository.RequisitionRepository;
-import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
+import org.openlmis.requisition.service.referencedata.FeatureToggles;
+import org.openlmis.requisition.service.referencedata.SupervisoryNodeTopology;
 import org.openlmis.requisition.service.referencedata.SupplyPartnerReferenceDataService;
-import org.openlmis.requisition.service.referencedata.TogglzReferenceDataService;
 import org.openlmis.requisition.utils.Message;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -48,13 +47,13 @@ class RequisitionSplitter {
   static final String MULTIPLE_SUPPLIERS = "MULTIPLE_SUPPLIERS";
 
   @Autowired
-  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+  private SupervisoryNodeTopology supervisoryNodeTopology;
 
   @Autowired
   private SupplyPartnerReferenceDataService supplyPartnerReferenceDataService;
 
   @Autowired
-  private TogglzReferenceDataService togglzReferenceDataService;
+  private FeatureToggles featureToggles;
 
   @Autowired
   private RequisitionRepository requisitionRepository;
@@ -113,8 +112,8 @@ class RequisitionSplitter {
       UUID supervisoryNodeId,
       Map<VersionEntityReference, RequisitionLineItem> requisitionLineItems) {
     Set<UUID> programIds = Sets.newHashSet(requisition.getProgramId());
-    Set<UUID> partnerNodeIds = supervisoryNodeReferenceDataService
-        .findOne(supervisoryNodeId)
+    Set<UUID> partnerNodeIds = supervisoryNodeTopology
+        .getSupervisoryNode(supervisoryNodeId)
         .getPartnerNodeIds();
     Set<UUID> facilityIds = Sets.newHashSet(requisition.getFacilityId());
     Set<UUID> orderableIds = requisitionLineItems
@@ -133,13 +132,7 @@ class RequisitionSplitter {
   }
 
   private boolean isFeatureActive() {
-    return togglzReferenceDataService
-        .findAll()
-        .stream()
-        .filter(feature -> MULTIPLE_SUPPLIERS.equals(feature.getName()))
-        .findFirst()
-        .map(TogglzFeatureDto::isEnabled)
-        .orElse(false);
+    return featureToggles.isActive(MULTIPLE_SUPPLIERS);
   }
 
   private boolean wasSplit(Requisition requisition) {
@@ -150,17 +143,17 @@ class RequisitionSplitter {
   private void createPartnerRequisitions(Requisition requisition, List<Requisition> list,
       List<SupplyPartnerAssociationDto> associations,
       Map<VersionEntityReference, RequisitionLineItem> requisitionLineItems) {
+    Map<UUID, RequisitionLineItem> lineItemsByOrderableId = requisitionLineItems
+        .values()
+        .stream()
+        .collect(Collectors.toMap(line -> line.getOrderable().getId(), Function.identity(),
+            (first, second) -> first));
+
     for (SupplyPartnerAssociationDto association : associations) {
       List<RequisitionLineItem> partnerLineItems = association
           .getOrderableIds()
           .stream()
-          .map(id -> requisitionLineItems
-              .keySet()
-              .stream()
-              .filter(elem -> id.equals(elem.getId()))
-              .findFirst()
-              .map(requisitionLineItems::get)
-              .orElse(null))
+          .map(lineItemsByOrderableId::get)
           .filter(Objects::nonNull)
           .map(this::createPartnerLineItem)
           .collect(Collectors.toList());
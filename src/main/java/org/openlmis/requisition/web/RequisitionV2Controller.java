@@ -16,15 +16,19 @@
 package org.openlmis.requisition.web;
 
 import static org.openlmis.requisition.dto.ReasonDto.newInstance;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_ID_MISMATCH;
 import static org.openlmis.requisition.web.RequisitionV2Controller.RESOURCE_URL;
 import static org.openlmis.requisition.web.ResourceNames.FACILITIES;
 import static org.openlmis.requisition.web.ResourceNames.ORDERABLES;
 import static org.openlmis.requisition.web.ResourceNames.PROCESSING_PERIODS;
 import static org.openlmis.requisition.web.ResourceNames.PROGRAMS;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -33,6 +37,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.openlmis.requisition.domain.requisition.ApprovedProductReference;
 import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.dto.ApprovedProductDto;
 import org.openlmis.requisition.dto.BasicRequisitionTemplateDto;
@@ -40,14 +45,18 @@ import org.openlmis.requisition.dto.MetadataDto;
 import org.openlmis.requisition.dto.ObjectReferenceDto;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.RequisitionLineItemV2Dto;
+import org.openlmis.requisition.dto.RequisitionPatchDto;
 import org.openlmis.requisition.dto.RequisitionV2Dto;
+import org.openlmis.requisition.dto.VersionIdentityDto;
 import org.openlmis.requisition.dto.VersionObjectReferenceDto;
+import org.openlmis.requisition.exception.ValidationMessageException;
 import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -142,6 +151,89 @@ public class RequisitionV2Controller extends BaseRequisitionController {
     return etaggedResource.getResource();
   }
 
+  /**
+   * Allows updating only some of the line items of a requisition. Line items are matched by id,
+   * and the version sent with the line items has to match the current version of the requisition.
+   * The whole requisition is validated the same way as in a full update, but only the sent line
+   * items are updated and recalculated, and only they are returned.
+   *
+   * @param requisitionId UUID of requisition which we want to update.
+   * @param patch line items to update with the version of the requisition.
+   * @return updated line items with the new version of the requisition.
+   */
+  @PatchMapping("/{id}")
+  public RequisitionPatchDto patchRequisition(@PathVariable("id") UUID requisitionId,
+      @RequestBody RequisitionPatchDto patch,
+      HttpServletRequest request, HttpServletResponse response) {
+    Profiler profiler = getProfiler("PATCH_REQUISITION_V2", requisitionId, patch);
+
+    if (null != patch.getId() && !Objects.equals(patch.getId(), requisitionId)) {
+      throw new ValidationMessageException(ERROR_ID_MISMATCH);
+    }
+
+    Requisition requisitionToUpdate = findRequisition(requisitionId, profiler);
+
+    profiler.start("VALIDATE_VERSION");
+    requisitionVersionValidator
+        .validateVersion(patch.getVersion(), requisitionToUpdate)
+        .throwExceptionIfHasErrors();
+    requisitionVersionValidator
+        .validateRequisitionTimestamps(patch.getModifiedDate(), requisitionToUpdate)
+        .throwExceptionIfHasErrors();
+    requisitionVersionValidator
+        .validateEtagVersionIfPresent(request, requisitionToUpdate)
+        .throwExceptionIfHasErrors();
+
+    checkPermission(
+        profiler,
+        () -> requisitionService.validateCanSaveRequisition(requisitionToUpdate)
+    );
+
+    Map<VersionIdentityDto, OrderableDto> orderables = findOrderables(
+        profiler, requisitionToUpdate::getAllOrderables
+    );
+
+    profiler.start("BUILD_REQUISITION_UPDATER");
+    List<RequisitionLineItem> lineItems = RequisitionBuilder.newRequisitionLineItems(
+        Optional.ofNullable(patch.getRequisitionLineItems()).orElse(Collections.emptyList()),
+        requisitionToUpdate.getTemplate(), requisitionToUpdate.getProgramId(),
+        requisitionToUpdate.getStatus(), orderables, getProductReferences(requisitionToUpdate));
+    Requisition requisition = RequisitionBuilder
+        .newPartialRequisition(requisitionToUpdate, lineItems, patch.getModifiedDate());
+
+    profiler.start("VALIDATE_CAN_BE_UPDATED");
+    validateRequisitionCanBeUpdated(requisitionToUpdate, requisition, orderables)
+        .throwExceptionIfHasErrors();
+
+    Map<VersionIdentityDto, ApprovedProductDto> approvedProducts = findApprovedProducts(
+        () -> lineItems
+            .stream()
+            .map(line -> requisitionToUpdate.findLineById(line.getId()))
+            .map(RequisitionLineItem::getFacilityTypeApprovedProduct)
+            .collect(Collectors.toSet()),
+        profiler);
+
+    profiler.start("PATCH");
+    final List<RequisitionLineItem> updated = requisitionToUpdate
+        .patchLineItems(lineItems, orderables, approvedProducts);
+
+    profiler.start("SAVE");
+    requisitionRepository.saveAndFlush(requisitionToUpdate);
+    logger.debug("Requisition with id {} saved", requisitionToUpdate.getId());
+
+    profiler.start("BUILD_DTO");
+    RequisitionPatchDto result = new RequisitionPatchDto(requisitionToUpdate.getId(),
+        requisitionToUpdate.getVersion(), requisitionToUpdate.getModifiedDate(),
+        buildLineItemDtos(updated));
+
+    response.setHeader(HttpHeaders.ETAG,
+        ETagResource.buildWeakETag(requisitionToUpdate.getVersion()));
+
+    stopProfiler(profiler, result);
+
+    return result;
+  }
+
   /**
    * Get chosen requisition.
    *
@@ -150,14 +242,24 @@ public class RequisitionV2Controller extends BaseRequisitionController {
    */
   @GetMapping("/{id}")
   public RequisitionV2Dto getRequisition(@PathVariable("id") UUID requisitionId,
-      HttpServletResponse response) {
+      HttpServletRequest request, HttpServletResponse response) throws IOException {
     Profiler profiler = getProfiler("GET_REQUISITION_V2", requisitionId);
 
+    if (writeCachedResponse(requisitionId, RequisitionV2Dto.class, request, response,
+        profiler)) {
+      stopProfiler(profiler);
+      return null;
+    }
+
     Requisition requisition = findRequisition(requisitionId, profiler);
 
     checkPermission(profiler, () -> permissionService.canViewRequisition(requisition));
 
     RequisitionV2Dto dto = buildDto(requisition, profiler);
+
+    profiler.start("CACHE_RESPONSE");
+    requisitionResponseCache.save(requisition, RequisitionV2Dto.class, dto);
+
     response.setHeader(HttpHeaders.ETAG, ETagResource.buildWeakETag(requisition.getVersion()));
 
     stopProfiler(profiler, dto);
@@ -176,8 +278,30 @@ public class RequisitionV2Controller extends BaseRequisitionController {
         serviceUrl, PROCESSING_PERIODS));
     dto.setProgram(new ObjectReferenceDto(requisition.getProgramId(), serviceUrl, PROGRAMS));
 
-    List<RequisitionLineItem> requisitionLineItems = requisition.getRequisitionLineItems();
-    List<RequisitionLineItemV2Dto> lineItems = requisitionLineItems
+    dto.setRequisitionLineItems(buildLineItemDtos(requisition.getRequisitionLineItems()));
+
+    Set<VersionObjectReferenceDto> availableProducts = new HashSet<>();
+
+    Optional
+        .ofNullable(requisition.getAvailableProducts())
+        .orElse(Collections.emptySet())
+        .stream()
+        .map(ApprovedProductReference::getOrderable)
+        .forEach(orderable -> {
+          VersionObjectReferenceDto reference = new VersionObjectReferenceDto(
+              orderable.getId(), serviceUrl, ORDERABLES, orderable.getVersionNumber());
+
+          availableProducts.add(reference);
+        });
+
+    dto.setAvailableProducts(availableProducts);
+    dto.setStockAdjustmentReasons(newInstance(requisition.getStockAdjustmentReasons()));
+    return dto;
+  }
+
+  private List<RequisitionLineItemV2Dto> buildLineItemDtos(
+      List<RequisitionLineItem> requisitionLineItems) {
+    return requisitionLineItems
         .stream()
         .map(line -> {
           // The whole object is not required here
@@ -197,26 +321,6 @@ public class RequisitionV2Controller extends BaseRequisitionController {
           return lineDto;
         })
         .collect(Collectors.toList());
-
-    dto.setRequisitionLineItems(lineItems);
-
-    Set<VersionObjectReferenceDto> availableProducts = new HashSet<>();
-
-    Optional
-        .ofNullable(requisition.getAvailableProducts())
-        .orElse(Collections.emptySet())
-        .stream()
-        .map(ApprovedProductReference::getOrderable)
-        .forEach(orderable -> {
-          VersionObjectReferenceDto reference = new VersionObjectReferenceDto(
-              orderable.getId(), serviceUrl, ORDERABLES, orderable.getVersionNumber());
-
-          availableProducts.add(reference);
-        });
-
-    dto.setAvailableProducts(availableProducts);
-    dto.setStockAdjustmentReasons(newInstance(requisition.getStockAdjustmentReasons()));
-    return dto;
   }
 
 }
@@ -49,6 +49,7 @@ public class StatusMessageController extends BaseController {
    * @return List of status messages.
    */
   @RequestMapping(value = "/requisitions/{id}/statusMessages", method = RequestMethod.GET)
+  @Transactional(readOnly = true)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public List<StatusMessageDto> getAllRequisitionStatusMessages(@PathVariable("id") UUID id) {
@@ -0,0 +1,47 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.stockmanagement.ValidReasonStockmanagementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Controller
+public class ValidReasonController extends BaseController {
+
+  @Autowired
+  private PermissionService permissionService;
+
+  @Autowired
+  private ValidReasonStockmanagementService validReasonStockmanagementService;
+
+  /**
+   * Removes cached valid reasons so changes made in the stock management service are used by
+   * the next initiated requisitions.
+   */
+  @RequestMapping(value = "/validReasons/cache", method = RequestMethod.DELETE)
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void evictValidReasonsCache() {
+    permissionService.canManageRequisitionTemplate().throwExceptionIfHasErrors();
+    validReasonStockmanagementService.evictCache();
+  }
+
+}
@@ -0,0 +1,8 @@
+CREATE TABLE requisition_snapshots (
+    id uuid NOT NULL PRIMARY KEY,
+    createddate timestamp with time zone,
+    modifieddate timestamp with time zone,
+    requisitionid uuid NOT NULL UNIQUE REFERENCES requisitions ON DELETE CASCADE,
+    requisitionversion bigint NOT NULL,
+    body jsonb NOT NULL
+);
@@ -0,0 +1,6 @@
+CREATE TABLE scheduler_locks (
+    name varchar(64) NOT NULL PRIMARY KEY,
+    lockeduntil timestamp with time zone NOT NULL,
+    lockedat timestamp with time zone NOT NULL,
+    lockedby text NOT NULL
+);
@@ -0,0 +1,19 @@
+CREATE TABLE report_jobs (
+    id uuid NOT NULL PRIMARY KEY,
+    templateid uuid NOT NULL,
+    templatename text NOT NULL,
+    format varchar(16) NOT NULL,
+    status varchar(16) NOT NULL,
+    createddate timestamp with time zone NOT NULL,
+    finisheddate timestamp with time zone,
+    errormessage text,
+    result bytea
+);
+
+CREATE TABLE report_job_requesters (
+    jobid uuid NOT NULL REFERENCES report_jobs ON DELETE CASCADE,
+    userid uuid NOT NULL,
+    PRIMARY KEY (jobid, userid)
+);
+
+CREATE INDEX report_job_requesters_userid_idx ON report_job_requesters (userid);
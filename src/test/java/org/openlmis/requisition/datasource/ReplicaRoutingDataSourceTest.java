@@ -0,0 +1,62 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Test;
+import org.openlmis.requisition.datasource.ReplicaRoutingDataSource.Route;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReplicaRoutingDataSourceTest {
+
+  private ReplicationLagMonitor lagMonitor = mock(ReplicationLagMonitor.class);
+
+  private ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+      mock(DataSource.class), mock(DataSource.class), lagMonitor);
+
+  @After
+  public void tearDown() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+  }
+
+  @Test
+  public void shouldRouteReadOnlyTransactionToReplica() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(lagMonitor.isReplicaAvailable()).thenReturn(true);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.REPLICA);
+  }
+
+  @Test
+  public void shouldRouteReadOnlyTransactionToPrimaryIfReplicaIsLagging() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(lagMonitor.isReplicaAvailable()).thenReturn(false);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+  }
+
+  @Test
+  public void shouldRouteReadWriteTransactionToPrimary() {
+    when(lagMonitor.isReplicaAvailable()).thenReturn(true);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ReplicationLagMonitorTest {
+
+  private DataSource replica = mock(DataSource.class);
+  private Connection connection = mock(Connection.class);
+  private Statement statement = mock(Statement.class);
+  private ResultSet resultSet = mock(ResultSet.class);
+
+  private ReplicationLagMonitor monitor = new ReplicationLagMonitor(replica, 30, 10000);
+
+  @Before
+  public void setUp() throws SQLException {
+    when(replica.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.executeQuery(ReplicationLagMonitor.LAG_QUERY)).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true);
+  }
+
+  @Test
+  public void shouldNotMarkReplicaAsAvailableBeforeFirstCheck() {
+    assertThat(monitor.isReplicaAvailable()).isFalse();
+  }
+
+  @Test
+  public void shouldMarkReplicaAsAvailableIfLagIsWithinThreshold() throws SQLException {
+    when(resultSet.getDouble(1)).thenReturn(30.0);
+
+    monitor.checkLag();
+
+    assertThat(monitor.isReplicaAvailable()).isTrue();
+  }
+
+  @Test
+  public void shouldMarkReplicaAsUnavailableIfLagExceedsThreshold() throws SQLException {
+    when(resultSet.getDouble(1)).thenReturn(0.0, 30.5);
+
+    monitor.checkLag();
+    monitor.checkLag();
+
+    assertThat(monitor.isReplicaAvailable()).isFalse();
+  }
+
+  @Test
+  public void shouldMarkReplicaAsUnavailableIfLagCanNotBeChecked() throws SQLException {
+    when(resultSet.getDouble(1)).thenReturn(0.0);
+    monitor.checkLag();
+
+    when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+    monitor.checkLag();
+
+    assertThat(monitor.isReplicaAvailable()).isFalse();
+  }
+
+  @Test
+  public void shouldMarkReplicaAsUnavailableIfLagHasNotBeenCheckedRecently() throws SQLException {
+    when(resultSet.getDouble(1)).thenReturn(0.0);
+    monitor.checkLag();
+
+    ReflectionTestUtils.setField(monitor, "checkedAt",
+        System.currentTimeMillis() - ReplicationLagMonitor.MAX_MISSED_CHECKS * 10000 - 1);
+
+    assertThat(monitor.isReplicaAvailable()).isFalse();
+  }
+}
@@ -16,6 +16,7 @@
 package org.openlmis.requisition.domain;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
@@ -283,6 +284,58 @@ public class LineItemFieldsCalculatorTest {
         3, false));
   }
 
+  @Test
+  public void shouldCalculateAdjustedConsumptionSameAsWithRoundedRatio() {
+    RequisitionLineItem requisitionLineItem = new RequisitionLineItemDataBuilder().build();
+
+    for (int months = 0; months <= 3; ++months) {
+      for (int stockoutDays = -30; stockoutDays <= 120; ++stockoutDays) {
+        for (int consumed = -20; consumed <= 100; ++consumed) {
+          requisitionLineItem.setTotalStockoutDays(stockoutDays);
+          requisitionLineItem.setTotalConsumedQuantity(consumed);
+
+          assertEquals(
+              calculateAdjustedConsumptionWithRoundedRatio(consumed, months, stockoutDays),
+              LineItemFieldsCalculator.calculateAdjustedConsumption(requisitionLineItem,
+                  months, false));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldRoundUpAdjustedConsumptionIfRatioWasRoundedUp() {
+    // 60 / 9 is rounded up to 6.66...67 so 3 * 60 / 9 is a bit more than 20
+    RequisitionLineItem requisitionLineItem = new RequisitionLineItemDataBuilder()
+        .withTotalStockoutDays(51)
+        .withTotalConsumedQuantity(3)
+        .build();
+
+    assertEquals(21, LineItemFieldsCalculator.calculateAdjustedConsumption(requisitionLineItem,
+        2, false));
+  }
+
+  @Test
+  public void shouldCalculateAdjustedConsumptionForLargeValues() {
+    RequisitionLineItem requisitionLineItem = new RequisitionLineItemDataBuilder()
+        .withTotalStockoutDays(7)
+        .withTotalConsumedQuantity(Integer.MAX_VALUE)
+        .build();
+
+    assertEquals(calculateAdjustedConsumptionWithRoundedRatio(Integer.MAX_VALUE, 1, 7),
+        LineItemFieldsCalculator.calculateAdjustedConsumption(requisitionLineItem, 1, false));
+  }
+
+  @Test
+  public void shouldCalculateAverageConsumptionFromPreviousAndCurrentPeriods() {
+    assertEquals(10,
+        LineItemFieldsCalculator.calculateAverageConsumption(asList(5, 10), 15));
+    assertEquals(8,
+        LineItemFieldsCalculator.calculateAverageConsumption(singletonList(5), 10));
+    assertEquals(5,
+        LineItemFieldsCalculator.calculateAverageConsumption(emptyList(), 5));
+  }
+
   @Test
   public void shouldCalculateAverageConsumption() throws Exception {
     int averageConsumption =
@@ -658,4 +711,26 @@ public class LineItemFieldsCalculatorTest {
     assertEquals(new Integer(10), calculateStockBasedAverageConsumption(
         stockCardRangeSummaryDto, orderableId, template, periods, 10));
   }
+
+  private int calculateAdjustedConsumptionWithRoundedRatio(int consumed, int months,
+      int stockoutDays) {
+    if (consumed == 0) {
+      return 0;
+    }
+
+    int totalDays = 30 * months;
+    int nonStockoutDays = totalDays - stockoutDays;
+
+    if (nonStockoutDays == 0) {
+      return consumed;
+    }
+
+    BigDecimal ratio = new BigDecimal(totalDays)
+        .divide(new BigDecimal(nonStockoutDays), 1000, RoundingMode.HALF_UP);
+
+    return new BigDecimal(consumed)
+        .multiply(ratio)
+        .setScale(0, RoundingMode.CEILING)
+        .intValue();
+  }
 }
@@ -19,12 +19,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.Maps;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +46,7 @@ import org.openlmis.requisition.domain.requisition.ApprovedProductReference;
 import org.openlmis.requisition.domain.requisition.DatePhysicalStockCountCompleted;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItemDataBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
@@ -55,6 +58,7 @@ import org.openlmis.requisition.dto.ProgramDto;
 import org.openlmis.requisition.dto.RequisitionDto;
 import org.openlmis.requisition.dto.RequisitionLineItemDto;
 import org.openlmis.requisition.dto.VersionIdentityDto;
+import org.openlmis.requisition.exception.ContentNotFoundMessageException;
 import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.i18n.MessageKeys;
 import org.openlmis.requisition.testutils.DtoGenerator;
@@ -232,6 +236,61 @@ public class RequisitionBuilderTest {
         RequisitionStatus.INITIATED, getOrderables(), getProductReferences());
   }
 
+  @Test
+  public void shouldReplaceOnlyGivenLineItemsInPartialRequisition() {
+    RequisitionLineItem first = new RequisitionLineItemDataBuilder().build();
+    RequisitionLineItem second = new RequisitionLineItemDataBuilder().build();
+    Requisition saved = new RequisitionDataBuilder()
+        .addLineItem(first, false)
+        .addLineItem(second, false)
+        .buildInitiatedRegularRequisition();
+
+    RequisitionLineItem patched = new RequisitionLineItemDataBuilder()
+        .withId(first.getId())
+        .build();
+
+    Requisition requisition = RequisitionBuilder.newPartialRequisition(
+        saved, Collections.singletonList(patched), modifiedDate);
+
+    assertEquals(saved.getId(), requisition.getId());
+    assertEquals(saved.getProgramId(), requisition.getProgramId());
+    assertEquals(modifiedDate, requisition.getModifiedDate());
+    assertEquals(2, requisition.getRequisitionLineItems().size());
+    assertSame(patched, requisition.getRequisitionLineItems().get(0));
+    assertSame(second, requisition.getRequisitionLineItems().get(1));
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenPatchedLineItemIsNotFound() {
+    expectedException.expect(ContentNotFoundMessageException.class);
+    expectedException.expectMessage(MessageKeys.ERROR_LINE_ITEM_NOT_FOUND);
+
+    Requisition saved = new RequisitionDataBuilder()
+        .addLineItem(new RequisitionLineItemDataBuilder().build(), false)
+        .buildInitiatedRegularRequisition();
+
+    RequisitionBuilder.newPartialRequisition(saved,
+        Collections.singletonList(new RequisitionLineItemDataBuilder().build()), modifiedDate);
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenPatchedLineItemIsDuplicated() {
+    expectedException.expect(ValidationMessageException.class);
+    expectedException.expectMessage(MessageKeys.ERROR_LINE_ITEM_DUPLICATED);
+
+    RequisitionLineItem line = new RequisitionLineItemDataBuilder().build();
+    Requisition saved = new RequisitionDataBuilder()
+        .addLineItem(line, false)
+        .buildInitiatedRegularRequisition();
+
+    RequisitionLineItem patched = new RequisitionLineItemDataBuilder()
+        .withId(line.getId())
+        .build();
+
+    RequisitionBuilder.newPartialRequisition(saved, Arrays.asList(patched, patched),
+        modifiedDate);
+  }
+
   private void prepareForTestSkipped() {
     when(requisitionTemplate.isColumnDisplayed(RequisitionLineItem.SKIPPED_COLUMN))
         .thenReturn(true);
@@ -68,6 +68,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import org.hamcrest.Matcher;
+import org.joda.money.CurrencyMismatchException;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.junit.Before;
@@ -587,6 +588,63 @@ public class RequisitionTest {
     assertEquals(requisitionLineItem, found);
   }
 
+  @Test
+  public void shouldFindRequisitionLineItemById() {
+    assertEquals(requisitionLineItem, requisition.findLineById(requisitionLineItem.getId()));
+    assertNull(requisition.findLineById(UUID.randomUUID()));
+    assertNull(requisition.findLineById(null));
+  }
+
+  @Test
+  public void shouldFindRequisitionLineItemsInLargeRequisition() {
+    List<RequisitionLineItem> lineItems = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      lineItems.add(new RequisitionLineItemDataBuilder().build());
+    }
+    requisition.setRequisitionLineItems(lineItems);
+
+    for (RequisitionLineItem lineItem : lineItems) {
+      assertEquals(lineItem, requisition.findLineById(lineItem.getId()));
+      assertEquals(lineItem, requisition.findLineByProduct(lineItem.getOrderable().getId(),
+          lineItem.getOrderable().getVersionNumber()));
+    }
+  }
+
+  @Test
+  public void shouldFindRequisitionLineItemAddedAfterLookup() {
+    RequisitionLineItem newLineItem = new RequisitionLineItemDataBuilder().buildAsNew();
+    assertNull(requisition.findLineById(UUID.randomUUID()));
+
+    requisition.getRequisitionLineItems().add(newLineItem);
+    newLineItem.setId(UUID.randomUUID());
+
+    assertEquals(newLineItem, requisition.findLineById(newLineItem.getId()));
+    assertEquals(newLineItem, requisition.findLineByProduct(
+        newLineItem.getOrderable().getId(), newLineItem.getOrderable().getVersionNumber()));
+  }
+
+  @Test
+  public void shouldFindRequisitionLineItemAfterIdWasAssigned() {
+    RequisitionLineItem newLineItem = new RequisitionLineItemDataBuilder().buildAsNew();
+    requisition.setRequisitionLineItems(Lists.newArrayList(newLineItem));
+    assertNull(requisition.findLineById(UUID.randomUUID()));
+
+    newLineItem.setId(UUID.randomUUID());
+
+    assertEquals(newLineItem, requisition.findLineById(newLineItem.getId()));
+  }
+
+  @Test
+  public void shouldNotFindRequisitionLineItemAfterLineItemsWereReplaced() {
+    UUID lineItemId = requisitionLineItem.getId();
+    assertEquals(requisitionLineItem, requisition.findLineById(lineItemId));
+
+    requisition.setRequisitionLineItems(new ArrayList<>());
+
+    assertNull(requisition.findLineById(lineItemId));
+    assertNull(requisition.findLineByProduct(orderable.getId(), 1L));
+  }
+
   @Test
   public void shouldSetRequisitionFieldForLineItemsAfterUpdate() {
     // given
@@ -689,6 +747,29 @@ public class RequisitionTest {
     assertEquals(2, 0, amount.doubleValue());
   }
 
+  @Test
+  public void shouldSumTotalCostsInMinorUnits() {
+    // given
+    setUpGetTotalCost(new BigDecimal("1.25"), new BigDecimal("2.10"));
+
+    // when
+    Money result = requisition.getTotalCost();
+
+    // then
+    assertEquals(Money.of(CurrencyUnit.of(currencyCode), new BigDecimal("3.35")), result);
+  }
+
+  @Test(expected = CurrencyMismatchException.class)
+  public void shouldNotSumTotalCostsInDifferentCurrencies() {
+    // given
+    setUpGetTotalCost(BigDecimal.ONE, BigDecimal.ONE);
+    requisition.getRequisitionLineItems().get(0)
+        .setTotalCost(Money.of(CurrencyUnit.of("EUR".equals(currencyCode) ? "USD" : "EUR"), 1));
+
+    // when
+    requisition.getTotalCost();
+  }
+
   @Test
   public void shouldGetFullSupplyTotalCost() {
     // given;
@@ -730,10 +811,10 @@ public class RequisitionTest {
     Requisition req = new RequisitionDataBuilder()
         .withProgramId(requisition.getProgramId())
         .build();
-    req.initiate(template, singletonList(product),
-        Collections.singletonList(previousRequisition), 0, null, emptyMap(), UUID.randomUUID(),
-        new StockData(), singletonList(stockCardRangeSummaryDto),
-        singletonList(stockCardRangeSummaryDto), singletonList(period));
+    req.initiate(template, singletonList(product), Collections.singletonList(previousRequisition),
+        emptyList(), null, emptyMap(), UUID.randomUUID(), new StockData(),
+        singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
+        singletonList(period));
 
     // then
     List<RequisitionLineItem> lineItems = req.getRequisitionLineItems();
@@ -752,9 +833,10 @@ public class RequisitionTest {
         .withProgramId(requisition.getProgramId())
         .build();
 
-    req.initiate(template, Collections.singleton(product), Collections.emptyList(), 0, null,
-        emptyMap(), UUID.randomUUID(), new StockData(), singletonList(stockCardRangeSummaryDto),
-        singletonList(stockCardRangeSummaryDto), singletonList(period));
+    req.initiate(template, Collections.singleton(product), Collections.emptyList(), emptyList(),
+        null, emptyMap(), UUID.randomUUID(), new StockData(),
+        singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
+        singletonList(period));
 
     // then
     List<RequisitionLineItem> lineItems = req.getRequisitionLineItems();
@@ -783,7 +865,7 @@ public class RequisitionTest {
         .withProgramId(requisition.getProgramId())
         .build();
     req.initiate(template, singletonList(product),
-        Collections.singletonList(previousRequisition), 0, pod, emptyMap(),
+        Collections.singletonList(previousRequisition), emptyList(), pod, emptyMap(),
         UUID.randomUUID(), new StockData(), singletonList(stockCardRangeSummaryDto),
         singletonList(stockCardRangeSummaryDto), singletonList(period));
 
@@ -817,10 +899,10 @@ public class RequisitionTest {
         .withProgramId(requisition.getProgramId())
         .build();
 
-    req.initiate(template, singletonList(product),
-        Collections.singletonList(previousRequisition), 0, pod, emptyMap(), UUID.randomUUID(),
-        new StockData(), singletonList(stockCardRangeSummaryDto),
-        singletonList(stockCardRangeSummaryDto), singletonList(period));
+    req.initiate(template, singletonList(product), Collections.singletonList(previousRequisition),
+        emptyList(), pod, emptyMap(), UUID.randomUUID(), new StockData(),
+        singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
+        singletonList(period));
 
     // then
     List<RequisitionLineItem> lineItems = req.getRequisitionLineItems();
@@ -994,7 +1076,7 @@ public class RequisitionTest {
     adjustedConsumptions.add(5);
     prepareForTestAverageConsumption(adjustedConsumptions);
     when(LineItemFieldsCalculator
-        .calculateAverageConsumption(Arrays.asList(5, ADJUSTED_CONSUMPTION)))
+        .calculateAverageConsumption(adjustedConsumptions, ADJUSTED_CONSUMPTION))
         .thenReturn(AVERAGE_CONSUMPTION);
 
     //when
@@ -1014,7 +1096,7 @@ public class RequisitionTest {
     adjustedConsumptions.add(5);
     prepareForTestAverageConsumption(adjustedConsumptions);
     when(LineItemFieldsCalculator
-        .calculateAverageConsumption(Arrays.asList(5, 5, 5, ADJUSTED_CONSUMPTION)))
+        .calculateAverageConsumption(adjustedConsumptions, ADJUSTED_CONSUMPTION))
         .thenReturn(AVERAGE_CONSUMPTION);
 
     //when
@@ -1058,15 +1140,9 @@ public class RequisitionTest {
 
   @Test
   public void shouldSetPreviousAdjustedConsumptionsWhenOnePreviousRequisition() {
-    RequisitionLineItem previousRequisitionLineItem = new RequisitionLineItem(requisitionLineItem);
-    previousRequisitionLineItem.setAdjustedConsumption(5);
-
-    Requisition previousRequisition = new Requisition();
-    previousRequisition.setRequisitionLineItems(
-        Collections.singletonList(previousRequisitionLineItem));
-
-    requisition.setPreviousRequisitions(Collections.singletonList(previousRequisition));
-    requisition.setPreviousAdjustedConsumptions(1);
+    requisition.setPreviousAdjustedConsumptions(Collections.singletonList(
+        new LineItemAdjustedConsumption(UUID.randomUUID(), UUID.randomUUID(),
+            requisitionLineItem.getOrderable(), 5)));
 
     assertEquals(Collections.singletonList(5),
         requisitionLineItem.getPreviousAdjustedConsumptions());
@@ -1074,36 +1150,42 @@ public class RequisitionTest {
 
   @Test
   public void shouldSetPreviousAdjustedConsumptionsFromManyPreviousRequisitions() {
-    RequisitionLineItem previousRequisitionLineItem = new RequisitionLineItem(requisitionLineItem);
-    previousRequisitionLineItem.setAdjustedConsumption(5);
-
-    Requisition previousRequisition = new Requisition();
-    previousRequisition
-        .setRequisitionLineItems(Arrays.asList(previousRequisitionLineItem,
-            previousRequisitionLineItem, previousRequisitionLineItem));
+    UUID periodId = UUID.randomUUID();
 
-    requisition.setPreviousRequisitions(Collections.singletonList(previousRequisition));
-    requisition.setPreviousAdjustedConsumptions(1);
+    requisition.setPreviousAdjustedConsumptions(Arrays.asList(
+        new LineItemAdjustedConsumption(UUID.randomUUID(), periodId,
+            requisitionLineItem.getOrderable(), 5),
+        new LineItemAdjustedConsumption(UUID.randomUUID(), periodId,
+            requisitionLineItem.getOrderable(), 5),
+        new LineItemAdjustedConsumption(UUID.randomUUID(), periodId,
+            requisitionLineItem.getOrderable(), 5)));
 
     assertEquals(Arrays.asList(5, 5, 5), requisitionLineItem.getPreviousAdjustedConsumptions());
   }
 
   @Test
-  public void shouldNotAddPreviousAdjustedConsumptionIfLineSkipped() {
-    final RequisitionLineItem requisitionLineItem = new RequisitionLineItem();
+  public void shouldSetPreviousAdjustedConsumptionsFromAdjustedConsumptions() {
+    UUID previousRequisitionId = UUID.randomUUID();
+    UUID periodId = UUID.randomUUID();
+    VersionEntityReference otherOrderable = new VersionEntityReference(UUID.randomUUID(), 1L);
 
-    RequisitionLineItem previousRequisitionLineItem = new RequisitionLineItem();
-    previousRequisitionLineItem.setAdjustedConsumption(5);
-    previousRequisitionLineItem.setSkipped(true);
-    Requisition previousRequisition = new Requisition();
-    previousRequisition.setRequisitionLineItems(
-        Collections.singletonList(previousRequisitionLineItem));
+    requisition.setPreviousAdjustedConsumptions(Arrays.asList(
+        new LineItemAdjustedConsumption(previousRequisitionId, periodId,
+            requisitionLineItem.getOrderable(), 5),
+        new LineItemAdjustedConsumption(previousRequisitionId, periodId,
+            requisitionLineItem.getOrderable(), null),
+        new LineItemAdjustedConsumption(previousRequisitionId, periodId, otherOrderable, 3),
+        new LineItemAdjustedConsumption(UUID.randomUUID(), periodId,
+            requisitionLineItem.getOrderable(), 7),
+        new LineItemAdjustedConsumption(UUID.randomUUID(), periodId, null, null)));
 
-    Requisition requisition = new Requisition();
-    requisition.setRequisitionLineItems(Lists.newArrayList(requisitionLineItem));
+    assertEquals(Arrays.asList(5, 7), requisitionLineItem.getPreviousAdjustedConsumptions());
+  }
 
-    requisition.setPreviousRequisitions(Collections.singletonList(previousRequisition));
-    requisition.setPreviousAdjustedConsumptions(1);
+  @Test
+  public void shouldNotAddPreviousAdjustedConsumptionOfRequisitionWithoutLineItems() {
+    requisition.setPreviousAdjustedConsumptions(Collections.singletonList(
+        new LineItemAdjustedConsumption(UUID.randomUUID(), UUID.randomUUID(), null, null)));
 
     assertEquals(Collections.emptyList(),
         requisitionLineItem.getPreviousAdjustedConsumptions());
@@ -1111,21 +1193,10 @@ public class RequisitionTest {
 
   @Test
   public void shouldNotAddPreviousAdjustedConsumptionIfItIsNull() {
-    //given
-    RequisitionLineItem previousRequisitionLineItem = new RequisitionLineItem(requisitionLineItem);
-    previousRequisitionLineItem.setAdjustedConsumption(null);
-
-    Requisition previousRequisition = new Requisition();
-    previousRequisition.setRequisitionLineItems(
-        Collections.singletonList(previousRequisitionLineItem));
-
-    requisition.setPreviousRequisitions(Collections.singletonList(previousRequisition));
-    final int numberOfMonthsToAverage = 1;
-
-    //when
-    requisition.setPreviousAdjustedConsumptions(numberOfMonthsToAverage);
+    requisition.setPreviousAdjustedConsumptions(Collections.singletonList(
+        new LineItemAdjustedConsumption(UUID.randomUUID(), UUID.randomUUID(),
+            requisitionLineItem.getOrderable(), null)));
 
-    //then
     assertEquals(Collections.emptyList(),
         requisitionLineItem.getPreviousAdjustedConsumptions());
   }
@@ -1148,13 +1219,38 @@ public class RequisitionTest {
     assertEquals(Integer.valueOf(1), requisitionLineItem.getPreviousAdjustedConsumptions().get(0));
   }
 
+  @Test
+  public void shouldPatchOnlyGivenLineItems() {
+    RequisitionLineItem otherLineItem = new RequisitionLineItemDataBuilder()
+        .withId(UUID.randomUUID())
+        .withRequestedQuantity(REQUESTED_QUANTITY)
+        .build();
+    requisition.getRequisitionLineItems().add(otherLineItem);
+    requisition.setTemplate(template);
+    requisition.setModifiedDate(null);
+
+    RequisitionLineItem patch = new RequisitionLineItem();
+    patch.setId(requisitionLineItem.getId());
+    patch.setRequestedQuantity(REQUESTED_QUANTITY + 5);
+
+    List<RequisitionLineItem> updated = requisition
+        .patchLineItems(singletonList(patch), orderables, approvedProducts);
+
+    assertThat(updated, hasSize(1));
+    assertThat(updated.get(0), is(requisitionLineItem));
+    assertEquals(Integer.valueOf(REQUESTED_QUANTITY + 5),
+        requisitionLineItem.getRequestedQuantity());
+    assertEquals(Integer.valueOf(REQUESTED_QUANTITY), otherLineItem.getRequestedQuantity());
+    assertNotNull(requisition.getModifiedDate());
+  }
+
   @Test
   public void shouldRecordStatusChangeOnInitiate() {
     UUID initiatorId = UUID.randomUUID();
     Requisition requisition = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
 
-    requisition.initiate(template, Collections.emptyList(), Collections.emptyList(), 0, null,
-        emptyMap(), initiatorId, new StockData(), singletonList(stockCardRangeSummaryDto),
+    requisition.initiate(template, Collections.emptyList(), Collections.emptyList(), emptyList(),
+        null, emptyMap(), initiatorId, new StockData(), singletonList(stockCardRangeSummaryDto),
         singletonList(stockCardRangeSummaryDto), singletonList(period));
 
     assertStatusChangeExistsAndAuthorIdMatches(requisition, RequisitionStatus.INITIATED,
@@ -1316,9 +1412,10 @@ public class RequisitionTest {
 
     // when
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
-    req.initiate(template, singletonList(product), emptyList(), 0, null, idealStockAmounts,
-        UUID.randomUUID(), new StockData(), singletonList(stockCardRangeSummaryDto),
-        singletonList(stockCardRangeSummaryDto), singletonList(period));
+    req.initiate(template, singletonList(product), emptyList(), emptyList(), null,
+        idealStockAmounts, UUID.randomUUID(), new StockData(),
+        singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
+        singletonList(period));
 
     // then
     List<RequisitionLineItem> lineItems = req.getRequisitionLineItems();
@@ -1339,8 +1436,8 @@ public class RequisitionTest {
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     req.setNumberOfMonthsInPeriod(1);
 
-    req.initiate(requisitionTemplate, singletonList(product), emptyList(), 0, null, emptyMap(),
-        UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
+    req.initiate(requisitionTemplate, singletonList(product), emptyList(), emptyList(), null,
+        emptyMap(), UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
         singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period));
 
@@ -1367,8 +1464,8 @@ public class RequisitionTest {
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     req.setNumberOfMonthsInPeriod(1);
 
-    req.initiate(requisitionTemplate, singletonList(product), emptyList(), 0, null, emptyMap(),
-        UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
+    req.initiate(requisitionTemplate, singletonList(product), emptyList(), emptyList(), null,
+        emptyMap(), UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
         singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period));
 
@@ -1393,7 +1490,7 @@ public class RequisitionTest {
 
     assertThatThrownBy(() -> req.initiate(requisitionTemplate,
         singletonList(product), emptyList(),
-        0, null, emptyMap(), UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
+        emptyList(), null, emptyMap(), UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
         singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period)))
         .isInstanceOf(ValidationMessageException.class)
@@ -1416,7 +1513,7 @@ public class RequisitionTest {
 
     assertThatThrownBy(() -> req.initiate(requisitionTemplate,
         singletonList(product), emptyList(),
-        0, null, emptyMap(), UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
+        emptyList(), null, emptyMap(), UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
         singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period)))
         .isInstanceOf(ValidationMessageException.class)
@@ -1435,7 +1532,7 @@ public class RequisitionTest {
     template = mockStockBasedRequisitionTemplate();
     when(template.isPopulateStockOnHandFromStockCards()).thenReturn(true);
 
-    req.initiate(template, singletonList(product), emptyList(), 0, null, emptyMap(),
+    req.initiate(template, singletonList(product), emptyList(), emptyList(), null, emptyMap(),
         UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
         singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period));
@@ -1457,7 +1554,7 @@ public class RequisitionTest {
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     template = mockStockBasedRequisitionTemplate();
     when(template.isPopulateStockOnHandFromStockCards()).thenReturn(true);
-    req.initiate(template, singletonList(product), emptyList(), 0, null, emptyMap(),
+    req.initiate(template, singletonList(product), emptyList(), emptyList(), null, emptyMap(),
         UUID.randomUUID(), new StockData(emptyMap(), beginningBalances),
         singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period));
@@ -1479,7 +1576,7 @@ public class RequisitionTest {
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     template = mockStockBasedRequisitionTemplate();
     when(template.isPopulateStockOnHandFromStockCards()).thenReturn(true);
-    req.initiate(template, singletonList(product), emptyList(), 0, null, emptyMap(),
+    req.initiate(template, singletonList(product), emptyList(), emptyList(), null, emptyMap(),
         UUID.randomUUID(), new StockData(currentStockOnHand, null),
         singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period));
@@ -1513,7 +1610,7 @@ public class RequisitionTest {
 
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     req.setEmergency(false);
-    req.initiate(template, asList(product), asList(previousReq), 0, null,
+    req.initiate(template, asList(product), asList(previousReq), emptyList(), null,
         emptyMap(), UUID.randomUUID(), null, singletonList(stockCardRangeSummaryDto),
         singletonList(stockCardRangeSummaryDto), singletonList(period));
 
@@ -1533,7 +1630,7 @@ public class RequisitionTest {
 
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     req.setEmergency(false);
-    req.initiate(template, asList(product), asList(previousReq), 0, null,
+    req.initiate(template, asList(product), asList(previousReq), emptyList(), null,
         emptyMap(), UUID.randomUUID(), null, singletonList(stockCardRangeSummaryDto),
         singletonList(stockCardRangeSummaryDto), singletonList(period));
 
@@ -1548,9 +1645,9 @@ public class RequisitionTest {
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     req.setEmergency(false);
 
-    req.initiate(template, asList(product), emptyList(), 0, null, emptyMap(), UUID.randomUUID(),
-        null, singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
-        singletonList(period));
+    req.initiate(template, asList(product), emptyList(), emptyList(), null, emptyMap(),
+        UUID.randomUUID(), null, singletonList(stockCardRangeSummaryDto),
+        singletonList(stockCardRangeSummaryDto), singletonList(period));
 
     assertThat(req.findLineByProduct(orderable.getId(), 1L).getSkipped(), is(false));
   }
@@ -1564,7 +1661,7 @@ public class RequisitionTest {
 
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     req.setEmergency(true);
-    req.initiate(template, singletonList(product), emptyList(), 0, null, emptyMap(),
+    req.initiate(template, singletonList(product), emptyList(), emptyList(), null, emptyMap(),
         UUID.randomUUID(),
         null, singletonList(stockCardRangeSummaryDto), singletonList(stockCardRangeSummaryDto),
         singletonList(period));
@@ -1578,7 +1675,7 @@ public class RequisitionTest {
     Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
     req.setEmergency(true);
 
-    req.initiate(template, singletonList(product), emptyList(), 0, null, emptyMap(),
+    req.initiate(template, singletonList(product), emptyList(), emptyList(), null, emptyMap(),
         UUID.randomUUID(), new StockData(), singletonList(stockCardRangeSummaryDto),
         singletonList(stockCardRangeSummaryDto), singletonList(period));
 
@@ -1740,7 +1837,8 @@ public class RequisitionTest {
             CURRENCY_UNIT))
         .thenReturn(TOTAL_COST);
     when(LineItemFieldsCalculator
-        .calculateAverageConsumption(Collections.singletonList(ADJUSTED_CONSUMPTION)))
+        .calculateAverageConsumption(requisitionLineItem.getPreviousAdjustedConsumptions(),
+            ADJUSTED_CONSUMPTION))
         .thenReturn(AVERAGE_CONSUMPTION);
 
     when(template.isColumnInTemplateAndDisplayed(any())).thenReturn(true);
@@ -219,8 +219,10 @@ public abstract class BaseCommunicationServiceTest<T> {
     BaseCommunicationService<T> service = getService();
     service.setRestTemplate(restTemplate);
     service.setAuthService(authService);
+    service.setRequestCoalescer(new RequestCoalescer());
 
     ReflectionTestUtils.setField(service, "maxUrlLength", 2000);
+    ReflectionTestUtils.setField(service, "coalescingEnabled", true);
 
     return service;
   }
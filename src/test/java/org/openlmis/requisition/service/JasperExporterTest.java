@@ -16,9 +16,19 @@
 package org.openlmis.requisition.service;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRVirtualizer;
 import net.sf.jasperreports.engine.JasperPrint;
 import org.junit.Test;
 
@@ -41,4 +51,56 @@ public class JasperExporterTest {
     JasperHtmlExporter exporter = new JasperHtmlExporter(mock(JasperPrint.class));
     assertNotNull(exporter.exportReport());
   }
+
+  @Test
+  public void pdfExportReportShouldReturnData() throws JRException {
+    JasperPdfExporter exporter = new JasperPdfExporter(new JasperPrint());
+    assertNotNull(exporter.exportReport());
+  }
+
+  @Test
+  public void virtualizedExportReportShouldCleanUpVirtualizer() throws JRException {
+    JRVirtualizer virtualizer = mock(JRVirtualizer.class);
+    JasperExporter exporter = new VirtualizedJasperExporter(
+        new JasperCsvExporter(mock(JasperPrint.class)), virtualizer);
+
+    assertNotNull(exporter.exportReport());
+    verify(virtualizer).cleanup();
+  }
+
+  @Test
+  public void virtualizedExportReportShouldCleanUpVirtualizerWhenExportFails()
+      throws JRException {
+    JRVirtualizer virtualizer = mock(JRVirtualizer.class);
+    JasperExporter failing = mock(JasperExporter.class);
+    doThrow(new JRException("export failed")).when(failing).exportReport(any());
+
+    try {
+      new VirtualizedJasperExporter(failing, virtualizer).exportReport(new ByteArrayOutputStream());
+      fail("Expected JRException");
+    } catch (JRException ex) {
+      verify(virtualizer).cleanup();
+    }
+  }
+
+  @Test
+  public void csvExportReportShouldNotCloseStream() throws JRException, IOException {
+    OutputStream outputStream = spy(new ByteArrayOutputStream());
+    new JasperCsvExporter(mock(JasperPrint.class)).exportReport(outputStream);
+    verify(outputStream, never()).close();
+  }
+
+  @Test
+  public void xlsExportReportShouldNotCloseStream() throws JRException, IOException {
+    OutputStream outputStream = spy(new ByteArrayOutputStream());
+    new JasperXlsExporter(new JasperPrint()).exportReport(outputStream);
+    verify(outputStream, never()).close();
+  }
+
+  @Test
+  public void htmlExportReportShouldNotCloseStream() throws JRException, IOException {
+    OutputStream outputStream = spy(new ByteArrayOutputStream());
+    new JasperHtmlExporter(mock(JasperPrint.class)).exportReport(outputStream);
+    verify(outputStream, never()).close();
+  }
 }
@@ -16,13 +16,21 @@
 package org.openlmis.requisition.service;
 
 import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,9 +40,11 @@ import static org.openlmis.requisition.domain.requisition.RequisitionStatus.INIT
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.RELEASED;
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.RELEASED_WITHOUT_ORDER;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -52,8 +62,11 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -103,6 +116,8 @@ public class JasperReportsViewServiceTest {
   private static final String DEFAULT_LOCALE = "en";
   private static final String CURRENCY_LOCALE = "US";
   private static final String PARAM_KEY_FORMAT = "format";
+  private static final String CSV = "csv";
+  private static final String DATASOURCE = "datasource";
 
   @Mock
   private ProgramReferenceDataService programReferenceDataService;
@@ -134,6 +149,12 @@ public class JasperReportsViewServiceTest {
   @Mock
   private JasperPrint jasperPrint;
 
+  @Mock
+  private JasperExporter exporter;
+
+  @Mock
+  private JRAbstractLRUVirtualizer virtualizer;
+
   @Mock
   private RequisitionReportDtoBuilder requisitionReportDtoBuilder;
 
@@ -184,63 +205,165 @@ public class JasperReportsViewServiceTest {
         .fillJasperReport(any(JasperReport.class), anyMap(), nullable(Connection.class));
     doReturn(jasperPrint).when(service)
         .fillJasperReport(any(JasperReport.class), anyMap(), any(JRDataSource.class));
-    doReturn(expectedReportData).when(service).exportJasperReportToPdf(any(JasperPrint.class));
 
     MockitoAnnotations.initMocks(this);
+
+    doReturn(exporter).when(service)
+        .createExporter(any(JasperPrint.class), nullable(String.class));
+    doReturn(expectedReportData).when(exporter).exportReport();
+    doAnswer(invocation -> {
+      invocation.getArgument(0, OutputStream.class).write(expectedReportData);
+      return null;
+    }).when(exporter).exportReport(any(OutputStream.class));
   }
 
   @Test
-  public void generateReportShouldReturnPdfReportAsDefault() throws Exception {
-    //given
-
+  public void fillReportShouldExportPdfReportAsDefault() throws Exception {
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
-    
+    byte[] reportData = fillAndExport(reportParams);
+
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, reportData);
+    verify(service).createExporter(any(JasperPrint.class), isNull());
   }
 
   @Test
-  public void generateReportShouldReturnCsvReport() throws Exception {
+  public void fillReportShouldExportCsvReport() throws Exception {
     //given
-    reportParams.put(PARAM_KEY_FORMAT, "csv");
-    doReturn(expectedReportData).when(service).exportJasperReportToCsv(any(JasperPrint.class));
+    reportParams.put(PARAM_KEY_FORMAT, CSV);
 
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
+    byte[] reportData = fillAndExport(reportParams);
 
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, reportData);
+    verify(service).createExporter(any(JasperPrint.class), eq(CSV));
   }
 
   @Test
-  public void generateReportShouldReturnXlsReport() throws Exception {
+  public void fillReportShouldExportXlsReport() throws Exception {
     //given
     reportParams.put(PARAM_KEY_FORMAT, "xls");
-    doReturn(expectedReportData).when(service).exportJasperReportToXls(any(JasperPrint.class));
 
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
+    byte[] reportData = fillAndExport(reportParams);
 
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, reportData);
+    verify(service).createExporter(any(JasperPrint.class), eq("xls"));
   }
 
   @Test
-  public void generateReportShouldReturnHtmlReport() throws Exception {
+  public void fillReportShouldExportHtmlReport() throws Exception {
     //given
     reportParams.put(PARAM_KEY_FORMAT, "html");
-    doReturn(expectedReportData).when(service).exportJasperReportToHtml(any(JasperPrint.class));
 
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
+    byte[] reportData = fillAndExport(reportParams);
 
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, reportData);
+    verify(service).createExporter(any(JasperPrint.class), eq("html"));
+  }
+
+  @Test
+  public void fillReportShouldReturnExporterWithoutExportingReport() throws Exception {
+    //given
+    reportParams.put(PARAM_KEY_FORMAT, CSV);
+
+    //when
+    JasperExporter result = service.fillReport(jasperTemplate, reportParams);
+
+    //then
+    assertEquals(exporter, result);
+    verify(service).createExporter(any(JasperPrint.class), eq(CSV));
+    verify(exporter, never()).exportReport();
+  }
+
+  @Test
+  public void fillReportShouldUseVirtualizerWhenRowCountExceedsThreshold() throws Exception {
+    //given
+    ReflectionTestUtils.setField(service, "virtualizerRowThreshold", 1);
+    reportParams.put(DATASOURCE, Arrays.asList(facility, facility));
+    doReturn(virtualizer).when(service).createVirtualizer();
+
+    //when
+    final JasperExporter result = service.fillReport(jasperTemplate, reportParams);
+
+    //then
+    assertEquals(virtualizer, reportParams.get(JRParameter.REPORT_VIRTUALIZER));
+    verify(virtualizer).setReadOnly(true);
+    verify(virtualizer, never()).cleanup();
+
+    result.exportReport();
+    verify(virtualizer).cleanup();
+  }
+
+  @Test
+  public void fillReportShouldUseVirtualizerWhenTemplateDeclaresIt() throws Exception {
+    //given
+    doReturn(jasperReport).when(service).readReportData(any(ObjectInputStream.class));
+    when(jasperReport.getProperty(JasperReportsViewService.VIRTUALIZER_PROPERTY))
+        .thenReturn("true");
+    doReturn(virtualizer).when(service).createVirtualizer();
+
+    //when
+    service.fillReport(jasperTemplate, reportParams);
+
+    //then
+    assertEquals(virtualizer, reportParams.get(JRParameter.REPORT_VIRTUALIZER));
+  }
+
+  @Test
+  public void fillReportShouldNotUseVirtualizerWhenRowCountIsBelowThreshold() throws Exception {
+    //given
+    ReflectionTestUtils.setField(service, "virtualizerRowThreshold", 2);
+    reportParams.put(DATASOURCE, Arrays.asList(facility, facility));
+
+    //when
+    JasperExporter result = service.fillReport(jasperTemplate, reportParams);
+
+    //then
+    assertEquals(exporter, result);
+    assertFalse(reportParams.containsKey(JRParameter.REPORT_VIRTUALIZER));
+    verify(service, never()).createVirtualizer();
+  }
+
+  @Test
+  public void fillReportShouldCleanUpVirtualizerWhenFillFails() throws Exception {
+    //given
+    ReflectionTestUtils.setField(service, "virtualizerRowThreshold", 1);
+    reportParams.put(DATASOURCE, Arrays.asList(facility, facility));
+    doReturn(virtualizer).when(service).createVirtualizer();
+    doThrow(new JRException("fill failed")).when(service)
+        .fillJasperReport(any(JasperReport.class), anyMap(), any(JRDataSource.class));
+
+    //when
+    try {
+      service.fillReport(jasperTemplate, reportParams);
+      Assert.fail("Expected JasperReportViewException");
+    } catch (JasperReportViewException ex) {
+      //then
+      verify(virtualizer).cleanup();
+    }
+  }
+
+  @Test
+  public void createExporterShouldReturnExporterForFormat() {
+    JasperPrint print = new JasperPrint();
+
+    assertThat(new JasperReportsViewService().createExporter(print, CSV),
+        instanceOf(JasperCsvExporter.class));
+    assertThat(new JasperReportsViewService().createExporter(print, "xls"),
+        instanceOf(JasperXlsExporter.class));
+    assertThat(new JasperReportsViewService().createExporter(print, "html"),
+        instanceOf(JasperHtmlExporter.class));
+    assertThat(new JasperReportsViewService().createExporter(print, null),
+        instanceOf(JasperPdfExporter.class));
   }
 
   @Test
-  public void generateTimelinessReportShouldSetViewParams() throws Exception {
+  public void fillTimelinessReportShouldSetViewParams() throws Exception {
     //given
     UUID districtId = UUID.randomUUID();
     reportParams.put(PROGRAM, program.getId().toString());
@@ -251,14 +374,15 @@ public class JasperReportsViewServiceTest {
     when(geographicZoneReferenceDataService.findOne(districtId)).thenReturn(district);
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    JasperExporter result = service.fillTimelinessReport(jasperTemplate, reportParams);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillJasperReport(any(JasperReport.class), paramArg.capture(),
+        any(JRDataSource.class));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertEquals(exporter, result);
     Assert.assertEquals(Collections.emptyList(), facilities);
     Assert.assertEquals(program, outputParams.get(PROGRAM));
     Assert.assertEquals(period, outputParams.get(PERIOD));
@@ -266,8 +390,8 @@ public class JasperReportsViewServiceTest {
   }
 
   @Test
-  public void generateTimelinessReportShouldGetReportWithActiveFacilitiesMissingRnR()
-      throws JasperReportViewException {
+  public void fillTimelinessReportShouldGetReportWithActiveFacilitiesMissingRnR()
+      throws Exception {
     // given
     reportParams.put(PROGRAM, program.getId().toString());
     reportParams.put(PERIOD, period.getId().toString());
@@ -293,14 +417,15 @@ public class JasperReportsViewServiceTest {
     when(facilityReferenceDataService.findAll()).thenReturn(facilitiesToReturn);
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    JasperExporter result = service.fillTimelinessReport(jasperTemplate, reportParams);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillJasperReport(any(JasperReport.class), paramArg.capture(),
+        any(JRDataSource.class));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertEquals(exporter, result);
     assertEquals(2, facilities.size());
     List<UUID> facilityIds = facilities.stream()
         .map(FacilityDto::getId).collect(Collectors.toList());
@@ -309,8 +434,8 @@ public class JasperReportsViewServiceTest {
   }
 
   @Test
-  public void generateTimelinessReportShouldGetReportWithFacilitiesFromSpecifiedDistrict()
-      throws JasperReportViewException {
+  public void fillTimelinessReportShouldGetReportWithFacilitiesFromSpecifiedDistrict()
+      throws Exception {
     //given
     UUID districtId = UUID.randomUUID();
     reportParams.put(DISTRICT, districtId.toString());
@@ -338,14 +463,15 @@ public class JasperReportsViewServiceTest {
         .thenReturn(Arrays.asList(facility, childFacility));
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    JasperExporter result = service.fillTimelinessReport(jasperTemplate, reportParams);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillJasperReport(any(JasperReport.class), paramArg.capture(),
+        any(JRDataSource.class));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertEquals(exporter, result);
     assertEquals(2, facilities.size());
     List<UUID> facilityIds = facilities.stream()
         .map(FacilityDto::getId).collect(Collectors.toList());
@@ -354,8 +480,8 @@ public class JasperReportsViewServiceTest {
   }
 
   @Test
-  public void generateTimelinessReportShouldGetReportWithFacilitiesAllZonesIfDistrictNotSpecified()
-      throws JasperReportViewException {
+  public void fillTimelinessReportShouldGetReportWithFacilitiesAllZonesIfDistrictNotSpecified()
+      throws Exception {
     //given
     reportParams.put(PROGRAM, program.getId().toString());
     reportParams.put(PERIOD, period.getId().toString());
@@ -377,14 +503,15 @@ public class JasperReportsViewServiceTest {
     when(facilityReferenceDataService.findAll()).thenReturn(facilitiesToReturn);
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    JasperExporter result = service.fillTimelinessReport(jasperTemplate, reportParams);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillJasperReport(any(JasperReport.class), paramArg.capture(),
+        any(JRDataSource.class));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertEquals(exporter, result);
     assertEquals(4, facilities.size());
     List<UUID> facilityIds = facilities.stream()
         .map(FacilityDto::getId).collect(Collectors.toList());
@@ -394,8 +521,8 @@ public class JasperReportsViewServiceTest {
   }
 
   @Test
-  public void generateTimelinessReportShouldGetReportWithSortedFacilities()
-      throws JasperReportViewException {
+  public void fillTimelinessReportShouldGetReportWithSortedFacilities()
+      throws Exception {
     //given
     reportParams.put(PROGRAM, program.getId().toString());
     reportParams.put(PERIOD, period.getId().toString());
@@ -415,14 +542,15 @@ public class JasperReportsViewServiceTest {
         facility2B, facility2A, facility1A, facility1B));
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    JasperExporter result = service.fillTimelinessReport(jasperTemplate, reportParams);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillJasperReport(any(JasperReport.class), paramArg.capture(),
+        any(JRDataSource.class));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertEquals(exporter, result);
     assertEquals(4, facilities.size());
     assertEquals(facility1A.getId(), facilities.get(0).getId());
     assertEquals(facility1B.getId(), facilities.get(1).getId());
@@ -431,7 +559,7 @@ public class JasperReportsViewServiceTest {
   }
 
   @Test
-  public void generateReportingRateReportShouldSetParams() throws Exception {
+  public void fillReportingRateReportShouldSetParams() throws Exception {
     UUID districtId = UUID.randomUUID();
     reportParams.put("Program", program.getId().toString());
     reportParams.put("Period", period.getId().toString());
@@ -439,7 +567,7 @@ public class JasperReportsViewServiceTest {
     reportParams.put("DueDays", "10");
     when(geographicZoneReferenceDataService.findOne(districtId)).thenReturn(district);
 
-    service.generateReportingRateReport(jasperTemplate, reportParams);
+    service.fillReportingRateReport(jasperTemplate, reportParams);
 
     assertEquals(DATE_FORMAT, reportParams.get("dateFormat"));
     assertEquals(createDecimalFormat(), reportParams.get("decimalFormat"));
@@ -465,6 +593,12 @@ public class JasperReportsViewServiceTest {
         outputParams.get("currencyDecimalFormat"));
   }
 
+  private byte[] fillAndExport(Map<String, Object> params) throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    service.fillReport(jasperTemplate, params).exportReport(outputStream);
+    return outputStream.toByteArray();
+  }
+
   private List<FacilityDto> extractFacilitiesFromOutputParams(Map<String, Object> outputParams) {
     return (List<FacilityDto>) outputParams.get("datasource");
   }
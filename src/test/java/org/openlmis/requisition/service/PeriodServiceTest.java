@@ -32,6 +32,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.APPROVED;
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.AUTHORIZED;
@@ -46,7 +47,6 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -56,8 +56,6 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.openlmis.requisition.domain.requisition.Requisition;
-import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
@@ -88,6 +86,7 @@ public class PeriodServiceTest {
   private UUID facilityId = UUID.randomUUID();
   private UUID facility2Id = UUID.randomUUID();
   private UUID requisitionId = UUID.randomUUID();
+  private List<RequisitionPeriod> requisitionPeriods = new ArrayList<>();
 
   private ProcessingPeriodDto currentPeriod;
   private ProcessingPeriodDto period1;
@@ -387,8 +386,7 @@ public class PeriodServiceTest {
   public void shouldThrowExceptionWhenPreviousReqHasInitiatedStatus() {
     setMockForFindPeriod();
 
-    mockRequisitionFound(buildRequisition(INITIATED), currentPeriod.getId(), facilityId, programId);
-    mockNoRequisitionFound(period1.getId(), facilityId, programId);
+    mockRequisitionFound(INITIATED, currentPeriod.getId());
 
     periodService.findPeriod(programId, facilityId, null, false);
   }
@@ -397,8 +395,7 @@ public class PeriodServiceTest {
   public void shouldThrowExceptionWhenPreviousReqHasSubmittedStatus() {
     setMockForFindPeriod();
 
-    mockRequisitionFound(buildRequisition(SUBMITTED), currentPeriod.getId(), facilityId, programId);
-    mockNoRequisitionFound(period1.getId(), facilityId, programId);
+    mockRequisitionFound(SUBMITTED, currentPeriod.getId());
 
     periodService.findPeriod(programId, facilityId, null, false);
   }
@@ -407,9 +404,7 @@ public class PeriodServiceTest {
   public void shouldSucceedWhenPreviousReqHasAuthorizedStatus() {
     setMockForFindPeriod();
 
-    mockRequisitionFound(buildRequisition(AUTHORIZED), currentPeriod.getId(), facilityId,
-        programId);
-    mockNoRequisitionFound(period1.getId(), facilityId, programId);
+    mockRequisitionFound(AUTHORIZED, currentPeriod.getId());
 
     ProcessingPeriodDto period = periodService.findPeriod(programId, facilityId, null, false);
     assertEquals(period1, period);
@@ -419,8 +414,7 @@ public class PeriodServiceTest {
   public void shouldSucceedWhenPreviousReqHasApprovedStatus() {
     setMockForFindPeriod();
 
-    mockRequisitionFound(buildRequisition(APPROVED), currentPeriod.getId(), facilityId, programId);
-    mockNoRequisitionFound(period1.getId(), facilityId, programId);
+    mockRequisitionFound(APPROVED, currentPeriod.getId());
 
     ProcessingPeriodDto period = periodService.findPeriod(programId, facilityId, null, false);
     assertEquals(period1, period);
@@ -430,8 +424,7 @@ public class PeriodServiceTest {
   public void shouldSucceedWhenPreviousReqHasSkippedStatus() {
     setMockForFindPeriod();
 
-    mockRequisitionFound(buildRequisition(SKIPPED), currentPeriod.getId(), facilityId, programId);
-    mockNoRequisitionFound(period1.getId(), facilityId, programId);
+    mockRequisitionFound(SKIPPED, currentPeriod.getId());
 
     ProcessingPeriodDto period = periodService.findPeriod(programId, facilityId, null, false);
     assertEquals(period1, period);
@@ -441,10 +434,8 @@ public class PeriodServiceTest {
   public void shouldSucceedWhenRequisitionForNextPeriodIsPresent() {
     setMockForFindPeriod();
 
-    mockRequisitionFound(buildRequisition(AUTHORIZED), currentPeriod.getId(), facilityId,
-        programId);
-    mockNoRequisitionFound(period1.getId(), facilityId, programId);
-    mockRequisitionFound(buildRequisition(INITIATED), period2.getId(), facilityId, programId);
+    mockRequisitionFound(AUTHORIZED, currentPeriod.getId());
+    mockRequisitionFound(INITIATED, period2.getId());
 
     ProcessingPeriodDto period = periodService.findPeriod(programId, facilityId, null, false);
     assertEquals(period1, period);
@@ -457,8 +448,7 @@ public class PeriodServiceTest {
 
     // we mock the requisition search to return a requisition for the first period
     // but not for the second
-    mockRequisitionFound(buildRequisition(APPROVED), currentPeriod.getId(), facilityId, programId);
-    mockNoRequisitionFound(period1.getId(), facilityId, programId);
+    mockRequisitionFound(APPROVED, currentPeriod.getId());
 
     //when
     ProcessingPeriodDto period = periodService.findPeriod(programId, facilityId, null, false);
@@ -474,7 +464,7 @@ public class PeriodServiceTest {
 
     // we mock the requisition search to return a requisition for the first period
     // in facility with ID facilityId
-    mockRequisitionFound(buildRequisition(INITIATED), currentPeriod.getId(), facilityId, programId);
+    mockRequisitionFound(INITIATED, currentPeriod.getId());
 
     //when
     ProcessingPeriodDto period = periodService.findPeriod(programId, facility2Id, null, false);
@@ -484,6 +474,20 @@ public class PeriodServiceTest {
     assertEquals(currentPeriod, period);
   }
 
+  @Test
+  public void shouldFindPeriodForInitiateWithSingleRequisitionQuery() {
+    setMockForFindPeriod();
+
+    mockRequisitionFound(APPROVED, currentPeriod.getId());
+    mockRequisitionFound(AUTHORIZED, period1.getId());
+
+    ProcessingPeriodDto period = periodService.findPeriod(programId, facilityId, null, false);
+
+    assertEquals(period2, period);
+    verify(requisitionRepository).searchRequisitionIdAndStatusPairs(facilityId, programId, false);
+    verifyNoMoreInteractions(requisitionRepository);
+  }
+
   private ProcessingPeriodDto createPeriod(int plusMonth) {
     return new ProcessingPeriodDtoDataBuilder()
         .withStartDate(LocalDate.now().plusMonths(plusMonth).with(firstDayOfMonth()))
@@ -492,28 +496,13 @@ public class PeriodServiceTest {
         .buildAsDto();
   }
 
-  private Requisition buildRequisition(RequisitionStatus status) {
-    return new RequisitionDataBuilder()
-        .withStatus(status)
-        .build();
-  }
-
   private RequisitionPeriod createRequisitionPeriod(UUID requisitionId, RequisitionStatus status,
       UUID periodId) {
     return new RequisitionPeriod(requisitionId, status, periodId);
   }
 
-  private void mockRequisitionFound(
-      Requisition requisition, UUID periodId, UUID facilityId, UUID programId) {
-    doReturn(singletonList(requisition))
-        .when(requisitionRepository)
-        .searchRequisitions(periodId, facilityId, programId, false);
-  }
-
-  private void mockNoRequisitionFound(UUID periodId, UUID facilityId, UUID programId) {
-    doReturn(Collections.emptyList())
-        .when(requisitionRepository)
-        .searchRequisitions(periodId, facilityId, programId, false);
+  private void mockRequisitionFound(RequisitionStatus status, UUID periodId) {
+    requisitionPeriods.add(createRequisitionPeriod(UUID.randomUUID(), status, periodId));
   }
 
   private void setMockForFindPeriod() {
@@ -526,6 +515,8 @@ public class PeriodServiceTest {
         .thenReturn(periods);
     when(periodReferenceDataService.searchByProgramAndFacility(programId, facility2Id))
         .thenReturn(periods);
+    when(requisitionRepository.searchRequisitionIdAndStatusPairs(facilityId, programId, false))
+        .thenReturn(requisitionPeriods);
   }
 
 }
@@ -18,6 +18,7 @@ package org.openlmis.requisition.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_CANNOT_UPDATE_REQUISITION;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_NO_FOLLOWING_PERMISSION;
@@ -46,10 +47,13 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.dto.ReleasableRequisitionDto;
 import org.openlmis.requisition.errorhandling.FailureType;
 import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.service.referencedata.PermissionStringDto;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
 import org.openlmis.requisition.testutils.ReleasableRequisitionDtoDataBuilder;
 import org.openlmis.requisition.utils.Message;
 
@@ -283,6 +287,46 @@ public class PermissionServiceTest {
     assertEquals(new Message(ERROR_CANNOT_UPDATE_REQUISITION), result.getError().getMessage());
   }
 
+  @Test
+  public void canUpdateRequisitionIfPermissionStringExists() {
+    // given
+    given(requisition.getStatus()).willReturn(RequisitionStatus.AUTHORIZED);
+
+    PermissionStringIndex index = PermissionStringIndex.of(PermissionStringDto.from(
+        Lists.newArrayList(REQUISITION_APPROVE + '|' + facilityId + '|' + programId)));
+
+    // expect
+    expectValidationSucceeds(permissionService.canUpdateRequisition(requisition, index));
+    verifyZeroInteractions(rightAssignmentPermissionValidator, roleAssignmentPermissionValidator);
+  }
+
+  @Test
+  public void canUpdateRequisitionByRoleIfPermissionStringDoesNotExist() {
+    // given
+    hasRole(REQUISITION_CREATE, true);
+
+    given(requisition.getStatus()).willReturn(RequisitionStatus.INITIATED);
+
+    // expect
+    expectValidationSucceeds(
+        permissionService.canUpdateRequisition(requisition, PermissionStringIndex.empty()));
+  }
+
+  @Test
+  public void cannotUpdateRequisitionIfPermissionStringAndRoleDoNotExist() {
+    // given
+    hasRole(REQUISITION_AUTHORIZE, false);
+
+    given(requisition.getStatus()).willReturn(RequisitionStatus.SUBMITTED);
+
+    PermissionStringIndex index = PermissionStringIndex.of(PermissionStringDto.from(
+        Lists.newArrayList(REQUISITION_CREATE + '|' + facilityId + '|' + programId)));
+
+    // expect
+    expectMissingPermissionToUpdate(permissionService.canUpdateRequisition(requisition, index),
+        RequisitionStatus.SUBMITTED, REQUISITION_AUTHORIZE);
+  }
+
   @Test
   public void canSubmitRequisition() {
     // given
@@ -443,6 +487,25 @@ public class PermissionServiceTest {
     expectMissingPermission(permissionService.canViewRequisition(requisitionId), REQUISITION_VIEW);
   }
 
+  @Test
+  public void canViewRequisitionVersion() {
+    // given
+    hasRole(REQUISITION_VIEW, true);
+
+    // expect
+    expectValidationSucceeds(permissionService.canViewRequisition(requisitionVersion()));
+  }
+
+  @Test
+  public void cannotViewRequisitionVersion() {
+    // given
+    hasRole(REQUISITION_VIEW, false);
+
+    // expect
+    expectMissingPermission(permissionService.canViewRequisition(requisitionVersion()),
+        REQUISITION_VIEW);
+  }
+
   @Test
   public void canConvertToOrder() {
     // given
@@ -543,6 +606,10 @@ public class PermissionServiceTest {
         .willReturn(getValidationResult(rightName, hasRight));
   }
 
+  private RequisitionVersion requisitionVersion() {
+    return new RequisitionVersion(requisitionId, 1L, facilityId, programId, null, null);
+  }
+
   private ValidationResult getValidationResult(String rightName, boolean success) {
     return success
         ? ValidationResult.success()
@@ -0,0 +1,286 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.exception.ContentNotFoundMessageException;
+import org.openlmis.requisition.exception.TooManyRequestsMessageException;
+import org.openlmis.requisition.i18n.MessageKeys;
+import org.openlmis.requisition.repository.custom.ReportJobRepository;
+import org.openlmis.requisition.service.ReportJobService.ReportGenerator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SuppressWarnings("PMD.TooManyMethods")
+@RunWith(MockitoJUnitRunner.class)
+public class ReportJobServiceTest {
+  private static final Instant NOW = Instant.parse("2021-03-01T10:00:00Z");
+  private static final ZoneId UTC = ZoneId.of("UTC");
+  private static final byte[] REPORT = {1, 2, 3};
+  private static final String PDF = "pdf";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Mock
+  private ReportJobRepository reportJobRepository;
+
+  private ReportJobService service = new ReportJobService();
+
+  private JasperTemplate template = new JasperTemplate();
+  private Map<String, Object> parameters = Collections.singletonMap("program", "1");
+  private UUID userId = UUID.randomUUID();
+  private CountDownLatch latch = new CountDownLatch(1);
+  private ReportGenerator generator = outputStream -> outputStream.write(REPORT);
+  private byte[] savedResult;
+
+  @Before
+  public void setUp() throws IOException {
+    template.setId(UUID.randomUUID());
+    template.setName("Reporting Rate");
+
+    doAnswer(invocation -> {
+      savedResult = Files.readAllBytes(invocation.getArgument(1, Path.class));
+      return null;
+    }).when(reportJobRepository).saveResult(any(UUID.class), any(Path.class));
+
+    setClock(NOW);
+    ReflectionTestUtils.setField(service, "reportJobRepository", reportJobRepository);
+    ReflectionTestUtils.setField(service, "threads", 1);
+    ReflectionTestUtils.setField(service, "queueCapacity", 1);
+    ReflectionTestUtils.setField(service, "maxActivePerUser", 2);
+    ReflectionTestUtils.setField(service, "resultTtlMinutes", 60L);
+    ReflectionTestUtils.setField(service, "directory", folder.getRoot().getPath());
+    service.init();
+  }
+
+  @After
+  public void tearDown() {
+    latch.countDown();
+    service.destroy();
+  }
+
+  @Test
+  public void shouldGenerateReportInBackgroundAndStoreResultInDatabase() throws Exception {
+    ReportJob job = service.submit(userId, template, PDF, parameters, generator);
+
+    awaitFinished();
+
+    assertThat(job.getStatus()).isEqualTo(ReportJob.Status.COMPLETED);
+    assertThat(job.getTemplateId()).isEqualTo(template.getId());
+    assertThat(job.getFinishedDate()).isNotNull();
+    assertThat(savedResult).isEqualTo(REPORT);
+    assertThat(folder.getRoot().list()).isEmpty();
+    verify(reportJobRepository).insert(job, userId);
+    verify(reportJobRepository, times(2)).update(job);
+  }
+
+  @Test
+  public void shouldMarkJobAsFailedWhenReportCanNotBeGenerated() throws Exception {
+    ReportJob job = service.submit(userId, template, PDF, parameters, outputStream -> {
+      throw new IllegalStateException("report failed");
+    });
+
+    awaitFinished();
+
+    assertThat(job.getStatus()).isEqualTo(ReportJob.Status.FAILED);
+    assertThat(job.getErrorMessage()).isEqualTo("report failed");
+    assertThat(folder.getRoot().list()).isEmpty();
+    verify(reportJobRepository, never()).saveResult(any(UUID.class), any(Path.class));
+    verify(reportJobRepository, times(2)).update(job);
+  }
+
+  @Test
+  public void shouldShareJobBetweenIdenticalRequests() {
+    UUID otherUserId = UUID.randomUUID();
+
+    ReportJob job = service.submit(userId, template, PDF, parameters, blockingGenerator());
+    ReportJob other = service.submit(otherUserId, template, PDF,
+        Collections.singletonMap("program", "1"), blockingGenerator());
+
+    assertThat(other).isSameAs(job);
+    verify(reportJobRepository).insert(job, userId);
+    verify(reportJobRepository).addRequester(job.getId(), otherUserId);
+  }
+
+  @Test
+  public void shouldNotShareJobBetweenRequestsWithDifferentParameters() {
+    ReportJob job = service.submit(userId, template, PDF, parameters, blockingGenerator());
+    ReportJob other = service.submit(userId, template, PDF,
+        Collections.singletonMap("program", "2"), blockingGenerator());
+
+    assertThat(other).isNotSameAs(job);
+  }
+
+  @Test
+  public void shouldNotShareJobBetweenRequestsWithDifferentFormats() {
+    ReportJob job = service.submit(userId, template, PDF, parameters, blockingGenerator());
+    ReportJob other = service.submit(userId, template, "csv", parameters, blockingGenerator());
+
+    assertThat(other).isNotSameAs(job);
+  }
+
+  @Test
+  public void shouldStartNewJobWhenPreviousIdenticalJobHasFinished() throws Exception {
+    ReportJob job = service.submit(userId, template, PDF, parameters, generator);
+    awaitFinished();
+
+    ReportJob other = service.submit(userId, template, PDF, parameters, generator);
+
+    assertThat(other).isNotSameAs(job);
+  }
+
+  @Test
+  public void shouldRejectJobWhenUserHasTooManyUnfinishedJobs() {
+    when(reportJobRepository.countUnfinished(userId)).thenReturn(2L);
+
+    assertThatThrownBy(() -> service.submit(userId, template, PDF, parameters,
+        blockingGenerator()))
+        .isInstanceOf(TooManyRequestsMessageException.class)
+        .hasMessageContaining(MessageKeys.ERROR_REPORT_JOB_USER_LIMIT_EXCEEDED);
+
+    verify(reportJobRepository, never()).insert(any(ReportJob.class), any(UUID.class));
+  }
+
+  @Test
+  public void shouldRejectJobWhenQueueIsFull() {
+    service.submit(UUID.randomUUID(), template, PDF, parameters, blockingGenerator());
+    service.submit(UUID.randomUUID(), template, "csv", parameters, blockingGenerator());
+
+    assertThatThrownBy(() -> service.submit(userId, template, "xls", parameters,
+        blockingGenerator()))
+        .isInstanceOf(TooManyRequestsMessageException.class)
+        .hasMessageContaining(MessageKeys.ERROR_REPORT_JOB_QUEUE_FULL);
+
+    verify(reportJobRepository).update(argThat(job -> "xls".equals(job.getFormat())
+        && job.getStatus() == ReportJob.Status.FAILED));
+  }
+
+  @Test
+  public void shouldReturnJobStoredInDatabase() {
+    ReportJob job = completedJob();
+    when(reportJobRepository.find(job.getId(), userId)).thenReturn(job);
+
+    assertThat(service.getJob(job.getId(), userId)).isSameAs(job);
+  }
+
+  @Test
+  public void shouldNotReturnJobThatDoesNotExistOrWasRequestedByOtherUser() {
+    assertThatThrownBy(() -> service.getJob(UUID.randomUUID(), userId))
+        .isInstanceOf(ContentNotFoundMessageException.class)
+        .hasMessageContaining(MessageKeys.ERROR_REPORT_JOB_NOT_FOUND);
+  }
+
+  @Test
+  public void shouldWriteResultStoredInDatabase() throws Exception {
+    ReportJob job = completedJob();
+    OutputStream outputStream = new ByteArrayOutputStream();
+    when(reportJobRepository.writeResult(job.getId(), outputStream)).thenReturn(true);
+
+    service.writeResult(job, outputStream);
+
+    verify(reportJobRepository).writeResult(job.getId(), outputStream);
+  }
+
+  @Test
+  public void shouldNotWriteResultThatHasBeenRemoved() {
+    ReportJob job = completedJob();
+    OutputStream outputStream = new ByteArrayOutputStream();
+
+    assertThatThrownBy(() -> service.writeResult(job, outputStream))
+        .isInstanceOf(ContentNotFoundMessageException.class)
+        .hasMessageContaining(MessageKeys.ERROR_REPORT_JOB_NOT_FOUND);
+  }
+
+  @Test
+  public void shouldRemoveJobsThatHaveExpired() {
+    setClock(NOW.plusSeconds(61 * 60));
+
+    service.removeExpiredJobs();
+
+    verify(reportJobRepository).deleteExpired(
+        ZonedDateTime.ofInstant(NOW.plusSeconds(60), UTC));
+  }
+
+  private ReportJob completedJob() {
+    return new ReportJob(UUID.randomUUID(), template.getId(), template.getName(), PDF,
+        ReportJob.Status.COMPLETED, ZonedDateTime.now(), ZonedDateTime.now(), null);
+  }
+
+  private void setClock(Instant instant) {
+    ReflectionTestUtils.setField(service, "clock", Clock.fixed(instant, UTC));
+  }
+
+  private ReportGenerator blockingGenerator() {
+    return outputStream -> {
+      try {
+        latch.await(5, TimeUnit.SECONDS);
+        outputStream.write(REPORT);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(ex);
+      }
+    };
+  }
+
+  private void awaitFinished() throws InterruptedException {
+    Map<?, ?> activeJobs = (Map<?, ?>) ReflectionTestUtils.getField(service, "activeJobs");
+    long deadline = System.currentTimeMillis() + 5000;
+
+    while (System.currentTimeMillis() < deadline) {
+      synchronized (service) {
+        if (activeJobs.isEmpty()) {
+          return;
+        }
+      }
+
+      Thread.sleep(10);
+    }
+
+    assertThat(activeJobs).isEmpty();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class RequestCoalescerTest {
+  private static final String KEY = "key";
+
+  private RequestCoalescer coalescer = new RequestCoalescer();
+  private ExecutorService executor = Executors.newFixedThreadPool(2);
+  private AtomicInteger calls = new AtomicInteger();
+  private CountDownLatch started = new CountDownLatch(1);
+  private CountDownLatch release = new CountDownLatch(1);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldExecuteIdenticalConcurrentCallsOnce() throws Exception {
+    final Future<String> first = executor.submit(() -> coalescer.execute(KEY, this::slowCall));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    final Future<String> second = executor.submit(() -> coalescer.execute(KEY, this::slowCall));
+    waitForCoalescedCall();
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(coalescer.getExecutedCalls()).isEqualTo(1);
+    assertThat(coalescer.getCoalescedCalls()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldPassExceptionToAllWaiters() throws Exception {
+    final Future<String> first = executor.submit(() -> coalescer.execute(KEY, this::failingCall));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    final Future<String> second = executor.submit(() -> coalescer.execute(KEY, this::failingCall));
+    waitForCoalescedCall();
+    release.countDown();
+
+    assertThatCallFailed(first);
+    assertThatCallFailed(second);
+    assertThat(calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldExecuteCallsWithDifferentKeys() {
+    coalescer.execute(KEY, () -> calls.incrementAndGet());
+    coalescer.execute("other", () -> calls.incrementAndGet());
+
+    assertThat(calls.get()).isEqualTo(2);
+    assertThat(coalescer.getCoalescedCalls()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldNotCacheResultAfterCallCompletes() {
+    coalescer.execute(KEY, () -> calls.incrementAndGet());
+    coalescer.execute(KEY, () -> calls.incrementAndGet());
+
+    assertThat(calls.get()).isEqualTo(2);
+    assertThat(coalescer.getExecutedCalls()).isEqualTo(2);
+  }
+
+  private String slowCall() {
+    calls.incrementAndGet();
+    started.countDown();
+    awaitRelease();
+
+    return "result";
+  }
+
+  private String failingCall() {
+    slowCall();
+    throw new IllegalStateException("failed");
+  }
+
+  private void awaitRelease() {
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void waitForCoalescedCall() throws InterruptedException {
+    for (int i = 0; i < 500 && coalescer.getCoalescedCalls() == 0; ++i) {
+      Thread.sleep(10);
+    }
+  }
+
+  private void assertThatCallFailed(Future<String> future) throws InterruptedException {
+    try {
+      future.get(5, TimeUnit.SECONDS);
+    } catch (Exception ex) {
+      assertThat(ex).hasRootCauseInstanceOf(IllegalStateException.class);
+      return;
+    }
+
+    throw new AssertionError("call should fail");
+  }
+
+}
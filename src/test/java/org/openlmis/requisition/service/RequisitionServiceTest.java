@@ -22,6 +22,7 @@ import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -33,6 +34,8 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -65,12 +68,12 @@ import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
@@ -91,6 +94,7 @@ import org.mockito.stubbing.OngoingStubbing;
 import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.RequisitionTemplateDataBuilder;
 import org.openlmis.requisition.domain.requisition.ApprovedProductReference;
+import org.openlmis.requisition.domain.requisition.LineItemAdjustedConsumption;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
@@ -124,6 +128,7 @@ import org.openlmis.requisition.dto.stockmanagement.StockCardRangeSummaryDto;
 import org.openlmis.requisition.dto.stockmanagement.StockCardSummaryDto;
 import org.openlmis.requisition.errorhandling.FailureType;
 import org.openlmis.requisition.errorhandling.ValidationResult;
+import org.openlmis.requisition.exception.ContentNotFoundMessageException;
 import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.i18n.MessageKeys;
 import org.openlmis.requisition.repository.RequisitionRepository;
@@ -136,6 +141,7 @@ import org.openlmis.requisition.service.referencedata.FacilityReferenceDataServi
 import org.openlmis.requisition.service.referencedata.IdealStockAmountReferenceDataService;
 import org.openlmis.requisition.service.referencedata.OrderableReferenceDataService;
 import org.openlmis.requisition.service.referencedata.PermissionStringDto;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
 import org.openlmis.requisition.service.referencedata.PermissionStrings;
 import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
 import org.openlmis.requisition.service.referencedata.RightReferenceDataService;
@@ -237,6 +243,9 @@ public class RequisitionServiceTest {
   @Mock
   private RequisitionStatusProcessor requisitionStatusProcessor;
 
+  @Mock
+  private RequisitionSnapshotService requisitionSnapshotService;
+
   @Mock
   private RequisitionForConvertBuilder requisitionForConvertBuilder;
 
@@ -631,51 +640,17 @@ public class RequisitionServiceTest {
   }
 
   @Test
-  public void shouldFailValidationIfUserHasNoUpdateRightsAssigned() {
-    when(permissionService.canUpdateRequisition(any(Requisition.class)))
-        .thenReturn(ValidationResult.noPermission("no.permission"));
-
-    ValidationResult result = requisitionService.validateCanSaveRequisition(requisitionDto.getId());
-
-    assertTrue(result.hasErrors());
-    assertEquals(FailureType.NO_PERMISSION, result.getError().getType());
-  }
-
-  @Test
-  public void shouldFailValidationIfRequisitionDoesNotExistOnSave() {
-    when(requisitionRepository.findById(requisitionDto.getId())).thenReturn(Optional.empty());
-
-    ValidationResult result = requisitionService.validateCanSaveRequisition(requisitionDto.getId());
-
-    assertTrue(result.hasErrors());
-    assertEquals(FailureType.NOT_FOUND, result.getError().getType());
-  }
-
-  @Test
-  public void shouldFailValidationIfRequisitionIsInIncorrectStatus() {
-    when(permissionService.canUpdateRequisition(any(Requisition.class)))
-        .thenReturn(ValidationResult.success());
-    when(requisitionRepository.findById(requisitionDto.getId()))
-        .thenReturn(Optional.of(requisition));
-    requisition.setStatus(RELEASED);
-
-    ValidationResult result = requisitionService.validateCanSaveRequisition(requisitionDto.getId());
-
-    assertTrue(result.hasErrors());
-    assertEquals(FailureType.VALIDATION, result.getError().getType());
-  }
-
-  @Test
-  public void shouldPassValidationIfUserCanUpdateRequisition() {
-    when(permissionService.canUpdateRequisition(any(Requisition.class)))
+  public void shouldCheckUpdateRightsWithPermissionStringsWhenValidatingCanSave() {
+    PermissionStringIndex index = PermissionStringIndex.empty();
+    when(permissionService.canUpdateRequisition(requisition, index))
         .thenReturn(ValidationResult.success());
-    when(requisitionRepository.findById(requisitionDto.getId()))
-        .thenReturn(Optional.of(requisition));
     requisition.setStatus(SUBMITTED);
 
-    ValidationResult result = requisitionService.validateCanSaveRequisition(requisitionDto.getId());
+    ValidationResult result = requisitionService.validateCanSaveRequisition(requisition, index);
 
     assertTrue(result.isSuccess());
+    verify(permissionService, never()).canUpdateRequisition(requisition);
+    verify(requisitionRepository, never()).findById(any(UUID.class));
   }
 
   @Test
@@ -768,8 +743,8 @@ public class RequisitionServiceTest {
     RequisitionLineItem requisitionLineItem = initiatedRequisition.getRequisitionLineItems().get(0);
     assertEquals(Integer.valueOf(ADJUSTED_CONSUMPTION),
         requisitionLineItem.getPreviousAdjustedConsumptions().get(0));
-    verify(requisitionRepository).searchRequisitions(
-        PERIOD_ID, facility.getId(), program.getId(), false);
+    verify(requisitionRepository).searchAdjustedConsumptions(
+        facility.getId(), program.getId(), singletonList(PERIOD_ID));
   }
 
   @Test
@@ -786,8 +761,43 @@ public class RequisitionServiceTest {
 
     UUID previousRequisitionId = initiatedRequisition.getPreviousRequisitions().get(0).getId();
     assertEquals(previousRequisition.getId(), previousRequisitionId);
-    verify(requisitionRepository).searchRequisitions(
-        PERIOD_ID, facility.getId(), program.getId(), false);
+    verify(requisitionRepository).searchAdjustedConsumptions(
+        facility.getId(), program.getId(), singletonList(PERIOD_ID));
+  }
+
+  @Test
+  public void shouldInitiatePreviousAdjustedConsumptionsFromFirstRequisitionOfEachPeriod() {
+    prepareForTestInitiate(3);
+    final ProcessingPeriodDto firstPeriod = new ProcessingPeriodDtoDataBuilder().buildAsDto();
+    final ProcessingPeriodDto secondPeriod = new ProcessingPeriodDtoDataBuilder().buildAsDto();
+    when(periodService.findPreviousPeriods(any(UUID.class), eq(2)))
+        .thenReturn(Arrays.asList(firstPeriod, secondPeriod));
+
+    Requisition first = new RequisitionDataBuilder().build();
+    Requisition duplicate = new RequisitionDataBuilder().build();
+    Requisition second = new RequisitionDataBuilder().build();
+    VersionEntityReference orderable = new VersionEntityReference(PRODUCT_ID, 1L);
+    when(requisitionRepository.searchAdjustedConsumptions(facility.getId(), program.getId(),
+        Arrays.asList(firstPeriod.getId(), secondPeriod.getId())))
+        .thenReturn(Arrays.asList(
+            new LineItemAdjustedConsumption(second.getId(), secondPeriod.getId(), orderable, 8),
+            new LineItemAdjustedConsumption(first.getId(), firstPeriod.getId(), orderable, 5),
+            new LineItemAdjustedConsumption(duplicate.getId(), firstPeriod.getId(), orderable, 6)));
+    when(requisitionRepository.getOne(first.getId())).thenReturn(first);
+    when(requisitionRepository.getOne(second.getId())).thenReturn(second);
+    ApproveProductsAggregator aggregator = mockApprovedProduct(
+        new UUID[]{PRODUCT_ID}, new boolean[]{true});
+
+    Requisition initiatedRequisition = requisitionService.initiate(
+        program, facility, processingPeriod, false,
+        stockAdjustmentReasons, requisitionTemplate, aggregator);
+
+    assertEquals(Arrays.asList(first, second), initiatedRequisition.getPreviousRequisitions());
+    assertEquals(Arrays.asList(5, 8), initiatedRequisition.getRequisitionLineItems().get(0)
+        .getPreviousAdjustedConsumptions());
+    verify(requisitionRepository, never()).getOne(duplicate.getId());
+    verify(requisitionRepository, never())
+        .searchRequisitions(any(UUID.class), any(UUID.class), any(UUID.class), anyBoolean());
   }
 
   @Test
@@ -996,8 +1006,7 @@ public class RequisitionServiceTest {
 
     when(fulfillmentFacilitiesReferenceDataService.getFulfillmentFacilities(user.getId(),
         convertToOrderRight.getId())).thenReturn(facilities);
-    when(requisitionForConvertBuilder.getAvailableSupplyingDepots(any(UUID.class)))
-        .thenReturn(facilities);
+    mockAvailableSupplyingDepots(facilities);
 
     // when
     List<Requisition> expectedRequisitions = requisitionService
@@ -1018,8 +1027,7 @@ public class RequisitionServiceTest {
             .map(r -> facilityReferenceDataService.findOne(r.getSupplyingDepotId()))
             .collect(toList());
 
-    when(requisitionForConvertBuilder.getAvailableSupplyingDepots(any(UUID.class)))
-            .thenReturn(facilities);
+    mockAvailableSupplyingDepots(facilities);
 
     // when
     List<Requisition> expectedRequisitions = requisitionService
@@ -1255,8 +1263,8 @@ public class RequisitionServiceTest {
     Pageable pageable = mockPageable();
     when(authenticationHelper.getCurrentUser())
         .thenReturn(user);
-    when(permissionStringsHandler.get())
-        .thenReturn(emptySet());
+    when(permissionStringsHandler.getIndex())
+        .thenReturn(PermissionStringIndex.empty());
 
     // when
     Page<RequisitionWithSupplyingDepotsDto> receivedRequisitions = requisitionService
@@ -1280,8 +1288,7 @@ public class RequisitionServiceTest {
 
     when(fulfillmentFacilitiesReferenceDataService.getFulfillmentFacilities(user.getId(),
         convertToOrderRight.getId())).thenReturn(facilities);
-    when(requisitionForConvertBuilder.getAvailableSupplyingDepots(any(UUID.class)))
-        .thenReturn(facilities);
+    mockAvailableSupplyingDepots(facilities);
 
     // when
     requisitionService.convertToOrder(list, user);
@@ -1291,6 +1298,43 @@ public class RequisitionServiceTest {
   }
 
 
+  @Test
+  public void shouldLoadAndSaveRequisitionsToConvertAtOnce() {
+    // given
+    List<ReleasableRequisitionDto> list = setUpReleaseRequisitionsAsOrder(5, APPROVED);
+
+    List<FacilityDto> facilities = list.stream()
+        .map(r -> facilityReferenceDataService.findOne(r.getSupplyingDepotId()))
+        .collect(toList());
+
+    when(fulfillmentFacilitiesReferenceDataService.getFulfillmentFacilities(user.getId(),
+        convertToOrderRight.getId())).thenReturn(facilities);
+    mockAvailableSupplyingDepots(facilities);
+
+    // when
+    List<Requisition> releasedRequisitions = requisitionService.convertToOrder(list, user);
+
+    // then
+    verify(requisitionRepository).readDistinctByIdIn(anySetOf(UUID.class));
+    verify(requisitionRepository, never()).findById(any(UUID.class));
+    verify(requisitionForConvertBuilder)
+        .getAvailableSupplyingDepots(anyCollectionOf(Requisition.class));
+    verify(requisitionRepository).saveAll(releasedRequisitions);
+    verify(requisitionRepository, never()).save(any(Requisition.class));
+    verify(authenticationHelper).getCurrentUser();
+    verify(orderFulfillmentService).create(any(List.class));
+  }
+
+  @Test(expected = ContentNotFoundMessageException.class)
+  public void shouldNotConvertRequisitionsToOrdersIfRequisitionDoesNotExist() {
+    // given
+    List<ReleasableRequisitionDto> list = setUpReleaseRequisitionsAsOrder(2, APPROVED);
+    list.add(new ReleasableRequisitionDto(UUID.randomUUID(), UUID.randomUUID()));
+
+    // when
+    requisitionService.convertToOrder(list, user);
+  }
+
   @Test(expected = ValidationMessageException.class)
   public void shouldNotSwallowExceptionsFromFulfillmentService() {
     // given
@@ -1320,8 +1364,7 @@ public class RequisitionServiceTest {
 
     when(fulfillmentFacilitiesReferenceDataService.getFulfillmentFacilities(user.getId(),
         convertToOrderRight.getId())).thenReturn(facilities);
-    when(requisitionForConvertBuilder.getAvailableSupplyingDepots(any(UUID.class)))
-        .thenReturn(facilities);
+    mockAvailableSupplyingDepots(facilities);
 
     requisitionService.convertToOrder(list, user);
 
@@ -1459,6 +1502,7 @@ public class RequisitionServiceTest {
     }
 
     List<ReleasableRequisitionDto> result = new ArrayList<>();
+    List<Requisition> requisitions = new ArrayList<>();
 
     for (int i = 0; i < amount; i++) {
       FacilityDto facility = mock(FacilityDto.class);
@@ -1472,16 +1516,26 @@ public class RequisitionServiceTest {
       requisition.setRequisitionLineItems(Lists.newArrayList());
       requisition.setTemplate(requisitionTemplate);
 
-      when(requisitionRepository.findById(requisition.getId()))
-          .thenReturn(Optional.of(requisition));
       when(facilityReferenceDataService.findOne(facility.getId())).thenReturn(facility);
 
+      requisitions.add(requisition);
       result.add(new ReleasableRequisitionDto(requisition.getId(), facility.getId()));
     }
 
+    when(requisitionRepository.readDistinctByIdIn(anySetOf(UUID.class)))
+        .thenReturn(requisitions);
+
     return result;
   }
 
+  private void mockAvailableSupplyingDepots(List<FacilityDto> facilities) {
+    when(requisitionForConvertBuilder.getAvailableSupplyingDepots(anyCollectionOf(
+        Requisition.class)))
+        .thenAnswer(invocation -> ((Collection<Requisition>) invocation.getArguments()[0])
+            .stream()
+            .collect(toMap(Requisition::getId, requisition -> facilities)));
+  }
+
   private Requisition generateRequisition() {
     lineItem1 = new RequisitionLineItemDataBuilder().build();
     lineItem2 = new RequisitionLineItemDataBuilder().build();
@@ -1572,8 +1626,15 @@ public class RequisitionServiceTest {
         .build();
 
     when(requisitionRepository
-        .searchRequisitions(any(), eq(facility.getId()), eq(program.getId()), eq(false)))
-        .thenReturn(singletonList(previousRequisition));
+        .searchAdjustedConsumptions(eq(facility.getId()), eq(program.getId()), any()))
+        .thenAnswer(invocation -> {
+          Collection<UUID> periodIds = (Collection<UUID>) invocation.getArguments()[2];
+          return singletonList(new LineItemAdjustedConsumption(previousRequisition.getId(),
+              periodIds.iterator().next(), previousRequisitionLineItem.getOrderable(),
+              previousRequisitionLineItem.getAdjustedConsumption()));
+        });
+    when(requisitionRepository.getOne(previousRequisition.getId()))
+        .thenReturn(previousRequisition);
   }
 
   private ApproveProductsAggregator mockApprovedProduct(UUID[] products, boolean[] fullSupply) {
@@ -1618,9 +1679,6 @@ public class RequisitionServiceTest {
   }
 
   private void mockRepositories() {
-    when(requisitionRepository
-        .findById(requisition.getId()))
-        .thenReturn(Optional.of(requisition));
     when(requisitionRepository
         .save(requisition))
         .thenReturn(requisition);
@@ -1672,9 +1730,9 @@ public class RequisitionServiceTest {
 
     when(authenticationHelper.getCurrentUser()).thenReturn(user);
     when(permissionService.getPermissionStrings(user.getId())).thenReturn(permissionStringsHandler);
-    when(permissionStringsHandler.get())
-        .thenReturn(asSet(
-            PermissionStringDto.create(ORDERS_EDIT, facility.getId(), program.getId())));
+    when(permissionStringsHandler.getIndex())
+        .thenReturn(PermissionStringIndex.of(asSet(
+            PermissionStringDto.create(ORDERS_EDIT, facility.getId(), program.getId()))));
     when(supplyLineReferenceDataService.search(singleton(facility.getId()), program.getId()))
         .thenReturn(singletonList(supplyLine));
   }
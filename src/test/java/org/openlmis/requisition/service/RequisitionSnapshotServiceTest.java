@@ -0,0 +1,374 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.openlmis.requisition.service.RequisitionSnapshotService.BACKFILL_LOCK;
+import static org.openlmis.requisition.service.RequisitionSnapshotService.FIRST_ID;
+import static org.openlmis.requisition.service.RequisitionSnapshotService.SNAPSHOT_STATUSES;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionSnapshot;
+import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.dto.FacilityDto;
+import org.openlmis.requisition.dto.ProgramDto;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.repository.RequisitionSnapshotRepository;
+import org.openlmis.requisition.repository.custom.SchedulerLockRepository;
+import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
+import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
+import org.openlmis.requisition.web.RequisitionDtoBuilder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("PMD.TooManyMethods")
+public class RequisitionSnapshotServiceTest {
+  private static final PageRequest BATCH = PageRequest.of(0, 2);
+
+  @Mock
+  private RequisitionSnapshotRepository requisitionSnapshotRepository;
+
+  @Mock
+  private RequisitionRepository requisitionRepository;
+
+  @Mock
+  private SchedulerLockRepository schedulerLockRepository;
+
+  @Mock
+  private RequisitionDtoBuilder requisitionDtoBuilder;
+
+  @Mock
+  private FacilityReferenceDataService facilityReferenceDataService;
+
+  @Mock
+  private ProgramReferenceDataService programReferenceDataService;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Spy
+  private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  @InjectMocks
+  private RequisitionSnapshotService requisitionSnapshotService;
+
+  private RequisitionDto requisitionDto = new RequisitionDataBuilder().buildAsDto();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(requisitionSnapshotService, "enabled", true);
+    ReflectionTestUtils.setField(requisitionSnapshotService, "batchSize", 2);
+    ReflectionTestUtils.setField(requisitionSnapshotService, "queueCapacity", 10);
+    ReflectionTestUtils.setField(requisitionSnapshotService, "backfillLockMillis", 1000L);
+    requisitionSnapshotService.init();
+    requisitionSnapshotService.destroy();
+    ReflectionTestUtils.setField(requisitionSnapshotService, "executor",
+        MoreExecutors.newDirectExecutorService());
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldCreateSnapshotsOfRequisitionsWithoutCurrentSnapshot() throws Exception {
+    Requisition requisition = prepareRequisition(RequisitionStatus.APPROVED);
+    lockBackfill(true);
+    when(requisitionSnapshotRepository.findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, FIRST_ID, BATCH))
+        .thenReturn(Collections.singletonList(requisition.getId()));
+
+    requisitionSnapshotService.createMissingSnapshots();
+
+    RequisitionSnapshot snapshot = captureSavedSnapshot();
+    assertThat(snapshot.getRequisitionId(), is(requisition.getId()));
+    assertThat(snapshot.getRequisitionVersion(), is(requisition.getVersion()));
+    assertThat(snapshot.getBody(), is(objectMapper.writeValueAsString(requisitionDto)));
+    verify(transactionManager).commit(any());
+    verify(schedulerLockRepository).unlock(eq(BACKFILL_LOCK), anyString());
+  }
+
+  @Test
+  public void shouldCreateOneBatchOfSnapshotsPerRun() {
+    Requisition first = prepareRequisition(RequisitionStatus.APPROVED);
+    Requisition second = prepareRequisition(RequisitionStatus.RELEASED);
+    Requisition third = prepareRequisition(RequisitionStatus.RELEASED_WITHOUT_ORDER);
+    lockBackfill(true);
+    when(requisitionSnapshotRepository.findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, FIRST_ID, BATCH))
+        .thenReturn(Lists.newArrayList(first.getId(), second.getId()));
+    when(requisitionSnapshotRepository.findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, second.getId(), BATCH))
+        .thenReturn(Collections.singletonList(third.getId()));
+
+    requisitionSnapshotService.createMissingSnapshots();
+
+    verify(requisitionSnapshotRepository, never()).findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, second.getId(), BATCH);
+
+    requisitionSnapshotService.createMissingSnapshots();
+    requisitionSnapshotService.createMissingSnapshots();
+
+    verify(requisitionSnapshotRepository, times(2))
+        .findIdsWithoutCurrentSnapshot(SNAPSHOT_STATUSES, FIRST_ID, BATCH);
+    verify(requisitionSnapshotRepository).findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, second.getId(), BATCH);
+  }
+
+  @Test
+  public void shouldNotCreateSnapshotsIfBackfillIsLockedByAnotherInstance() {
+    lockBackfill(false);
+
+    requisitionSnapshotService.createMissingSnapshots();
+
+    verifyZeroInteractions(requisitionSnapshotRepository, requisitionRepository);
+    verify(schedulerLockRepository, never()).unlock(anyString(), anyString());
+  }
+
+  @Test
+  public void shouldUpdateExistingSnapshot() {
+    Requisition requisition = prepareRequisition(RequisitionStatus.RELEASED);
+    lockBackfill(true);
+    when(requisitionSnapshotRepository.findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, FIRST_ID, BATCH))
+        .thenReturn(Collections.singletonList(requisition.getId()));
+    RequisitionSnapshot existing = prepareSnapshot(requisition, requisition.getVersion() - 1);
+
+    requisitionSnapshotService.createMissingSnapshots();
+
+    RequisitionSnapshot snapshot = captureSavedSnapshot();
+    assertThat(snapshot, is(sameInstance(existing)));
+    assertThat(snapshot.getRequisitionVersion(), is(requisition.getVersion()));
+  }
+
+  @Test
+  public void shouldContinueIfSnapshotCannotBeCreated() {
+    Requisition failing = new RequisitionDataBuilder()
+        .withStatus(RequisitionStatus.APPROVED)
+        .build();
+    when(requisitionRepository.findById(failing.getId())).thenReturn(Optional.of(failing));
+    when(facilityReferenceDataService.findOne(failing.getFacilityId()))
+        .thenThrow(new IllegalStateException("test"));
+    Requisition requisition = prepareRequisition(RequisitionStatus.APPROVED);
+    lockBackfill(true);
+    when(requisitionSnapshotRepository.findIdsWithoutCurrentSnapshot(
+        SNAPSHOT_STATUSES, FIRST_ID, BATCH))
+        .thenReturn(Lists.newArrayList(failing.getId(), requisition.getId()));
+
+    requisitionSnapshotService.createMissingSnapshots();
+
+    assertThat(captureSavedSnapshot().getRequisitionId(), is(requisition.getId()));
+  }
+
+  @Test
+  public void shouldNotCreateSnapshotsIfDisabled() {
+    ReflectionTestUtils.setField(requisitionSnapshotService, "enabled", false);
+
+    requisitionSnapshotService.createMissingSnapshots();
+    requisitionSnapshotService.createAfterStatusChange(Collections.singletonList(
+        new RequisitionDataBuilder().withStatus(RequisitionStatus.APPROVED).build()));
+
+    verifyZeroInteractions(requisitionSnapshotRepository, requisitionRepository,
+        schedulerLockRepository);
+  }
+
+  @Test
+  public void shouldCreateSnapshotsOfApprovedRequisitionsAfterStatusChange() {
+    Requisition approved = prepareRequisition(RequisitionStatus.APPROVED);
+    Requisition inApproval = new RequisitionDataBuilder()
+        .withStatus(RequisitionStatus.IN_APPROVAL)
+        .build();
+    TransactionSynchronizationManager.initSynchronization();
+
+    requisitionSnapshotService.createAfterStatusChange(Lists.newArrayList(approved, inApproval));
+
+    verify(requisitionSnapshotRepository, never()).save(any(RequisitionSnapshot.class));
+
+    commit();
+
+    assertThat(captureSavedSnapshot().getRequisitionId(), is(approved.getId()));
+    verify(requisitionRepository, never()).findById(inApproval.getId());
+  }
+
+  @Test
+  public void shouldNotCreateSnapshotIfCurrentVersionHasSnapshot() {
+    Requisition requisition = new RequisitionDataBuilder()
+        .withStatus(RequisitionStatus.RELEASED)
+        .build();
+    when(requisitionRepository.findById(requisition.getId()))
+        .thenReturn(Optional.of(requisition));
+    when(requisitionSnapshotRepository.findByRequisitionIdAndRequisitionVersion(
+        requisition.getId(), requisition.getVersion()))
+        .thenReturn(Optional.of(new RequisitionSnapshot()));
+
+    requisitionSnapshotService.createAfterStatusChange(Collections.singletonList(requisition));
+
+    verify(requisitionSnapshotRepository, never()).save(any(RequisitionSnapshot.class));
+    verifyZeroInteractions(requisitionDtoBuilder);
+  }
+
+  @Test
+  public void shouldSaveSnapshotOfApprovedRequisitionAfterCommit() {
+    Requisition requisition = new RequisitionDataBuilder()
+        .withStatus(RequisitionStatus.APPROVED)
+        .build();
+    TransactionSynchronizationManager.initSynchronization();
+
+    requisitionSnapshotService.save(requisition, "{}");
+
+    verify(requisitionSnapshotRepository, never()).save(any(RequisitionSnapshot.class));
+
+    commit();
+
+    RequisitionSnapshot snapshot = captureSavedSnapshot();
+    assertThat(snapshot.getRequisitionId(), is(requisition.getId()));
+    assertThat(snapshot.getBody(), is("{}"));
+  }
+
+  @Test
+  public void shouldNotOverwriteSnapshotOfNewerVersion() {
+    Requisition requisition = new RequisitionDataBuilder()
+        .withStatus(RequisitionStatus.APPROVED)
+        .build();
+    prepareSnapshot(requisition, requisition.getVersion() + 1);
+
+    requisitionSnapshotService.save(requisition, "{}");
+
+    verify(requisitionSnapshotRepository, never()).save(any(RequisitionSnapshot.class));
+  }
+
+  @Test
+  public void shouldNotFailIfSnapshotCannotBeSaved() {
+    Requisition requisition = new RequisitionDataBuilder()
+        .withStatus(RequisitionStatus.APPROVED)
+        .build();
+    when(transactionManager.getTransaction(any()))
+        .thenThrow(new CannotCreateTransactionException("test"));
+
+    requisitionSnapshotService.save(requisition, "{}");
+
+    verify(requisitionSnapshotRepository, never()).save(any(RequisitionSnapshot.class));
+  }
+
+  @Test
+  public void shouldNotSaveSnapshotOfRequisitionThatIsNotApproved() {
+    Requisition requisition = new RequisitionDataBuilder()
+        .withStatus(RequisitionStatus.IN_APPROVAL)
+        .build();
+
+    requisitionSnapshotService.save(requisition, "{}");
+
+    verify(requisitionSnapshotRepository, never()).save(any(RequisitionSnapshot.class));
+  }
+
+  @Test
+  public void shouldFindBodyOfGivenVersion() {
+    UUID requisitionId = UUID.randomUUID();
+    RequisitionSnapshot snapshot = new RequisitionSnapshot();
+    snapshot.setBody("{}");
+    when(requisitionSnapshotRepository.findByRequisitionIdAndRequisitionVersion(requisitionId, 2L))
+        .thenReturn(Optional.of(snapshot));
+
+    assertThat(requisitionSnapshotService.findBody(requisitionId, 2L), is("{}"));
+    assertThat(requisitionSnapshotService.findBody(requisitionId, 1L), is(nullValue()));
+  }
+
+  @Test
+  public void shouldNotFindBodyIfDisabled() {
+    ReflectionTestUtils.setField(requisitionSnapshotService, "enabled", false);
+
+    assertThat(requisitionSnapshotService.findBody(UUID.randomUUID(), 1L), is(nullValue()));
+    verifyZeroInteractions(requisitionSnapshotRepository);
+  }
+
+  private Requisition prepareRequisition(RequisitionStatus status) {
+    Requisition requisition = new RequisitionDataBuilder().withStatus(status).build();
+    FacilityDto facility = new FacilityDto();
+    ProgramDto program = new ProgramDto();
+
+    when(requisitionRepository.findById(requisition.getId()))
+        .thenReturn(Optional.of(requisition));
+    when(facilityReferenceDataService.findOne(requisition.getFacilityId())).thenReturn(facility);
+    when(programReferenceDataService.findOne(requisition.getProgramId())).thenReturn(program);
+    when(requisitionDtoBuilder.build(requisition, facility, program)).thenReturn(requisitionDto);
+
+    return requisition;
+  }
+
+  private RequisitionSnapshot prepareSnapshot(Requisition requisition, Long version) {
+    RequisitionSnapshot snapshot = new RequisitionSnapshot();
+    snapshot.setRequisitionId(requisition.getId());
+    snapshot.setRequisitionVersion(version);
+    snapshot.setBody("{}");
+
+    when(requisitionSnapshotRepository.findByRequisitionId(requisition.getId()))
+        .thenReturn(Optional.of(snapshot));
+
+    return snapshot;
+  }
+
+  private void lockBackfill(boolean locked) {
+    when(schedulerLockRepository.lock(eq(BACKFILL_LOCK), anyString(), anyLong()))
+        .thenReturn(locked);
+  }
+
+  private void commit() {
+    TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCommit());
+  }
+
+  private RequisitionSnapshot captureSavedSnapshot() {
+    ArgumentCaptor<RequisitionSnapshot> captor = ArgumentCaptor.forClass(RequisitionSnapshot.class);
+    verify(requisitionSnapshotRepository).save(captor.capture());
+    return captor.getValue();
+  }
+}
@@ -16,9 +16,13 @@
 package org.openlmis.requisition.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.UUID;
 import org.junit.Before;
 import org.junit.Rule;
@@ -33,9 +37,13 @@ import org.openlmis.requisition.dto.ResultDto;
 import org.openlmis.requisition.dto.RightDto;
 import org.openlmis.requisition.dto.UserDto;
 import org.openlmis.requisition.errorhandling.ValidationResult;
+import org.openlmis.requisition.service.referencedata.PermissionStringDto;
+import org.openlmis.requisition.service.referencedata.PermissionStringIndex;
+import org.openlmis.requisition.service.referencedata.PermissionStrings;
 import org.openlmis.requisition.service.referencedata.UserReferenceDataService;
 import org.openlmis.requisition.testutils.DtoGenerator;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class RightAssignmentPermissionValidatorTest
     extends BasePermissionValidatorTest {
 
@@ -51,6 +59,12 @@ public class RightAssignmentPermissionValidatorTest
   @Mock
   private UserReferenceDataService userReferenceDataService;
 
+  @Mock
+  private PermissionStrings permissionStrings;
+
+  @Mock
+  private PermissionStrings.Handler permissionStringsHandler;
+
   @InjectMocks
   private RightAssignmentPermissionValidator validator;
 
@@ -78,6 +92,63 @@ public class RightAssignmentPermissionValidatorTest
 
     when(authenticationHelper.getCurrentUser()).thenReturn(user);
     when(authenticationHelper.getRight(RIGHT_NAME)).thenReturn(right);
+
+    when(permissionStrings.forUser(user.getId())).thenReturn(permissionStringsHandler);
+    when(permissionStringsHandler.getIndex()).thenReturn(PermissionStringIndex.empty());
+  }
+
+  @Test
+  public void userShouldHavePermissionIfUserHasGeneralPermissionString() {
+    // given
+    withPermissionString(RIGHT_NAME, null, null);
+
+    // when
+    ValidationResult result = validator.hasPermission(getDetailsForGeneralPermission());
+
+    // then
+    assertThat(result.isSuccess()).isTrue();
+    verify(userReferenceDataService, never()).hasRight(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void userShouldHavePermissionIfUserHasSupervisionPermissionString() {
+    // given
+    withPermissionString(RIGHT_NAME, FACILITY_ID, PROGRAM_ID);
+
+    // when
+    ValidationResult result = validator.hasPermission(getDetailsForSupervisionPermission());
+
+    // then
+    assertThat(result.isSuccess()).isTrue();
+    verify(userReferenceDataService, never()).hasRight(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void userShouldHavePermissionIfUserHasFulfillmentPermissionString() {
+    // given
+    withPermissionString(RIGHT_NAME, WAREHOUSE_ID, null);
+
+    // when
+    ValidationResult result = validator.hasPermission(getDetailsForFulfillmentPermission());
+
+    // then
+    assertThat(result.isSuccess()).isTrue();
+    verify(userReferenceDataService, never()).hasRight(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void shouldCheckRightAssignmentIfPermissionStringIsForOtherFacility() {
+    // given
+    withPermissionString(RIGHT_NAME, UUID.randomUUID(), PROGRAM_ID);
+    given(userReferenceDataService.hasRight(user.getId(), right.getId(),
+        PROGRAM_ID, FACILITY_ID, null))
+        .willReturn(new ResultDto<>(false));
+
+    // when
+    ValidationResult result = validator.hasPermission(getDetailsForSupervisionPermission());
+
+    // then
+    assertThat(result.isSuccess()).isFalse();
   }
 
   @Test
@@ -160,6 +231,11 @@ public class RightAssignmentPermissionValidatorTest
     assertThat(result.isSuccess()).isFalse();
   }
 
+  private void withPermissionString(String rightName, UUID facilityId, UUID programId) {
+    when(permissionStringsHandler.getIndex()).thenReturn(PermissionStringIndex.of(
+        Collections.singleton(PermissionStringDto.create(rightName, facilityId, programId))));
+  }
+
   @Override
   PermissionValidationDetails getDetailsForGeneralPermission() {
     return new RightAssignmentPermissionValidationDetails(RIGHT_NAME);
@@ -17,12 +17,14 @@ package org.openlmis.requisition.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.junit.Test;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionVersion;
 import org.openlmis.requisition.dto.ToStringContractTest;
 
 public class RoleAssignmentPermissionValidationDetailsTest
@@ -72,4 +74,37 @@ public class RoleAssignmentPermissionValidationDetailsTest
     // then
     assertThat(details.containsPartnerRequisition()).isFalse();
   }
+
+  @Test
+  public void shouldBeEqualForRequisitionAndItsVersion() {
+    // given
+    Requisition requisition = new RequisitionDataBuilder().build();
+    requisition.setOriginalRequisitionId(UUID.randomUUID());
+
+    RequisitionVersion version = new RequisitionVersion(requisition.getId(),
+        requisition.getVersion(), requisition.getFacilityId(), requisition.getProgramId(),
+        requisition.getSupervisoryNodeId(), requisition.getExtraData());
+
+    // when
+    RoleAssignmentPermissionValidationDetails details =
+        new RoleAssignmentPermissionValidationDetails("", version);
+
+    // then
+    assertThat(details).isEqualTo(new RoleAssignmentPermissionValidationDetails("", requisition));
+    assertThat(details.containsPartnerRequisition()).isTrue();
+  }
+
+  @Test
+  public void containsPartnerRequisitionShouldReturnFalseIfVersionHasNoExtraData() {
+    // given
+    RequisitionVersion version = new RequisitionVersion(UUID.randomUUID(), 1L,
+        UUID.randomUUID(), UUID.randomUUID(), null, Collections.emptyMap());
+
+    // when
+    RoleAssignmentPermissionValidationDetails details =
+        new RoleAssignmentPermissionValidationDetails("", version);
+
+    // then
+    assertThat(details.containsPartnerRequisition()).isFalse();
+  }
 }
@@ -17,6 +17,8 @@ package org.openlmis.requisition.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.Lists;
@@ -42,10 +44,13 @@ import org.openlmis.requisition.dto.SupervisoryNodeDto;
 import org.openlmis.requisition.dto.UserDto;
 import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.openlmis.requisition.service.referencedata.RequisitionGroupReferenceDataService;
+import org.openlmis.requisition.service.referencedata.RoleAssignments;
 import org.openlmis.requisition.service.referencedata.RoleReferenceDataService;
 import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
 import org.openlmis.requisition.testutils.DtoGenerator;
+import org.springframework.test.util.ReflectionTestUtils;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class RoleAssignmentPermissionValidatorTest
     extends BasePermissionValidatorTest {
 
@@ -63,6 +68,9 @@ public class RoleAssignmentPermissionValidatorTest
   @Mock
   private RequisitionGroupReferenceDataService requisitionGroupReferenceDataService;
 
+  @InjectMocks
+  private RoleAssignments roleAssignments;
+
   @InjectMocks
   private RoleAssignmentPermissionValidator validator;
 
@@ -85,6 +93,11 @@ public class RoleAssignmentPermissionValidatorTest
   public void setUp() {
     super.setUp();
 
+    ReflectionTestUtils.setField(roleAssignments, "maxSize", 10L);
+    ReflectionTestUtils.setField(roleAssignments, "expireAfterWriteMinutes", 5L);
+    roleAssignments.init();
+    ReflectionTestUtils.setField(validator, "roleAssignments", roleAssignments);
+
     supervisoryNode.setRequisitionGroup(new ObjectReferenceDto(requisitionGroup.getId()));
     requisitionGroup.setMemberFacilities(Sets.newHashSet(facility));
 
@@ -219,6 +232,78 @@ public class RoleAssignmentPermissionValidatorTest
     assertThat(result.isSuccess()).isFalse();
   }
 
+  @Test
+  public void shouldReuseCachedRolesAndRequisitionGroups() {
+    // given
+    given(requisition.getSupervisoryNodeId()).willReturn(null);
+    user.setRoleAssignments(Sets.newHashSet(new RoleAssignmentDto(role.getId(),
+        programId, supervisoryNodeId, null)));
+
+    // when
+    validator.hasPermission(getDetails());
+    ValidationResult result = validator.hasPermission(getDetails());
+
+    // then
+    assertThat(result.isSuccess()).isTrue();
+    verify(roleReferenceDataService, times(1)).search(right.getId());
+    verify(supervisoryNodeReferenceDataService, times(1))
+        .findByIds(Sets.newHashSet(supervisoryNodeId));
+    verify(requisitionGroupReferenceDataService, times(1)).findAll();
+  }
+
+  @Test
+  public void shouldReindexRoleAssignmentsIfUserRoleAssignmentsHaveChanged() {
+    // given
+    user.setRoleAssignments(Sets.newHashSet(new RoleAssignmentDto(role.getId(),
+        programId, UUID.randomUUID(), null)));
+    validator.hasPermission(getDetails());
+
+    user.setRoleAssignments(Sets.newHashSet(new RoleAssignmentDto(role.getId(),
+        programId, supervisoryNodeId, null)));
+
+    // when
+    ValidationResult result = validator.hasPermission(getDetails());
+
+    // then
+    assertThat(result.isSuccess()).isTrue();
+  }
+
+  @Test
+  public void shouldRetrieveRolesAgainBeforeDenyingPermission() {
+    // given
+    ReflectionTestUtils.setField(roleAssignments, "freshnessMillis", 0L);
+    user.setRoleAssignments(Sets.newHashSet(new RoleAssignmentDto(role.getId(),
+        programId, supervisoryNodeId, null)));
+    given(roleReferenceDataService.search(right.getId()))
+        .willReturn(Collections.emptyList())
+        .willReturn(Lists.newArrayList(role));
+
+    // when
+    ValidationResult result = validator.hasPermission(getDetails());
+
+    // then
+    assertThat(result.isSuccess()).isTrue();
+    verify(roleReferenceDataService, times(2)).search(right.getId());
+  }
+
+  @Test
+  public void shouldNotRetrieveFreshRolesAgainBeforeDenyingPermission() {
+    // given
+    ReflectionTestUtils.setField(roleAssignments, "freshnessMillis", 60000L);
+    user.setRoleAssignments(Sets.newHashSet(new RoleAssignmentDto(role.getId(),
+        programId, supervisoryNodeId, null)));
+    given(roleReferenceDataService.search(right.getId()))
+        .willReturn(Collections.emptyList())
+        .willReturn(Lists.newArrayList(role));
+
+    // when
+    ValidationResult result = validator.hasPermission(getDetails());
+
+    // then
+    assertThat(result.isSuccess()).isFalse();
+    verify(roleReferenceDataService, times(1)).search(right.getId());
+  }
+
   @Override
   PermissionValidationDetails getDetailsForGeneralPermission() {
     return getDetails();
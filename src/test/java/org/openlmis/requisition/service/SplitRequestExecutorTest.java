@@ -0,0 +1,92 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SplitRequestExecutorTest {
+  private static final URI[] URIS = {
+      URI.create("http://localhost/a"),
+      URI.create("http://localhost/b"),
+      URI.create("http://localhost/c")
+  };
+
+  private SplitRequestExecutor executor = new SplitRequestExecutor();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(executor, "threads", 2);
+    executor.init();
+  }
+
+  @After
+  public void tearDown() {
+    executor.destroy();
+  }
+
+  @Test
+  public void shouldReturnResponsesInOrderOfUris() {
+    List<String> responses = executor.execute(URIS, URI::getPath);
+
+    assertThat(responses).containsExactly("/a", "/b", "/c");
+  }
+
+  @Test
+  public void shouldSendRequestsConcurrently() {
+    CountDownLatch latch = new CountDownLatch(URIS.length);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    List<Boolean> responses = executor.execute(URIS, uri -> {
+      threads.add(Thread.currentThread().getName());
+      latch.countDown();
+
+      try {
+        return latch.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    });
+
+    assertThat(responses).containsOnly(true);
+    assertThat(threads).hasSize(URIS.length).contains(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void shouldRethrowExceptionFromRequest() {
+    assertThatThrownBy(() -> executor.execute(URIS, uri -> {
+      if (uri.getPath().endsWith("c")) {
+        throw new IllegalStateException(uri.toString());
+      }
+      return uri;
+    }))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage(URIS[2].toString());
+  }
+
+}
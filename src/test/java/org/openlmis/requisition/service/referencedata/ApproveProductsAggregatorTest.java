@@ -105,6 +105,20 @@ public class ApproveProductsAggregatorTest {
     compareCollections(products.getFullSupplyProducts(), fullSupplyProducts);
   }
 
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotAllowToModifyApprovedProductReferences() {
+    new ApproveProductsAggregator(approvedProducts, program.getId())
+        .getApprovedProductReferences()
+        .clear();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotAllowToModifyFullSupplyProducts() {
+    new ApproveProductsAggregator(approvedProducts, program.getId())
+        .getFullSupplyProducts()
+        .clear();
+  }
+
   private <T> void compareCollections(Collection<T> actual, Collection<T> expected) {
     assertThat(actual, hasSize(expected.size()));
     assertThat(actual, containsInAnyOrder(expected.toArray()));
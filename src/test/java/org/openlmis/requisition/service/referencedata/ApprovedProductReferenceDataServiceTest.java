@@ -15,21 +15,36 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import static java.util.Collections.emptyList;
 import static java.util.UUID.randomUUID;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import java.net.URI;
 import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.requisition.domain.requisition.ApprovedProductReference;
 import org.openlmis.requisition.dto.ApprovedProductDto;
+import org.openlmis.requisition.dto.FacilityDto;
+import org.openlmis.requisition.dto.FacilityTypeDto;
 import org.openlmis.requisition.dto.ProgramDto;
 import org.openlmis.requisition.service.BaseCommunicationService;
 import org.openlmis.requisition.testutils.ApprovedProductDtoDataBuilder;
+import org.openlmis.requisition.testutils.FacilityDtoDataBuilder;
+import org.openlmis.requisition.testutils.FacilityTypeDtoDataBuilder;
 import org.openlmis.requisition.testutils.OrderableDtoDataBuilder;
 import org.openlmis.requisition.testutils.ProgramDtoDataBuilder;
+import org.openlmis.requisition.utils.DynamicPageTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class ApprovedProductReferenceDataServiceTest
     extends BaseReferenceDataServiceTest<ApprovedProductDto> {
@@ -51,6 +66,10 @@ public class ApprovedProductReferenceDataServiceTest
   public void setUp() {
     super.setUp();
     service = (ApprovedProductReferenceDataService) prepareService();
+
+    ReflectionTestUtils.setField(service, "maxSize", 10);
+    ReflectionTestUtils.setField(service, "expireAfterWriteSeconds", 300);
+    service.init();
   }
 
   @Test
@@ -88,4 +107,72 @@ public class ApprovedProductReferenceDataServiceTest
             + facilityId + "/approvedProducts")
         .hasQueryParameter("programId", program.getId());
   }
+
+  @Test
+  public void shouldShareApprovedProductsBetweenFacilitiesOfTheSameType() {
+    // given
+    ProgramDto program = new ProgramDtoDataBuilder().buildAsDto();
+    FacilityTypeDto type = new FacilityTypeDtoDataBuilder().buildAsDto();
+    FacilityDto facility = new FacilityDtoDataBuilder().withType(type).buildAsDto();
+    FacilityDto otherFacility = new FacilityDtoDataBuilder().withType(type).buildAsDto();
+
+    // when
+    mockPageResponseEntity(emptyList());
+
+    ApproveProductsAggregator response = service.getApprovedProducts(facility, program.getId());
+    ApproveProductsAggregator otherResponse = service
+        .getApprovedProducts(otherFacility, program.getId());
+
+    // then
+    assertThat(otherResponse, sameInstance(response));
+    verifyPageRequestCount(1);
+  }
+
+  @Test
+  public void shouldNotShareApprovedProductsBetweenFacilityTypes() {
+    // given
+    ProgramDto program = new ProgramDtoDataBuilder().buildAsDto();
+    FacilityDto facility = new FacilityDtoDataBuilder()
+        .withType(new FacilityTypeDtoDataBuilder().buildAsDto())
+        .buildAsDto();
+    FacilityDto otherFacility = new FacilityDtoDataBuilder()
+        .withType(new FacilityTypeDtoDataBuilder().buildAsDto())
+        .buildAsDto();
+
+    // when
+    mockPageResponseEntity(emptyList());
+
+    ApproveProductsAggregator response = service.getApprovedProducts(facility, program.getId());
+    ApproveProductsAggregator otherResponse = service
+        .getApprovedProducts(otherFacility, program.getId());
+
+    // then
+    assertThat(otherResponse, not(sameInstance(response)));
+    verifyPageRequestCount(2);
+  }
+
+  @Test
+  public void shouldNotShareApprovedProductsBetweenPrograms() {
+    // given
+    FacilityDto facility = new FacilityDtoDataBuilder()
+        .withType(new FacilityTypeDtoDataBuilder().buildAsDto())
+        .buildAsDto();
+
+    // when
+    mockPageResponseEntity(emptyList());
+
+    ApproveProductsAggregator response = service
+        .getApprovedProducts(facility, UUID.randomUUID());
+    ApproveProductsAggregator otherResponse = service
+        .getApprovedProducts(facility, UUID.randomUUID());
+
+    // then
+    assertThat(otherResponse, not(sameInstance(response)));
+    verifyPageRequestCount(2);
+  }
+
+  private void verifyPageRequestCount(int count) {
+    verify(restTemplate, times(count)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), any(DynamicPageTypeReference.class));
+  }
 }
@@ -19,19 +19,32 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
 
 import com.google.common.collect.Sets;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.requisition.dto.FacilityDto;
 import org.openlmis.requisition.dto.MinimalFacilityDto;
 import org.openlmis.requisition.service.BaseCommunicationService;
+import org.openlmis.requisition.service.SplitRequestExecutor;
 import org.openlmis.requisition.testutils.FacilityDtoDataBuilder;
 import org.openlmis.requisition.testutils.MinimalFacilityDtoDataBuilder;
+import org.openlmis.requisition.utils.DynamicPageTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class FacilityReferenceDataServiceTest extends BaseReferenceDataServiceTest<FacilityDto> {
 
@@ -76,6 +89,26 @@ public class FacilityReferenceDataServiceTest extends BaseReferenceDataServiceTe
         .hasEmptyBody();
   }
 
+  @Test
+  public void shouldSplitRequestIfFacilityIdsDoNotFitIntoUrl() {
+    // given
+    SplitRequestExecutor executor = new SplitRequestExecutor();
+    ReflectionTestUtils.setField(executor, "threads", 2);
+    executor.init();
+    service.setSplitRequestExecutor(executor);
+    Set<UUID> ids = Stream.generate(UUID::randomUUID).limit(100).collect(Collectors.toSet());
+
+    // when
+    FacilityDto dto = mockPageResponseEntityAndGetDto();
+    List<FacilityDto> result = service.search(ids);
+    executor.destroy();
+
+    // then
+    assertTrue(result.contains(dto));
+    verify(restTemplate, atLeast(2)).exchange(any(URI.class), eq(HttpMethod.GET),
+        any(HttpEntity.class), any(DynamicPageTypeReference.class));
+  }
+
   @Test
   public void shouldFindAllResources() {
     // when
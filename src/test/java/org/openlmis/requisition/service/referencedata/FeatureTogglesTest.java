@@ -0,0 +1,133 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.dto.TogglzFeatureDto;
+import org.openlmis.requisition.service.ServiceResponse;
+import org.springframework.http.HttpHeaders;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FeatureTogglesTest {
+  private static final String FEATURE = "FEATURE";
+  private static final String OTHER_FEATURE = "OTHER_FEATURE";
+  private static final String ETAG = "\"etag\"";
+
+  @Mock
+  private TogglzReferenceDataService togglzReferenceDataService;
+
+  @InjectMocks
+  private FeatureToggles featureToggles;
+
+  @Before
+  public void setUp() {
+    when(togglzReferenceDataService.getFeatures(isNull()))
+        .thenReturn(response(asList(feature(FEATURE, true), feature(OTHER_FEATURE, false))));
+  }
+
+  @Test
+  public void shouldReturnIfFeatureIsActive() {
+    assertThat(featureToggles.isActive(FEATURE), is(true));
+    assertThat(featureToggles.isActive(OTHER_FEATURE), is(false));
+  }
+
+  @Test
+  public void shouldReturnFalseForUnknownFeature() {
+    assertThat(featureToggles.isActive("UNKNOWN"), is(false));
+  }
+
+  @Test
+  public void shouldRetrieveFeaturesOnlyOnce() {
+    featureToggles.isActive(FEATURE);
+    featureToggles.isActive(OTHER_FEATURE);
+
+    verify(togglzReferenceDataService).getFeatures(any());
+  }
+
+  @Test
+  public void shouldUseFeaturesRetrievedInBackground() {
+    featureToggles.refresh();
+    featureToggles.isActive(FEATURE);
+
+    verify(togglzReferenceDataService).getFeatures(any());
+  }
+
+  @Test
+  public void shouldKeepFeaturesIfTheyHaveNotChanged() {
+    when(togglzReferenceDataService.getFeatures(ETAG))
+        .thenReturn(new ServiceResponse<>(null, new HttpHeaders(), false));
+
+    featureToggles.refresh();
+    featureToggles.refresh();
+
+    assertThat(featureToggles.isActive(FEATURE), is(true));
+    verify(togglzReferenceDataService).getFeatures(ETAG);
+  }
+
+  @Test
+  public void shouldUpdateFeaturesIfTheyHaveChanged() {
+    when(togglzReferenceDataService.getFeatures(ETAG))
+        .thenReturn(response(singletonList(feature(FEATURE, false))));
+
+    featureToggles.refresh();
+    featureToggles.refresh();
+
+    assertThat(featureToggles.isActive(FEATURE), is(false));
+  }
+
+  @Test
+  public void shouldKeepFeaturesIfTheyCannotBeRefreshed() {
+    when(togglzReferenceDataService.getFeatures(ETAG))
+        .thenThrow(new IllegalStateException());
+
+    featureToggles.refresh();
+    featureToggles.refresh();
+
+    assertThat(featureToggles.isActive(FEATURE), is(true));
+    verify(togglzReferenceDataService, times(2)).getFeatures(any());
+  }
+
+  private ServiceResponse<List<TogglzFeatureDto>> response(List<TogglzFeatureDto> features) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+
+    return new ServiceResponse<>(features, headers, true);
+  }
+
+  private TogglzFeatureDto feature(String name, boolean enabled) {
+    TogglzFeatureDto feature = new TogglzFeatureDto();
+    feature.setName(name);
+    feature.setEnabled(enabled);
+
+    return feature;
+  }
+}
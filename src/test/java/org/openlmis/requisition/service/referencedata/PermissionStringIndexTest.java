@@ -0,0 +1,82 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Test;
+
+public class PermissionStringIndexTest {
+  private static final String SUPERVISION_RIGHT = "REQUISITION_APPROVE";
+  private static final String FULFILLMENT_RIGHT = "ORDERS_EDIT";
+  private static final String GENERAL_RIGHT = "REQUISITION_TEMPLATES_MANAGE";
+
+  private UUID facilityId = UUID.randomUUID();
+  private UUID programId = UUID.randomUUID();
+  private UUID warehouseId = UUID.randomUUID();
+  private UUID otherWarehouseId = UUID.randomUUID();
+
+  private PermissionStringIndex index = PermissionStringIndex.of(Sets.newHashSet(
+      PermissionStringDto.create(SUPERVISION_RIGHT, facilityId, programId),
+      PermissionStringDto.create(FULFILLMENT_RIGHT, warehouseId, null),
+      PermissionStringDto.create(FULFILLMENT_RIGHT, otherWarehouseId, null),
+      PermissionStringDto.create(GENERAL_RIGHT, null, null)));
+
+  @Test
+  public void shouldFindSupervisionPermission() {
+    assertThat(index.hasPermission(SUPERVISION_RIGHT, facilityId, programId)).isTrue();
+    assertThat(index.hasPermission(SUPERVISION_RIGHT, facilityId, UUID.randomUUID())).isFalse();
+    assertThat(index.hasPermission(SUPERVISION_RIGHT, UUID.randomUUID(), programId)).isFalse();
+    assertThat(index.hasPermission(FULFILLMENT_RIGHT, facilityId, programId)).isFalse();
+  }
+
+  @Test
+  public void shouldFindFulfillmentPermission() {
+    assertThat(index.hasPermission(FULFILLMENT_RIGHT, warehouseId, null)).isTrue();
+    assertThat(index.hasPermission(FULFILLMENT_RIGHT, facilityId, null)).isFalse();
+  }
+
+  @Test
+  public void shouldFindGeneralPermission() {
+    assertThat(index.hasPermission(GENERAL_RIGHT, null, null)).isTrue();
+    assertThat(index.hasPermission(SUPERVISION_RIGHT, null, null)).isFalse();
+  }
+
+  @Test
+  public void shouldReturnFacilitiesForRight() {
+    assertThat(index.getFacilityIds(FULFILLMENT_RIGHT))
+        .containsExactlyInAnyOrder(warehouseId, otherWarehouseId);
+    assertThat(index.getFacilityIds(SUPERVISION_RIGHT)).containsExactly(facilityId);
+    assertThat(index.getFacilityIds(GENERAL_RIGHT)).isEmpty();
+  }
+
+  @Test
+  public void shouldReturnAllPermissionStrings() {
+    assertThat(index.getPermissionStrings()).hasSize(4);
+  }
+
+  @Test
+  public void shouldReturnEmptyIndexForEmptyPermissionStrings() {
+    PermissionStringIndex empty = PermissionStringIndex.of(Collections.emptySet());
+
+    assertThat(empty.getPermissionStrings()).isEmpty();
+    assertThat(empty.getFacilityIds(FULFILLMENT_RIGHT)).isEmpty();
+    assertThat(empty.hasPermission(GENERAL_RIGHT, null, null)).isFalse();
+  }
+}
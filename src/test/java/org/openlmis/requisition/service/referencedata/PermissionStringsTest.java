@@ -24,19 +24,31 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.cache.Cache;
 import java.lang.reflect.Field;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.repository.custom.PermissionStringsRedisRepository;
+import org.openlmis.requisition.repository.custom.SharedPermissionStrings;
 import org.openlmis.requisition.service.ServiceResponse;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
 public class PermissionStringsTest {
@@ -46,26 +58,36 @@ public class PermissionStringsTest {
   @Mock
   private UserReferenceDataService userReferenceDataService;
 
+  @Mock
+  private PermissionStringsRedisRepository permissionStringsRedisRepository;
+
   @InjectMocks
   private PermissionStrings permissionStrings;
 
   @Mock
   private ServiceResponse<List<String>> response;
 
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(permissionStrings, "maxSize", 2);
+    ReflectionTestUtils.setField(permissionStrings, "expireAfterAccessMinutes", 60);
+    permissionStrings.init();
+  }
+
   @Test
   public void shouldCreateHandlerIfNotExist() throws Exception {
     Field handlers = PermissionStrings.class.getDeclaredField(HANDLERS_FIELD_NAME);
     handlers.setAccessible(true);
 
-    Map map = (Map) handlers.get(permissionStrings);
-    assertThat(map.size(), is(0));
+    Cache cache = (Cache) handlers.get(permissionStrings);
+    assertThat(cache.size(), is(0L));
 
     PermissionStrings.Handler handler = permissionStrings.forUser(USER);
 
     assertThat(handler, is(notNullValue()));
 
-    map = (Map) handlers.get(permissionStrings);
-    assertThat(map.size(), is(1));
+    cache = (Cache) handlers.get(permissionStrings);
+    assertThat(cache.size(), is(1L));
   }
 
   @Test
@@ -78,8 +100,8 @@ public class PermissionStringsTest {
     permissionStrings.forUser(USER);
     permissionStrings.forUser(USER);
 
-    Map map = (Map) handlers.get(permissionStrings);
-    assertThat(map.size(), is(1));
+    Cache cache = (Cache) handlers.get(permissionStrings);
+    assertThat(cache.size(), is(1L));
   }
 
   @Test
@@ -129,4 +151,90 @@ public class PermissionStringsTest {
 
     assertThat(one, is(equalTo(two)));
   }
+
+  @Test
+  public void shouldEvictHandlersWhenMaxSizeIsExceeded() throws Exception {
+    Field handlers = PermissionStrings.class.getDeclaredField(HANDLERS_FIELD_NAME);
+    handlers.setAccessible(true);
+
+    permissionStrings.forUser(randomUUID());
+    permissionStrings.forUser(randomUUID());
+    permissionStrings.forUser(randomUUID());
+
+    Cache cache = (Cache) handlers.get(permissionStrings);
+    assertThat(cache.size(), is(2L));
+  }
+
+  @Test
+  public void shouldNotRevalidateDataWithinFreshnessWindow() {
+    ReflectionTestUtils.setField(permissionStrings, "freshnessMillis", 60000);
+    PermissionStrings.Handler handler = permissionStrings.forUser(USER);
+
+    when(userReferenceDataService.getPermissionStrings(USER, null)).thenReturn(response);
+    when(response.isModified()).thenReturn(true);
+    when(response.getBody()).thenReturn(singletonList(random(5)));
+
+    Set<PermissionStringDto> one = handler.get();
+    Set<PermissionStringDto> two = handler.get();
+
+    assertThat(one, is(equalTo(two)));
+    verify(userReferenceDataService, times(1)).getPermissionStrings(USER, null);
+  }
+
+  @Test
+  public void shouldUseSharedDataIfItIsFresh() {
+    ReflectionTestUtils.setField(permissionStrings, "freshnessMillis", 60000);
+    ReflectionTestUtils.setField(permissionStrings, "redisEnabled", true);
+    String permissionString = "REQUISITION_VIEW|" + randomUUID() + "|" + randomUUID();
+
+    when(permissionStringsRedisRepository.findByUserId(USER))
+        .thenReturn(new SharedPermissionStrings(singletonList(permissionString), random(5),
+            System.currentTimeMillis()));
+
+    Set<PermissionStringDto> result = permissionStrings.forUser(USER).get();
+
+    assertThat(result, hasSize(1));
+    assertThat(result.iterator().next().toString(), is(permissionString));
+    verify(userReferenceDataService, never()).getPermissionStrings(eq(USER), any());
+  }
+
+  @Test
+  public void shouldRevalidateSharedDataWithSharedEtagIfItIsStale() {
+    ReflectionTestUtils.setField(permissionStrings, "freshnessMillis", 60000);
+    ReflectionTestUtils.setField(permissionStrings, "redisEnabled", true);
+    String etag = random(5);
+    String permissionString = "REQUISITION_VIEW|" + randomUUID() + "|" + randomUUID();
+
+    when(permissionStringsRedisRepository.findByUserId(USER))
+        .thenReturn(new SharedPermissionStrings(singletonList(permissionString), etag, 1));
+    when(userReferenceDataService.getPermissionStrings(USER, etag)).thenReturn(response);
+    when(response.isModified()).thenReturn(false);
+
+    Set<PermissionStringDto> result = permissionStrings.forUser(USER).get();
+
+    assertThat(result, hasSize(1));
+    assertThat(result.iterator().next().toString(), is(permissionString));
+
+    ArgumentCaptor<SharedPermissionStrings> captor = ArgumentCaptor
+        .forClass(SharedPermissionStrings.class);
+    verify(permissionStringsRedisRepository).save(eq(USER), captor.capture());
+
+    assertThat(captor.getValue().getEtag(), is(etag));
+    assertThat(captor.getValue().getPermissionStrings(), is(singletonList(permissionString)));
+  }
+
+  @Test
+  public void shouldFallBackToReferenceDataIfRedisIsNotAvailable() {
+    ReflectionTestUtils.setField(permissionStrings, "redisEnabled", true);
+
+    when(permissionStringsRedisRepository.findByUserId(USER))
+        .thenThrow(new RedisConnectionFailureException("test"));
+    doThrow(new RedisConnectionFailureException("test"))
+        .when(permissionStringsRedisRepository).save(eq(USER), any());
+    when(userReferenceDataService.getPermissionStrings(USER, null)).thenReturn(response);
+    when(response.isModified()).thenReturn(true);
+    when(response.getBody()).thenReturn(singletonList(random(5)));
+
+    assertThat(permissionStrings.forUser(USER).get(), hasSize(1));
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.dto.RoleAssignmentDto;
+import org.openlmis.requisition.dto.UserDto;
+import org.openlmis.requisition.testutils.DtoGenerator;
+
+public class RoleAssignmentIndexTest {
+  private UUID roleId = UUID.randomUUID();
+  private UUID programId = UUID.randomUUID();
+  private UUID supervisoryNodeId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+  private UUID homeFacilityId = UUID.randomUUID();
+
+  private AtomicInteger loads = new AtomicInteger();
+  private UserDto user = DtoGenerator.of(UserDto.class);
+  private RoleAssignmentIndex index;
+
+  @Before
+  public void setUp() {
+    user.setHomeFacilityId(homeFacilityId);
+    user.setRoleAssignments(Sets.newHashSet(
+        new RoleAssignmentDto(roleId, programId, supervisoryNodeId, null),
+        new RoleAssignmentDto(roleId, programId, null, null),
+        new RoleAssignmentDto(roleId, null, null, UUID.randomUUID())));
+
+    index = RoleAssignmentIndex.of(user, this::load);
+  }
+
+  @Test
+  public void shouldFindSupervisionRole() {
+    assertThat(index.hasSupervisionRole(roleId, programId, supervisoryNodeId)).isTrue();
+    assertThat(index.hasSupervisionRole(roleId, programId, UUID.randomUUID())).isFalse();
+    assertThat(index.hasSupervisionRole(roleId, UUID.randomUUID(), supervisoryNodeId)).isFalse();
+    assertThat(index.hasSupervisionRole(UUID.randomUUID(), programId, supervisoryNodeId))
+        .isFalse();
+  }
+
+  @Test
+  public void shouldFindHomeFacilityRole() {
+    assertThat(index.hasHomeFacilityRole(roleId, programId, homeFacilityId)).isTrue();
+    assertThat(index.hasHomeFacilityRole(roleId, programId, facilityId)).isFalse();
+    assertThat(index.hasHomeFacilityRole(roleId, UUID.randomUUID(), homeFacilityId)).isFalse();
+  }
+
+  @Test
+  public void shouldNotFindHomeFacilityRoleIfUserHasNoHomeFacility() {
+    user.setHomeFacilityId(null);
+    index = RoleAssignmentIndex.of(user, this::load);
+
+    assertThat(index.hasHomeFacilityRole(roleId, programId, null)).isFalse();
+  }
+
+  @Test
+  public void shouldLoadSupervisoryNodesOnlyOnce() {
+    assertThat(loads.get()).isEqualTo(0);
+
+    assertThat(index.getSupervisoryNodeIds(facilityId)).containsExactly(supervisoryNodeId);
+    assertThat(index.getSupervisoryNodeIds(UUID.randomUUID())).isEmpty();
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotLoadSupervisoryNodesIfUserHasNoSupervisionRoles() {
+    user.setRoleAssignments(null);
+    index = RoleAssignmentIndex.of(user, this::load);
+
+    assertThat(index.getSupervisoryNodeIds(facilityId)).isEmpty();
+    assertThat(loads.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldCheckIfIndexIsBuiltFromUserRoleAssignments() {
+    UserDto other = DtoGenerator.of(UserDto.class);
+    other.setHomeFacilityId(homeFacilityId);
+    other.setRoleAssignments(Sets.newHashSet(user.getRoleAssignments()));
+
+    assertThat(index.isBuiltFrom(other)).isTrue();
+
+    other.setHomeFacilityId(facilityId);
+    assertThat(index.isBuiltFrom(other)).isFalse();
+
+    other.setHomeFacilityId(homeFacilityId);
+    other.getRoleAssignments()
+        .add(new RoleAssignmentDto(roleId, programId, UUID.randomUUID(), null));
+    assertThat(index.isBuiltFrom(other)).isFalse();
+  }
+
+  private Map<UUID, Set<UUID>> load(Set<UUID> supervisoryNodeIds) {
+    loads.incrementAndGet();
+    assertThat(supervisoryNodeIds).containsExactly(supervisoryNodeId);
+
+    return ImmutableMap.of(facilityId, supervisoryNodeIds);
+  }
+
+}
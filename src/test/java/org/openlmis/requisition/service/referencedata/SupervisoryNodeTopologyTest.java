@@ -0,0 +1,220 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.dto.ProgramDto;
+import org.openlmis.requisition.dto.SupervisoryNodeDto;
+import org.openlmis.requisition.dto.SupplyLineDto;
+import org.openlmis.requisition.service.RequestParameters;
+import org.openlmis.requisition.testutils.ProgramDtoDataBuilder;
+import org.openlmis.requisition.testutils.SupervisoryNodeDtoDataBuilder;
+import org.openlmis.requisition.testutils.SupplyLineDtoDataBuilder;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SuppressWarnings("PMD.TooManyMethods")
+@RunWith(MockitoJUnitRunner.class)
+public class SupervisoryNodeTopologyTest {
+
+  @Mock
+  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+
+  @Mock
+  private SupplyLineReferenceDataService supplyLineReferenceDataService;
+
+  @InjectMocks
+  private SupervisoryNodeTopology topology;
+
+  private SupervisoryNodeDto supervisoryNode = new SupervisoryNodeDtoDataBuilder().buildAsDto();
+  private ProgramDto program = new ProgramDtoDataBuilder().buildAsDto();
+  private SupplyLineDto supplyLine = new SupplyLineDtoDataBuilder()
+      .withSupervisoryNode(supervisoryNode)
+      .withProgram(program)
+      .buildAsDto();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(topology, "maxSize", 10);
+    ReflectionTestUtils.setField(topology, "refreshIntervalMillis", 60000);
+    topology.init();
+
+    when(supervisoryNodeReferenceDataService.getPage(any(RequestParameters.class)))
+        .thenReturn(new PageImpl<>(singletonList(supervisoryNode)));
+    when(supplyLineReferenceDataService.getPage(any(RequestParameters.class)))
+        .thenReturn(new PageImpl<>(singletonList(supplyLine)));
+  }
+
+  @Test
+  public void shouldReturnSupervisoryNodeFromTopology() {
+    topology.getSupervisoryNode(supervisoryNode.getId());
+    SupervisoryNodeDto result = topology.getSupervisoryNode(supervisoryNode.getId());
+
+    assertThat(result, is(supervisoryNode));
+    verify(supervisoryNodeReferenceDataService).getPage(any(RequestParameters.class));
+    verify(supervisoryNodeReferenceDataService, never()).findOne(any(UUID.class));
+  }
+
+  @Test
+  public void shouldRetrieveSupervisoryNodeCreatedAfterTopologyWasLoaded() {
+    SupervisoryNodeDto newNode = new SupervisoryNodeDtoDataBuilder().buildAsDto();
+    when(supervisoryNodeReferenceDataService.findOne(newNode.getId())).thenReturn(newNode);
+
+    assertThat(topology.getSupervisoryNode(newNode.getId()), is(newNode));
+  }
+
+  @Test
+  public void shouldReturnSupervisoryNodesFromTopologyAndReferenceData() {
+    SupervisoryNodeDto newNode = new SupervisoryNodeDtoDataBuilder().buildAsDto();
+    when(supervisoryNodeReferenceDataService.findByIds(Sets.newHashSet(newNode.getId())))
+        .thenReturn(singletonList(newNode));
+
+    Map<UUID, SupervisoryNodeDto> result = topology
+        .getSupervisoryNodes(Sets.newHashSet(supervisoryNode.getId(), newNode.getId()));
+
+    assertThat(result.size(), is(2));
+    assertThat(result, hasEntry(supervisoryNode.getId(), supervisoryNode));
+    assertThat(result, hasEntry(newNode.getId(), newNode));
+  }
+
+  @Test
+  public void shouldReturnSupplyLinesFromTopology() {
+    List<SupplyLineDto> result = topology.getSupplyLines(program.getId(), supervisoryNode.getId());
+
+    assertThat(result, contains(supplyLine));
+    verify(supplyLineReferenceDataService, never()).search(any(UUID.class), any(UUID.class));
+  }
+
+  @Test
+  public void shouldSearchSupplyLinesIfSupervisoryNodeHasNoSupplyLinesForProgram() {
+    UUID programId = UUID.randomUUID();
+    when(supplyLineReferenceDataService.search(programId, supervisoryNode.getId()))
+        .thenReturn(emptyList());
+
+    List<SupplyLineDto> result = topology.getSupplyLines(programId, supervisoryNode.getId());
+
+    assertThat(result, is(empty()));
+    verify(supplyLineReferenceDataService).search(programId, supervisoryNode.getId());
+  }
+
+  @Test
+  public void shouldSearchSupplyLineCreatedAfterTopologyWasLoaded() {
+    UUID programId = UUID.randomUUID();
+    topology.getSupplyLines(program.getId(), supervisoryNode.getId());
+
+    SupplyLineDto newSupplyLine = new SupplyLineDto();
+    when(supplyLineReferenceDataService.search(programId, supervisoryNode.getId()))
+        .thenReturn(singletonList(newSupplyLine));
+
+    assertThat(topology.getSupplyLines(programId, supervisoryNode.getId()),
+        contains(newSupplyLine));
+    verify(supplyLineReferenceDataService).getPage(any(RequestParameters.class));
+  }
+
+  @Test
+  public void shouldSearchSupplyLinesOfSupervisoryNodeCreatedAfterTopologyWasLoaded() {
+    UUID newNodeId = UUID.randomUUID();
+    when(supplyLineReferenceDataService.search(program.getId(), newNodeId))
+        .thenReturn(singletonList(supplyLine));
+
+    assertThat(topology.getSupplyLines(program.getId(), newNodeId), contains(supplyLine));
+  }
+
+  @Test
+  public void shouldCacheSupervisoryNodeOfFacilityAndProgram() {
+    UUID facilityId = UUID.randomUUID();
+    when(supervisoryNodeReferenceDataService.findSupervisoryNode(program.getId(), facilityId))
+        .thenReturn(supervisoryNode);
+
+    topology.findSupervisoryNode(program.getId(), facilityId);
+    SupervisoryNodeDto result = topology.findSupervisoryNode(program.getId(), facilityId);
+
+    assertThat(result, is(supervisoryNode));
+    verify(supervisoryNodeReferenceDataService).findSupervisoryNode(program.getId(), facilityId);
+  }
+
+  @Test
+  public void shouldCacheMissingSupervisoryNodeOfFacilityAndProgram() {
+    UUID facilityId = UUID.randomUUID();
+
+    topology.findSupervisoryNode(program.getId(), facilityId);
+    SupervisoryNodeDto result = topology.findSupervisoryNode(program.getId(), facilityId);
+
+    assertThat(result, is(nullValue()));
+    verify(supervisoryNodeReferenceDataService).findSupervisoryNode(program.getId(), facilityId);
+  }
+
+  @Test
+  public void shouldNotRefreshTopologyThatWasNotUsed() {
+    topology.refresh();
+
+    verify(supervisoryNodeReferenceDataService, never()).getPage(any(RequestParameters.class));
+    verify(supplyLineReferenceDataService, never()).getPage(any(RequestParameters.class));
+  }
+
+  @Test
+  public void shouldRefreshTopologyThatWasUsed() {
+    topology.getSupervisoryNode(supervisoryNode.getId());
+
+    SupervisoryNodeDto changedNode = new SupervisoryNodeDtoDataBuilder()
+        .withId(supervisoryNode.getId())
+        .buildAsDto();
+    when(supervisoryNodeReferenceDataService.getPage(any(RequestParameters.class)))
+        .thenReturn(new PageImpl<>(singletonList(changedNode)));
+
+    topology.refresh();
+
+    assertThat(topology.getSupervisoryNode(supervisoryNode.getId()), is(changedNode));
+    verify(supervisoryNodeReferenceDataService, times(2)).getPage(any(RequestParameters.class));
+  }
+
+  @Test
+  public void shouldUseReferenceDataIfTopologyCannotBeRetrieved() {
+    when(supplyLineReferenceDataService.getPage(any(RequestParameters.class)))
+        .thenThrow(new IllegalStateException());
+    when(supervisoryNodeReferenceDataService.findOne(supervisoryNode.getId()))
+        .thenReturn(supervisoryNode);
+    when(supplyLineReferenceDataService.search(program.getId(), supervisoryNode.getId()))
+        .thenReturn(emptyList());
+
+    assertThat(topology.getSupervisoryNode(supervisoryNode.getId()), is(supervisoryNode));
+    assertThat(topology.getSupplyLines(program.getId(), supervisoryNode.getId()), is(empty()));
+    verify(supplyLineReferenceDataService).getPage(any(RequestParameters.class));
+  }
+}
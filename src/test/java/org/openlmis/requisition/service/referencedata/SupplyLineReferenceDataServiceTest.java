@@ -120,4 +120,26 @@ public class SupplyLineReferenceDataServiceTest
         .hasEmptyBody()
         .isUriStartsWith(service.getServiceUrl() + service.getUrl());
   }
+
+  @Test
+  public void shouldSearchSupplyLinesBySupervisoryNodeIds() {
+    UUID supervisoryNodeId = UUID.randomUUID();
+    Set<UUID> supervisoryNodeIds = new HashSet<>();
+    supervisoryNodeIds.add(supervisoryNodeId);
+
+    SupplyLineDto dto = new SupplyLineDtoDataBuilder().buildAsDto();
+    mockPageResponseEntity(dto);
+
+    List<SupplyLineDto> result = service.searchBySupervisoryNodes(supervisoryNodeIds);
+
+    assertThat(result, hasSize(1));
+    assertTrue(result.contains(dto));
+
+    verifyPageRequest()
+        .isGetRequest()
+        .hasAuthHeader()
+        .hasEmptyBody()
+        .hasQueryParameter("supervisoryNodeId", supervisoryNodeId)
+        .isUriStartsWith(service.getServiceUrl() + service.getUrl());
+  }
 }
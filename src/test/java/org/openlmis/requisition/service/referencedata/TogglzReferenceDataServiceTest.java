@@ -15,11 +15,30 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.openlmis.requisition.dto.TogglzFeatureDto;
 import org.openlmis.requisition.service.BaseCommunicationService;
+import org.openlmis.requisition.service.ServiceResponse;
 import org.openlmis.requisition.testutils.TogglzFeatureDtoDataBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 
 public class TogglzReferenceDataServiceTest extends BaseReferenceDataServiceTest<TogglzFeatureDto> {
+  private static final String ETAG = "\"etag\"";
 
   @Override
   protected TogglzFeatureDto generateInstance() {
@@ -31,4 +50,50 @@ public class TogglzReferenceDataServiceTest extends BaseReferenceDataServiceTest
     return new TogglzReferenceDataService();
   }
 
+  @Test
+  public void shouldGetFeaturesWithTheirEtag() {
+    // given
+    TogglzFeatureDto feature = generateInstance();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+
+    mockFeaturesResponse(new ResponseEntity<>(
+        new TogglzFeatureDto[]{feature}, headers, HttpStatus.OK));
+
+    // when
+    ServiceResponse<List<TogglzFeatureDto>> response = prepareTogglzService().getFeatures(null);
+
+    // then
+    assertThat(response.isModified(), is(true));
+    assertThat(response.getBody(), contains(feature));
+    assertThat(response.getETag(), is(ETAG));
+  }
+
+  @Test
+  public void shouldSendEtagWhenGettingFeatures() {
+    // given
+    mockFeaturesResponse(new ResponseEntity<>(HttpStatus.NOT_MODIFIED));
+
+    // when
+    ServiceResponse<List<TogglzFeatureDto>> response = prepareTogglzService().getFeatures(ETAG);
+
+    // then
+    assertThat(response.isModified(), is(false));
+    assertThat(response.getBody(), is(nullValue()));
+
+    ArgumentCaptor<HttpEntity> entity = ArgumentCaptor.forClass(HttpEntity.class);
+    verify(restTemplate).exchange(any(String.class), eq(HttpMethod.GET), entity.capture(),
+        eq(TogglzFeatureDto[].class));
+    assertThat(entity.getValue().getHeaders().getIfNoneMatch(), contains(ETAG));
+  }
+
+  private TogglzReferenceDataService prepareTogglzService() {
+    return (TogglzReferenceDataService) prepareService();
+  }
+
+  private void mockFeaturesResponse(ResponseEntity<TogglzFeatureDto[]> response) {
+    when(restTemplate.exchange(any(String.class), eq(HttpMethod.GET), any(HttpEntity.class),
+        eq(TogglzFeatureDto[].class)))
+        .thenReturn(response);
+  }
 }
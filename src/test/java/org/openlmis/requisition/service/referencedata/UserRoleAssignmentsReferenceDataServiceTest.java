@@ -19,10 +19,15 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.Sets;
+import java.net.URI;
 import java.util.Collection;
 import java.util.UUID;
 import org.junit.Before;
@@ -34,7 +39,11 @@ import org.openlmis.requisition.dto.RightDto;
 import org.openlmis.requisition.dto.RoleDto;
 import org.openlmis.requisition.testutils.DetailedRoleAssignmentDtoDataBuilder;
 import org.openlmis.requisition.testutils.DtoGenerator;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
 
+@SuppressWarnings("PMD.TooManyMethods")
 @RunWith(MockitoJUnitRunner.class)
 public class UserRoleAssignmentsReferenceDataServiceTest
     extends BaseReferenceDataServiceTest<DetailedRoleAssignmentDto> {
@@ -56,6 +65,10 @@ public class UserRoleAssignmentsReferenceDataServiceTest
   public void setUp() {
     super.setUp();
     service = (UserRoleAssignmentsReferenceDataService) prepareService();
+
+    ReflectionTestUtils.setField(service, "maxSize", 10L);
+    ReflectionTestUtils.setField(service, "expireAfterWriteMinutes", 5L);
+    service.init();
   }
 
   private RightDto approveRequisitionRight = DtoGenerator.of(RightDto.class, 2).get(0);
@@ -121,6 +134,41 @@ public class UserRoleAssignmentsReferenceDataServiceTest
         programId, supervisoryNodeId));
   }
 
+  @Test
+  public void shouldReturnTrueIfUserCanApproveRequisitionForAnySupervisoryNode() {
+    mockSupervisionRoleAssignment(programId, supervisoryNodeId,
+        approveRequisitionRight);
+
+    assertTrue(service.hasSupervisionRight(approveRequisitionRight, userId,
+        programId, null));
+  }
+
+  @Test
+  public void shouldUseCachedRoleAssignmentsIfUserHasRight() {
+    mockSupervisionRoleAssignment(programId, supervisoryNodeId,
+        approveRequisitionRight);
+
+    service.hasSupervisionRight(approveRequisitionRight, userId, programId, supervisoryNodeId);
+    assertTrue(service.hasSupervisionRight(approveRequisitionRight, userId,
+        programId, supervisoryNodeId));
+
+    verify(restTemplate, times(1)).exchange(any(URI.class), eq(HttpMethod.GET),
+        any(HttpEntity.class), eq(service.getArrayResultClass()));
+  }
+
+  @Test
+  public void shouldRetrieveRoleAssignmentsAgainIfUserHasNoCachedRight() {
+    mockSupervisionRoleAssignment(programId, supervisoryNodeId,
+        approveRequisitionRight);
+
+    service.hasSupervisionRight(convertToOrderRight, userId, programId, supervisoryNodeId);
+    assertFalse(service.hasSupervisionRight(convertToOrderRight, userId,
+        programId, supervisoryNodeId));
+
+    verify(restTemplate, times(2)).exchange(any(URI.class), eq(HttpMethod.GET),
+        any(HttpEntity.class), eq(service.getArrayResultClass()));
+  }
+
   @Test
   public void shouldReturnFalseIfUserOrRightIsNotGiven() {
     disableAuthCheck();
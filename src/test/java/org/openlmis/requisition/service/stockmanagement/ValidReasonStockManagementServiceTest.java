@@ -16,9 +16,13 @@
 package org.openlmis.requisition.service.stockmanagement;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_SERVICE_OCCURED;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_SERVICE_REQUIRED;
 
+import java.net.URI;
 import java.util.List;
 import java.util.UUID;
 import org.junit.Before;
@@ -33,7 +37,10 @@ import org.openlmis.requisition.service.BaseCommunicationService;
 import org.openlmis.requisition.service.DataRetrievalException;
 import org.openlmis.requisition.testutils.ReasonDtoDataBuilder;
 import org.openlmis.requisition.testutils.ValidReasonDtoDataBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class ValidReasonStockManagementServiceTest
     extends BaseStockmanagementServiceTest<ValidReasonDto> {
@@ -66,6 +73,10 @@ public class ValidReasonStockManagementServiceTest
   public void setUp() {
     super.setUp();
     service = (ValidReasonStockmanagementService) prepareService();
+
+    ReflectionTestUtils.setField(service, "maxSize", 10);
+    ReflectionTestUtils.setField(service, "expireAfterWriteMinutes", 60);
+    service.init();
   }
 
   @Test
@@ -91,6 +102,52 @@ public class ValidReasonStockManagementServiceTest
         .hasQueryParameter("facilityType", validReason.getFacilityTypeId());
   }
 
+  @Test
+  public void shouldReuseCachedValidReasons() {
+    // given
+    ValidReasonDto validReason = generateInstance();
+
+    // when
+    mockArrayResponseEntity(validReason);
+    service.search(validReason.getProgramId(), validReason.getFacilityTypeId());
+    List<ValidReasonDto> actual =
+        service.search(validReason.getProgramId(), validReason.getFacilityTypeId());
+
+    // then
+    assertEquals(1, actual.size());
+    assertEquals(validReason, actual.get(0));
+    verifyArrayRequestCount(1);
+  }
+
+  @Test
+  public void shouldNotReuseValidReasonsOfOtherFacilityType() {
+    // given
+    ValidReasonDto validReason = generateInstance();
+
+    // when
+    mockArrayResponseEntity(validReason);
+    service.search(validReason.getProgramId(), validReason.getFacilityTypeId());
+    service.search(validReason.getProgramId(), UUID.randomUUID());
+
+    // then
+    verifyArrayRequestCount(2);
+  }
+
+  @Test
+  public void shouldRetrieveValidReasonsAgainAfterCacheIsEvicted() {
+    // given
+    ValidReasonDto validReason = generateInstance();
+
+    // when
+    mockArrayResponseEntity(validReason);
+    service.search(validReason.getProgramId(), validReason.getFacilityTypeId());
+    service.evictCache();
+    service.search(validReason.getProgramId(), validReason.getFacilityTypeId());
+
+    // then
+    verifyArrayRequestCount(2);
+  }
+
   @Test
   public void shouldThrowExceptionWithProperKeyIfServerCannotBeFound() {
     // when
@@ -111,4 +168,9 @@ public class ValidReasonStockManagementServiceTest
     mockRequestFail(HttpStatus.BAD_REQUEST);
     service.search(UUID.randomUUID(), UUID.randomUUID());
   }
+
+  private void verifyArrayRequestCount(int count) {
+    verify(restTemplate, times(count)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), any(Class.class));
+  }
 }
@@ -31,6 +31,7 @@ import org.openlmis.requisition.errorhandling.FailureType;
 import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.springframework.http.HttpHeaders;
 
+@SuppressWarnings("PMD.TooManyMethods")
 @RunWith(MockitoJUnitRunner.class)
 public class RequisitionVersionValidatorTest {
 
@@ -105,6 +106,33 @@ public class RequisitionVersionValidatorTest {
     assertEquals(FailureType.CONFLICT, result.getError().getType());
   }
 
+  @Test
+  public void shouldPassPartialUpdateValidationIfVersionsAreTheSame() {
+    when(existingReq.getVersion()).thenReturn(7L);
+
+    ValidationResult result = requisitionVersionValidator.validateVersion(7L, existingReq);
+
+    assertTrue(result.isSuccess());
+  }
+
+  @Test
+  public void shouldFailPartialUpdateValidationIfVersionsAreDifferent() {
+    when(existingReq.getVersion()).thenReturn(7L);
+
+    ValidationResult result = requisitionVersionValidator.validateVersion(5L, existingReq);
+
+    assertTrue(result.hasErrors());
+    assertEquals(FailureType.CONFLICT, result.getError().getType());
+  }
+
+  @Test
+  public void shouldFailPartialUpdateValidationIfVersionIsMissing() {
+    ValidationResult result = requisitionVersionValidator.validateVersion(null, existingReq);
+
+    assertTrue(result.hasErrors());
+    assertEquals(FailureType.VALIDATION, result.getError().getType());
+  }
+
   private ValidationResult testVersionValidation(String etagVersion, Long requisitionVersion) {
     when(request.getHeader(HttpHeaders.IF_MATCH)).thenReturn(etagVersion);
     when(existingReq.getVersion()).thenReturn(requisitionVersion);
@@ -0,0 +1,256 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItemDataBuilder;
+import org.openlmis.requisition.dto.FacilityDto;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.openlmis.requisition.dto.ProcessingPeriodDto;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.dto.RequisitionErrorMessage;
+import org.openlmis.requisition.dto.RequisitionLineItemDto;
+import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
+import org.openlmis.requisition.service.referencedata.FacilityTypeApprovedProductReferenceDataService;
+import org.openlmis.requisition.service.referencedata.OrderableReferenceDataService;
+import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
+import org.openlmis.requisition.testutils.FacilityDtoDataBuilder;
+import org.openlmis.requisition.testutils.OrderableDtoDataBuilder;
+import org.openlmis.requisition.testutils.ProcessingPeriodDtoDataBuilder;
+import org.openlmis.requisition.utils.Message;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchRequisitionStreamerTest {
+
+  @Mock
+  private RequisitionRepository requisitionRepository;
+
+  @Mock
+  private RequisitionDtoBuilder requisitionDtoBuilder;
+
+  @Mock
+  private FacilityReferenceDataService facilityReferenceDataService;
+
+  @Mock
+  private PeriodReferenceDataService periodReferenceDataService;
+
+  @Mock
+  private OrderableReferenceDataService orderableReferenceDataService;
+
+  @Mock
+  private FacilityTypeApprovedProductReferenceDataService
+      facilityTypeApprovedProductReferenceDataService;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Spy
+  private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  @InjectMocks
+  private BatchRequisitionStreamer streamer;
+
+  private UUID programId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+  private UUID periodId = UUID.randomUUID();
+  private OrderableDto first;
+  private OrderableDto second;
+  private FacilityDto facility;
+  private ProcessingPeriodDto period;
+  private List<Requisition> requisitions = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    first = new OrderableDtoDataBuilder()
+        .withProgramOrderable(programId, true)
+        .buildAsDto();
+    second = new OrderableDtoDataBuilder()
+        .withProgramOrderable(programId, true)
+        .buildAsDto();
+
+    facility = new FacilityDtoDataBuilder().withId(facilityId).buildAsDto();
+    period = new ProcessingPeriodDtoDataBuilder()
+        .withId(periodId)
+        .buildAsDto();
+
+    when(facilityReferenceDataService.findOne(facilityId)).thenReturn(facility);
+    when(periodReferenceDataService.findOne(periodId)).thenReturn(period);
+    when(orderableReferenceDataService.findByIdentities(anySet()))
+        .thenReturn(Lists.newArrayList(first, second));
+    when(facilityTypeApprovedProductReferenceDataService.findByIdentities(anySet()))
+        .thenReturn(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldWriteRecordForEachRequisitionAndErrorsInLastRecord() throws IOException {
+    prepareRequisition(false, false);
+    prepareRequisition(false, true);
+    RequisitionErrorMessage error = new RequisitionErrorMessage(UUID.randomUUID(),
+        new Message("requisition.error").new LocalizedMessage("error"));
+
+    List<JsonNode> records = stream(Collections.singletonList(error));
+
+    assertThat(records, hasSize(3));
+    assertEquals(requisitions.get(0).getId().toString(),
+        records.get(0).get(BatchRequisitionStreamer.REQUISITION).get("id").textValue());
+    assertEquals(requisitions.get(1).getId().toString(),
+        records.get(1).get(BatchRequisitionStreamer.REQUISITION).get("id").textValue());
+    assertEquals(error.getRequisitionId().toString(), records.get(2)
+        .get(BatchRequisitionStreamer.REQUISITION_ERRORS).get(0).get("requisitionId").textValue());
+  }
+
+  @Test
+  public void shouldListProductsSkippedInAllRequisitionsInLastRecord() throws IOException {
+    prepareRequisition(true, false);
+    prepareRequisition(true, true);
+
+    List<JsonNode> records = stream(Collections.emptyList());
+
+    JsonNode skipped = records.get(2).get(BatchRequisitionStreamer.SKIPPED_PRODUCTS);
+    assertEquals(1, skipped.size());
+    assertEquals(first.getId().toString(), skipped.get(0).textValue());
+    assertTrue(records.get(2).get(BatchRequisitionStreamer.REQUISITION_ERRORS).isEmpty());
+  }
+
+  @Test
+  public void shouldDetachEachRequisitionAndReuseReferenceData() throws IOException {
+    prepareRequisition(false, false);
+    prepareRequisition(false, false);
+
+    stream(Collections.emptyList());
+
+    verify(requisitionRepository, times(2)).detachAll();
+    verify(transactionManager, times(2)).commit(any());
+    verify(facilityReferenceDataService).findOne(facilityId);
+    verify(periodReferenceDataService).findOne(periodId);
+    verify(orderableReferenceDataService).findByIdentities(anySet());
+  }
+
+  @Test
+  public void shouldSkipRequisitionRemovedAfterPermissionCheck() throws IOException {
+    prepareRequisition(false, false);
+    UUID removed = UUID.randomUUID();
+    when(requisitionRepository.findById(removed)).thenReturn(Optional.empty());
+
+    List<UUID> ids = Lists.newArrayList(removed, requisitions.get(0).getId());
+    List<JsonNode> records = stream(ids, Collections.emptyList());
+
+    assertThat(records, hasSize(2));
+    assertThat(records.stream()
+            .filter(record -> record.has(BatchRequisitionStreamer.REQUISITION))
+            .map(record -> record.get(BatchRequisitionStreamer.REQUISITION).get("id").textValue())
+            .collect(Collectors.toList()),
+        contains(requisitions.get(0).getId().toString()));
+  }
+
+  private List<JsonNode> stream(List<RequisitionErrorMessage> errors) throws IOException {
+    return stream(requisitions
+        .stream()
+        .map(Requisition::getId)
+        .collect(Collectors.toList()), errors);
+  }
+
+  private List<JsonNode> stream(List<UUID> ids, List<RequisitionErrorMessage> errors)
+      throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    streamer.stream(ids, errors).writeTo(outputStream);
+
+    List<JsonNode> records = new ArrayList<>();
+    for (String line : outputStream.toString(StandardCharsets.UTF_8.name()).split("\n")) {
+      records.add(objectMapper.readTree(line));
+    }
+
+    return records;
+  }
+
+  private void prepareRequisition(boolean firstSkipped, boolean secondSkipped) {
+    Requisition requisition = new RequisitionDataBuilder()
+        .withProgramId(programId)
+        .withFacilityId(facilityId)
+        .withProcessingPeriodId(periodId)
+        .addLineItem(prepareLineItem(first, firstSkipped), false)
+        .addLineItem(prepareLineItem(second, secondSkipped), false)
+        .buildAuthorizedRequisition();
+
+    RequisitionDto requisitionDto = new RequisitionDataBuilder().buildAsDto();
+    requisitionDto.setId(requisition.getId());
+    requisitionDto.setFacility(facility);
+    requisitionDto.setProcessingPeriod(period);
+    requisitionDto.setRequisitionLineItems(requisition
+        .getRequisitionLineItems()
+        .stream()
+        .map(line -> {
+          RequisitionLineItemDto lineDto = new RequisitionLineItemDto();
+          lineDto.setId(line.getId());
+          lineDto.setSkipped(line.getSkipped());
+          lineDto.setOrderable(line.getOrderable().getId().equals(first.getId())
+              ? first : second);
+          return lineDto;
+        })
+        .collect(Collectors.toList()));
+
+    when(requisitionRepository.findById(requisition.getId()))
+        .thenReturn(Optional.of(requisition));
+    when(requisitionDtoBuilder.buildBatch(eq(requisition), any(FacilityDto.class),
+        any(), any(), any(ProcessingPeriodDto.class)))
+        .thenReturn(requisitionDto);
+
+    requisitions.add(requisition);
+  }
+
+  private RequisitionLineItem prepareLineItem(OrderableDto orderable, boolean skipped) {
+    return new RequisitionLineItemDataBuilder()
+        .withOrderable(orderable.getId(), orderable.getVersionNumber())
+        .withSkippedFlag(skipped)
+        .build();
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.openlmis.requisition.web.ColumnarJsonHttpMessageConverter.COLUMNAR_JSON;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItemDataBuilder;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.dto.RequisitionLineItemDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+public class ColumnarJsonHttpMessageConverterTest {
+
+  private static final String LINE_ITEMS = "requisitionLineItems";
+  private static final String COLUMNS = "columns";
+
+  private ObjectMapper objectMapper;
+  private ColumnarJsonHttpMessageConverter converter;
+  private RequisitionDto requisition;
+
+  @Before
+  public void setUp() {
+    objectMapper = Jackson2ObjectMapperBuilder
+        .json()
+        .featuresToEnable(SerializationFeature.INDENT_OUTPUT)
+        .build();
+    converter = new ColumnarJsonHttpMessageConverter(objectMapper);
+    requisition = prepareRequisition(2);
+  }
+
+  @Test
+  public void shouldOnlySupportColumnarMediaType() {
+    assertTrue(converter.canWrite(RequisitionDto.class, COLUMNAR_JSON));
+    assertTrue(converter.canRead(RequisitionDto.class, COLUMNAR_JSON));
+
+    assertFalse(converter.canWrite(RequisitionDto.class, null));
+    assertFalse(converter.canWrite(RequisitionDto.class, MediaType.ALL));
+    assertFalse(converter.canWrite(RequisitionDto.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(RequisitionDto.class, null));
+    assertFalse(converter.canRead(RequisitionDto.class, MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  public void shouldWriteLineItemsAsColumns() throws IOException {
+    MockHttpOutputMessage output = write(requisition);
+    JsonNode lineItems = objectMapper.readTree(output.getBodyAsBytes()).get(LINE_ITEMS);
+
+    assertEquals(2, lineItems.get("count").intValue());
+    assertEquals(requisition.getRequisitionLineItems().get(0).getId().toString(),
+        lineItems.get(COLUMNS).get("id").get(0).textValue());
+    assertEquals(requisition.getRequisitionLineItems().get(1).getStockOnHand().intValue(),
+        lineItems.get(COLUMNS).get("stockOnHand").get(1).intValue());
+    assertEquals(COLUMNAR_JSON.getSubtype(),
+        output.getHeaders().getContentType().getSubtype());
+    assertThat(output.getBodyAsString(), not(containsString("\n")));
+  }
+
+  @Test
+  public void shouldReadColumnarLineItems() throws IOException {
+    MockHttpInputMessage input = new MockHttpInputMessage(write(requisition).getBodyAsBytes());
+    input.getHeaders().setContentType(COLUMNAR_JSON);
+
+    RequisitionDto result = (RequisitionDto) converter.read(RequisitionDto.class, input);
+
+    assertEquals(requisition.getId(), result.getId());
+    assertThat(result.getRequisitionLineItems(), hasSize(2));
+    assertEquals(getIds(requisition.getRequisitionLineItems()),
+        getIds(result.getRequisitionLineItems()));
+    assertEquals(requisition.getRequisitionLineItems().get(0).getRequestedQuantity(),
+        result.getRequisitionLineItems().get(0).getRequestedQuantity());
+  }
+
+  @Test
+  public void shouldFillFieldsMissingInSomeLineItemsWithNulls() throws IOException {
+    JsonNode document = objectMapper.readTree(
+        "{\"requisitionLineItems\": [{\"a\": 1}, {\"b\": 2}, {\"a\": 3}]}");
+
+    JsonNode columns = ColumnarJsonHttpMessageConverter.toColumns(document)
+        .get(LINE_ITEMS).get(COLUMNS);
+
+    assertEquals(objectMapper.readTree("[1, null, 3]"), columns.get("a"));
+    assertEquals(objectMapper.readTree("[null, 2, null]"), columns.get("b"));
+    assertEquals(objectMapper.readTree(
+        "{\"requisitionLineItems\": [{\"a\": 1}, {\"b\": 2}, {\"a\": 3}]}"),
+        ColumnarJsonHttpMessageConverter.fromColumns(document));
+  }
+
+  @Test
+  public void shouldConvertNestedLineItems() throws IOException {
+    JsonNode document = objectMapper.readTree(
+        "{\"requisitionDtos\": [{\"requisitionLineItems\": [{\"a\": 1}]}]}");
+
+    JsonNode lineItems = ColumnarJsonHttpMessageConverter.toColumns(document)
+        .get("requisitionDtos").get(0).get(LINE_ITEMS);
+
+    assertEquals(objectMapper.readTree("{\"count\": 1, \"columns\": {\"a\": [1]}}"), lineItems);
+  }
+
+  @Test(expected = HttpMessageNotReadableException.class)
+  public void shouldNotReadColumnsWithDifferentNumberOfValues() throws IOException {
+    MockHttpInputMessage input = new MockHttpInputMessage(
+        ("{\"requisitionLineItems\": {\"count\": 2, \"columns\": {\"stockOnHand\": [1]}}}")
+            .getBytes(StandardCharsets.UTF_8));
+    input.getHeaders().setContentType(COLUMNAR_JSON);
+
+    converter.read(RequisitionDto.class, input);
+  }
+
+  @Test
+  public void shouldWriteLessThanHalfOfDefaultPayload() throws IOException {
+    RequisitionDto large = prepareRequisition(100);
+    byte[] columnar = write(large).getBodyAsBytes();
+    byte[] json = objectMapper.writeValueAsBytes(large);
+
+    assertThat(columnar.length * 2, is(lessThan(json.length)));
+  }
+
+  private MockHttpOutputMessage write(Object object) throws IOException {
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converter.write(object, COLUMNAR_JSON, output);
+    assertEquals(COLUMNAR_JSON.getType(),
+        output.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE).split("/")[0]);
+    return output;
+  }
+
+  private List<Object> getIds(List<RequisitionLineItem.Importer> lineItems) {
+    return lineItems
+        .stream()
+        .map(RequisitionLineItem.Importer::getId)
+        .collect(Collectors.toList());
+  }
+
+  private static RequisitionDto prepareRequisition(int lineItems) {
+    RequisitionDto requisition = new RequisitionDataBuilder().buildAsDto();
+    List<RequisitionLineItemDto> lines = IntStream
+        .range(0, lineItems)
+        .mapToObj(idx -> new RequisitionLineItemDataBuilder()
+            .withStockOnHand(idx)
+            .buildAsDto())
+        .collect(Collectors.toList());
+    requisition.setRequisitionLineItems(lines);
+    return requisition;
+  }
+}
@@ -16,7 +16,9 @@
 package org.openlmis.requisition.web;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -43,4 +45,25 @@ public class ETagResourceTest {
 
     assertEquals(7L, version.longValue());
   }
+
+  @Test
+  public void shouldMatchVersionWithWeakAndStrongETags() {
+    assertTrue(ETagResource.matchesVersion("W/7", 7L));
+    assertTrue(ETagResource.matchesVersion("\"7\"", 7L));
+    assertTrue(ETagResource.matchesVersion("W/\"7\"", 7L));
+    assertTrue(ETagResource.matchesVersion("W/6, W/7", 7L));
+    assertTrue(ETagResource.matchesVersion("*", 7L));
+  }
+
+  @Test
+  public void shouldNotMatchOtherVersion() {
+    assertFalse(ETagResource.matchesVersion("W/6", 7L));
+    assertFalse(ETagResource.matchesVersion("W/17", 7L));
+  }
+
+  @Test
+  public void shouldNotMatchMissingETag() {
+    assertFalse(ETagResource.matchesVersion(null, 7L));
+    assertFalse(ETagResource.matchesVersion("", 7L));
+  }
 }
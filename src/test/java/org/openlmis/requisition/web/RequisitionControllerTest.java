@@ -111,6 +111,7 @@ import org.openlmis.requisition.repository.custom.ProcessedRequestsRedisReposito
 import org.openlmis.requisition.service.PeriodService;
 import org.openlmis.requisition.service.PermissionService;
 import org.openlmis.requisition.service.RequisitionService;
+import org.openlmis.requisition.service.RequisitionSnapshotService;
 import org.openlmis.requisition.service.RequisitionStatusNotifier;
 import org.openlmis.requisition.service.RequisitionStatusProcessor;
 import org.openlmis.requisition.service.RequisitionTemplateService;
@@ -121,8 +122,7 @@ import org.openlmis.requisition.service.referencedata.FacilityTypeApprovedProduc
 import org.openlmis.requisition.service.referencedata.OrderableReferenceDataService;
 import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
 import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
-import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
-import org.openlmis.requisition.service.referencedata.SupplyLineReferenceDataService;
+import org.openlmis.requisition.service.referencedata.SupervisoryNodeTopology;
 import org.openlmis.requisition.service.stockmanagement.StockCardRangeSummaryStockManagementService;
 import org.openlmis.requisition.service.stockmanagement.StockEventStockManagementService;
 import org.openlmis.requisition.service.stockmanagement.ValidReasonStockmanagementService;
@@ -200,7 +200,7 @@ public class RequisitionControllerTest {
   private OrderableReferenceDataService orderableReferenceDataService;
 
   @Mock
-  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+  private SupervisoryNodeTopology supervisoryNodeTopology;
 
   @Mock
   private ConfigurationSettingService configurationSettingService;
@@ -211,6 +211,9 @@ public class RequisitionControllerTest {
   @Mock
   private RequisitionStatusProcessor requisitionStatusProcessor;
 
+  @Mock
+  private RequisitionSnapshotService requisitionSnapshotService;
+
   @Mock
   private RequisitionStatusNotifier requisitionStatusNotifier;
 
@@ -229,9 +232,6 @@ public class RequisitionControllerTest {
   @Mock
   private ProgramReferenceDataService programReferenceDataService;
 
-  @Mock
-  private SupplyLineReferenceDataService supplyLineReferenceDataService;
-
   @Mock
   private FacilityReferenceDataService facilityReferenceDataService;
 
@@ -358,7 +358,8 @@ public class RequisitionControllerTest {
     when(requisitionSplitter.split(any(), any())).thenReturn(requisitionSplitResult);
     when(requisitionSplitResult.wasSplit()).thenReturn(false);
 
-    when(approvedProductReferenceDataService.getApprovedProducts(any(), any()))
+    when(approvedProductReferenceDataService
+        .getApprovedProducts(any(FacilityDto.class), any(UUID.class)))
         .thenReturn(new ApproveProductsAggregator(emptyList(), UUID.randomUUID()));
   }
 
@@ -863,8 +864,8 @@ public class RequisitionControllerTest {
     when(authorizedRequsition.getStatus()).thenReturn(RequisitionStatus.IN_APPROVAL);
 
     SupervisoryNodeDto partnerNode = DtoGenerator.of(SupervisoryNodeDto.class);
-    when(supervisoryNodeReferenceDataService.findByIds(Sets.newHashSet(partnerNode.getId())))
-        .thenReturn(Lists.newArrayList(partnerNode));
+    when(supervisoryNodeTopology.getSupervisoryNodes(Sets.newHashSet(partnerNode.getId())))
+        .thenReturn(Collections.singletonMap(partnerNode.getId(), partnerNode));
 
     Requisition partnerRequisition = mock(Requisition.class);
     when(partnerRequisition.getSupervisoryNodeId()).thenReturn(partnerNode.getId());
@@ -902,7 +903,7 @@ public class RequisitionControllerTest {
     when(parentNode.getId()).thenReturn(parentNodeId);
     supervisoryNode.setParentNode(parentNode);
 
-    when(supplyLineReferenceDataService.search(authorizedRequsition.getProgramId(),
+    when(supervisoryNodeTopology.getSupplyLines(authorizedRequsition.getProgramId(),
         authorizedRequsition.getSupervisoryNodeId())).thenReturn(null);
     when(authorizedRequsition.getStatus()).thenReturn(RequisitionStatus.IN_APPROVAL);
 
@@ -1265,7 +1266,7 @@ public class RequisitionControllerTest {
 
     requisitionController.callStatusChangeProcessor(mock(Profiler.class), requisition);
 
-    verify(supervisoryNodeReferenceDataService, never())
+    verify(supervisoryNodeTopology, never())
         .findSupervisoryNode(any(UUID.class), any(UUID.class));
     assertEquals(assignedSupervisoryNode, requisition.getSupervisoryNodeId());
   }
@@ -1277,7 +1278,7 @@ public class RequisitionControllerTest {
 
     requisitionController.callStatusChangeProcessor(mock(Profiler.class), requisition);
 
-    verify(supervisoryNodeReferenceDataService, never())
+    verify(supervisoryNodeTopology, never())
         .findSupervisoryNode(any(UUID.class), any(UUID.class));
     assertNull(requisition.getSupervisoryNodeId());
   }
@@ -1326,14 +1327,14 @@ public class RequisitionControllerTest {
   private void mockFindSupervisoryNodeByProgramAndFacility() {
     supervisoryNode = new SupervisoryNodeDtoDataBuilder().buildAsDto();
 
-    when(supervisoryNodeReferenceDataService.findSupervisoryNode(any(), any()))
+    when(supervisoryNodeTopology.findSupervisoryNode(any(), any()))
         .thenReturn(supervisoryNode);
   }
 
   private SupervisoryNodeDto mockSupervisoryNodeForApprove() {
     UUID supervisoryNodeId = UUID.randomUUID();
     SupervisoryNodeDto supervisoryNodeDto = new SupervisoryNodeDtoDataBuilder().buildAsDto();
-    when(supervisoryNodeReferenceDataService.findOne(supervisoryNodeId))
+    when(supervisoryNodeTopology.getSupervisoryNode(supervisoryNodeId))
         .thenReturn(supervisoryNodeDto);
     when(authorizedRequsition.getSupervisoryNodeId()).thenReturn(supervisoryNodeId);
     return supervisoryNodeDto;
@@ -1439,7 +1440,7 @@ public class RequisitionControllerTest {
         .withSupportLocallyFulfilled(locallyFulfills)
         .buildAsDto();
 
-    when(supplyLineReferenceDataService.search(
+    when(supervisoryNodeTopology.getSupplyLines(
         requisition.getProgramId(), requisition.getSupervisoryNodeId()))
         .thenReturn(Collections.singletonList(supplyLine));
     when(facilityReferenceDataService.findOne(supplyLine.getSupplyingFacility().getId()))
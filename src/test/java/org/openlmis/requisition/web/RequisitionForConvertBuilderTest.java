@@ -25,6 +25,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.powermock.api.mockito.PowerMockito.when;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.Before;
@@ -203,4 +204,21 @@ public class RequisitionForConvertBuilderTest {
     assertEquals(2, result.size());
     assertEquals(requisitionDto.getFacilityId(), result.get(0).getId());
   }
+
+  @Test
+  public void shouldGetAvailableSupplyingDepotsOfManyRequisitionsWithSingleSearch() {
+    when(supplyLineReferenceDataService.searchBySupervisoryNodes(asSet(
+        requisition1.getSupervisoryNodeId(), requisition2.getSupervisoryNodeId())))
+        .thenReturn(asList(supplyLine1, supplyLine2, supplyLine3, supplyLine4));
+
+    Map<UUID, List<FacilityDto>> result = requisitionForConvertBuilder
+        .getAvailableSupplyingDepots(asList(requisition1, requisition2, requisition3));
+
+    assertEquals(3, result.size());
+    assertEquals(asList(facility1, facility2), result.get(requisition1.getId()));
+    assertEquals(singletonList(facility2), result.get(requisition2.getId()));
+    assertEquals(singletonList(facility2), result.get(requisition3.getId()));
+    verify(supplyLineReferenceDataService).searchBySupervisoryNodes(any());
+    verifyNoMoreInteractions(supplyLineReferenceDataService);
+  }
 }
@@ -0,0 +1,217 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.dto.RequisitionDto;
+import org.openlmis.requisition.dto.RequisitionV2Dto;
+import org.openlmis.requisition.repository.custom.RequisitionResponsesRedisRepository;
+import org.openlmis.requisition.service.RequisitionSnapshotService;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("PMD.TooManyMethods")
+public class RequisitionResponseCacheTest {
+  private static final String REDIS_ENABLED = "redisEnabled";
+
+  @Mock
+  private RequisitionResponsesRedisRepository requisitionResponsesRedisRepository;
+
+  @Mock
+  private RequisitionSnapshotService requisitionSnapshotService;
+
+  @Mock
+  private HttpServletRequest request;
+
+  @Spy
+  private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  @InjectMocks
+  private RequisitionResponseCache cache;
+
+  private RequisitionDto body = new RequisitionDataBuilder().buildAsDto();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(cache, "maxSizeMegabytes", 1);
+    ReflectionTestUtils.setField(cache, "expireAfterWriteMinutes", 60);
+    cache.init();
+  }
+
+  @Test
+  public void shouldCacheBodyOfRequisitionInFinalStatus() throws Exception {
+    Requisition requisition = prepareRequisition(RequisitionStatus.RELEASED);
+
+    cache.save(requisition, RequisitionDto.class, body);
+
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(), RequisitionDto.class),
+        is(objectMapper.writeValueAsBytes(body)));
+  }
+
+  @Test
+  public void shouldNotCacheBodyOfRequisitionThatCanStillChange() {
+    Requisition requisition = prepareRequisition(RequisitionStatus.APPROVED);
+
+    cache.save(requisition, RequisitionDto.class, body);
+
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(), RequisitionDto.class),
+        is(nullValue()));
+  }
+
+  @Test
+  public void shouldNotFindBodyOfOtherVersionOrRepresentation() {
+    Requisition requisition = prepareRequisition(RequisitionStatus.SKIPPED);
+
+    cache.save(requisition, RequisitionDto.class, body);
+
+    assertThat(cache.find(requisition.getId(), requisition.getVersion() + 1,
+        RequisitionDto.class), is(nullValue()));
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(),
+        RequisitionV2Dto.class), is(nullValue()));
+  }
+
+  @Test
+  public void shouldShareBodiesThroughRedisIfEnabled() throws Exception {
+    ReflectionTestUtils.setField(cache, REDIS_ENABLED, true);
+    Requisition requisition = prepareRequisition(RequisitionStatus.RELEASED_WITHOUT_ORDER);
+    String key = requisition.getId() + ":" + requisition.getVersion() + ":RequisitionDto";
+    String json = objectMapper.writeValueAsString(body);
+
+    cache.save(requisition, RequisitionDto.class, body);
+    verify(requisitionResponsesRedisRepository).save(key, json);
+
+    cache.init();
+    when(requisitionResponsesRedisRepository.findByKey(key)).thenReturn(json);
+
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(), RequisitionDto.class),
+        is(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void shouldNotUseRedisIfDisabled() {
+    Requisition requisition = prepareRequisition(RequisitionStatus.RELEASED);
+
+    cache.save(requisition, RequisitionDto.class, body);
+    cache.init();
+
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(), RequisitionDto.class),
+        is(nullValue()));
+    verify(requisitionResponsesRedisRepository, never()).save(anyString(), anyString());
+    verify(requisitionResponsesRedisRepository, never()).findByKey(anyString());
+  }
+
+  @Test
+  public void shouldIgnoreRedisErrors() {
+    ReflectionTestUtils.setField(cache, REDIS_ENABLED, true);
+    Requisition requisition = prepareRequisition(RequisitionStatus.RELEASED);
+    doThrow(new RedisConnectionFailureException("test"))
+        .when(requisitionResponsesRedisRepository).findByKey(anyString());
+
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(), RequisitionDto.class),
+        is(nullValue()));
+  }
+
+  @Test
+  public void shouldReadBodyOfApprovedRequisitionFromSnapshot() throws Exception {
+    Requisition requisition = prepareRequisition(RequisitionStatus.APPROVED);
+    String json = objectMapper.writeValueAsString(body);
+    when(requisitionSnapshotService.findBody(requisition.getId(), requisition.getVersion()))
+        .thenReturn(json);
+
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(), RequisitionDto.class),
+        is(json.getBytes(StandardCharsets.UTF_8)));
+    assertThat(cache.find(requisition.getId(), requisition.getVersion(),
+        RequisitionV2Dto.class), is(nullValue()));
+  }
+
+  @Test
+  public void shouldSaveSnapshotOfApprovedRequisition() throws Exception {
+    when(requisitionSnapshotService.isEnabled()).thenReturn(true);
+    Requisition requisition = prepareRequisition(RequisitionStatus.APPROVED);
+
+    cache.save(requisition, RequisitionDto.class, body);
+
+    verify(requisitionSnapshotService)
+        .save(requisition, objectMapper.writeValueAsString(body));
+  }
+
+  @Test
+  public void shouldNotSaveSnapshotOfOtherRepresentation() {
+    when(requisitionSnapshotService.isEnabled()).thenReturn(true);
+    Requisition requisition = prepareRequisition(RequisitionStatus.RELEASED);
+
+    cache.save(requisition, RequisitionV2Dto.class, body);
+
+    verify(requisitionSnapshotService, never()).save(any(Requisition.class), anyString());
+  }
+
+  @Test
+  public void shouldBeApplicableIfClientPrefersJson() {
+    assertThat(isApplicable(null), is(true));
+    assertThat(isApplicable("application/json"), is(true));
+    assertThat(isApplicable("application/json, text/plain, */*"), is(true));
+    assertThat(isApplicable("*/*"), is(true));
+  }
+
+  @Test
+  public void shouldNotBeApplicableIfClientPrefersOtherRepresentation() {
+    assertThat(isApplicable(ColumnarJsonHttpMessageConverter.COLUMNAR_JSON_VALUE), is(false));
+    assertThat(isApplicable(ColumnarJsonHttpMessageConverter.COLUMNAR_JSON_VALUE
+        + ", application/json;q=0.5"), is(false));
+    assertThat(isApplicable("not a media type"), is(false));
+  }
+
+  @Test
+  public void shouldNotBeApplicableIfCacheIsDisabled() {
+    ReflectionTestUtils.setField(cache, "maxSizeMegabytes", 0);
+
+    assertThat(cache.isApplicable(request), is(false));
+  }
+
+  private boolean isApplicable(String accept) {
+    when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(accept);
+    return cache.isApplicable(request);
+  }
+
+  private Requisition prepareRequisition(RequisitionStatus status) {
+    return new RequisitionDataBuilder().withStatus(status).build();
+  }
+}
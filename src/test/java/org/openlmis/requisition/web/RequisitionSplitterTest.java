@@ -46,13 +46,12 @@ import org.openlmis.requisition.dto.ObjectReferenceDto;
 import org.openlmis.requisition.dto.SupervisoryNodeDto;
 import org.openlmis.requisition.dto.SupplyPartnerAssociationDto;
 import org.openlmis.requisition.dto.SupplyPartnerDto;
-import org.openlmis.requisition.dto.TogglzFeatureDto;
 import org.openlmis.requisition.i18n.MessageService;
 import org.openlmis.requisition.repository.RequisitionRepository;
 import org.openlmis.requisition.service.PermissionService;
-import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
+import org.openlmis.requisition.service.referencedata.FeatureToggles;
+import org.openlmis.requisition.service.referencedata.SupervisoryNodeTopology;
 import org.openlmis.requisition.service.referencedata.SupplyPartnerReferenceDataService;
-import org.openlmis.requisition.service.referencedata.TogglzReferenceDataService;
 import org.openlmis.requisition.testutils.DtoGenerator;
 import org.openlmis.requisition.testutils.StockAdjustmentReasonDataBuilder;
 import org.openlmis.requisition.testutils.SupplyPartnerAssociationDtoDataBuilder;
@@ -70,13 +69,13 @@ public class RequisitionSplitterTest {
   public MockitoRule rule = MockitoJUnit.rule();
 
   @Mock
-  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+  private SupervisoryNodeTopology supervisoryNodeTopology;
 
   @Mock
   private SupplyPartnerReferenceDataService supplyPartnerReferenceDataService;
 
   @Mock
-  private TogglzReferenceDataService togglzReferenceDataService;
+  private FeatureToggles featureToggles;
 
   @Mock
   private RequisitionRepository requisitionRepository;
@@ -105,8 +104,6 @@ public class RequisitionSplitterTest {
   private SupplyPartnerAssociationDto associationWithDifferentFacility;
   private SupplyPartnerAssociationDto associationWithDifferentOrderable;
 
-  private TogglzFeatureDto featureFlag;
-
   @Before
   public void setUp() {
     stockAdjustment = new StockAdjustmentDataBuilder().build();
@@ -180,22 +177,18 @@ public class RequisitionSplitterTest {
 
     supervisoryNodeId = supervisoryNode.getId();
 
-    featureFlag = new TogglzFeatureDto();
-    featureFlag.setName(RequisitionSplitter.MULTIPLE_SUPPLIERS);
-    featureFlag.setEnabled(true);
-
     Message message = new Message(LINE_ITEM_SUPPLIED_BY_OTHER_PARTNER);
     LocalizedMessage localizedMessage = message
         .new LocalizedMessage(LINE_ITEM_SUPPLIED_BY_OTHER_PARTNER);
 
     given(requisitionRepository.existsByOriginalRequisitionId(requisition.getId()))
         .willReturn(false);
-    given(supervisoryNodeReferenceDataService.findOne(supervisoryNode.getId()))
+    given(supervisoryNodeTopology.getSupervisoryNode(supervisoryNode.getId()))
         .willReturn(supervisoryNode);
     given(supplyPartnerReferenceDataService.search(partnerNodeIds))
         .willReturn(Lists.newArrayList(supplyPartner));
-    given(togglzReferenceDataService.findAll())
-        .willReturn(Lists.newArrayList(featureFlag));
+    given(featureToggles.isActive(RequisitionSplitter.MULTIPLE_SUPPLIERS))
+        .willReturn(true);
     given(messageService.localize(message))
         .willReturn(localizedMessage);
   }
@@ -203,7 +196,8 @@ public class RequisitionSplitterTest {
   @Test
   public void shouldNotSplitIfFeatureIsTurnedOff() {
     // given
-    featureFlag.setEnabled(false);
+    given(featureToggles.isActive(RequisitionSplitter.MULTIPLE_SUPPLIERS))
+        .willReturn(false);
 
     // when
     RequisitionSplitResult result = splitter.split(requisition, supervisoryNodeId);